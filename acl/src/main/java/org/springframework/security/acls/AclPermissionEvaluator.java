@@ -17,9 +17,14 @@
 package org.springframework.security.acls;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -88,6 +93,81 @@ public class AclPermissionEvaluator implements PermissionEvaluator {
 		return checkPermission(authentication, objectIdentity, permission);
 	}
 
+	/**
+	 * Determines whether the user has the given permission(s) on each of the domain
+	 * objects. The SIDs and permissions are resolved once, and all ACLs are read with a
+	 * single call to {@link AclService#readAclsById(List, List)}.
+	 */
+	@Override
+	public BitSet hasPermissions(Authentication authentication, List<?> domainObjects, Object permission) {
+		BitSet granted = new BitSet(domainObjects.size());
+		List<ObjectIdentity> objectIdentities = new ArrayList<>(domainObjects.size());
+		Set<ObjectIdentity> objectIdentitiesToRead = new LinkedHashSet<>();
+		for (Object domainObject : domainObjects) {
+			ObjectIdentity objectIdentity = (domainObject != null)
+					? this.objectIdentityRetrievalStrategy.getObjectIdentity(domainObject) : null;
+			objectIdentities.add(objectIdentity);
+			if (objectIdentity != null) {
+				objectIdentitiesToRead.add(objectIdentity);
+			}
+		}
+		if (objectIdentitiesToRead.isEmpty()) {
+			return granted;
+		}
+		List<Sid> sids = this.sidRetrievalStrategy.getSids(authentication);
+		List<Permission> requiredPermission = resolvePermission(permission);
+		this.logger.debug(LogMessage.of(() -> "Checking permission '" + permission + "' for "
+				+ objectIdentitiesToRead.size() + " objects"));
+		Map<ObjectIdentity, Acl> acls = readAcls(new ArrayList<>(objectIdentitiesToRead), sids);
+		for (int i = 0; i < objectIdentities.size(); i++) {
+			ObjectIdentity objectIdentity = objectIdentities.get(i);
+			if (objectIdentity == null) {
+				continue;
+			}
+			if (acls == null) {
+				// Some ACLs are missing, so check each object on its own
+				if (checkPermission(sids, objectIdentity, requiredPermission)) {
+					granted.set(i);
+				}
+			}
+			else if (isGranted(acls.get(objectIdentity), requiredPermission, sids)) {
+				granted.set(i);
+			}
+		}
+		return granted;
+	}
+
+	private Map<ObjectIdentity, Acl> readAcls(List<ObjectIdentity> objectIdentities, List<Sid> sids) {
+		try {
+			return this.aclService.readAclsById(objectIdentities, sids);
+		}
+		catch (NotFoundException ex) {
+			this.logger.debug("Not all ACLs were found, checking each object separately");
+			return null;
+		}
+	}
+
+	private boolean isGranted(Acl acl, List<Permission> requiredPermission, List<Sid> sids) {
+		if (acl == null) {
+			return false;
+		}
+		try {
+			return acl.isGranted(requiredPermission, sids, false);
+		}
+		catch (NotFoundException ex) {
+			return false;
+		}
+	}
+
+	private boolean checkPermission(List<Sid> sids, ObjectIdentity oid, List<Permission> requiredPermission) {
+		try {
+			return isGranted(this.aclService.readAclById(oid, sids), requiredPermission, sids);
+		}
+		catch (NotFoundException ex) {
+			return false;
+		}
+	}
+
 	private boolean checkPermission(Authentication authentication, ObjectIdentity oid, Object permission) {
 		// Obtain the SIDs applicable to the principal
 		List<Sid> sids = this.sidRetrievalStrategy.getSids(authentication);
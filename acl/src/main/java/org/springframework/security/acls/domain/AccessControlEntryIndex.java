@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.acls.domain;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.security.acls.model.AccessControlEntry;
+import org.springframework.security.acls.model.Permission;
+import org.springframework.security.acls.model.Sid;
+
+/**
+ * An index of the entries of an {@link AclImpl} by {@link Sid} and permission mask,
+ * which holds the first entry in ACL order for each combination. It is used by
+ * {@link DefaultPermissionGrantingStrategy} to find the first exact match of a
+ * <code>permission:sid</code> combination without scanning all entries.
+ *
+ * @since 5.6
+ */
+final class AccessControlEntryIndex {
+
+	private final List<AccessControlEntry> aces;
+
+	private final int size;
+
+	private final Map<Sid, Map<Integer, AccessControlEntry>> entries = new HashMap<>();
+
+	AccessControlEntryIndex(List<AccessControlEntry> aces) {
+		this.aces = aces;
+		this.size = aces.size();
+		for (AccessControlEntry ace : aces) {
+			this.entries.computeIfAbsent(ace.getSid(), (sid) -> new HashMap<>())
+					.putIfAbsent(ace.getPermission().getMask(), ace);
+		}
+	}
+
+	/**
+	 * @param aces the current entries of the ACL
+	 * @return whether this index was built from the given entries
+	 */
+	boolean isIndexOf(List<AccessControlEntry> aces) {
+		return this.aces == aces && this.size == aces.size();
+	}
+
+	/**
+	 * @param sid the SID to look for
+	 * @param permission the permission to look for
+	 * @return the first entry of the ACL with the given SID and exactly the mask of the
+	 * given permission, or null if there is none
+	 */
+	AccessControlEntry getFirstMatch(Sid sid, Permission permission) {
+		Map<Integer, AccessControlEntry> entries = this.entries.get(sid);
+		return (entries != null) ? entries.get(permission.getMask()) : null;
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.acls.domain;
+
+import java.io.Serializable;
+
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.util.Assert;
+
+/**
+ * A message that tells the {@link NearAclCache}s of other nodes to evict an ACL, or all
+ * ACLs, after it was changed. Sent and received through an
+ * {@link AclCacheInvalidationTransport}.
+ *
+ * @since 5.6
+ */
+public final class AclCacheInvalidation implements Serializable {
+
+	private final String origin;
+
+	private final Serializable id;
+
+	private final ObjectIdentity objectIdentity;
+
+	private AclCacheInvalidation(String origin, Serializable id, ObjectIdentity objectIdentity) {
+		Assert.hasText(origin, "origin cannot be empty");
+		this.origin = origin;
+		this.id = id;
+		this.objectIdentity = objectIdentity;
+	}
+
+	/**
+	 * Creates a message that evicts the ACL with the given primary key
+	 * @param origin the cache that sends the message
+	 * @param id the primary key of the ACL
+	 * @return the message
+	 */
+	public static AclCacheInvalidation evict(String origin, Serializable id) {
+		Assert.notNull(id, "id cannot be null");
+		return new AclCacheInvalidation(origin, id, null);
+	}
+
+	/**
+	 * Creates a message that evicts the ACL of the given object identity
+	 * @param origin the cache that sends the message
+	 * @param objectIdentity the object identity of the ACL
+	 * @return the message
+	 */
+	public static AclCacheInvalidation evict(String origin, ObjectIdentity objectIdentity) {
+		Assert.notNull(objectIdentity, "objectIdentity cannot be null");
+		return new AclCacheInvalidation(origin, null, objectIdentity);
+	}
+
+	/**
+	 * Creates a message that evicts all ACLs
+	 * @param origin the cache that sends the message
+	 * @return the message
+	 */
+	public static AclCacheInvalidation clear(String origin) {
+		return new AclCacheInvalidation(origin, null, null);
+	}
+
+	/**
+	 * @return the identifier of the cache that sent this message
+	 */
+	public String getOrigin() {
+		return this.origin;
+	}
+
+	/**
+	 * @return the primary key of the ACL to evict, or null
+	 */
+	public Serializable getId() {
+		return this.id;
+	}
+
+	/**
+	 * @return the object identity of the ACL to evict, or null
+	 */
+	public ObjectIdentity getObjectIdentity() {
+		return this.objectIdentity;
+	}
+
+	/**
+	 * @return whether all ACLs should be evicted
+	 */
+	public boolean isClear() {
+		return this.id == null && this.objectIdentity == null;
+	}
+
+	@Override
+	public String toString() {
+		return "AclCacheInvalidation[origin=" + this.origin + ", id=" + this.id + ", objectIdentity="
+				+ this.objectIdentity + "]";
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.acls.domain;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link AclCacheInvalidation}s between the {@link NearAclCache}s of different
+ * nodes, for example over a message broker or a database notification channel.
+ * Implementations should deliver each message to all subscribers, including those on
+ * the sending node.
+ *
+ * @since 5.6
+ * @see InMemoryAclCacheInvalidationTransport
+ */
+public interface AclCacheInvalidationTransport {
+
+	/**
+	 * Sends the message to all subscribers
+	 * @param invalidation the message to send
+	 */
+	void publish(AclCacheInvalidation invalidation);
+
+	/**
+	 * Registers a subscriber that receives all messages that are published
+	 * @param subscriber the subscriber
+	 */
+	void subscribe(Consumer<AclCacheInvalidation> subscriber);
+
+}
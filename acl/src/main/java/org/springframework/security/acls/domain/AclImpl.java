@@ -61,6 +61,8 @@ public class AclImpl implements Acl, MutableAcl, AuditableAcl, OwnershipAcl {
 
 	private boolean entriesInheriting = true;
 
+	private transient volatile AccessControlEntryIndex entryIndex;
+
 	/**
 	 * Minimal constructor, which should be used
 	 * {@link org.springframework.security.acls.model.MutableAclService#createAcl(ObjectIdentity)}
@@ -127,6 +129,7 @@ public class AclImpl implements Acl, MutableAcl, AuditableAcl, OwnershipAcl {
 		verifyAceIndexExists(aceIndex);
 		synchronized (this.aces) {
 			this.aces.remove(aceIndex);
+			this.entryIndex = null;
 		}
 	}
 
@@ -156,6 +159,7 @@ public class AclImpl implements Acl, MutableAcl, AuditableAcl, OwnershipAcl {
 		AccessControlEntryImpl ace = new AccessControlEntryImpl(null, this, sid, permission, granting, false, false);
 		synchronized (this.aces) {
 			this.aces.add(atIndexLocation, ace);
+			this.entryIndex = null;
 		}
 	}
 
@@ -166,6 +170,22 @@ public class AclImpl implements Acl, MutableAcl, AuditableAcl, OwnershipAcl {
 		return new ArrayList<>(this.aces);
 	}
 
+	/**
+	 * Returns an index of the entries by SID and permission mask, which is built when
+	 * first needed and rebuilt after the entries changed.
+	 * @return the index of the entries
+	 */
+	AccessControlEntryIndex getEntryIndex() {
+		AccessControlEntryIndex entryIndex = this.entryIndex;
+		if (entryIndex == null || !entryIndex.isIndexOf(this.aces)) {
+			synchronized (this.aces) {
+				entryIndex = new AccessControlEntryIndex(this.aces);
+				this.entryIndex = entryIndex;
+			}
+		}
+		return entryIndex;
+	}
+
 	@Override
 	public Serializable getId() {
 		return this.id;
@@ -261,6 +281,7 @@ public class AclImpl implements Acl, MutableAcl, AuditableAcl, OwnershipAcl {
 		synchronized (this.aces) {
 			AccessControlEntryImpl ace = (AccessControlEntryImpl) this.aces.get(aceIndex);
 			ace.setPermission(permission);
+			this.entryIndex = null;
 		}
 	}
 
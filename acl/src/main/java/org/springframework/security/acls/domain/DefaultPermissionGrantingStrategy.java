@@ -16,6 +16,7 @@
 
 package org.springframework.security.acls.domain;
 
+import java.lang.reflect.Method;
 import java.util.List;
 
 import org.springframework.security.acls.model.AccessControlEntry;
@@ -25,11 +26,14 @@ import org.springframework.security.acls.model.Permission;
 import org.springframework.security.acls.model.PermissionGrantingStrategy;
 import org.springframework.security.acls.model.Sid;
 import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
 
 public class DefaultPermissionGrantingStrategy implements PermissionGrantingStrategy {
 
 	private final transient AuditLogger auditLogger;
 
+	private final boolean entryIndexSupported;
+
 	/**
 	 * Creates an instance with the logger which will be used to record granting and
 	 * denial of requested permissions.
@@ -37,6 +41,10 @@ public class DefaultPermissionGrantingStrategy implements PermissionGrantingStra
 	public DefaultPermissionGrantingStrategy(AuditLogger auditLogger) {
 		Assert.notNull(auditLogger, "auditLogger cannot be null");
 		this.auditLogger = auditLogger;
+		// The index only applies to exact mask comparisons
+		Method isGranted = ReflectionUtils.findMethod(getClass(), "isGranted", AccessControlEntry.class,
+				Permission.class);
+		this.entryIndexSupported = isGranted.getDeclaringClass() == DefaultPermissionGrantingStrategy.class;
 	}
 
 	/**
@@ -62,6 +70,10 @@ public class DefaultPermissionGrantingStrategy implements PermissionGrantingStra
 	 * decide how to handle the permission check. Similarly, if any of the SID arguments
 	 * presented to the method were not loaded by the ACL,
 	 * <code>UnloadedSidException</code> will be thrown.
+	 * <p>
+	 * For an {@link AclImpl}, the first match is found in an index of its entries by SID
+	 * and permission mask, unless {@link #isGranted(AccessControlEntry, Permission)} is
+	 * overridden.
 	 * @param permission the exact permissions to scan for (order is important)
 	 * @param sids the exact SIDs to scan for (order is important)
 	 * @param administrativeMode if <code>true</code> denotes the query is for
@@ -74,37 +86,33 @@ public class DefaultPermissionGrantingStrategy implements PermissionGrantingStra
 	@Override
 	public boolean isGranted(Acl acl, List<Permission> permission, List<Sid> sids, boolean administrativeMode)
 			throws NotFoundException {
-		List<AccessControlEntry> aces = acl.getEntries();
+		AccessControlEntryIndex index = (this.entryIndexSupported && acl instanceof AclImpl)
+				? ((AclImpl) acl).getEntryIndex() : null;
+		List<AccessControlEntry> aces = (index != null) ? null : acl.getEntries();
 		AccessControlEntry firstRejection = null;
 		for (Permission p : permission) {
 			for (Sid sid : sids) {
 				// Attempt to find exact match for this permission mask and SID
-				boolean scanNextSid = true;
-				for (AccessControlEntry ace : aces) {
-					if (isGranted(ace, p) && ace.getSid().equals(sid)) {
-						// Found a matching ACE, so its authorization decision will
-						// prevail
-						if (ace.isGranting()) {
-							// Success
-							if (!administrativeMode) {
-								this.auditLogger.logIfNeeded(true, ace);
-							}
-							return true;
-						}
-
-						// Failure for this permission, so stop search
-						// We will see if they have a different permission
-						// (this permission is 100% rejected for this SID)
-						if (firstRejection == null) {
-							// Store first rejection for auditing reasons
-							firstRejection = ace;
+				AccessControlEntry ace = (index != null) ? index.getFirstMatch(sid, p) : findFirstMatch(aces, p, sid);
+				if (ace != null) {
+					// Found a matching ACE, so its authorization decision will
+					// prevail
+					if (ace.isGranting()) {
+						// Success
+						if (!administrativeMode) {
+							this.auditLogger.logIfNeeded(true, ace);
 						}
-						scanNextSid = false; // helps break the loop
+						return true;
+					}
 
-						break; // exit aces loop
+					// Failure for this permission, so stop search
+					// We will see if they have a different permission
+					// (this permission is 100% rejected for this SID)
+					if (firstRejection == null) {
+						// Store first rejection for auditing reasons
+						firstRejection = ace;
 					}
-				}
-				if (!scanNextSid) {
+
 					break; // exit SID for loop (now try next permission)
 				}
 			}
@@ -129,6 +137,15 @@ public class DefaultPermissionGrantingStrategy implements PermissionGrantingStra
 		throw new NotFoundException("Unable to locate a matching ACE for passed permissions and SIDs");
 	}
 
+	private AccessControlEntry findFirstMatch(List<AccessControlEntry> aces, Permission p, Sid sid) {
+		for (AccessControlEntry ace : aces) {
+			if (isGranted(ace, p) && ace.getSid().equals(sid)) {
+				return ace;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Compares an ACE Permission to the given Permission. By default, we compare the
 	 * Permission masks for exact match. Subclasses of this strategy can override this
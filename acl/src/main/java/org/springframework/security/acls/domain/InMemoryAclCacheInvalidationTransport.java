@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.acls.domain;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.util.Assert;
+
+/**
+ * An {@link AclCacheInvalidationTransport} that delivers messages to the subscribers in
+ * the same JVM, in the thread that publishes them. Useful for tests, or for several
+ * caches within one application.
+ *
+ * @since 5.6
+ */
+public final class InMemoryAclCacheInvalidationTransport implements AclCacheInvalidationTransport {
+
+	private final List<Consumer<AclCacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void publish(AclCacheInvalidation invalidation) {
+		Assert.notNull(invalidation, "invalidation cannot be null");
+		for (Consumer<AclCacheInvalidation> subscriber : this.subscribers) {
+			subscriber.accept(invalidation);
+		}
+	}
+
+	@Override
+	public void subscribe(Consumer<AclCacheInvalidation> subscriber) {
+		Assert.notNull(subscriber, "subscriber cannot be null");
+		this.subscribers.add(subscriber);
+	}
+
+}
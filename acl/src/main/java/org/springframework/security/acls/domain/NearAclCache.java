@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.acls.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.log.LogMessage;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.AclCache;
+import org.springframework.security.acls.model.MutableAcl;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link AclCache} that keeps ACLs in local memory, and evicts them on all nodes when
+ * they change.
+ * <p>
+ * ACLs are held by reference, so unlike {@link SpringCacheBasedAclCache} and
+ * {@link EhCacheBasedAclCache} there is no serialization on each lookup. Each ACL is
+ * indexed by its primary key, and the {@link ObjectIdentity} is mapped to that key.
+ * <p>
+ * Evicting an ACL also evicts all cached ACLs that inherit from it, directly or through
+ * their parents, since those hold a reference to the evicted ACL. Evictions and
+ * {@link #clearCache()} are published through the {@link AclCacheInvalidationTransport},
+ * if one is configured, and applied to the caches of the other nodes when they are
+ * received.
+ *
+ * @since 5.6
+ */
+public class NearAclCache implements AclCache {
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final String origin = UUID.randomUUID().toString();
+
+	private final AclCacheInvalidationTransport transport;
+
+	private final Object monitor = new Object();
+
+	private final Map<Serializable, MutableAcl> aclsById = new ConcurrentHashMap<>();
+
+	private final Map<ObjectIdentity, Serializable> idsByObjectIdentity = new ConcurrentHashMap<>();
+
+	// guarded by monitor
+	private final Map<Serializable, Set<Serializable>> childIdsByParentId = new HashMap<>();
+
+	private int maximumSize = 10000;
+
+	/**
+	 * Creates a cache for a single node
+	 */
+	public NearAclCache() {
+		this.transport = null;
+	}
+
+	/**
+	 * Creates a cache that exchanges evictions with the caches of other nodes
+	 * @param transport the transport of evictions between nodes
+	 */
+	public NearAclCache(AclCacheInvalidationTransport transport) {
+		Assert.notNull(transport, "transport cannot be null");
+		this.transport = transport;
+		transport.subscribe(this::onInvalidation);
+	}
+
+	@Override
+	public MutableAcl getFromCache(ObjectIdentity objectIdentity) {
+		Assert.notNull(objectIdentity, "ObjectIdentity required");
+		Serializable id = this.idsByObjectIdentity.get(objectIdentity);
+		return (id != null) ? this.aclsById.get(id) : null;
+	}
+
+	@Override
+	public MutableAcl getFromCache(Serializable pk) {
+		Assert.notNull(pk, "Primary key (identifier) required");
+		return this.aclsById.get(pk);
+	}
+
+	@Override
+	public void putInCache(MutableAcl acl) {
+		Assert.notNull(acl, "Acl required");
+		Assert.notNull(acl.getObjectIdentity(), "ObjectIdentity required");
+		Assert.notNull(acl.getId(), "ID required");
+		synchronized (this.monitor) {
+			put(acl);
+			if (this.aclsById.size() > this.maximumSize) {
+				trim();
+			}
+		}
+	}
+
+	private void put(MutableAcl acl) {
+		Acl parent = acl.getParentAcl();
+		if (parent instanceof MutableAcl) {
+			put((MutableAcl) parent);
+		}
+		Serializable id = acl.getId();
+		MutableAcl previous = this.aclsById.put(id, acl);
+		if (previous != null && previous != acl) {
+			unlinkFromParent(previous);
+			this.idsByObjectIdentity.remove(previous.getObjectIdentity(), id);
+		}
+		this.idsByObjectIdentity.put(acl.getObjectIdentity(), id);
+		if (parent instanceof MutableAcl) {
+			Serializable parentId = ((MutableAcl) parent).getId();
+			this.childIdsByParentId.computeIfAbsent(parentId, (key) -> new HashSet<>()).add(id);
+		}
+	}
+
+	private void trim() {
+		int target = this.maximumSize - this.maximumSize / 10;
+		List<Serializable> ids = new ArrayList<>(this.aclsById.keySet());
+		for (int i = 0; i < ids.size() && this.aclsById.size() > target; i++) {
+			evictById(ids.get(i));
+		}
+	}
+
+	@Override
+	public void evictFromCache(Serializable pk) {
+		Assert.notNull(pk, "Primary key (identifier) required");
+		synchronized (this.monitor) {
+			evictById(pk);
+		}
+		publish(AclCacheInvalidation.evict(this.origin, pk));
+	}
+
+	@Override
+	public void evictFromCache(ObjectIdentity objectIdentity) {
+		Assert.notNull(objectIdentity, "ObjectIdentity required");
+		synchronized (this.monitor) {
+			evictByObjectIdentity(objectIdentity);
+		}
+		publish(AclCacheInvalidation.evict(this.origin, objectIdentity));
+	}
+
+	@Override
+	public void clearCache() {
+		synchronized (this.monitor) {
+			clear();
+		}
+		publish(AclCacheInvalidation.clear(this.origin));
+	}
+
+	private void evictByObjectIdentity(ObjectIdentity objectIdentity) {
+		Serializable id = this.idsByObjectIdentity.get(objectIdentity);
+		if (id != null) {
+			evictById(id);
+		}
+	}
+
+	private void evictById(Serializable id) {
+		MutableAcl acl = this.aclsById.remove(id);
+		if (acl != null) {
+			this.idsByObjectIdentity.remove(acl.getObjectIdentity(), id);
+			unlinkFromParent(acl);
+		}
+		// The children refer to the evicted ACL, so evict them as well
+		Set<Serializable> childIds = this.childIdsByParentId.remove(id);
+		if (childIds != null) {
+			for (Serializable childId : childIds) {
+				evictById(childId);
+			}
+		}
+	}
+
+	private void unlinkFromParent(MutableAcl acl) {
+		Acl parent = acl.getParentAcl();
+		if (!(parent instanceof MutableAcl)) {
+			return;
+		}
+		Serializable parentId = ((MutableAcl) parent).getId();
+		Set<Serializable> childIds = this.childIdsByParentId.get(parentId);
+		if (childIds != null && childIds.remove(acl.getId()) && childIds.isEmpty()) {
+			this.childIdsByParentId.remove(parentId);
+		}
+	}
+
+	private void clear() {
+		this.aclsById.clear();
+		this.idsByObjectIdentity.clear();
+		this.childIdsByParentId.clear();
+	}
+
+	private void publish(AclCacheInvalidation invalidation) {
+		if (this.transport != null) {
+			this.transport.publish(invalidation);
+		}
+	}
+
+	private void onInvalidation(AclCacheInvalidation invalidation) {
+		if (this.origin.equals(invalidation.getOrigin())) {
+			return;
+		}
+		this.logger.debug(LogMessage.format("Received %s", invalidation));
+		synchronized (this.monitor) {
+			if (invalidation.isClear()) {
+				clear();
+			}
+			else if (invalidation.getId() != null) {
+				evictById(invalidation.getId());
+			}
+			else {
+				evictByObjectIdentity(invalidation.getObjectIdentity());
+			}
+		}
+	}
+
+	/**
+	 * Sets the maximum number of cached ACLs. When exceeded, ACLs are evicted until the
+	 * cache holds 90% of the maximum. The default is 10000.
+	 * @param maximumSize the maximum number of cached ACLs
+	 */
+	public void setMaximumSize(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0");
+		this.maximumSize = maximumSize;
+	}
+
+}
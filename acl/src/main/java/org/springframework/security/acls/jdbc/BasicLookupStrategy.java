@@ -25,9 +25,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.sql.DataSource;
 
@@ -56,6 +61,7 @@ import org.springframework.security.acls.model.PermissionGrantingStrategy;
 import org.springframework.security.acls.model.Sid;
 import org.springframework.security.acls.model.UnloadedSidException;
 import org.springframework.security.util.FieldUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
 /**
@@ -75,6 +81,23 @@ import org.springframework.util.Assert;
  * or column names, each of these SQL clauses can be customized, but they must be
  * consistent with each other and with the expected result set generated by the the
  * default values.
+ * <p>
+ * The number of parameters of each query is rounded up to a power of two, up to the
+ * batch size, by repeating the last parameter. This keeps the number of distinct SQL
+ * statements small, so that prepared statements can be cached by the JDBC driver or
+ * connection pool.
+ * <p>
+ * By default, the parents of the loaded ACLs are looked up one level of inheritance at a
+ * time. If the database supports recursive common table expressions, all ancestors can
+ * be loaded with a single query instead, by setting the
+ * {@link #setLookupAncestorsWithClause(String) with clause} to
+ * {@link #DEFAULT_LOOKUP_ANCESTORS_WITH_CLAUSE} or a variant for the database.
+ * <p>
+ * When several threads look up the same {@link ObjectIdentity} at the same time, only
+ * one of them loads it from the database, and the others use its result. Lookups within
+ * an active transaction are neither shared nor share the loads of other threads, since
+ * they may need to see changes that other transactions cannot see yet, such as those
+ * made by {@link JdbcMutableAclService}.
  *
  * @author Ben Alex
  */
@@ -107,6 +130,19 @@ public class BasicLookupStrategy implements LookupStrategy {
 	public static final String DEFAULT_ORDER_BY_CLAUSE = ") order by acl_object_identity.object_id_identity"
 			+ " asc, acl_entry.ace_order asc";
 
+	/**
+	 * A recursive common table expression that selects the ids of the ACLs to look up,
+	 * and of all their ancestors. {@code %s} is replaced by the repeated
+	 * {@link #setLookupPrimaryKeysWhereClause(String) primary keys where clause}.
+	 */
+	public static final String DEFAULT_LOOKUP_ANCESTORS_WITH_CLAUSE = "with recursive acl_ancestor (id) as ("
+			+ "select acl_object_identity.id from acl_object_identity where %s "
+			+ "union select acl_object_identity.parent_object from acl_object_identity "
+			+ "join acl_ancestor on acl_object_identity.id = acl_ancestor.id "
+			+ "where acl_object_identity.parent_object is not null) ";
+
+	public static final String DEFAULT_LOOKUP_ANCESTORS_WHERE_CLAUSE = "(acl_object_identity.id in (select id from acl_ancestor))";
+
 	private final AclAuthorizationStrategy aclAuthorizationStrategy;
 
 	private PermissionFactory permissionFactory = new DefaultPermissionFactory();
@@ -132,8 +168,14 @@ public class BasicLookupStrategy implements LookupStrategy {
 
 	private String orderByClause = DEFAULT_ORDER_BY_CLAUSE;
 
+	private String lookupAncestorsWithClause;
+
+	private String lookupAncestorsWhereClause = DEFAULT_LOOKUP_ANCESTORS_WHERE_CLAUSE;
+
 	private AclClassIdUtils aclClassIdUtils;
 
+	private final ConcurrentMap<ObjectIdentity, CompletableFuture<Acl>> inFlight = new ConcurrentHashMap<>();
+
 	/**
 	 * Constructor accepting mandatory arguments
 	 * @param dataSource to access the database
@@ -168,22 +210,35 @@ public class BasicLookupStrategy implements LookupStrategy {
 	}
 
 	private String computeRepeatingSql(String repeatingSql, int requiredRepetitions) {
+		return this.selectClause + repeat(repeatingSql, requiredRepetitions) + this.orderByClause;
+	}
+
+	private String repeat(String repeatingSql, int requiredRepetitions) {
 		Assert.isTrue(requiredRepetitions > 0, "requiredRepetitions must be > 0");
-		String startSql = this.selectClause;
-		String endSql = this.orderByClause;
-		StringBuilder sqlStringBldr = new StringBuilder(
-				startSql.length() + endSql.length() + requiredRepetitions * (repeatingSql.length() + 4));
-		sqlStringBldr.append(startSql);
+		StringBuilder sqlStringBldr = new StringBuilder(requiredRepetitions * (repeatingSql.length() + 4));
 		for (int i = 1; i <= requiredRepetitions; i++) {
 			sqlStringBldr.append(repeatingSql);
 			if (i != requiredRepetitions) {
 				sqlStringBldr.append(" or ");
 			}
 		}
-		sqlStringBldr.append(endSql);
 		return sqlStringBldr.toString();
 	}
 
+	/**
+	 * Rounds the number of parameters of a query up to the next power of two, but not
+	 * beyond the batch size, so that only a few distinct statements are executed.
+	 * @param size the number of values to look up
+	 * @return the number of parameters of the query
+	 */
+	private int computeParameterCount(int size) {
+		if (size >= this.batchSize) {
+			return size;
+		}
+		int parameterCount = Integer.highestOneBit(size);
+		return (parameterCount == size) ? size : Math.min(parameterCount << 1, this.batchSize);
+	}
+
 	@SuppressWarnings("unchecked")
 	private List<AccessControlEntryImpl> readAces(AclImpl acl) {
 		try {
@@ -222,21 +277,48 @@ public class BasicLookupStrategy implements LookupStrategy {
 	private void lookupPrimaryKeys(final Map<Serializable, Acl> acls, final Set<Long> findNow, final List<Sid> sids) {
 		Assert.notNull(acls, "ACLs are required");
 		Assert.notEmpty(findNow, "Items to find now required");
-		String sql = computeRepeatingSql(this.lookupPrimaryKeysWhereClause, findNow.size());
-		Set<Long> parentsToLookup = this.jdbcTemplate.query(sql, (ps) -> setKeys(ps, findNow),
+		int parameterCount = computeParameterCount(findNow.size());
+		String sql = computeRepeatingSql(this.lookupPrimaryKeysWhereClause, parameterCount);
+		Set<Long> parentsToLookup = this.jdbcTemplate.query(sql, (ps) -> setKeys(ps, findNow, parameterCount),
 				new ProcessResultSet(acls, sids));
 		// Lookup the parents, now that our JdbcTemplate has released the database
 		// connection (SEC-547)
-		if (parentsToLookup.size() > 0) {
-			lookupPrimaryKeys(acls, parentsToLookup, sids);
+		lookupParents(acls, parentsToLookup, sids);
+	}
+
+	/**
+	 * Locates the parents that are not yet in the "acls" Map, either with a single query
+	 * for all their ancestors or one level of inheritance at a time.
+	 */
+	private void lookupParents(Map<Serializable, Acl> acls, Set<Long> parentsToLookup, List<Sid> sids) {
+		// A parent may have been read after the ACLs that refer to it
+		parentsToLookup.removeIf(acls::containsKey);
+		if (parentsToLookup.isEmpty()) {
+			return;
 		}
+		if (this.lookupAncestorsWithClause != null) {
+			int parameterCount = computeParameterCount(parentsToLookup.size());
+			String sql = String.format(this.lookupAncestorsWithClause,
+					repeat(this.lookupPrimaryKeysWhereClause, parameterCount))
+					+ computeRepeatingSql(this.lookupAncestorsWhereClause, 1);
+			Set<Long> remaining = this.jdbcTemplate.query(sql, (ps) -> setKeys(ps, parentsToLookup, parameterCount),
+					new ProcessResultSet(acls, sids));
+			remaining.removeIf(acls::containsKey);
+			if (!remaining.isEmpty()) {
+				lookupPrimaryKeys(acls, remaining, sids);
+			}
+			return;
+		}
+		lookupPrimaryKeys(acls, parentsToLookup, sids);
 	}
 
-	private void setKeys(PreparedStatement ps, Set<Long> findNow) throws SQLException {
+	private void setKeys(PreparedStatement ps, Set<Long> findNow, int parameterCount) throws SQLException {
 		int i = 0;
-		for (Long toFind : findNow) {
-			i++;
-			ps.setLong(i, toFind);
+		Long toFind = null;
+		for (Iterator<Long> keys = findNow.iterator(); i < parameterCount; i++) {
+			// Repeat the last key to fill the remaining parameters
+			toFind = keys.hasNext() ? keys.next() : toFind;
+			ps.setLong(i + 1, toFind);
 		}
 	}
 
@@ -265,48 +347,101 @@ public class BasicLookupStrategy implements LookupStrategy {
 		// Map<ObjectIdentity,Acl>
 		// contains FULLY loaded Acl objects
 		Map<ObjectIdentity, Acl> result = new HashMap<>();
-		Set<ObjectIdentity> currentBatchToLoad = new HashSet<>();
-		for (int i = 0; i < objects.size(); i++) {
-			final ObjectIdentity oid = objects.get(i);
-			boolean aclFound = false;
-			// Check we don't already have this ACL in the results
-			if (result.containsKey(oid)) {
-				aclFound = true;
-			}
-			// Check cache for the present ACL entry
-			if (!aclFound) {
-				Acl acl = this.aclCache.getFromCache(oid);
-				// Ensure any cached element supports all the requested SIDs
-				// (they should always, as our base impl doesn't filter on SID)
-				if (acl != null) {
-					Assert.state(acl.isSidLoaded(sids),
-							"Error: SID-filtered element detected when implementation does not perform SID filtering "
-									+ "- have you added something to the cache manually?");
-					result.put(acl.getObjectIdentity(), acl);
+		Map<ObjectIdentity, CompletableFuture<Acl>> currentBatchToLoad = new HashMap<>();
+		// ACLs that are being loaded by other threads
+		Map<ObjectIdentity, CompletableFuture<Acl>> loading = new HashMap<>();
+		// ACLs that other threads may be waiting for
+		Map<ObjectIdentity, CompletableFuture<Acl>> registered = new HashMap<>();
+		boolean shareLoads = !TransactionSynchronizationManager.isActualTransactionActive();
+		try {
+			for (int i = 0; i < objects.size(); i++) {
+				final ObjectIdentity oid = objects.get(i);
+				boolean aclFound = false;
+				// Check we don't already have this ACL in the results
+				if (result.containsKey(oid) || currentBatchToLoad.containsKey(oid) || loading.containsKey(oid)) {
 					aclFound = true;
 				}
-			}
-			// Load the ACL from the database
-			if (!aclFound) {
-				currentBatchToLoad.add(oid);
-			}
-			// Is it time to load from JDBC the currentBatchToLoad?
-			if ((currentBatchToLoad.size() == this.batchSize) || ((i + 1) == objects.size())) {
-				if (currentBatchToLoad.size() > 0) {
-					Map<ObjectIdentity, Acl> loadedBatch = lookupObjectIdentities(currentBatchToLoad, sids);
-					// Add loaded batch (all elements 100% initialized) to results
-					result.putAll(loadedBatch);
-					// Add the loaded batch to the cache
-					for (Acl loadedAcl : loadedBatch.values()) {
-						this.aclCache.putInCache((AclImpl) loadedAcl);
+				// Check cache for the present ACL entry
+				if (!aclFound) {
+					Acl acl = this.aclCache.getFromCache(oid);
+					// Ensure any cached element supports all the requested SIDs
+					// (they should always, as our base impl doesn't filter on SID)
+					if (acl != null) {
+						Assert.state(acl.isSidLoaded(sids),
+								"Error: SID-filtered element detected when implementation does not perform SID "
+										+ "filtering - have you added something to the cache manually?");
+						result.put(acl.getObjectIdentity(), acl);
+						aclFound = true;
+					}
+				}
+				// Load the ACL from the database, unless another thread is loading it
+				if (!aclFound) {
+					CompletableFuture<Acl> load = new CompletableFuture<>();
+					CompletableFuture<Acl> inFlight = shareLoads ? this.inFlight.putIfAbsent(oid, load) : null;
+					if (inFlight != null) {
+						loading.put(oid, inFlight);
+					}
+					else {
+						currentBatchToLoad.put(oid, load);
+						if (shareLoads) {
+							registered.put(oid, load);
+						}
 					}
-					currentBatchToLoad.clear();
 				}
+				// Is it time to load from JDBC the currentBatchToLoad?
+				if ((currentBatchToLoad.size() == this.batchSize) || ((i + 1) == objects.size())) {
+					if (currentBatchToLoad.size() > 0) {
+						loadBatch(currentBatchToLoad, sids, result);
+						currentBatchToLoad.clear();
+					}
+				}
+			}
+		}
+		catch (Throwable ex) {
+			// never leave other threads waiting for a load that will not happen
+			registered.forEach((oid, load) -> {
+				load.completeExceptionally(ex);
+				this.inFlight.remove(oid, load);
+			});
+			throw ex;
+		}
+		// Only wait for other threads once our own batches have been loaded
+		for (CompletableFuture<Acl> load : loading.values()) {
+			Acl acl = join(load);
+			if (acl != null) {
+				result.put(acl.getObjectIdentity(), acl);
 			}
 		}
 		return result;
 	}
 
+	private void loadBatch(Map<ObjectIdentity, CompletableFuture<Acl>> batch, List<Sid> sids,
+			Map<ObjectIdentity, Acl> result) {
+		Map<ObjectIdentity, Acl> loadedBatch = lookupObjectIdentities(batch.keySet(), sids);
+		// Add loaded batch (all elements 100% initialized) to results
+		result.putAll(loadedBatch);
+		// Add the loaded batch to the cache
+		for (Acl loadedAcl : loadedBatch.values()) {
+			this.aclCache.putInCache((AclImpl) loadedAcl);
+		}
+		batch.forEach((oid, load) -> {
+			load.complete(loadedBatch.get(oid));
+			this.inFlight.remove(oid, load);
+		});
+	}
+
+	private Acl join(CompletableFuture<Acl> load) {
+		try {
+			return load.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw new IllegalStateException("Failed to load ACL", ex.getCause());
+		}
+	}
+
 	/**
 	 * Looks up a batch of <code>ObjectIdentity</code>s directly from the database.
 	 * <p>
@@ -326,16 +461,16 @@ public class BasicLookupStrategy implements LookupStrategy {
 
 		// Make the "acls" map contain all requested objectIdentities
 		// (including markers to each parent in the hierarchy)
-		String sql = computeRepeatingSql(this.lookupObjectIdentitiesWhereClause, objectIdentities.size());
+		int parameterCount = computeParameterCount(objectIdentities.size());
+		String sql = computeRepeatingSql(this.lookupObjectIdentitiesWhereClause, parameterCount);
 
 		Set<Long> parentsToLookup = this.jdbcTemplate.query(sql,
-				(ps) -> setupLookupObjectIdentitiesStatement(ps, objectIdentities), new ProcessResultSet(acls, sids));
+				(ps) -> setupLookupObjectIdentitiesStatement(ps, objectIdentities, parameterCount),
+				new ProcessResultSet(acls, sids));
 
 		// Lookup the parents, now that our JdbcTemplate has released the database
 		// connection (SEC-547)
-		if (parentsToLookup.size() > 0) {
-			lookupPrimaryKeys(acls, parentsToLookup, sids);
-		}
+		lookupParents(acls, parentsToLookup, sids);
 
 		// Finally, convert our "acls" containing StubAclParents into true Acls
 		Map<ObjectIdentity, Acl> resultMap = new HashMap<>();
@@ -349,10 +484,14 @@ public class BasicLookupStrategy implements LookupStrategy {
 		return resultMap;
 	}
 
-	private void setupLookupObjectIdentitiesStatement(PreparedStatement ps, Collection<ObjectIdentity> objectIdentities)
-			throws SQLException {
+	private void setupLookupObjectIdentitiesStatement(PreparedStatement ps, Collection<ObjectIdentity> objectIdentities,
+			int parameterCount) throws SQLException {
 		int i = 0;
-		for (ObjectIdentity oid : objectIdentities) {
+		ObjectIdentity oid = null;
+		for (Iterator<ObjectIdentity> oids = objectIdentities.iterator(); i < parameterCount; i++) {
+			// Repeat the last identity to fill the remaining parameters
+			oid = oids.hasNext() ? oids.next() : oid;
+
 			// Determine prepared statement values for this iteration
 			String type = oid.getType();
 
@@ -363,7 +502,6 @@ public class BasicLookupStrategy implements LookupStrategy {
 			// Inject values
 			ps.setString((2 * i) + 1, identifier);
 			ps.setString((2 * i) + 2, type);
-			i++;
 		}
 	}
 
@@ -479,6 +617,30 @@ public class BasicLookupStrategy implements LookupStrategy {
 		this.orderByClause = orderByClause;
 	}
 
+	/**
+	 * The SQL for a common table expression that selects the ids of ACLs and all their
+	 * ancestors, which enables loading all ancestors of the requested ACLs with a single
+	 * query. {@code %s} is replaced by the repeated <tt>lookupPrimaryKeys</tt> where
+	 * clause. The default is {@code null}, which looks up the ancestors one level of
+	 * inheritance at a time.
+	 * @param lookupAncestorsWithClause the with clause, for example
+	 * {@link #DEFAULT_LOOKUP_ANCESTORS_WITH_CLAUSE} for databases that support
+	 * {@code with recursive}
+	 */
+	public final void setLookupAncestorsWithClause(String lookupAncestorsWithClause) {
+		this.lookupAncestorsWithClause = lookupAncestorsWithClause;
+	}
+
+	/**
+	 * The SQL for the where clause that selects the ACLs of the common table expression
+	 * set with {@link #setLookupAncestorsWithClause(String)}.
+	 * @param lookupAncestorsWhereClause the where clause, which defaults to
+	 * {@link #DEFAULT_LOOKUP_ANCESTORS_WHERE_CLAUSE}
+	 */
+	public final void setLookupAncestorsWhereClause(String lookupAncestorsWhereClause) {
+		this.lookupAncestorsWhereClause = lookupAncestorsWhereClause;
+	}
+
 	public final void setAclClassIdSupported(boolean aclClassIdSupported) {
 		if (aclClassIdSupported) {
 			Assert.isTrue(this.selectClause.equals(DEFAULT_SELECT_CLAUSE),
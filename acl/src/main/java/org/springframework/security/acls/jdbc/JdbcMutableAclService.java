@@ -18,7 +18,14 @@ package org.springframework.security.acls.jdbc;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -72,6 +79,11 @@ public class JdbcMutableAclService extends JdbcAclService implements MutableAclS
 
 	private String deleteObjectIdentityByPrimaryKey = "delete from acl_object_identity where id=?";
 
+	private String deleteEntryByPrimaryKey = "delete from acl_entry where id=?";
+
+	private String selectEntriesByObjectIdentityForeignKey = "select id, ace_order, sid, mask, granting, "
+			+ "audit_success, audit_failure from acl_entry where acl_object_identity=?";
+
 	private String classIdentityQuery = "call identity()";
 
 	private String sidIdentityQuery = "call identity()";
@@ -98,6 +110,8 @@ public class JdbcMutableAclService extends JdbcAclService implements MutableAclS
 	private String updateObjectIdentity = "update acl_object_identity set "
 			+ "parent_object = ?, owner_sid = ?, entries_inheriting = ?" + " where id = ?";
 
+	private boolean updateChangedEntriesOnly;
+
 	public JdbcMutableAclService(DataSource dataSource, LookupStrategy lookupStrategy, AclCache aclCache) {
 		super(dataSource, lookupStrategy);
 		Assert.notNull(aclCache, "AclCache required");
@@ -129,6 +143,41 @@ public class JdbcMutableAclService extends JdbcAclService implements MutableAclS
 		return (MutableAcl) acl;
 	}
 
+	/**
+	 * Creates the ACLs of several object identities at once, owned by the current
+	 * principal. The rows in acl_object_identity are inserted in a single batch, and the
+	 * owner and the classes are looked up or created once. Must be invoked within a
+	 * transaction.
+	 * @param objectIdentities the object identities to create ACLs for
+	 * @return the created ACLs, in the order of the object identities
+	 * @throws AlreadyExistsException if an ACL already exists for any of the object
+	 * identities
+	 * @since 5.6
+	 */
+	public List<MutableAcl> createAcls(List<ObjectIdentity> objectIdentities) throws AlreadyExistsException {
+		Assert.notNull(objectIdentities, "Object Identities required");
+		if (objectIdentities.isEmpty()) {
+			return Collections.emptyList();
+		}
+		for (ObjectIdentity objectIdentity : objectIdentities) {
+			Assert.notNull(objectIdentity, "Object Identity required");
+			if (retrieveObjectIdentityPrimaryKey(objectIdentity) != null) {
+				throw new AlreadyExistsException("Object identity '" + objectIdentity + "' already exists");
+			}
+		}
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		Long sidId = createOrRetrieveSidPrimaryKey(new PrincipalSid(auth), true);
+		Map<String, Long> classIds = new HashMap<>();
+		List<Object[]> rows = new ArrayList<>(objectIdentities.size());
+		for (ObjectIdentity objectIdentity : objectIdentities) {
+			Long classId = classIds.computeIfAbsent(objectIdentity.getType(), (type) -> createOrRetrieveClassPrimaryKey(
+					type, true, objectIdentity.getIdentifier().getClass()));
+			rows.add(new Object[] { classId, objectIdentity.getIdentifier().toString(), sidId, Boolean.TRUE });
+		}
+		this.jdbcOperations.batchUpdate(this.insertObjectIdentity, rows);
+		return readMutableAcls(objectIdentities);
+	}
+
 	/**
 	 * Creates a new row in acl_entry for every ACE defined in the passed MutableAcl
 	 * object.
@@ -328,13 +377,17 @@ public class JdbcMutableAclService extends JdbcAclService implements MutableAclS
 
 	/**
 	 * This implementation will simply delete all ACEs in the database and recreate them
-	 * on each invocation of this method. A more comprehensive implementation might use
-	 * dirty state checking, or more likely use ORM capabilities for create, update and
-	 * delete operations of {@link MutableAcl}.
+	 * on each invocation of this method, unless
+	 * {@link #setUpdateChangedEntriesOnly(boolean) updateChangedEntriesOnly} is enabled.
+	 * A more comprehensive implementation might use ORM capabilities for create, update
+	 * and delete operations of {@link MutableAcl}.
 	 */
 	@Override
 	public MutableAcl updateAcl(MutableAcl acl) throws NotFoundException {
 		Assert.notNull(acl.getId(), "Object Identity doesn't provide an identifier");
+		if (this.updateChangedEntriesOnly) {
+			return updateAcls(Collections.singletonList(acl)).get(0);
+		}
 
 		// Delete this ACL's ACEs in the acl_entry table
 		deleteEntries(retrieveObjectIdentityPrimaryKey(acl.getObjectIdentity()));
@@ -346,19 +399,134 @@ public class JdbcMutableAclService extends JdbcAclService implements MutableAclS
 		updateObjectIdentity(acl);
 
 		// Clear the cache, including children
-		clearCacheIncludingChildren(acl.getObjectIdentity());
+		clearCacheIncludingChildren(acl.getObjectIdentity(), new HashSet<>());
 
 		// Retrieve the ACL via superclass (ensures cache registration, proper retrieval
 		// etc)
 		return (MutableAcl) super.readAclById(acl.getObjectIdentity());
 	}
 
-	private void clearCacheIncludingChildren(ObjectIdentity objectIdentity) {
+	/**
+	 * Updates several ACLs at once. Only the ACEs that changed are written: the rows in
+	 * acl_entry that no longer match the ACE at their position are deleted, and the
+	 * missing ACEs are inserted. All statements of the same kind are executed as a single
+	 * batch, and each SID and parent is looked up once. Must be invoked within a
+	 * transaction.
+	 * @param acls the ACLs to update
+	 * @return the updated ACLs, in the order of the given ACLs
+	 * @throws NotFoundException if any of the ACLs could not be found to update
+	 * @since 5.6
+	 */
+	public List<MutableAcl> updateAcls(List<MutableAcl> acls) throws NotFoundException {
+		Assert.notNull(acls, "ACLs required");
+		if (acls.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<Sid, Long> sidIds = new HashMap<>();
+		Map<ObjectIdentity, Long> parentIds = new HashMap<>();
+		List<Object[]> deletedEntries = new ArrayList<>();
+		List<Object[]> insertedEntries = new ArrayList<>();
+		List<Object[]> objectIdentities = new ArrayList<>(acls.size());
+		for (MutableAcl acl : acls) {
+			Assert.notNull(acl.getId(), "Object Identity doesn't provide an identifier");
+			diffEntries(acl, sidIds, deletedEntries, insertedEntries);
+			objectIdentities.add(objectIdentityRow(acl, sidIds, parentIds));
+		}
+		if (!deletedEntries.isEmpty()) {
+			this.jdbcOperations.batchUpdate(this.deleteEntryByPrimaryKey, deletedEntries);
+		}
+		if (!insertedEntries.isEmpty()) {
+			this.jdbcOperations.batchUpdate(this.insertEntry, insertedEntries);
+		}
+		for (int count : this.jdbcOperations.batchUpdate(this.updateObjectIdentity, objectIdentities)) {
+			if (count != 1 && count != Statement.SUCCESS_NO_INFO) {
+				throw new NotFoundException("Unable to locate ACL to update");
+			}
+		}
+		Set<ObjectIdentity> cleared = new HashSet<>();
+		List<ObjectIdentity> updated = new ArrayList<>(acls.size());
+		for (MutableAcl acl : acls) {
+			clearCacheIncludingChildren(acl.getObjectIdentity(), cleared);
+			updated.add(acl.getObjectIdentity());
+		}
+		return readMutableAcls(updated);
+	}
+
+	/**
+	 * Compares the ACEs of the ACL with its rows in acl_entry, and collects the rows to
+	 * delete and to insert. A row is kept only if it is at the same position and has the
+	 * same SID, mask and flags as the ACE.
+	 */
+	private void diffEntries(MutableAcl acl, Map<Sid, Long> sidIds, List<Object[]> deletedEntries,
+			List<Object[]> insertedEntries) {
+		List<AccessControlEntry> entries = acl.getEntries();
+		List<Object[]> desired = new ArrayList<>(entries.size());
+		for (int i = 0; i < entries.size(); i++) {
+			Assert.isTrue(entries.get(i) instanceof AccessControlEntryImpl, "Unknown ACE class");
+			AccessControlEntryImpl entry = (AccessControlEntryImpl) entries.get(i);
+			desired.add(new Object[] { acl.getId(), i, sidPrimaryKey(entry.getSid(), sidIds),
+					entry.getPermission().getMask(), entry.isGranting(), entry.isAuditSuccess(),
+					entry.isAuditFailure() });
+		}
+		boolean[] kept = new boolean[desired.size()];
+		this.jdbcOperations.query(this.selectEntriesByObjectIdentityForeignKey, (rs) -> {
+			int order = rs.getInt("ace_order");
+			if (order >= 0 && order < kept.length && !kept[order]) {
+				Object[] entry = desired.get(order);
+				kept[order] = rs.getLong("sid") == (Long) entry[2] && rs.getInt("mask") == (Integer) entry[3]
+						&& rs.getBoolean("granting") == (Boolean) entry[4]
+						&& rs.getBoolean("audit_success") == (Boolean) entry[5]
+						&& rs.getBoolean("audit_failure") == (Boolean) entry[6];
+				if (kept[order]) {
+					return;
+				}
+			}
+			deletedEntries.add(new Object[] { rs.getLong("id") });
+		}, acl.getId());
+		for (int i = 0; i < kept.length; i++) {
+			if (!kept[i]) {
+				insertedEntries.add(desired.get(i));
+			}
+		}
+	}
+
+	private Object[] objectIdentityRow(MutableAcl acl, Map<Sid, Long> sidIds, Map<ObjectIdentity, Long> parentIds) {
+		Long parentId = null;
+		if (acl.getParentAcl() != null) {
+			Assert.isInstanceOf(ObjectIdentityImpl.class, acl.getParentAcl().getObjectIdentity(),
+					"Implementation only supports ObjectIdentityImpl");
+			parentId = parentIds.computeIfAbsent(acl.getParentAcl().getObjectIdentity(),
+					this::retrieveObjectIdentityPrimaryKey);
+		}
+		Assert.notNull(acl.getOwner(), "Owner is required in this implementation");
+		return new Object[] { parentId, sidPrimaryKey(acl.getOwner(), sidIds), acl.isEntriesInheriting(),
+				acl.getId() };
+	}
+
+	private Long sidPrimaryKey(Sid sid, Map<Sid, Long> sidIds) {
+		return sidIds.computeIfAbsent(sid, (key) -> createOrRetrieveSidPrimaryKey(key, true));
+	}
+
+	private List<MutableAcl> readMutableAcls(List<ObjectIdentity> objectIdentities) {
+		Map<ObjectIdentity, Acl> acls = super.readAclsById(objectIdentities);
+		List<MutableAcl> result = new ArrayList<>(objectIdentities.size());
+		for (ObjectIdentity objectIdentity : objectIdentities) {
+			Acl acl = acls.get(objectIdentity);
+			Assert.isInstanceOf(MutableAcl.class, acl, "MutableAcl should be been returned");
+			result.add((MutableAcl) acl);
+		}
+		return result;
+	}
+
+	private void clearCacheIncludingChildren(ObjectIdentity objectIdentity, Set<ObjectIdentity> cleared) {
 		Assert.notNull(objectIdentity, "ObjectIdentity required");
+		if (!cleared.add(objectIdentity)) {
+			return;
+		}
 		List<ObjectIdentity> children = findChildren(objectIdentity);
 		if (children != null) {
 			for (ObjectIdentity child : children) {
-				clearCacheIncludingChildren(child);
+				clearCacheIncludingChildren(child, cleared);
 			}
 		}
 		this.aclCache.evictFromCache(objectIdentity);
@@ -418,6 +586,10 @@ public class JdbcMutableAclService extends JdbcAclService implements MutableAclS
 		this.deleteObjectIdentityByPrimaryKey = deleteObjectIdentityByPrimaryKey;
 	}
 
+	public void setDeleteEntryByPrimaryKeySql(String deleteEntryByPrimaryKey) {
+		this.deleteEntryByPrimaryKey = deleteEntryByPrimaryKey;
+	}
+
 	public void setInsertClassSql(String insertClass) {
 		this.insertClass = insertClass;
 	}
@@ -442,6 +614,10 @@ public class JdbcMutableAclService extends JdbcAclService implements MutableAclS
 		this.selectObjectIdentityPrimaryKey = selectObjectIdentityPrimaryKey;
 	}
 
+	public void setEntriesByObjectIdentityForeignKeyQuery(String selectEntriesByObjectIdentityForeignKey) {
+		this.selectEntriesByObjectIdentityForeignKey = selectEntriesByObjectIdentityForeignKey;
+	}
+
 	public void setSidPrimaryKeyQuery(String selectSidPrimaryKey) {
 		this.selectSidPrimaryKey = selectSidPrimaryKey;
 	}
@@ -459,6 +635,19 @@ public class JdbcMutableAclService extends JdbcAclService implements MutableAclS
 		this.foreignKeysInDatabase = foreignKeysInDatabase;
 	}
 
+	/**
+	 * @param updateChangedEntriesOnly if true, {@link #updateAcl(MutableAcl)} only deletes
+	 * and inserts the rows in acl_entry of the ACEs that changed, like
+	 * {@link #updateAcls(List)}, instead of recreating all of them. This requires the
+	 * {@link #setEntriesByObjectIdentityForeignKeyQuery(String) entries query} and the
+	 * {@link #setDeleteEntryByPrimaryKeySql(String) delete entry statement} to match the
+	 * schema (the default is false)
+	 * @since 5.6
+	 */
+	public void setUpdateChangedEntriesOnly(boolean updateChangedEntriesOnly) {
+		this.updateChangedEntriesOnly = updateChangedEntriesOnly;
+	}
+
 	@Override
 	public void setAclClassIdSupported(boolean aclClassIdSupported) {
 		super.setAclClassIdSupported(aclClassIdSupported);
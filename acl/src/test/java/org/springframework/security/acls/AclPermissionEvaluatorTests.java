@@ -16,12 +16,18 @@
 
 package org.springframework.security.acls;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.model.Acl;
 import org.springframework.security.acls.model.AclService;
+import org.springframework.security.acls.model.NotFoundException;
 import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.security.acls.model.ObjectIdentityRetrievalStrategy;
 import org.springframework.security.acls.model.SidRetrievalStrategy;
@@ -33,6 +39,8 @@ import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Luke Taylor
@@ -55,6 +63,54 @@ public class AclPermissionEvaluatorTests {
 		assertThat(pe.hasPermission(mock(Authentication.class), new Object(), "READ")).isTrue();
 	}
 
+	@Test
+	public void hasPermissionsWhenManyObjectsThenAclsReadAtOnce() {
+		AclService service = mock(AclService.class);
+		AclPermissionEvaluator pe = new AclPermissionEvaluator(service);
+		ObjectIdentity granted = new ObjectIdentityImpl(TargetObject.class, 1L);
+		ObjectIdentity denied = new ObjectIdentityImpl(TargetObject.class, 2L);
+		ObjectIdentityRetrievalStrategy oidStrategy = mock(ObjectIdentityRetrievalStrategy.class);
+		given(oidStrategy.getObjectIdentity("granted")).willReturn(granted);
+		given(oidStrategy.getObjectIdentity("denied")).willReturn(denied);
+		pe.setObjectIdentityRetrievalStrategy(oidStrategy);
+		SidRetrievalStrategy sidStrategy = mock(SidRetrievalStrategy.class);
+		pe.setSidRetrievalStrategy(sidStrategy);
+		Acl grantingAcl = mock(Acl.class);
+		given(grantingAcl.isGranted(anyList(), anyList(), eq(false))).willReturn(true);
+		Acl denyingAcl = mock(Acl.class);
+		given(denyingAcl.isGranted(anyList(), anyList(), eq(false))).willThrow(new NotFoundException("no ACE"));
+		Map<ObjectIdentity, Acl> acls = new HashMap<>();
+		acls.put(granted, grantingAcl);
+		acls.put(denied, denyingAcl);
+		given(service.readAclsById(eq(Arrays.asList(granted, denied)), anyList())).willReturn(acls);
+		BitSet result = pe.hasPermissions(mock(Authentication.class),
+				Arrays.asList("granted", "denied", null, "granted"), "READ");
+		assertThat(result.stream()).containsExactly(0, 3);
+		verify(sidStrategy).getSids(any());
+		verify(service).readAclsById(anyList(), anyList());
+		verify(service, never()).readAclById(any(), anyList());
+	}
+
+	@Test
+	public void hasPermissionsWhenAclMissingThenObjectsCheckedSeparately() {
+		AclService service = mock(AclService.class);
+		AclPermissionEvaluator pe = new AclPermissionEvaluator(service);
+		ObjectIdentity granted = new ObjectIdentityImpl(TargetObject.class, 1L);
+		ObjectIdentity missing = new ObjectIdentityImpl(TargetObject.class, 2L);
+		ObjectIdentityRetrievalStrategy oidStrategy = mock(ObjectIdentityRetrievalStrategy.class);
+		given(oidStrategy.getObjectIdentity("granted")).willReturn(granted);
+		given(oidStrategy.getObjectIdentity("missing")).willReturn(missing);
+		pe.setObjectIdentityRetrievalStrategy(oidStrategy);
+		pe.setSidRetrievalStrategy(mock(SidRetrievalStrategy.class));
+		Acl grantingAcl = mock(Acl.class);
+		given(grantingAcl.isGranted(anyList(), anyList(), eq(false))).willReturn(true);
+		given(service.readAclsById(anyList(), anyList())).willThrow(new NotFoundException("missing"));
+		given(service.readAclById(eq(granted), anyList())).willReturn(grantingAcl);
+		given(service.readAclById(eq(missing), anyList())).willThrow(new NotFoundException("missing"));
+		BitSet result = pe.hasPermissions(mock(Authentication.class), Arrays.asList("missing", "granted"), "READ");
+		assertThat(result.stream()).containsExactly(1);
+	}
+
 	@Test
 	public void resolvePermissionNonEnglishLocale() {
 		Locale systemLocale = Locale.getDefault();
@@ -49,6 +49,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link AclImpl}.
@@ -458,6 +459,37 @@ public class AclImplTests {
 		childAcl.setParent(changeParentAcl);
 	}
 
+	@Test
+	public void isGrantedWhenEntriesChangeThenCurrentEntriesUsed() {
+		MutableAcl acl = new AclImpl(this.objectIdentity, 1, this.authzStrategy, this.pgs, null, null, true,
+				new PrincipalSid("joe"));
+		acl.insertAce(0, BasePermission.READ, new PrincipalSid("ben"), false);
+		assertThat(acl.isGranted(READ, BEN, false)).isFalse();
+		acl.insertAce(0, BasePermission.READ, new PrincipalSid("ben"), true);
+		assertThat(acl.isGranted(READ, BEN, false)).isTrue();
+		acl.updateAce(0, BasePermission.WRITE);
+		assertThat(acl.isGranted(READ, BEN, false)).isFalse();
+		assertThat(acl.isGranted(WRITE, BEN, false)).isTrue();
+		acl.deleteAce(1);
+		assertThatExceptionOfType(NotFoundException.class).isThrownBy(() -> acl.isGranted(READ, BEN, false));
+	}
+
+	@Test
+	public void isGrantedWhenManyEntriesThenFirstMatchAudited() {
+		MutableAcl acl = new AclImpl(this.objectIdentity, 1, this.authzStrategy, this.pgs, null, null, true,
+				new PrincipalSid("joe"));
+		for (int i = 0; i < 1000; i++) {
+			acl.insertAce(i, BasePermission.READ, new PrincipalSid("user" + i), true);
+		}
+		acl.insertAce(500, BasePermission.READ, new PrincipalSid("ben"), false);
+		acl.insertAce(1001, BasePermission.READ, new PrincipalSid("ben"), true);
+		acl.insertAce(1002, BasePermission.WRITE, new PrincipalSid("ben"), true);
+		assertThat(acl.isGranted(READ, BEN, false)).isFalse();
+		verify(this.mockAuditLogger).logIfNeeded(false, acl.getEntries().get(500));
+		assertThat(acl.isGranted(Arrays.asList(BasePermission.READ, BasePermission.WRITE), BEN, false)).isTrue();
+		verify(this.mockAuditLogger).logIfNeeded(true, acl.getEntries().get(1002));
+	}
+
 	// SEC-2342
 	@Test
 	public void maskPermissionGrantingStrategy() {
@@ -16,6 +16,7 @@
 
 package org.springframework.security.acls.jdbc;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +47,7 @@ import org.springframework.security.acls.domain.GrantedAuthoritySid;
 import org.springframework.security.acls.domain.ObjectIdentityImpl;
 import org.springframework.security.acls.domain.PrincipalSid;
 import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.AclCache;
 import org.springframework.security.acls.model.AuditableAccessControlEntry;
 import org.springframework.security.acls.model.MutableAcl;
 import org.springframework.security.acls.model.ObjectIdentity;
@@ -55,6 +57,10 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 
 /**
  * Tests {@link BasicLookupStrategy}
@@ -140,6 +146,21 @@ public abstract class AbstractBasicLookupStrategyTests {
 		return cache;
 	}
 
+	@Test
+	public void readAclsByIdWhenLookupFailsThenLaterLookupsDoNotWait() {
+		ObjectIdentity topParentOid = new ObjectIdentityImpl(TARGET_CLASS, 100L);
+		ObjectIdentity middleParentOid = new ObjectIdentityImpl(TARGET_CLASS, 101L);
+		AclCache aclCache = mock(AclCache.class);
+		given(aclCache.getFromCache(middleParentOid)).willThrow(new IllegalStateException("unavailable"));
+		BasicLookupStrategy strategy = new BasicLookupStrategy(getDataSource(), aclCache, aclAuthStrategy(),
+				new DefaultPermissionGrantingStrategy(new ConsoleAuditLogger()));
+		assertThatIllegalStateException()
+				.isThrownBy(() -> strategy.readAclsById(Arrays.asList(topParentOid, middleParentOid), null));
+		Map<ObjectIdentity, Acl> map = assertTimeoutPreemptively(Duration.ofSeconds(5),
+				() -> strategy.readAclsById(Arrays.asList(topParentOid), null));
+		assertThat(map).containsKey(topParentOid);
+	}
+
 	@Test
 	public void testAclsRetrievalWithDefaultBatchSize() throws Exception {
 		ObjectIdentity topParentOid = new ObjectIdentityImpl(TARGET_CLASS, 100L);
@@ -236,6 +257,39 @@ public abstract class AbstractBasicLookupStrategyTests {
 		assertThat((child.getEntries().get(0)).isGranting()).isFalse();
 	}
 
+	@Test
+	public void testAclsRetrievalWhenLookupAncestorsWithClauseThenParentsRetrievedWithChild() {
+		ObjectIdentity topParentOid = new ObjectIdentityImpl(TARGET_CLASS, 100L);
+		ObjectIdentity middleParentOid = new ObjectIdentityImpl(TARGET_CLASS, 101L);
+		ObjectIdentity childOid = new ObjectIdentityImpl(TARGET_CLASS, 102L);
+		this.strategy.setLookupAncestorsWithClause(BasicLookupStrategy.DEFAULT_LOOKUP_ANCESTORS_WITH_CLAUSE);
+		Map<ObjectIdentity, Acl> map = this.strategy.readAclsById(Arrays.asList(childOid), null);
+		checkEntries(topParentOid, middleParentOid, childOid, map);
+	}
+
+	@Test
+	public void testAclsRetrievalWhenLookupAncestorsWithClauseAndParentCachedThenRetrieved() {
+		ObjectIdentity topParentOid = new ObjectIdentityImpl(TARGET_CLASS, 100L);
+		ObjectIdentity middleParentOid = new ObjectIdentityImpl(TARGET_CLASS, 101L);
+		ObjectIdentity childOid = new ObjectIdentityImpl(TARGET_CLASS, 102L);
+		this.strategy.setLookupAncestorsWithClause(BasicLookupStrategy.DEFAULT_LOOKUP_ANCESTORS_WITH_CLAUSE);
+		this.strategy.readAclsById(Arrays.asList(middleParentOid), null);
+		Map<ObjectIdentity, Acl> map = this.strategy.readAclsById(Arrays.asList(childOid), null);
+		assertThat(map.get(childOid).getParentAcl().getObjectIdentity()).isEqualTo(middleParentOid);
+		assertThat(map.get(childOid).getParentAcl().getParentAcl().getObjectIdentity()).isEqualTo(topParentOid);
+	}
+
+	@Test
+	public void testAclsRetrievalWhenBatchSizeNotPowerOfTwoThenRetrieved() {
+		ObjectIdentity topParentOid = new ObjectIdentityImpl(TARGET_CLASS, 100L);
+		ObjectIdentity middleParentOid = new ObjectIdentityImpl(TARGET_CLASS, 101L);
+		ObjectIdentity childOid = new ObjectIdentityImpl(TARGET_CLASS, 102L);
+		this.strategy.setBatchSize(3);
+		Map<ObjectIdentity, Acl> map = this.strategy
+				.readAclsById(Arrays.asList(topParentOid, middleParentOid, childOid), null);
+		checkEntries(topParentOid, middleParentOid, childOid, map);
+	}
+
 	@Test
 	public void testAllParentsAreRetrievedWhenChildIsLoaded() {
 		String query = "INSERT INTO acl_object_identity(ID,OBJECT_ID_CLASS,OBJECT_ID_IDENTITY,PARENT_OBJECT,OWNER_SID,ENTRIES_INHERITING) VALUES (6,2,103,1,1,1);";
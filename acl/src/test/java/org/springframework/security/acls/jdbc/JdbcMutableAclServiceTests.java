@@ -429,6 +429,79 @@ public class JdbcMutableAclServiceTests {
 		SecurityContextHolder.clearContext();
 	}
 
+	@Test
+	@Transactional
+	public void createAclsThenAclsCreated() {
+		SecurityContextHolder.getContext().setAuthentication(this.auth);
+		ObjectIdentity first = new ObjectIdentityImpl(TARGET_CLASS, 120L);
+		ObjectIdentity second = new ObjectIdentityImpl(TARGET_CLASS, 121L);
+		List<MutableAcl> acls = this.jdbcMutableAclService.createAcls(Arrays.asList(first, second));
+		assertThat(acls).extracting(Acl::getObjectIdentity).containsExactly(first, second);
+		assertThat(acls.get(0).getOwner()).isEqualTo(new PrincipalSid(this.auth));
+		assertThatExceptionOfType(AlreadyExistsException.class)
+				.isThrownBy(() -> this.jdbcMutableAclService.createAcls(Arrays.asList(second)));
+	}
+
+	@Test
+	@Transactional
+	public void updateAclsWhenEntriesChangedThenOnlyChangedRowsWritten() {
+		SecurityContextHolder.getContext().setAuthentication(this.auth);
+		ObjectIdentity parentOid = new ObjectIdentityImpl(TARGET_CLASS, 122L);
+		ObjectIdentity childOid = new ObjectIdentityImpl(TARGET_CLASS, 123L);
+		List<MutableAcl> acls = this.jdbcMutableAclService.createAcls(Arrays.asList(parentOid, childOid));
+		MutableAcl parent = acls.get(0);
+		MutableAcl child = acls.get(1);
+		parent.insertAce(0, BasePermission.READ, new PrincipalSid("ben"), true);
+		parent.insertAce(1, BasePermission.WRITE, new PrincipalSid("scott"), true);
+		child.setParent(parent);
+		child.insertAce(0, BasePermission.READ, new GrantedAuthoritySid("ROLE_USER"), true);
+		acls = this.jdbcMutableAclService.updateAcls(Arrays.asList(parent, child));
+		parent = acls.get(0);
+		List<Long> entryIds = selectEntryIds(parent);
+		parent.updateAce(1, BasePermission.DELETE);
+		parent.insertAce(2, BasePermission.READ, new PrincipalSid("terry"), true);
+		parent = this.jdbcMutableAclService.updateAcls(Arrays.asList(parent)).get(0);
+		List<Long> updatedEntryIds = selectEntryIds(parent);
+		assertThat(updatedEntryIds).hasSize(3);
+		assertThat(updatedEntryIds.get(0)).isEqualTo(entryIds.get(0));
+		assertThat(updatedEntryIds.get(1)).isNotEqualTo(entryIds.get(1));
+		assertThat(parent.getEntries()).extracting(AccessControlEntry::getPermission)
+				.containsExactly(BasePermission.READ, BasePermission.DELETE, BasePermission.READ);
+		child = (MutableAcl) this.jdbcMutableAclService.readAclById(childOid);
+		assertThat(child.getParentAcl().getEntries()).hasSize(3);
+		assertThat(child.getEntries()).hasSize(1);
+		parent.deleteAce(0);
+		parent = this.jdbcMutableAclService.updateAcls(Arrays.asList(parent)).get(0);
+		assertThat(parent.getEntries()).extracting(AccessControlEntry::getPermission)
+				.containsExactly(BasePermission.DELETE, BasePermission.READ);
+	}
+
+	@Test
+	@Transactional
+	public void updateAclWhenUpdateChangedEntriesOnlyThenUnchangedRowsKept() {
+		SecurityContextHolder.getContext().setAuthentication(this.auth);
+		ObjectIdentity oid = new ObjectIdentityImpl(TARGET_CLASS, 124L);
+		MutableAcl acl = this.jdbcMutableAclService.createAcl(oid);
+		acl.insertAce(0, BasePermission.READ, new PrincipalSid("ben"), true);
+		acl = this.jdbcMutableAclService.updateAcl(acl);
+		List<Long> entryIds = selectEntryIds(acl);
+		this.jdbcMutableAclService.setUpdateChangedEntriesOnly(true);
+		try {
+			acl.insertAce(1, BasePermission.WRITE, new PrincipalSid("ben"), true);
+			acl = this.jdbcMutableAclService.updateAcl(acl);
+		}
+		finally {
+			this.jdbcMutableAclService.setUpdateChangedEntriesOnly(false);
+		}
+		assertThat(selectEntryIds(acl)).hasSize(2).startsWith(entryIds.get(0));
+		assertThat(acl.getEntries()).hasSize(2);
+	}
+
+	private List<Long> selectEntryIds(Acl acl) {
+		return this.jdbcTemplate.queryForList("select id from acl_entry where acl_object_identity=? order by ace_order",
+				Long.class, ((MutableAcl) acl).getId());
+	}
+
 	@Test
 	public void testProcessingCustomSid() {
 		CustomJdbcMutableAclService customJdbcMutableAclService = spy(
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.acls.jdbc;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.acls.domain.AclAuthorizationStrategy;
+import org.springframework.security.acls.domain.AclAuthorizationStrategyImpl;
+import org.springframework.security.acls.domain.AclImpl;
+import org.springframework.security.acls.domain.ConsoleAuditLogger;
+import org.springframework.security.acls.domain.DefaultPermissionGrantingStrategy;
+import org.springframework.security.acls.domain.InMemoryAclCacheInvalidationTransport;
+import org.springframework.security.acls.domain.NearAclCache;
+import org.springframework.security.acls.domain.ObjectIdentityImpl;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.MutableAcl;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link NearAclCache}
+ */
+public class NearAclCacheTests {
+
+	private static final String TARGET_CLASS = "org.springframework.security.acls.TargetObject";
+
+	private AclAuthorizationStrategy aclAuthorizationStrategy = new AclAuthorizationStrategyImpl(
+			new SimpleGrantedAuthority("ROLE_ADMINISTRATOR"));
+
+	private InMemoryAclCacheInvalidationTransport transport;
+
+	private NearAclCache cache;
+
+	private NearAclCache otherCache;
+
+	@BeforeEach
+	public void setUp() {
+		this.transport = new InMemoryAclCacheInvalidationTransport();
+		this.cache = new NearAclCache(this.transport);
+		this.otherCache = new NearAclCache(this.transport);
+	}
+
+	@Test
+	public void constructorWhenNullTransportThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new NearAclCache(null));
+	}
+
+	@Test
+	public void putInCacheThenAvailableByIdAndObjectIdentity() {
+		MutableAcl acl = acl(1L, null);
+		this.cache.putInCache(acl);
+		assertThat(this.cache.getFromCache(1L)).isSameAs(acl);
+		assertThat(this.cache.getFromCache(new ObjectIdentityImpl(TARGET_CLASS, 1L))).isSameAs(acl);
+		assertThat(this.cache.getFromCache(2L)).isNull();
+		assertThat(this.otherCache.getFromCache(1L)).isNull();
+	}
+
+	@Test
+	public void putInCacheWhenParentThenParentCached() {
+		MutableAcl parent = acl(1L, null);
+		this.cache.putInCache(acl(2L, parent));
+		assertThat(this.cache.getFromCache(1L)).isSameAs(parent);
+	}
+
+	@Test
+	public void evictFromCacheWhenParentThenDescendantsEvicted() {
+		MutableAcl grandparent = acl(1L, null);
+		MutableAcl parent = acl(2L, grandparent);
+		this.cache.putInCache(acl(3L, parent));
+		this.cache.putInCache(acl(4L, grandparent));
+		this.cache.putInCache(acl(5L, null));
+		this.cache.evictFromCache(new ObjectIdentityImpl(TARGET_CLASS, 1L));
+		assertThat(this.cache.getFromCache(1L)).isNull();
+		assertThat(this.cache.getFromCache(2L)).isNull();
+		assertThat(this.cache.getFromCache(3L)).isNull();
+		assertThat(this.cache.getFromCache(4L)).isNull();
+		assertThat(this.cache.getFromCache(new ObjectIdentityImpl(TARGET_CLASS, 3L))).isNull();
+		assertThat(this.cache.getFromCache(5L)).isNotNull();
+	}
+
+	@Test
+	public void evictFromCacheWhenChildThenParentKept() {
+		MutableAcl parent = acl(1L, null);
+		this.cache.putInCache(acl(2L, parent));
+		this.cache.evictFromCache(2L);
+		assertThat(this.cache.getFromCache(2L)).isNull();
+		assertThat(this.cache.getFromCache(1L)).isSameAs(parent);
+		this.cache.putInCache(acl(3L, parent));
+		this.cache.evictFromCache(1L);
+		assertThat(this.cache.getFromCache(3L)).isNull();
+	}
+
+	@Test
+	public void evictFromCacheThenEvictedFromOtherNodes() {
+		MutableAcl parent = acl(1L, null);
+		this.cache.putInCache(acl(2L, parent));
+		this.otherCache.putInCache(acl(2L, parent));
+		this.cache.evictFromCache(1L);
+		assertThat(this.otherCache.getFromCache(1L)).isNull();
+		assertThat(this.otherCache.getFromCache(2L)).isNull();
+		this.otherCache.putInCache(acl(3L, null));
+		this.cache.evictFromCache(new ObjectIdentityImpl(TARGET_CLASS, 3L));
+		assertThat(this.otherCache.getFromCache(3L)).isNull();
+	}
+
+	@Test
+	public void clearCacheThenClearedOnOtherNodes() {
+		this.cache.putInCache(acl(1L, null));
+		this.otherCache.putInCache(acl(2L, null));
+		this.cache.clearCache();
+		assertThat(this.cache.getFromCache(1L)).isNull();
+		assertThat(this.otherCache.getFromCache(2L)).isNull();
+	}
+
+	@Test
+	public void evictFromCacheWhenOwnMessageThenIgnored() {
+		InMemoryAclCacheInvalidationTransport transport = new InMemoryAclCacheInvalidationTransport();
+		AtomicReference<NearAclCache> cache = new AtomicReference<>();
+		transport.subscribe((invalidation) -> cache.get().putInCache(acl(1L, null)));
+		cache.set(new NearAclCache(transport));
+		cache.get().evictFromCache(1L);
+		assertThat(cache.get().getFromCache(1L)).isNotNull();
+	}
+
+	@Test
+	public void putInCacheWhenMaximumSizeExceededThenTrimmed() {
+		NearAclCache cache = new NearAclCache();
+		cache.setMaximumSize(10);
+		for (long id = 1; id <= 11; id++) {
+			cache.putInCache(acl(id, null));
+		}
+		int cached = 0;
+		for (long id = 1; id <= 11; id++) {
+			cached += (cache.getFromCache(id) != null) ? 1 : 0;
+		}
+		assertThat(cached).isEqualTo(9);
+	}
+
+	private MutableAcl acl(long id, Acl parent) {
+		ObjectIdentity objectIdentity = new ObjectIdentityImpl(TARGET_CLASS, id);
+		return new AclImpl(objectIdentity, id, this.aclAuthorizationStrategy,
+				new DefaultPermissionGrantingStrategy(new ConsoleAuditLogger()), parent, null, true,
+				new PrincipalSid("joe"));
+	}
+
+}
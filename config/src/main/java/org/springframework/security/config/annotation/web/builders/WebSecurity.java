@@ -99,6 +99,8 @@ public final class WebSecurity extends AbstractConfiguredSecurityBuilder<Filter,
 
 	private boolean debugEnabled;
 
+	private boolean indexFilterChains;
+
 	private WebInvocationPrivilegeEvaluator privilegeEvaluator;
 
 	private DefaultWebSecurityExpressionHandler defaultWebSecurityExpressionHandler = new DefaultWebSecurityExpressionHandler();
@@ -184,6 +186,21 @@ public final class WebSecurity extends AbstractConfiguredSecurityBuilder<Filter,
 		return this;
 	}
 
+	/**
+	 * Controls whether the {@link SecurityFilterChain}s are precompiled into an index
+	 * that is used to find the first matching chain, instead of trying each chain in
+	 * turn. This is useful when there are many chains.
+	 * @param indexFilterChains true if the {@link SecurityFilterChain}s should be
+	 * indexed, else false. The default is false.
+	 * @return the {@link WebSecurity} for further customization.
+	 * @since 5.6
+	 * @see FilterChainProxy#setIndexFilterChains(boolean)
+	 */
+	public WebSecurity indexFilterChains(boolean indexFilterChains) {
+		this.indexFilterChains = indexFilterChains;
+		return this;
+	}
+
 	/**
 	 * <p>
 	 * Adds builders to create {@link SecurityFilterChain} instances.
@@ -291,6 +308,7 @@ public final class WebSecurity extends AbstractConfiguredSecurityBuilder<Filter,
 		if (this.requestRejectedHandler != null) {
 			filterChainProxy.setRequestRejectedHandler(this.requestRejectedHandler);
 		}
+		filterChainProxy.setIndexFilterChains(this.indexFilterChains);
 		filterChainProxy.afterPropertiesSet();
 
 		Filter result = filterChainProxy;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.security.access;
 
 import java.io.Serializable;
+import java.util.BitSet;
+import java.util.List;
 
 import org.springframework.aop.framework.AopInfrastructureBean;
 import org.springframework.security.core.Authentication;
@@ -54,4 +56,36 @@ public interface PermissionEvaluator extends AopInfrastructureBean {
 	 */
 	boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission);
 
+	/**
+	 * Alternative method for evaluating a permission for many domain objects at once, for
+	 * example when filtering a collection. The default implementation calls
+	 * {@link #hasPermission(Authentication, Object, Object)} for each domain object;
+	 * implementations that can load the permissions of many domain objects at once
+	 * should override it.
+	 * <p>
+	 * Implementations should grant the same permissions as
+	 * {@link #hasPermission(Authentication, Object, Object)} would for each domain object,
+	 * including null elements, which the default implementation passes on as they are.
+	 * Implementations that cannot check some permissions at once may return null, in
+	 * which case {@link #hasPermission(Authentication, Object, Object)} is called for each
+	 * domain object instead.
+	 * @param authentication represents the user in question. Should not be null.
+	 * @param targetDomainObjects the domain objects for which permissions should be
+	 * checked. May contain null elements.
+	 * @param permission a representation of the permission object as supplied by the
+	 * expression system. Not null.
+	 * @return the indexes of the domain objects for which the permission is granted, or
+	 * null to check the permission of each domain object separately
+	 * @since 5.6
+	 */
+	default BitSet hasPermissions(Authentication authentication, List<?> targetDomainObjects, Object permission) {
+		BitSet granted = new BitSet(targetDomainObjects.size());
+		for (int i = 0; i < targetDomainObjects.size(); i++) {
+			if (hasPermission(authentication, targetDomainObjects.get(i), permission)) {
+				granted.set(i);
+			}
+		}
+		return granted;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,31 +17,66 @@
 package org.springframework.security.access.expression.method;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Stream;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.log.LogMessage;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.security.access.PermissionCacheOptimizer;
+import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.access.expression.AbstractSecurityExpressionHandler;
 import org.springframework.security.access.expression.ExpressionUtils;
 import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.parameters.DefaultSecurityParameterNameDiscoverer;
 import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * The standard implementation of {@code MethodSecurityExpressionHandler}.
@@ -65,7 +100,20 @@ public class DefaultMethodSecurityExpressionHandler extends AbstractSecurityExpr
 
 	private String defaultRolePrefix = "ROLE_";
 
+	private SpelCompilerMode compilerMode = SpelCompilerMode.OFF;
+
+	private final Map<MethodClassKey, MethodMetadata> methodMetadata = new ConcurrentHashMap<>();
+
+	private int parallelFilterThreshold = Integer.MAX_VALUE;
+
+	private ExecutorService parallelFilterExecutor = ForkJoinPool.commonPool();
+
+	private final boolean defaultExpressionRoot;
+
 	public DefaultMethodSecurityExpressionHandler() {
+		Method createRoot = ReflectionUtils.findMethod(getClass(), "createSecurityExpressionRoot", Authentication.class,
+				MethodInvocation.class);
+		this.defaultExpressionRoot = createRoot.getDeclaringClass() == DefaultMethodSecurityExpressionHandler.class;
 	}
 
 	/**
@@ -74,7 +122,15 @@ public class DefaultMethodSecurityExpressionHandler extends AbstractSecurityExpr
 	 */
 	@Override
 	public StandardEvaluationContext createEvaluationContextInternal(Authentication auth, MethodInvocation mi) {
-		return new MethodSecurityEvaluationContext(auth, mi, getParameterNameDiscoverer());
+		if (this.compilerMode == SpelCompilerMode.OFF) {
+			return new MethodSecurityEvaluationContext(auth, mi, getParameterNameDiscoverer());
+		}
+		Object target = mi.getThis();
+		Class<?> targetClass = AopProxyUtils.ultimateTargetClass(target);
+		MethodMetadata metadata = this.methodMetadata.computeIfAbsent(new MethodClassKey(mi.getMethod(), targetClass),
+				(key) -> new MethodMetadata(AopUtils.getMostSpecificMethod(mi.getMethod(), targetClass),
+						getParameterNameDiscoverer()));
+		return new MethodSecurityEvaluationContext(target, metadata.method, mi.getArguments(), metadata);
 	}
 
 	/**
@@ -99,6 +155,14 @@ public class DefaultMethodSecurityExpressionHandler extends AbstractSecurityExpr
 	 * If a {@code Collection} or {@code Map} is used, the original instance will be
 	 * modified to contain the elements for which the permission expression evaluates to
 	 * {@code true}. For an array, a new array instance will be returned.
+	 * <p>
+	 * A collection or array that is filtered with an expression of the form
+	 * {@code hasPermission(filterObject, 'permission')} is checked with a single call to
+	 * {@link PermissionEvaluator#hasPermissions(Authentication, List, Object)}, instead
+	 * of evaluating the expression for each element. Otherwise, collections and arrays
+	 * with at least {@link #setParallelFilterThreshold(int) parallelFilterThreshold}
+	 * elements are evaluated in parallel. A {@code Stream} is filtered lazily, as it is
+	 * consumed.
 	 */
 	@Override
 	public Object filter(Object filterTarget, Expression filterExpression, EvaluationContext ctx) {
@@ -124,42 +188,198 @@ public class DefaultMethodSecurityExpressionHandler extends AbstractSecurityExpr
 	private <T> Object filterCollection(Collection<T> filterTarget, Expression filterExpression, EvaluationContext ctx,
 			MethodSecurityExpressionOperations rootObject) {
 		this.logger.debug(LogMessage.format("Filtering collection with %s elements", filterTarget.size()));
-		List<T> retain = new ArrayList<>(filterTarget.size());
-		if (this.permissionCacheOptimizer != null) {
-			this.permissionCacheOptimizer.cachePermissionsFor(rootObject.getAuthentication(), filterTarget);
+		List<T> filterObjects = (filterTarget instanceof List) ? (List<T>) filterTarget : new ArrayList<>(filterTarget);
+		BitSet retained = evaluate(filterObjects, filterExpression, ctx, rootObject);
+		this.logger.debug(LogMessage.of(() -> "Retaining elements: " + retainedElements(filterObjects, retained)));
+		if (retained.cardinality() < filterObjects.size()) {
+			// relies on removeIf visiting the elements in iteration order
+			int[] index = { 0 };
+			filterTarget.removeIf((filterObject) -> !retained.get(index[0]++));
 		}
-		for (T filterObject : filterTarget) {
-			rootObject.setFilterObject(filterObject);
-			if (ExpressionUtils.evaluateAsBoolean(filterExpression, ctx)) {
-				retain.add(filterObject);
-			}
-		}
-		this.logger.debug(LogMessage.format("Retaining elements: %s", retain));
-		filterTarget.clear();
-		filterTarget.addAll(retain);
 		return filterTarget;
 	}
 
 	private Object filterArray(Object[] filterTarget, Expression filterExpression, EvaluationContext ctx,
 			MethodSecurityExpressionOperations rootObject) {
-		List<Object> retain = new ArrayList<>(filterTarget.length);
 		this.logger.debug(LogMessage.format("Filtering array with %s elements", filterTarget.length));
+		List<Object> filterObjects = Arrays.asList(filterTarget);
+		BitSet retained = evaluate(filterObjects, filterExpression, ctx, rootObject);
+		this.logger.debug(LogMessage.of(() -> "Retaining elements: " + retainedElements(filterObjects, retained)));
+		Object[] filtered = (Object[]) Array.newInstance(filterTarget.getClass().getComponentType(),
+				retained.cardinality());
+		int j = 0;
+		for (int i = retained.nextSetBit(0); i >= 0; i = retained.nextSetBit(i + 1)) {
+			filtered[j++] = filterTarget[i];
+		}
+		return filtered;
+	}
+
+	private static <T> List<T> retainedElements(List<T> filterObjects, BitSet retained) {
+		List<T> retain = new ArrayList<>(retained.cardinality());
+		for (int i = retained.nextSetBit(0); i >= 0; i = retained.nextSetBit(i + 1)) {
+			retain.add(filterObjects.get(i));
+		}
+		return retain;
+	}
+
+	/**
+	 * @return the indexes of the elements for which the expression evaluates to
+	 * {@code true}
+	 */
+	private BitSet evaluate(List<?> filterObjects, Expression filterExpression, EvaluationContext ctx,
+			MethodSecurityExpressionOperations rootObject) {
+		BitSet retained = retainPermitted(filterObjects, filterExpression, rootObject);
+		if (retained != null) {
+			return retained;
+		}
 		if (this.permissionCacheOptimizer != null) {
-			this.permissionCacheOptimizer.cachePermissionsFor(rootObject.getAuthentication(),
-					Arrays.asList(filterTarget));
+			this.permissionCacheOptimizer.cachePermissionsFor(rootObject.getAuthentication(), filterObjects);
+		}
+		if (filterObjects.size() >= this.parallelFilterThreshold && this.defaultExpressionRoot
+				&& rootObject.getClass() == MethodSecurityExpressionRoot.class) {
+			return evaluateInParallel(filterObjects, filterExpression, ctx, (MethodSecurityExpressionRoot) rootObject);
 		}
-		for (Object filterObject : filterTarget) {
+		retained = new BitSet(filterObjects.size());
+		int i = 0;
+		for (Object filterObject : filterObjects) {
 			rootObject.setFilterObject(filterObject);
 			if (ExpressionUtils.evaluateAsBoolean(filterExpression, ctx)) {
-				retain.add(filterObject);
+				retained.set(i);
 			}
+			i++;
 		}
-		this.logger.debug(LogMessage.format("Retaining elements: %s", retain));
-		Object[] filtered = (Object[]) Array.newInstance(filterTarget.getClass().getComponentType(), retain.size());
-		for (int i = 0; i < retain.size(); i++) {
-			filtered[i] = retain.get(i);
+		return retained;
+	}
+
+	/**
+	 * Splits the elements into one chunk per thread of the
+	 * {@link #setParallelFilterExecutor parallel filter executor}, plus one. The first
+	 * chunk is evaluated by the calling thread, and the others by the executor, each with
+	 * its own expression root and the {@link SecurityContext} of the calling thread.
+	 */
+	private BitSet evaluateInParallel(List<?> filterObjects, Expression filterExpression, EvaluationContext ctx,
+			MethodSecurityExpressionRoot rootObject) {
+		List<?> elements = (filterObjects instanceof RandomAccess) ? filterObjects : new ArrayList<>(filterObjects);
+		int size = elements.size();
+		int chunkCount = getParallelFilterParallelism() + 1;
+		int chunkSize = Math.max(1, (size + chunkCount - 1) / chunkCount);
+		// the method arguments are loaded lazily, and the evaluation context is not thread
+		// safe, so they are loaded by the calling thread before the chunks share it
+		ctx.lookupVariable("");
+		List<Future<BitSet>> chunks = new ArrayList<>();
+		try {
+			for (int from = chunkSize; from < size; from += chunkSize) {
+				int chunkFrom = from;
+				int chunkTo = Math.min(from + chunkSize, size);
+				MethodSecurityExpressionRoot chunkRoot = copyExpressionRoot(rootObject);
+				EvaluationContext chunkCtx = new FilterEvaluationContext(ctx, chunkRoot);
+				Callable<BitSet> chunk = () -> evaluate(elements, chunkFrom, chunkTo, filterExpression, chunkCtx,
+						chunkRoot);
+				chunks.add(this.parallelFilterExecutor.submit(new DelegatingSecurityContextCallable<>(chunk)));
+			}
+			BitSet retained = evaluate(elements, 0, Math.min(chunkSize, size), filterExpression, ctx, rootObject);
+			for (Future<BitSet> chunk : chunks) {
+				retained.or(chunk.get());
+			}
+			return retained;
 		}
-		return filtered;
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while filtering", ex);
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			if (ex.getCause() instanceof Error) {
+				throw (Error) ex.getCause();
+			}
+			throw new IllegalStateException(ex.getCause());
+		}
+		finally {
+			for (Future<BitSet> chunk : chunks) {
+				chunk.cancel(true);
+			}
+		}
+	}
+
+	private int getParallelFilterParallelism() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		if (this.parallelFilterExecutor instanceof ForkJoinPool) {
+			return ((ForkJoinPool) this.parallelFilterExecutor).getParallelism();
+		}
+		if (this.parallelFilterExecutor instanceof ThreadPoolExecutor) {
+			return Math.min(((ThreadPoolExecutor) this.parallelFilterExecutor).getMaximumPoolSize(), processors);
+		}
+		return processors - 1;
+	}
+
+	private static BitSet evaluate(List<?> elements, int from, int to, Expression filterExpression,
+			EvaluationContext ctx, MethodSecurityExpressionOperations rootObject) {
+		BitSet retained = new BitSet(to);
+		for (int i = from; i < to; i++) {
+			rootObject.setFilterObject(elements.get(i));
+			if (ExpressionUtils.evaluateAsBoolean(filterExpression, ctx)) {
+				retained.set(i);
+			}
+		}
+		return retained;
+	}
+
+	private MethodSecurityExpressionRoot copyExpressionRoot(MethodSecurityExpressionRoot rootObject) {
+		MethodSecurityExpressionRoot root = new MethodSecurityExpressionRoot(rootObject.getAuthentication());
+		root.setThis(rootObject.getThis());
+		root.setReturnObject(rootObject.getReturnObject());
+		root.setPermissionEvaluator(getPermissionEvaluator());
+		root.setTrustResolver(getTrustResolver());
+		root.setRoleHierarchy(getRoleHierarchy());
+		root.setDefaultRolePrefix(getDefaultRolePrefix());
+		return root;
+	}
+
+	/**
+	 * Checks the permission of all elements at once, if the expression is of the form
+	 * {@code hasPermission(filterObject, 'permission')}.
+	 * @return the indexes of the elements for which the permission is granted, or null if
+	 * the expression needs to be evaluated for each element
+	 */
+	private BitSet retainPermitted(List<?> filterObjects, Expression filterExpression,
+			MethodSecurityExpressionOperations rootObject) {
+		// the permission evaluator of the root is only known to be that of this handler
+		// when the root was created by this handler
+		if (filterObjects.isEmpty() || !this.defaultExpressionRoot
+				|| rootObject.getClass() != MethodSecurityExpressionRoot.class) {
+			return null;
+		}
+		Object permission = getFilterObjectPermission(filterExpression);
+		if (permission == null) {
+			return null;
+		}
+		BitSet granted = getPermissionEvaluator().hasPermissions(rootObject.getAuthentication(), filterObjects,
+				permission);
+		if (granted == null) {
+			return null;
+		}
+		return (granted.length() > filterObjects.size()) ? granted.get(0, filterObjects.size()) : granted;
+	}
+
+	private static Object getFilterObjectPermission(Expression filterExpression) {
+		if (!(filterExpression instanceof SpelExpression)) {
+			return null;
+		}
+		SpelNode node = ((SpelExpression) filterExpression).getAST();
+		if (!(node instanceof MethodReference) || !"hasPermission".equals(((MethodReference) node).getName())
+				|| node.getChildCount() != 2) {
+			return null;
+		}
+		SpelNode target = node.getChild(0);
+		SpelNode permission = node.getChild(1);
+		if (!(target instanceof PropertyOrFieldReference)
+				|| !"filterObject".equals(((PropertyOrFieldReference) target).getName())
+				|| !(permission instanceof Literal)) {
+			return null;
+		}
+		return ((Literal) permission).getLiteralValue().getValue();
 	}
 
 	private <K, V> Object filterMap(final Map<K, V> filterTarget, Expression filterExpression, EvaluationContext ctx,
@@ -211,6 +431,7 @@ public class DefaultMethodSecurityExpressionHandler extends AbstractSecurityExpr
 	 */
 	public void setParameterNameDiscoverer(ParameterNameDiscoverer parameterNameDiscoverer) {
 		this.parameterNameDiscoverer = parameterNameDiscoverer;
+		this.methodMetadata.clear();
 	}
 
 	/**
@@ -255,4 +476,160 @@ public class DefaultMethodSecurityExpressionHandler extends AbstractSecurityExpr
 		return this.defaultRolePrefix;
 	}
 
+	/**
+	 * Sets the minimum number of elements of a filtered collection or array for the
+	 * filter expression to be evaluated in parallel, on the
+	 * {@link #setParallelFilterExecutor(ExecutorService) parallel filter executor}. The
+	 * {@link SecurityContext} of the calling thread is propagated to the executor.
+	 * <p>
+	 * Parallel evaluation is only used when {@link #createSecurityExpressionRoot} is not
+	 * overridden, and requires the beans that the filter expression calls to be thread
+	 * safe. The default is {@link Integer#MAX_VALUE}, which disables it.
+	 * @param parallelFilterThreshold the minimum number of elements to evaluate in
+	 * parallel
+	 * @since 5.6
+	 */
+	public void setParallelFilterThreshold(int parallelFilterThreshold) {
+		Assert.isTrue(parallelFilterThreshold > 1, "parallelFilterThreshold must be greater than 1");
+		this.parallelFilterThreshold = parallelFilterThreshold;
+	}
+
+	/**
+	 * Sets the {@link ExecutorService} that evaluates filter expressions in parallel. The
+	 * elements are split according to the parallelism of a {@link ForkJoinPool}, or the
+	 * maximum pool size of a {@link ThreadPoolExecutor}, but into no more chunks than
+	 * there are processors otherwise. The default is the {@link ForkJoinPool#commonPool()
+	 * common pool}.
+	 * @param parallelFilterExecutor the {@link ExecutorService} to use
+	 * @since 5.6
+	 */
+	public void setParallelFilterExecutor(ExecutorService parallelFilterExecutor) {
+		Assert.notNull(parallelFilterExecutor, "parallelFilterExecutor cannot be null");
+		this.parallelFilterExecutor = parallelFilterExecutor;
+	}
+
+	/**
+	 * Sets the {@link SpelCompilerMode} of the expressions parsed by this handler, such
+	 * as those of {@code @PreAuthorize} and {@code @PostAuthorize}. This replaces the
+	 * {@link #setExpressionParser(org.springframework.expression.ExpressionParser)
+	 * expression parser}.
+	 * <p>
+	 * Unless the mode is {@link SpelCompilerMode#OFF}, the most specific method and the
+	 * parameter names of each invoked method are also resolved once and cached, instead
+	 * of for each evaluation. Note that with {@link SpelCompilerMode#IMMEDIATE}, a
+	 * compiled expression fails when it is evaluated against types that differ from those
+	 * it was compiled for, while {@link SpelCompilerMode#MIXED} falls back to
+	 * interpreting it. The default is {@link SpelCompilerMode#OFF}.
+	 * @param compilerMode the {@link SpelCompilerMode} to use
+	 * @since 5.6
+	 */
+	public void setCompilerMode(SpelCompilerMode compilerMode) {
+		Assert.notNull(compilerMode, "compilerMode cannot be null");
+		this.compilerMode = compilerMode;
+		setExpressionParser(new SpelExpressionParser(new SpelParserConfiguration(compilerMode, null)));
+		this.methodMetadata.clear();
+	}
+
+	/**
+	 * The most specific method of an invoked method, and its parameter names
+	 */
+	private static final class MethodMetadata implements ParameterNameDiscoverer {
+
+		private final Method method;
+
+		private final String[] parameterNames;
+
+		private final ParameterNameDiscoverer parameterNameDiscoverer;
+
+		private MethodMetadata(Method method, ParameterNameDiscoverer parameterNameDiscoverer) {
+			this.method = method;
+			this.parameterNames = parameterNameDiscoverer.getParameterNames(method);
+			this.parameterNameDiscoverer = parameterNameDiscoverer;
+		}
+
+		@Override
+		public String[] getParameterNames(Method method) {
+			return method.equals(this.method) ? this.parameterNames
+					: this.parameterNameDiscoverer.getParameterNames(method);
+		}
+
+		@Override
+		public String[] getParameterNames(Constructor<?> ctor) {
+			return this.parameterNameDiscoverer.getParameterNames(ctor);
+		}
+
+	}
+
+	/**
+	 * Evaluates a filter expression against its own expression root, and otherwise
+	 * delegates to the evaluation context of the method invocation
+	 */
+	private static final class FilterEvaluationContext implements EvaluationContext {
+
+		private final EvaluationContext delegate;
+
+		private final TypedValue rootObject;
+
+		private FilterEvaluationContext(EvaluationContext delegate, MethodSecurityExpressionRoot rootObject) {
+			this.delegate = delegate;
+			this.rootObject = new TypedValue(rootObject);
+		}
+
+		@Override
+		public TypedValue getRootObject() {
+			return this.rootObject;
+		}
+
+		@Override
+		public List<PropertyAccessor> getPropertyAccessors() {
+			return this.delegate.getPropertyAccessors();
+		}
+
+		@Override
+		public List<ConstructorResolver> getConstructorResolvers() {
+			return this.delegate.getConstructorResolvers();
+		}
+
+		@Override
+		public List<MethodResolver> getMethodResolvers() {
+			return this.delegate.getMethodResolvers();
+		}
+
+		@Override
+		public BeanResolver getBeanResolver() {
+			return this.delegate.getBeanResolver();
+		}
+
+		@Override
+		public TypeLocator getTypeLocator() {
+			return this.delegate.getTypeLocator();
+		}
+
+		@Override
+		public TypeConverter getTypeConverter() {
+			return this.delegate.getTypeConverter();
+		}
+
+		@Override
+		public TypeComparator getTypeComparator() {
+			return this.delegate.getTypeComparator();
+		}
+
+		@Override
+		public OperatorOverloader getOperatorOverloader() {
+			return this.delegate.getOperatorOverloader();
+		}
+
+		@Override
+		public void setVariable(String name, Object value) {
+			this.delegate.setVariable(name, value);
+		}
+
+		@Override
+		public Object lookupVariable(String name) {
+			return this.delegate.lookupVariable(name);
+		}
+
+	}
+
 }
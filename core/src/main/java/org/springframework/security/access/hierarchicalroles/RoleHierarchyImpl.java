@@ -17,9 +17,13 @@
 package org.springframework.security.access.hierarchicalroles;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,6 +34,8 @@ import org.springframework.core.log.LogMessage;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 
 /**
  * <p>
@@ -73,6 +79,13 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
  * In addition to shorter rules this will also make your access rules more readable and
  * your intentions clearer.
  *
+ * <p>
+ * When {@link #setCompiled(boolean) compiled}, the role names of the hierarchy are
+ * interned to ids and the roles reachable from each role are stored as a {@link BitSet}.
+ * The reachable authorities of a collection of {@link SimpleGrantedAuthority}s are then
+ * cached as an immutable collection, keyed by the names of the given authorities, so that
+ * repeated lookups for the same authorities do not allocate new collections.
+ *
  * @author Michael Mayr
  */
 public class RoleHierarchyImpl implements RoleHierarchy {
@@ -99,6 +112,12 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 	 */
 	private Map<String, Set<GrantedAuthority>> rolesReachableInOneOrMoreStepsMap = null;
 
+	private boolean compiled;
+
+	private int cacheSize = 1024;
+
+	private CompiledRoleHierarchy compiledHierarchy;
+
 	/**
 	 * Set the role hierarchy and pre-calculate for every role the set of all reachable
 	 * roles, i.e. all roles lower in the hierarchy of every given role. Pre-calculation
@@ -113,6 +132,32 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 				roleHierarchyStringRepresentation));
 		buildRolesReachableInOneStepMap();
 		buildRolesReachableInOneOrMoreStepsMap();
+		compile();
+	}
+
+	/**
+	 * Whether to precompile the role hierarchy into bitsets of interned role ids and to
+	 * cache the reachable authorities of collections of {@link SimpleGrantedAuthority}s.
+	 * Cached collections are immutable. The default is false.
+	 * @param compiled true if the role hierarchy should be compiled
+	 * @since 5.6
+	 */
+	public void setCompiled(boolean compiled) {
+		this.compiled = compiled;
+		compile();
+	}
+
+	/**
+	 * Sets the maximum number of distinct authority collections whose reachable
+	 * authorities are cached when the role hierarchy is {@link #setCompiled(boolean)
+	 * compiled}. The least recently used entries are evicted first. The default is 1024.
+	 * @param cacheSize the maximum number of cached entries
+	 * @since 5.6
+	 */
+	public void setCacheSize(int cacheSize) {
+		Assert.isTrue(cacheSize > 0, "cacheSize must be greater than 0");
+		this.cacheSize = cacheSize;
+		compile();
 	}
 
 	@Override
@@ -121,6 +166,10 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 		if (authorities == null || authorities.isEmpty()) {
 			return AuthorityUtils.NO_AUTHORITIES;
 		}
+		CompiledRoleHierarchy compiledHierarchy = this.compiledHierarchy;
+		if (compiledHierarchy != null) {
+			return compiledHierarchy.getReachableGrantedAuthorities(authorities);
+		}
 		Set<GrantedAuthority> reachableRoles = new HashSet<>();
 		Set<String> processedNames = new HashSet<>();
 		for (GrantedAuthority authority : authorities) {
@@ -152,6 +201,14 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 		return new ArrayList<>(reachableRoles);
 	}
 
+	private void compile() {
+		if (!this.compiled || this.rolesReachableInOneOrMoreStepsMap == null) {
+			this.compiledHierarchy = null;
+			return;
+		}
+		this.compiledHierarchy = new CompiledRoleHierarchy(this.rolesReachableInOneOrMoreStepsMap, this.cacheSize);
+	}
+
 	/**
 	 * Parse input and build the map for the roles reachable in one step: the higher role
 	 * will become a key that references a set of the reachable lower roles.
@@ -213,4 +270,98 @@ public class RoleHierarchyImpl implements RoleHierarchy {
 
 	}
 
+	/**
+	 * The role hierarchy with role names interned to ids and the roles reachable from
+	 * each role in one or more steps stored as a {@link BitSet} of ids.
+	 */
+	private static final class CompiledRoleHierarchy {
+
+		private final Map<String, Integer> ids = new HashMap<>();
+
+		private final List<GrantedAuthority> authorities = new ArrayList<>();
+
+		private final List<BitSet> reachable = new ArrayList<>();
+
+		private final ConcurrentLruCache<List<String>, Collection<GrantedAuthority>> cache;
+
+		private CompiledRoleHierarchy(Map<String, Set<GrantedAuthority>> rolesReachableInOneOrMoreStepsMap,
+				int cacheSize) {
+			for (Map.Entry<String, Set<GrantedAuthority>> entry : rolesReachableInOneOrMoreStepsMap.entrySet()) {
+				BitSet reachable = this.reachable.get(intern(entry.getKey()));
+				for (GrantedAuthority role : entry.getValue()) {
+					reachable.set(intern(role.getAuthority()));
+				}
+			}
+			this.cache = new ConcurrentLruCache<>(cacheSize, this::computeCachedGrantedAuthorities);
+		}
+
+		private int intern(String role) {
+			Integer id = this.ids.get(role);
+			if (id == null) {
+				id = this.authorities.size();
+				this.ids.put(role, id);
+				this.authorities.add(new SimpleGrantedAuthority(role));
+				this.reachable.add(new BitSet());
+			}
+			return id;
+		}
+
+		private Collection<GrantedAuthority> getReachableGrantedAuthorities(
+				Collection<? extends GrantedAuthority> authorities) {
+			String[] names = new String[authorities.size()];
+			int i = 0;
+			for (GrantedAuthority authority : authorities) {
+				if (authority == null || authority.getClass() != SimpleGrantedAuthority.class) {
+					// only the name of a SimpleGrantedAuthority is significant
+					return new ArrayList<>(computeReachableGrantedAuthorities(authorities));
+				}
+				names[i++] = authority.getAuthority();
+			}
+			return this.cache.get(Arrays.asList(names));
+		}
+
+		private Collection<GrantedAuthority> computeCachedGrantedAuthorities(List<String> names) {
+			List<GrantedAuthority> authorities = new ArrayList<>(names.size());
+			for (String name : names) {
+				authorities.add(new SimpleGrantedAuthority(name));
+			}
+			return Collections.unmodifiableList(computeReachableGrantedAuthorities(authorities));
+		}
+
+		private List<GrantedAuthority> computeReachableGrantedAuthorities(
+				Collection<? extends GrantedAuthority> authorities) {
+			List<GrantedAuthority> reachableRoles = new ArrayList<>();
+			BitSet processedIds = new BitSet(this.authorities.size());
+			Set<String> processedNames = new HashSet<>();
+			for (GrantedAuthority authority : authorities) {
+				String name = authority.getAuthority();
+				if (name == null) {
+					reachableRoles.add(authority);
+					continue;
+				}
+				Integer id = this.ids.get(name);
+				if (id == null) {
+					if (processedNames.add(name)) {
+						reachableRoles.add(authority);
+					}
+					continue;
+				}
+				if (processedIds.get(id)) {
+					continue;
+				}
+				processedIds.set(id);
+				reachableRoles.add(authority);
+				BitSet lowerRoles = this.reachable.get(id);
+				for (int lower = lowerRoles.nextSetBit(0); lower >= 0; lower = lowerRoles.nextSetBit(lower + 1)) {
+					if (!processedIds.get(lower)) {
+						processedIds.set(lower);
+						reachableRoles.add(this.authorities.get(lower));
+					}
+				}
+			}
+			return reachableRoles;
+		}
+
+	}
+
 }
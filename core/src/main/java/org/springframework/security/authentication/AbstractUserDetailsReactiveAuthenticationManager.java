@@ -60,6 +60,8 @@ public abstract class AbstractUserDetailsReactiveAuthenticationManager
 
 	private Scheduler scheduler = Schedulers.boundedElastic();
 
+	private PasswordVerificationExecutor passwordVerificationExecutor;
+
 	private UserDetailsChecker preAuthenticationChecks = this::defaultPreAuthenticationChecks;
 
 	private UserDetailsChecker postAuthenticationChecks = this::defaultPostAuthenticationChecks;
@@ -98,7 +100,7 @@ public abstract class AbstractUserDetailsReactiveAuthenticationManager
 		return retrieveUser(username)
 				.doOnNext(this.preAuthenticationChecks::check)
 				.publishOn(this.scheduler)
-				.filter((userDetails) -> this.passwordEncoder.matches(presentedPassword, userDetails.getPassword()))
+				.filterWhen((userDetails) -> matches(presentedPassword, userDetails.getPassword()))
 				.switchIfEmpty(Mono.defer(() -> Mono.error(new BadCredentialsException("Invalid Credentials"))))
 				.flatMap((userDetails) -> upgradeEncodingIfNecessary(userDetails, presentedPassword))
 				.doOnNext(this.postAuthenticationChecks::check)
@@ -106,6 +108,18 @@ public abstract class AbstractUserDetailsReactiveAuthenticationManager
 		// @formatter:on
 	}
 
+	private Mono<Boolean> matches(String presentedPassword, String encodedPassword) {
+		if (this.passwordVerificationExecutor == null) {
+			return Mono.just(this.passwordEncoder.matches(presentedPassword, encodedPassword));
+		}
+		// Return to the scheduler so that the rest of the chain does not hold a
+		// verification thread
+		return Mono
+				.defer(() -> Mono.fromFuture(this.passwordVerificationExecutor
+						.submit(() -> this.passwordEncoder.matches(presentedPassword, encodedPassword))))
+				.publishOn(this.scheduler);
+	}
+
 	private Mono<UserDetails> upgradeEncodingIfNecessary(UserDetails userDetails, String presentedPassword) {
 		boolean upgradeEncoding = this.userDetailsPasswordService != null
 				&& this.passwordEncoder.upgradeEncoding(userDetails.getPassword());
@@ -148,6 +162,18 @@ public abstract class AbstractUserDetailsReactiveAuthenticationManager
 		this.scheduler = scheduler;
 	}
 
+	/**
+	 * Sets the {@link PasswordVerificationExecutor} that verifies passwords. Unlike the
+	 * {@link #setScheduler(Scheduler) scheduler}, it explicitly bounds the number of
+	 * passwords verified at the same time and the number waiting, and rejects
+	 * verifications beyond that. By default, passwords are verified on the scheduler.
+	 * @param passwordVerificationExecutor the {@link PasswordVerificationExecutor} to use
+	 * @since 5.6
+	 */
+	public void setPasswordVerificationExecutor(PasswordVerificationExecutor passwordVerificationExecutor) {
+		this.passwordVerificationExecutor = passwordVerificationExecutor;
+	}
+
 	/**
 	 * Sets the service to use for upgrading passwords on successful authentication.
 	 * @param userDetailsPasswordService the service to use
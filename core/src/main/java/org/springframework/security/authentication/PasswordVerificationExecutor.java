@@ -0,0 +1,227 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.authentication;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * Runs password verifications, such as
+ * {@link org.springframework.security.crypto.password.PasswordEncoder#matches(CharSequence, String)},
+ * on a bounded number of threads, so that a burst of logins cannot occupy all the CPUs
+ * and starve unrelated requests.
+ * <p>
+ * At most {@code maximumConcurrency} verifications run at the same time, and at most
+ * {@code queueCapacity} wait for their turn. Further verifications are rejected with an
+ * {@link AuthenticationServiceException}. A queue capacity of {@code 0} therefore fails
+ * fast as soon as all the threads are busy, while a larger one applies backpressure by
+ * making callers wait.
+ * <p>
+ * The number of verifications and their total waiting and verification times are
+ * recorded, which is enough to report latencies, for example as a Micrometer
+ * {@code FunctionTimer}.
+ *
+ * @since 5.6
+ * @see org.springframework.security.authentication.dao.DaoAuthenticationProvider
+ * @see AbstractUserDetailsReactiveAuthenticationManager
+ */
+public final class PasswordVerificationExecutor implements DisposableBean {
+
+	private final ThreadPoolExecutor executor;
+
+	private final LongAdder verifications = new LongAdder();
+
+	private final LongAdder rejections = new LongAdder();
+
+	private final LongAdder waitTime = new LongAdder();
+
+	private final LongAdder verificationTime = new LongAdder();
+
+	/**
+	 * Creates an executor that runs as many verifications as there are processors, and
+	 * makes up to 16 times as many wait
+	 */
+	public PasswordVerificationExecutor() {
+		this(Runtime.getRuntime().availableProcessors(), 16 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new instance
+	 * @param maximumConcurrency the maximum number of verifications running at the same
+	 * time
+	 * @param queueCapacity the maximum number of verifications waiting to run, or
+	 * {@code 0} to reject verifications as soon as all threads are busy
+	 */
+	public PasswordVerificationExecutor(int maximumConcurrency, int queueCapacity) {
+		Assert.isTrue(maximumConcurrency > 0, "maximumConcurrency must be greater than 0");
+		Assert.isTrue(queueCapacity >= 0, "queueCapacity cannot be negative");
+		BlockingQueue<Runnable> queue = (queueCapacity > 0) ? new ArrayBlockingQueue<>(queueCapacity)
+				: new SynchronousQueue<>();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-verification-");
+		threadFactory.setDaemon(true);
+		this.executor = new ThreadPoolExecutor(maximumConcurrency, maximumConcurrency, 60, TimeUnit.SECONDS, queue,
+				threadFactory);
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Runs the verification and waits for its result
+	 * @param verification the verification
+	 * @return the result of the verification
+	 * @throws AuthenticationServiceException if the verification is rejected because too
+	 * many are already running or waiting, or if the thread is interrupted while waiting
+	 */
+	public <T> T execute(Supplier<T> verification) {
+		try {
+			return submit(verification).get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new AuthenticationServiceException("Interrupted while verifying the password", ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new AuthenticationServiceException(cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * Submits the verification without waiting for its result
+	 * @param verification the verification
+	 * @return the result of the verification, completed with an
+	 * {@link AuthenticationServiceException} if the verification is rejected because too
+	 * many are already running or waiting
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> verification) {
+		Assert.notNull(verification, "verification cannot be null");
+		Verification<T> task = new Verification<>(verification);
+		try {
+			this.executor.execute(task);
+		}
+		catch (RejectedExecutionException ex) {
+			this.rejections.increment();
+			String message = this.executor.isShutdown() ? "Password verifications have been shut down"
+					: "Too many password verifications in progress";
+			task.result.completeExceptionally(new AuthenticationServiceException(message, ex));
+		}
+		return task.result;
+	}
+
+	/**
+	 * @return the number of verifications that have run
+	 */
+	public long getVerificationCount() {
+		return this.verifications.sum();
+	}
+
+	/**
+	 * @return the number of verifications that have been rejected
+	 */
+	public long getRejectionCount() {
+		return this.rejections.sum();
+	}
+
+	/**
+	 * @return the time that the verifications that have run spent waiting to run
+	 */
+	public Duration getTotalWaitTime() {
+		return Duration.ofNanos(this.waitTime.sum());
+	}
+
+	/**
+	 * @return the time that the verifications that have run spent running
+	 */
+	public Duration getTotalVerificationTime() {
+		return Duration.ofNanos(this.verificationTime.sum());
+	}
+
+	/**
+	 * @return the number of verifications currently running
+	 */
+	public int getActiveCount() {
+		return this.executor.getActiveCount();
+	}
+
+	/**
+	 * @return the number of verifications currently waiting to run
+	 */
+	public int getQueueSize() {
+		return this.executor.getQueue().size();
+	}
+
+	/**
+	 * Stops the threads. Verifications that are still waiting to run are completed with
+	 * an {@link AuthenticationServiceException}.
+	 */
+	@Override
+	public void destroy() {
+		for (Runnable task : this.executor.shutdownNow()) {
+			((Verification<?>) task).result.completeExceptionally(
+					new AuthenticationServiceException("Password verifications have been shut down"));
+		}
+	}
+
+	private final class Verification<T> implements Runnable {
+
+		private final Supplier<T> verification;
+
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+
+		private final long submitted = System.nanoTime();
+
+		private Verification(Supplier<T> verification) {
+			this.verification = verification;
+		}
+
+		@Override
+		public void run() {
+			long started = System.nanoTime();
+			try {
+				this.result.complete(this.verification.get());
+			}
+			catch (Throwable ex) {
+				this.result.completeExceptionally(ex);
+			}
+			finally {
+				PasswordVerificationExecutor.this.verificationTime.add(System.nanoTime() - started);
+				PasswordVerificationExecutor.this.waitTime.add(started - this.submitted);
+				PasswordVerificationExecutor.this.verifications.increment();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.authentication.dao;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.log.LogMessage;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.Assert;
+
+/**
+ * Upgrades the encoding of passwords in the background, so that a login does not wait
+ * for the password to be encoded a second time and written with the
+ * {@link UserDetailsPasswordService}.
+ * <p>
+ * Upgrades are queued by username, so that a user who logs in several times before the
+ * upgrade runs is only upgraded once, with the latest password. The queue is drained in
+ * batches by a single task at a time. When the queue is full, further upgrades are
+ * dropped; since the stored password still needs an upgrade, it is queued again on the
+ * next login.
+ * <p>
+ * Before an upgrade is written, the user is loaded again with the
+ * {@link UserDetailsService}, and the upgrade is skipped if the encoded password has
+ * changed since the login, for example because the password was reset in the meantime.
+ * <p>
+ * The presented passwords are held in memory until their upgrade has run, or until they
+ * are older than the {@link #setMaximumAge(Duration) maximum age}, in which case the
+ * upgrade is dropped.
+ *
+ * @since 5.6
+ * @see DaoAuthenticationProvider#setPasswordUpgrader(AsyncPasswordUpgrader)
+ */
+public final class AsyncPasswordUpgrader implements DisposableBean {
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final PasswordEncoder passwordEncoder;
+
+	private final UserDetailsService userDetailsService;
+
+	private final UserDetailsPasswordService userDetailsPasswordService;
+
+	private final ExecutorService defaultExecutor;
+
+	private final Object monitor = new Object();
+
+	// guarded by monitor
+	private Map<String, PendingUpgrade> pending = new LinkedHashMap<>();
+
+	// guarded by monitor
+	private boolean draining;
+
+	private final LongAdder upgrades = new LongAdder();
+
+	private final LongAdder drops = new LongAdder();
+
+	private final LongAdder skips = new LongAdder();
+
+	private final LongAdder failures = new LongAdder();
+
+	private Executor executor;
+
+	private int maximumPendingUpgrades = 10000;
+
+	private Duration maximumAge = Duration.ofMinutes(1);
+
+	private Clock clock = Clock.systemUTC();
+
+	/**
+	 * Creates a new instance that upgrades passwords on a single background thread
+	 * @param passwordEncoder the {@link PasswordEncoder} to encode the passwords with
+	 * @param userDetailsService the {@link UserDetailsService} to load the current
+	 * password of the users with before upgrading it
+	 * @param userDetailsPasswordService the {@link UserDetailsPasswordService} to write
+	 * the upgraded passwords with
+	 */
+	public AsyncPasswordUpgrader(PasswordEncoder passwordEncoder, UserDetailsService userDetailsService,
+			UserDetailsPasswordService userDetailsPasswordService) {
+		Assert.notNull(passwordEncoder, "passwordEncoder cannot be null");
+		Assert.notNull(userDetailsService, "userDetailsService cannot be null");
+		Assert.notNull(userDetailsPasswordService, "userDetailsPasswordService cannot be null");
+		this.passwordEncoder = passwordEncoder;
+		this.userDetailsService = userDetailsService;
+		this.userDetailsPasswordService = userDetailsPasswordService;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-upgrade-");
+		threadFactory.setDaemon(true);
+		this.defaultExecutor = Executors.newSingleThreadExecutor(threadFactory);
+		this.executor = this.defaultExecutor;
+	}
+
+	/**
+	 * Queues the upgrade of the password of a user, replacing any upgrade of the same
+	 * user that has not run yet
+	 * @param user the user, as loaded when the password was verified
+	 * @param presentedPassword the verified password
+	 */
+	public void upgrade(UserDetails user, String presentedPassword) {
+		Assert.notNull(user, "user cannot be null");
+		Assert.notNull(presentedPassword, "presentedPassword cannot be null");
+		synchronized (this.monitor) {
+			if (this.pending.size() >= this.maximumPendingUpgrades && !this.pending.containsKey(user.getUsername())) {
+				this.drops.increment();
+				this.logger.debug(LogMessage.format("Dropped password upgrade of %s since too many are pending",
+						user.getUsername()));
+				return;
+			}
+			this.pending.put(user.getUsername(), new PendingUpgrade(user, presentedPassword, this.clock.instant()));
+			if (this.draining) {
+				return;
+			}
+			this.draining = true;
+		}
+		scheduleDrain();
+	}
+
+	private void scheduleDrain() {
+		try {
+			this.executor.execute(this::drain);
+		}
+		catch (RuntimeException ex) {
+			synchronized (this.monitor) {
+				this.draining = false;
+			}
+			this.logger.debug("Failed to schedule password upgrades", ex);
+		}
+	}
+
+	private void drain() {
+		boolean drained = false;
+		try {
+			while (true) {
+				List<PendingUpgrade> batch;
+				synchronized (this.monitor) {
+					if (this.pending.isEmpty()) {
+						this.draining = false;
+						drained = true;
+						return;
+					}
+					batch = new ArrayList<>(this.pending.values());
+					this.pending = new LinkedHashMap<>();
+				}
+				for (PendingUpgrade upgrade : batch) {
+					run(upgrade);
+				}
+			}
+		}
+		finally {
+			if (!drained) {
+				rescheduleDrain();
+			}
+		}
+	}
+
+	private void rescheduleDrain() {
+		synchronized (this.monitor) {
+			this.draining = !this.pending.isEmpty();
+			if (!this.draining) {
+				return;
+			}
+		}
+		scheduleDrain();
+	}
+
+	private void run(PendingUpgrade upgrade) {
+		String username = upgrade.user.getUsername();
+		if (this.clock.instant().isAfter(upgrade.queuedAt.plus(this.maximumAge))) {
+			this.drops.increment();
+			this.logger.debug(LogMessage.format("Dropped password upgrade of %s since it is too old", username));
+			return;
+		}
+		try {
+			UserDetails current = this.userDetailsService.loadUserByUsername(username);
+			if (current == null || !Objects.equals(current.getPassword(), upgrade.user.getPassword())) {
+				this.skips.increment();
+				this.logger.debug(LogMessage.format(
+						"Skipped password upgrade of %s since the password changed after the login", username));
+				return;
+			}
+			String newPassword = this.passwordEncoder.encode(upgrade.presentedPassword);
+			this.userDetailsPasswordService.updatePassword(current, newPassword);
+			this.upgrades.increment();
+		}
+		catch (UsernameNotFoundException ex) {
+			this.skips.increment();
+			this.logger.debug(LogMessage.format("Skipped password upgrade of %s since it no longer exists", username));
+		}
+		catch (RuntimeException ex) {
+			this.failures.increment();
+			this.logger.warn(LogMessage.format("Failed to upgrade the password of %s", upgrade.user.getUsername()),
+					ex);
+		}
+	}
+
+	/**
+	 * Sets the {@link Executor} that runs the upgrades. By default, they run on a single
+	 * daemon thread, which is stopped when this upgrader is destroyed.
+	 * @param executor the {@link Executor} to use
+	 */
+	public void setExecutor(Executor executor) {
+		Assert.notNull(executor, "executor cannot be null");
+		this.executor = executor;
+	}
+
+	/**
+	 * Sets the maximum number of users whose upgrade has not run yet. The default is
+	 * 10000.
+	 * @param maximumPendingUpgrades the maximum number of pending upgrades
+	 */
+	public void setMaximumPendingUpgrades(int maximumPendingUpgrades) {
+		Assert.isTrue(maximumPendingUpgrades > 0, "maximumPendingUpgrades must be greater than 0");
+		this.maximumPendingUpgrades = maximumPendingUpgrades;
+	}
+
+	/**
+	 * Sets how long an upgrade may wait before running. Older upgrades are dropped, so
+	 * that presented passwords are not held in memory for long. The default is 1 minute.
+	 * @param maximumAge the maximum age of a pending upgrade
+	 */
+	public void setMaximumAge(Duration maximumAge) {
+		Assert.notNull(maximumAge, "maximumAge cannot be null");
+		Assert.isTrue(!maximumAge.isNegative(), "maximumAge cannot be negative");
+		this.maximumAge = maximumAge;
+	}
+
+	void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * @return the number of users whose upgrade has not run yet
+	 */
+	public int getPendingCount() {
+		synchronized (this.monitor) {
+			return this.pending.size();
+		}
+	}
+
+	/**
+	 * @return the number of passwords that have been upgraded
+	 */
+	public long getUpgradeCount() {
+		return this.upgrades.sum();
+	}
+
+	/**
+	 * @return the number of upgrades that have been dropped because too many were
+	 * pending, or because they were too old
+	 */
+	public long getDropCount() {
+		return this.drops.sum();
+	}
+
+	/**
+	 * @return the number of upgrades that have been skipped because the password changed
+	 * after the login
+	 */
+	public long getSkipCount() {
+		return this.skips.sum();
+	}
+
+	/**
+	 * @return the number of upgrades that have failed
+	 */
+	public long getFailureCount() {
+		return this.failures.sum();
+	}
+
+	@Override
+	public void destroy() {
+		this.defaultExecutor.shutdownNow();
+	}
+
+	private static final class PendingUpgrade {
+
+		private final UserDetails user;
+
+		private final String presentedPassword;
+
+		private final Instant queuedAt;
+
+		private PendingUpgrade(UserDetails user, String presentedPassword, Instant queuedAt) {
+			this.user = user;
+			this.presentedPassword = presentedPassword;
+			this.queuedAt = queuedAt;
+		}
+
+	}
+
+}
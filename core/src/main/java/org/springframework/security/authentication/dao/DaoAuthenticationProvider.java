@@ -19,6 +19,7 @@ package org.springframework.security.authentication.dao;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.PasswordVerificationExecutor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -59,6 +60,12 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 
 	private UserDetailsPasswordService userDetailsPasswordService;
 
+	private PasswordVerificationExecutor passwordVerificationExecutor;
+
+	private VerifiedCredentialsCache verifiedCredentialsCache;
+
+	private AsyncPasswordUpgrader passwordUpgrader;
+
 	public DaoAuthenticationProvider() {
 		setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
 	}
@@ -73,11 +80,19 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 					.getMessage("AbstractUserDetailsAuthenticationProvider.badCredentials", "Bad credentials"));
 		}
 		String presentedPassword = authentication.getCredentials().toString();
-		if (!this.passwordEncoder.matches(presentedPassword, userDetails.getPassword())) {
+		if (this.verifiedCredentialsCache != null && this.verifiedCredentialsCache
+				.isVerified(userDetails.getUsername(), userDetails.getPassword(), presentedPassword)) {
+			return;
+		}
+		if (!matches(presentedPassword, userDetails.getPassword())) {
 			this.logger.debug("Failed to authenticate since password does not match stored value");
 			throw new BadCredentialsException(this.messages
 					.getMessage("AbstractUserDetailsAuthenticationProvider.badCredentials", "Bad credentials"));
 		}
+		if (this.verifiedCredentialsCache != null) {
+			this.verifiedCredentialsCache.putVerified(userDetails.getUsername(), userDetails.getPassword(),
+					presentedPassword);
+		}
 	}
 
 	@Override
@@ -112,11 +127,18 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 	@Override
 	protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
 			UserDetails user) {
+		if (this.passwordUpgrader != null && this.passwordEncoder.upgradeEncoding(user.getPassword())) {
+			this.passwordUpgrader.upgrade(user, authentication.getCredentials().toString());
+			return super.createSuccessAuthentication(principal, authentication, user);
+		}
 		boolean upgradeEncoding = this.userDetailsPasswordService != null
 				&& this.passwordEncoder.upgradeEncoding(user.getPassword());
 		if (upgradeEncoding) {
 			String presentedPassword = authentication.getCredentials().toString();
 			String newPassword = this.passwordEncoder.encode(presentedPassword);
+			if (this.verifiedCredentialsCache != null) {
+				this.verifiedCredentialsCache.evict(user.getUsername());
+			}
 			user = this.userDetailsPasswordService.updatePassword(user, newPassword);
 		}
 		return super.createSuccessAuthentication(principal, authentication, user);
@@ -131,10 +153,18 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 	private void mitigateAgainstTimingAttack(UsernamePasswordAuthenticationToken authentication) {
 		if (authentication.getCredentials() != null) {
 			String presentedPassword = authentication.getCredentials().toString();
-			this.passwordEncoder.matches(presentedPassword, this.userNotFoundEncodedPassword);
+			matches(presentedPassword, this.userNotFoundEncodedPassword);
 		}
 	}
 
+	private boolean matches(String presentedPassword, String encodedPassword) {
+		if (this.passwordVerificationExecutor == null) {
+			return this.passwordEncoder.matches(presentedPassword, encodedPassword);
+		}
+		return this.passwordVerificationExecutor
+				.execute(() -> this.passwordEncoder.matches(presentedPassword, encodedPassword));
+	}
+
 	/**
 	 * Sets the PasswordEncoder instance to be used to encode and validate passwords. If
 	 * not set, the password will be compared using
@@ -164,4 +194,40 @@ public class DaoAuthenticationProvider extends AbstractUserDetailsAuthentication
 		this.userDetailsPasswordService = userDetailsPasswordService;
 	}
 
+	/**
+	 * Sets the {@link PasswordVerificationExecutor} that verifies passwords, in order to
+	 * bound the number of threads that hash passwords at the same time. By default,
+	 * passwords are verified on the calling thread.
+	 * @param passwordVerificationExecutor the {@link PasswordVerificationExecutor} to use
+	 * @since 5.6
+	 */
+	public void setPasswordVerificationExecutor(PasswordVerificationExecutor passwordVerificationExecutor) {
+		this.passwordVerificationExecutor = passwordVerificationExecutor;
+	}
+
+	/**
+	 * Sets the {@link VerifiedCredentialsCache} that remembers verified passwords for a
+	 * short time, so that clients presenting the same credentials on each request, such
+	 * as with HTTP Basic, are not verified with a slow password hash each time. The user
+	 * is still loaded and checked on each request. By default, no passwords are
+	 * remembered.
+	 * @param verifiedCredentialsCache the {@link VerifiedCredentialsCache} to use
+	 * @since 5.6
+	 */
+	public void setVerifiedCredentialsCache(VerifiedCredentialsCache verifiedCredentialsCache) {
+		this.verifiedCredentialsCache = verifiedCredentialsCache;
+	}
+
+	/**
+	 * Sets the {@link AsyncPasswordUpgrader} that upgrades the encoding of passwords
+	 * after the login has completed, instead of during the login with the
+	 * {@link UserDetailsPasswordService}. By default, passwords are upgraded during the
+	 * login.
+	 * @param passwordUpgrader the {@link AsyncPasswordUpgrader} to use
+	 * @since 5.6
+	 */
+	public void setPasswordUpgrader(AsyncPasswordUpgrader passwordUpgrader) {
+		this.passwordUpgrader = passwordUpgrader;
+	}
+
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.authentication.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
+
+/**
+ * A short-lived cache of successfully verified passwords, so that clients presenting the
+ * same credentials on every request, such as with HTTP Basic, do not pay for a slow
+ * password hash each time.
+ * <p>
+ * No password is stored. For each username, the cache keeps an HMAC-SHA256 of the
+ * username, the encoded password it was verified against and the presented password,
+ * under a random key generated for each instance, and never persisted. A password
+ * therefore only counts as verified if it is presented for the same user, and the
+ * stored encoded password has not changed since, so that a password change through any
+ * means invalidates the entry. Entries also expire after a short time to live, and can
+ * be evicted explicitly.
+ *
+ * @since 5.6
+ * @see DaoAuthenticationProvider#setVerifiedCredentialsCache(VerifiedCredentialsCache)
+ */
+public final class VerifiedCredentialsCache {
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private final SecretKeySpec secret;
+
+	private Duration timeToLive = Duration.ofMinutes(1);
+
+	private Clock clock = Clock.systemUTC();
+
+	private volatile ConcurrentLruCache<String, AtomicReference<Entry>> entries = createEntries(10000);
+
+	public VerifiedCredentialsCache() {
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		this.secret = new SecretKeySpec(secret, ALGORITHM);
+	}
+
+	/**
+	 * Tells whether the presented password has been verified against the encoded password
+	 * of the user within the time to live
+	 * @param username the username
+	 * @param encodedPassword the encoded password of the user
+	 * @param presentedPassword the presented password
+	 * @return true if the password has been verified, false otherwise
+	 */
+	public boolean isVerified(String username, String encodedPassword, String presentedPassword) {
+		ConcurrentLruCache<String, AtomicReference<Entry>> entries = this.entries;
+		if (!entries.contains(username)) {
+			return false;
+		}
+		AtomicReference<Entry> slot = entries.get(username);
+		Entry entry = slot.get();
+		if (entry == null) {
+			return false;
+		}
+		if (!this.clock.instant().isBefore(entry.expiresAt)) {
+			slot.compareAndSet(entry, null);
+			return false;
+		}
+		return MessageDigest.isEqual(entry.mac, mac(username, encodedPassword, presentedPassword));
+	}
+
+	/**
+	 * Records that the presented password matches the encoded password of the user
+	 * @param username the username
+	 * @param encodedPassword the encoded password of the user
+	 * @param presentedPassword the presented password
+	 */
+	public void putVerified(String username, String encodedPassword, String presentedPassword) {
+		Entry entry = new Entry(mac(username, encodedPassword, presentedPassword),
+				this.clock.instant().plus(this.timeToLive));
+		this.entries.get(username).set(entry);
+	}
+
+	/**
+	 * Evicts the verified password of the user, for example when the password changes
+	 * @param username the username
+	 */
+	public void evict(String username) {
+		this.entries.remove(username);
+	}
+
+	private byte[] mac(String username, String encodedPassword, String presentedPassword) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(this.secret);
+			update(mac, username);
+			update(mac, encodedPassword);
+			update(mac, presentedPassword);
+			return mac.doFinal();
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static void update(Mac mac, String value) {
+		// Prefix each value with its length so that values cannot run into each other
+		byte[] bytes = (value != null) ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		mac.update(new byte[] { (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+				(byte) (bytes.length >>> 8), (byte) bytes.length });
+		mac.update(bytes);
+	}
+
+	/**
+	 * Sets how long a verified password is remembered. The default is 1 minute.
+	 * @param timeToLive the time to live
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative(), "timeToLive cannot be negative");
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Sets the maximum number of users whose verified password is remembered. The least
+	 * recently used are evicted first. The default is 10000. Changing the maximum size
+	 * forgets the passwords verified so far.
+	 * @param maximumSize the maximum number of users
+	 */
+	public void setMaximumSize(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0");
+		this.entries = createEntries(maximumSize);
+	}
+
+	void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private static ConcurrentLruCache<String, AtomicReference<Entry>> createEntries(int maximumSize) {
+		return new ConcurrentLruCache<>(maximumSize, (username) -> new AtomicReference<>());
+	}
+
+	private static final class Entry {
+
+		private final byte[] mac;
+
+		private final Instant expiresAt;
+
+		private Entry(byte[] mac, Instant expiresAt) {
+			this.mac = mac;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
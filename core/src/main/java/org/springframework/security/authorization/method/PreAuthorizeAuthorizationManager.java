@@ -17,6 +17,8 @@
 package org.springframework.security.authorization.method;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
 import org.aopalliance.intercept.MethodInvocation;
@@ -25,10 +27,17 @@ import reactor.util.annotation.NonNull;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.security.access.expression.ExpressionUtils;
 import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.core.Authentication;
@@ -46,8 +55,12 @@ public final class PreAuthorizeAuthorizationManager implements AuthorizationMana
 
 	private final PreAuthorizeExpressionAttributeRegistry registry = new PreAuthorizeExpressionAttributeRegistry();
 
+	private static final String ROLE_PREFIX = "ROLE_";
+
 	private MethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
 
+	private boolean simpleExpressionsWithoutSpel;
+
 	/**
 	 * Sets the {@link MethodSecurityExpressionHandler}.
 	 * @param expressionHandler the {@link MethodSecurityExpressionHandler} to use
@@ -57,6 +70,25 @@ public final class PreAuthorizeAuthorizationManager implements AuthorizationMana
 		this.expressionHandler = expressionHandler;
 	}
 
+	/**
+	 * Sets whether expressions that consist of a single {@code hasRole},
+	 * {@code hasAnyRole}, {@code hasAuthority} or {@code hasAnyAuthority} call with
+	 * string literal arguments, or of {@code isAuthenticated()}, are checked by an
+	 * {@link AuthorityAuthorizationManager} or {@link AuthenticatedAuthorizationManager}
+	 * instead of being evaluated with SpEL.
+	 * <p>
+	 * Unlike the expressions, these require {@link Authentication#isAuthenticated()},
+	 * always use the "ROLE_" prefix, and do not consult a
+	 * {@link org.springframework.security.access.hierarchicalroles.RoleHierarchy}, so
+	 * only enable this when neither a role hierarchy nor a custom role prefix is
+	 * configured. Must be set before the first invocation. The default is false.
+	 * @param simpleExpressionsWithoutSpel whether to check simple expressions without
+	 * SpEL
+	 */
+	public void setSimpleExpressionsWithoutSpel(boolean simpleExpressionsWithoutSpel) {
+		this.simpleExpressionsWithoutSpel = simpleExpressionsWithoutSpel;
+	}
+
 	/**
 	 * Determine if an {@link Authentication} has access to a method by evaluating an
 	 * expression from the {@link PreAuthorize} annotation that the
@@ -72,6 +104,11 @@ public final class PreAuthorizeAuthorizationManager implements AuthorizationMana
 		if (attribute == ExpressionAttribute.NULL_ATTRIBUTE) {
 			return null;
 		}
+		if (attribute instanceof AuthorizationManagerAttribute) {
+			AuthorizationDecision decision = ((AuthorizationManagerAttribute) attribute).authorizationManager
+					.check(authentication, mi);
+			return new ExpressionAttributeAuthorizationDecision(decision.isGranted(), attribute);
+		}
 		EvaluationContext ctx = this.expressionHandler.createEvaluationContext(authentication.get(), mi);
 		boolean granted = ExpressionUtils.evaluateAsBoolean(attribute.getExpression(), ctx);
 		return new ExpressionAttributeAuthorizationDecision(granted, attribute);
@@ -90,9 +127,49 @@ public final class PreAuthorizeAuthorizationManager implements AuthorizationMana
 			}
 			Expression preAuthorizeExpression = PreAuthorizeAuthorizationManager.this.expressionHandler
 					.getExpressionParser().parseExpression(preAuthorize.value());
+			if (PreAuthorizeAuthorizationManager.this.simpleExpressionsWithoutSpel) {
+				AuthorizationManager<MethodInvocation> authorizationManager = createAuthorizationManager(
+						preAuthorizeExpression);
+				if (authorizationManager != null) {
+					return new AuthorizationManagerAttribute(preAuthorizeExpression, authorizationManager);
+				}
+			}
 			return new ExpressionAttribute(preAuthorizeExpression);
 		}
 
+		private AuthorizationManager<MethodInvocation> createAuthorizationManager(Expression expression) {
+			if (!(expression instanceof SpelExpression)) {
+				return null;
+			}
+			SpelNode node = ((SpelExpression) expression).getAST();
+			if (node instanceof PropertyOrFieldReference
+					&& "authenticated".equals(((PropertyOrFieldReference) node).getName())) {
+				return AuthenticatedAuthorizationManager.authenticated();
+			}
+			if (!(node instanceof MethodReference)) {
+				return null;
+			}
+			String name = ((MethodReference) node).getName();
+			if ("isAuthenticated".equals(name) && node.getChildCount() == 0) {
+				return AuthenticatedAuthorizationManager.authenticated();
+			}
+			boolean single = "hasRole".equals(name) || "hasAuthority".equals(name);
+			boolean any = "hasAnyRole".equals(name) || "hasAnyAuthority".equals(name);
+			if (!(single && node.getChildCount() == 1) && !(any && node.getChildCount() > 0)) {
+				return null;
+			}
+			boolean role = name.endsWith("Role");
+			List<String> authorities = new ArrayList<>(node.getChildCount());
+			for (int i = 0; i < node.getChildCount(); i++) {
+				if (!(node.getChild(i) instanceof StringLiteral)) {
+					return null;
+				}
+				String authority = (String) ((StringLiteral) node.getChild(i)).getLiteralValue().getValue();
+				authorities.add((role && !authority.startsWith(ROLE_PREFIX)) ? ROLE_PREFIX + authority : authority);
+			}
+			return AuthorityAuthorizationManager.hasAnyAuthority(authorities.toArray(new String[0]));
+		}
+
 		private PreAuthorize findPreAuthorizeAnnotation(Method method) {
 			PreAuthorize preAuthorize = AuthorizationAnnotationUtils.findUniqueAnnotation(method, PreAuthorize.class);
 			return (preAuthorize != null) ? preAuthorize
@@ -101,4 +178,16 @@ public final class PreAuthorizeAuthorizationManager implements AuthorizationMana
 
 	}
 
+	private static final class AuthorizationManagerAttribute extends ExpressionAttribute {
+
+		private final AuthorizationManager<MethodInvocation> authorizationManager;
+
+		private AuthorizationManagerAttribute(Expression expression,
+				AuthorizationManager<MethodInvocation> authorizationManager) {
+			super(expression);
+			this.authorizationManager = authorizationManager;
+		}
+
+	}
+
 }
@@ -25,6 +25,12 @@ import org.springframework.util.Assert;
 /**
  * An {@link Executor} which wraps each {@link Runnable} in a
  * {@link DelegatingSecurityContextRunnable}.
+ * <p>
+ * For an {@link Executor} that starts a new thread for each task, such as
+ * {@link org.springframework.core.task.SimpleAsyncTaskExecutor}, wrapping is not needed
+ * when the {@link SecurityContextHolder} uses
+ * {@link SecurityContextHolder#MODE_INHERITABLETHREADLOCAL}, since each thread inherits
+ * the {@link SecurityContext} of the submitting thread when it is created.
  *
  * @author Rob Winch
  * @since 3.2
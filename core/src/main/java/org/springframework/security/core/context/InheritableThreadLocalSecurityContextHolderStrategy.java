@@ -16,6 +16,8 @@
 
 package org.springframework.security.core.context;
 
+import java.util.function.Supplier;
+
 import org.springframework.util.Assert;
 
 /**
@@ -27,7 +29,7 @@ import org.springframework.util.Assert;
  */
 final class InheritableThreadLocalSecurityContextHolderStrategy implements SecurityContextHolderStrategy {
 
-	private static final ThreadLocal<SecurityContext> contextHolder = new InheritableThreadLocal<>();
+	private static final ThreadLocal<Supplier<SecurityContext>> contextHolder = new ResolvedContextHolder();
 
 	@Override
 	public void clearContext() {
@@ -36,18 +38,32 @@ final class InheritableThreadLocalSecurityContextHolderStrategy implements Secur
 
 	@Override
 	public SecurityContext getContext() {
-		SecurityContext ctx = contextHolder.get();
-		if (ctx == null) {
-			ctx = createEmptyContext();
-			contextHolder.set(ctx);
-		}
+		SecurityContext ctx = getDeferredContext().get();
+		Assert.state(ctx != null, "A Supplier<SecurityContext> returned null and is not allowed");
 		return ctx;
 	}
 
+	@Override
+	public Supplier<SecurityContext> getDeferredContext() {
+		Supplier<SecurityContext> result = contextHolder.get();
+		if (result == null) {
+			SecurityContext ctx = createEmptyContext();
+			result = () -> ctx;
+			contextHolder.set(result);
+		}
+		return result;
+	}
+
 	@Override
 	public void setContext(SecurityContext context) {
 		Assert.notNull(context, "Only non-null SecurityContext instances are permitted");
-		contextHolder.set(context);
+		contextHolder.set(() -> context);
+	}
+
+	@Override
+	public void setDeferredContext(Supplier<SecurityContext> deferredContext) {
+		Assert.notNull(deferredContext, "Only non-null Supplier instances are permitted");
+		contextHolder.set(deferredContext);
 	}
 
 	@Override
@@ -55,4 +71,19 @@ final class InheritableThreadLocalSecurityContextHolderStrategy implements Secur
 		return new SecurityContextImpl();
 	}
 
+	/**
+	 * Child threads inherit the context resolved on the parent thread rather than the
+	 * deferred context itself, since a deferred context may read from a request that is
+	 * completed by the time the child thread uses it, and is not thread safe.
+	 */
+	private static final class ResolvedContextHolder extends InheritableThreadLocal<Supplier<SecurityContext>> {
+
+		@Override
+		protected Supplier<SecurityContext> childValue(Supplier<SecurityContext> parentValue) {
+			SecurityContext context = parentValue.get();
+			return () -> context;
+		}
+
+	}
+
 }
@@ -16,6 +16,8 @@
 
 package org.springframework.security.core.context;
 
+import java.util.function.Supplier;
+
 /**
  * A strategy for storing security context information against a thread.
  *
@@ -38,6 +40,16 @@ public interface SecurityContextHolderStrategy {
 	 */
 	SecurityContext getContext();
 
+	/**
+	 * Obtains a {@link Supplier} that returns the current context.
+	 * @return a {@link Supplier} that returns the current context (never
+	 * <code>null</code> - create a default implementation if necessary)
+	 * @since 5.6
+	 */
+	default Supplier<SecurityContext> getDeferredContext() {
+		return this::getContext;
+	}
+
 	/**
 	 * Sets the current context.
 	 * @param context to the new argument (should never be <code>null</code>, although
@@ -46,6 +58,20 @@ public interface SecurityContextHolderStrategy {
 	 */
 	void setContext(SecurityContext context);
 
+	/**
+	 * Sets a {@link Supplier} that will return the current context. The context is only
+	 * obtained from the {@link Supplier} when it is first needed, which allows a context
+	 * that is expensive to load to be loaded only by the requests that use it.
+	 * Implementations that cannot defer the lookup can use the default, which obtains the
+	 * context immediately.
+	 * @param deferredContext a {@link Supplier} that returns the {@link SecurityContext}
+	 * (should never be <code>null</code>, and should only be invoked once)
+	 * @since 5.6
+	 */
+	default void setDeferredContext(Supplier<SecurityContext> deferredContext) {
+		setContext(deferredContext.get());
+	}
+
 	/**
 	 * Creates a new, empty context implementation, for use by
 	 * <tt>SecurityContextRepository</tt> implementations, when creating a new context for
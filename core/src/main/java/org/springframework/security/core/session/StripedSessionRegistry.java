@@ -0,0 +1,421 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.core.session;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.log.LogMessage;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link SessionRegistry} intended for a large number of sessions. Like
+ * {@link SessionRegistryImpl}, it listens for {@link SessionDestroyedEvent}s and
+ * {@link SessionIdChangedEvent}s published in the Spring application context.
+ * <p>
+ * Lookups never block. Registering and removing sessions only locks one of a fixed number
+ * of stripes, selected by the principal, and the sessions of a principal are kept in a
+ * concurrent set instead of a copy-on-write set.
+ * <p>
+ * In addition, this registry can:
+ * <ul>
+ * <li>remove sessions whose last request is older than
+ * {@link #setMaxInactiveInterval(Duration) a maximum inactive interval}, on a
+ * {@link #setSweepInterval(Duration) background sweeper}. This cleans up sessions whose
+ * {@link SessionDestroyedEvent} never arrived. The interval should not be shorter than the
+ * session timeout of the container, and the last request of each session must be
+ * refreshed, as done by the {@code ConcurrentSessionFilter}.</li>
+ * <li>cap the number of registered sessions with
+ * {@link #setMaximumSessions(int)}. When the cap is exceeded, the least recently used
+ * sessions are evicted until 90% of the cap is reached. Evicted sessions are no longer
+ * known to the registry, so they are no longer subject to concurrent session
+ * control.</li>
+ * </ul>
+ * Both run on a single background thread that is started by
+ * {@link #afterPropertiesSet()} and stopped by {@link #destroy()}. If the registry is
+ * not initialized, evictions run on the thread registering the session instead.
+ *
+ * @since 5.6
+ * @see SessionRegistryImpl
+ */
+public class StripedSessionRegistry implements SessionRegistry, ApplicationListener<AbstractSessionEvent>,
+		InitializingBean, DisposableBean {
+
+	private static final int DEFAULT_STRIPES = 64;
+
+	protected final Log logger = LogFactory.getLog(StripedSessionRegistry.class);
+
+	private final ConcurrentMap<Object, Set<String>> principals = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, SessionInformation> sessionIds = new ConcurrentHashMap<>();
+
+	private final Object[] stripes;
+
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	private final AtomicLong evictedSessions = new AtomicLong();
+
+	private final AtomicLong sweptSessions = new AtomicLong();
+
+	private int maximumSessions = Integer.MAX_VALUE;
+
+	private Duration maxInactiveInterval;
+
+	private Duration sweepInterval = Duration.ofMinutes(1);
+
+	private ScheduledExecutorService sweeper;
+
+	public StripedSessionRegistry() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Creates a new instance
+	 * @param stripes the number of lock stripes used when registering and removing
+	 * sessions, rounded up to a power of two
+	 */
+	public StripedSessionRegistry(int stripes) {
+		Assert.isTrue(stripes > 0, "stripes must be greater than 0");
+		int size = 1;
+		while (size < stripes) {
+			size <<= 1;
+		}
+		this.stripes = new Object[size];
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.stripes[i] = new Object();
+		}
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.sweeper != null || (this.maxInactiveInterval == null && this.maximumSessions == Integer.MAX_VALUE)) {
+			return;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("session-registry-sweeper-");
+		threadFactory.setDaemon(true);
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		if (this.maxInactiveInterval != null) {
+			long interval = this.sweepInterval.toMillis();
+			this.sweeper.scheduleWithFixedDelay(this::sweepInactiveSessions, interval, interval,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.sweeper != null) {
+			this.sweeper.shutdownNow();
+			this.sweeper = null;
+		}
+	}
+
+	@Override
+	public List<Object> getAllPrincipals() {
+		return new ArrayList<>(this.principals.keySet());
+	}
+
+	@Override
+	public List<SessionInformation> getAllSessions(Object principal, boolean includeExpiredSessions) {
+		Set<String> sessionsUsedByPrincipal = this.principals.get(principal);
+		if (sessionsUsedByPrincipal == null) {
+			return Collections.emptyList();
+		}
+		List<SessionInformation> list = new ArrayList<>(sessionsUsedByPrincipal.size());
+		for (String sessionId : sessionsUsedByPrincipal) {
+			SessionInformation sessionInformation = this.sessionIds.get(sessionId);
+			if (sessionInformation == null) {
+				continue;
+			}
+			if (includeExpiredSessions || !sessionInformation.isExpired()) {
+				list.add(sessionInformation);
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public SessionInformation getSessionInformation(String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+		return this.sessionIds.get(sessionId);
+	}
+
+	@Override
+	public void onApplicationEvent(AbstractSessionEvent event) {
+		if (event instanceof SessionDestroyedEvent) {
+			SessionDestroyedEvent sessionDestroyedEvent = (SessionDestroyedEvent) event;
+			removeSessionInformation(sessionDestroyedEvent.getId());
+		}
+		else if (event instanceof SessionIdChangedEvent) {
+			SessionIdChangedEvent sessionIdChangedEvent = (SessionIdChangedEvent) event;
+			SessionInformation info = this.sessionIds.get(sessionIdChangedEvent.getOldSessionId());
+			if (info != null) {
+				removeSessionInformation(sessionIdChangedEvent.getOldSessionId());
+				registerNewSession(sessionIdChangedEvent.getNewSessionId(), info.getPrincipal());
+			}
+		}
+	}
+
+	@Override
+	public void refreshLastRequest(String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+		SessionInformation info = this.sessionIds.get(sessionId);
+		if (info != null) {
+			info.refreshLastRequest();
+		}
+	}
+
+	@Override
+	public void registerNewSession(String sessionId, Object principal) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+		Assert.notNull(principal, "Principal required as per interface contract");
+		if (this.sessionIds.containsKey(sessionId)) {
+			removeSessionInformation(sessionId);
+		}
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug(LogMessage.format("Registering session %s, for principal %s", sessionId, principal));
+		}
+		SessionInformation info = new SessionInformation(principal, sessionId, new Date());
+		synchronized (getStripe(principal)) {
+			this.sessionIds.put(sessionId, info);
+			this.principals.computeIfAbsent(principal, (key) -> ConcurrentHashMap.newKeySet()).add(sessionId);
+		}
+		if (this.sessionIds.size() > this.maximumSessions && this.evicting.compareAndSet(false, true)) {
+			scheduleEviction();
+		}
+	}
+
+	@Override
+	public void removeSessionInformation(String sessionId) {
+		Assert.hasText(sessionId, "SessionId required as per interface contract");
+		SessionInformation info = this.sessionIds.get(sessionId);
+		if (info != null) {
+			remove(info);
+		}
+	}
+
+	private boolean remove(SessionInformation info) {
+		Object principal = info.getPrincipal();
+		synchronized (getStripe(principal)) {
+			if (!this.sessionIds.remove(info.getSessionId(), info)) {
+				return false;
+			}
+			Set<String> sessionsUsedByPrincipal = this.principals.get(principal);
+			if (sessionsUsedByPrincipal != null) {
+				sessionsUsedByPrincipal.remove(info.getSessionId());
+				if (sessionsUsedByPrincipal.isEmpty()) {
+					this.principals.remove(principal);
+				}
+			}
+		}
+		if (this.logger.isTraceEnabled()) {
+			this.logger.trace(LogMessage.format("Removed session %s from set of registered sessions",
+					info.getSessionId()));
+		}
+		return true;
+	}
+
+	/**
+	 * Removes every session whose last request is older than the
+	 * {@link #setMaxInactiveInterval(Duration) maximum inactive interval}. This is invoked
+	 * by the background sweeper, but may also be invoked directly.
+	 */
+	public void sweepInactiveSessions() {
+		if (this.maxInactiveInterval == null) {
+			return;
+		}
+		long lastRequestCutoff = System.currentTimeMillis() - this.maxInactiveInterval.toMillis();
+		int swept = 0;
+		for (SessionInformation info : this.sessionIds.values()) {
+			if (info.getLastRequest().getTime() < lastRequestCutoff && remove(info)) {
+				swept++;
+			}
+		}
+		this.sweptSessions.addAndGet(swept);
+		if (swept > 0) {
+			this.logger.debug(LogMessage.format("Swept %d inactive sessions", swept));
+		}
+	}
+
+	private void scheduleEviction() {
+		ScheduledExecutorService sweeper = this.sweeper;
+		if (sweeper == null) {
+			evictLeastRecentlyUsedSessions();
+			return;
+		}
+		try {
+			sweeper.execute(this::evictLeastRecentlyUsedSessions);
+		}
+		catch (RejectedExecutionException ex) {
+			this.evicting.set(false);
+		}
+	}
+
+	private void evictLeastRecentlyUsedSessions() {
+		try {
+			int excess = this.sessionIds.size() - (this.maximumSessions - this.maximumSessions / 10);
+			if (excess <= 0) {
+				return;
+			}
+			// keeps the excess least recently used sessions, most recently used at the head;
+			// the last request is read once, since it keeps changing while the queue is built
+			PriorityQueue<LastRequest> leastRecentlyUsed = new PriorityQueue<>(excess + 1,
+					(first, second) -> Long.compare(second.time, first.time));
+			for (SessionInformation info : this.sessionIds.values()) {
+				leastRecentlyUsed.offer(new LastRequest(info));
+				if (leastRecentlyUsed.size() > excess) {
+					leastRecentlyUsed.poll();
+				}
+			}
+			int evicted = 0;
+			for (LastRequest lastRequest : leastRecentlyUsed) {
+				if (remove(lastRequest.info)) {
+					evicted++;
+				}
+			}
+			this.evictedSessions.addAndGet(evicted);
+			this.logger.debug(LogMessage.format("Evicted %d least recently used sessions", evicted));
+		}
+		finally {
+			this.evicting.set(false);
+		}
+	}
+
+	private Object getStripe(Object principal) {
+		int hash = principal.hashCode();
+		return this.stripes[(hash ^ (hash >>> 16)) & (this.stripes.length - 1)];
+	}
+
+	/**
+	 * @return the number of registered sessions
+	 */
+	public int getSessionCount() {
+		return this.sessionIds.size();
+	}
+
+	/**
+	 * @return the number of principals with at least one registered session
+	 */
+	public int getPrincipalCount() {
+		return this.principals.size();
+	}
+
+	/**
+	 * @param principal the principal
+	 * @return the number of sessions registered for the principal, including expired
+	 * sessions
+	 */
+	public int getSessionCount(Object principal) {
+		Set<String> sessionsUsedByPrincipal = this.principals.get(principal);
+		return (sessionsUsedByPrincipal != null) ? sessionsUsedByPrincipal.size() : 0;
+	}
+
+	/**
+	 * @return the highest number of sessions registered for a single principal
+	 */
+	public int getMaxSessionCountPerPrincipal() {
+		int max = 0;
+		for (Set<String> sessionsUsedByPrincipal : this.principals.values()) {
+			max = Math.max(max, sessionsUsedByPrincipal.size());
+		}
+		return max;
+	}
+
+	/**
+	 * @return the total number of sessions evicted because the
+	 * {@link #setMaximumSessions(int) maximum number of sessions} was exceeded
+	 */
+	public long getEvictedSessionCount() {
+		return this.evictedSessions.get();
+	}
+
+	/**
+	 * @return the total number of sessions removed by
+	 * {@link #sweepInactiveSessions()}
+	 */
+	public long getSweptSessionCount() {
+		return this.sweptSessions.get();
+	}
+
+	/**
+	 * Sets the maximum number of sessions to keep in the registry. The default is
+	 * unbounded. Once initialized, the registry evicts the least recently used sessions in
+	 * the background, so the number of sessions may briefly exceed the maximum.
+	 * @param maximumSessions the maximum number of sessions
+	 */
+	public void setMaximumSessions(int maximumSessions) {
+		Assert.isTrue(maximumSessions > 0, "maximumSessions must be greater than 0");
+		this.maximumSessions = maximumSessions;
+	}
+
+	/**
+	 * Sets the duration after the last request of a session at which the session is
+	 * removed by {@link #sweepInactiveSessions()}. The default is null, meaning that
+	 * sessions are only removed when a {@link SessionDestroyedEvent} arrives, and that they
+	 * are not swept in the background.
+	 * @param maxInactiveInterval the maximum inactive interval
+	 */
+	public void setMaxInactiveInterval(Duration maxInactiveInterval) {
+		Assert.isTrue(maxInactiveInterval == null || !maxInactiveInterval.isNegative(),
+				"maxInactiveInterval cannot be negative");
+		this.maxInactiveInterval = maxInactiveInterval;
+	}
+
+	/**
+	 * Sets how often the background sweeper runs {@link #sweepInactiveSessions()}. The
+	 * default is one minute.
+	 * @param sweepInterval the sweep interval
+	 */
+	public void setSweepInterval(Duration sweepInterval) {
+		Assert.notNull(sweepInterval, "sweepInterval cannot be null");
+		Assert.isTrue(!sweepInterval.isNegative() && !sweepInterval.isZero(), "sweepInterval must be positive");
+		this.sweepInterval = sweepInterval;
+	}
+
+	private static final class LastRequest {
+
+		private final SessionInformation info;
+
+		private final long time;
+
+		private LastRequest(SessionInformation info) {
+			this.info = info;
+			this.time = info.getLastRequest().getTime();
+		}
+
+	}
+
+}
@@ -16,10 +16,18 @@
 
 package org.springframework.security.access.expression.method;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.aopalliance.intercept.MethodInvocation;
@@ -30,11 +38,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
@@ -42,6 +54,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -167,6 +180,162 @@ public class DefaultMethodSecurityExpressionHandlerTests {
 		verify(upstream).close();
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void filterWhenHasPermissionOnFilterObjectThenPermissionsCheckedAtOnce() {
+		setupMocks();
+		PermissionEvaluator permissionEvaluator = mock(PermissionEvaluator.class);
+		BitSet granted = new BitSet();
+		granted.set(0);
+		granted.set(2);
+		given(permissionEvaluator.hasPermissions(this.authentication, Arrays.asList("1", "2", "3"), "READ"))
+				.willReturn(granted);
+		this.handler.setPermissionEvaluator(permissionEvaluator);
+		List<String> list = new ArrayList<>(Arrays.asList("1", "2", "3"));
+		Expression expression = this.handler.getExpressionParser()
+				.parseExpression("hasPermission(filterObject, 'READ')");
+		EvaluationContext context = this.handler.createEvaluationContext(this.authentication, this.methodInvocation);
+		Object filtered = this.handler.filter(list, expression, context);
+		assertThat((List<String>) filtered).containsExactly("1", "3");
+		verify(permissionEvaluator, never()).hasPermission(any(), any(Object.class), any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void filterWhenHasPermissionOnFilterObjectAndCustomRootThenRootPermissionEvaluatorUsed() {
+		setupMocks();
+		PermissionEvaluator rootPermissionEvaluator = mock(PermissionEvaluator.class);
+		given(rootPermissionEvaluator.hasPermission(this.authentication, "1", "READ")).willReturn(true);
+		PermissionEvaluator permissionEvaluator = mock(PermissionEvaluator.class);
+		DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler() {
+			@Override
+			protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+					MethodInvocation invocation) {
+				MethodSecurityExpressionRoot root = new MethodSecurityExpressionRoot(authentication);
+				root.setPermissionEvaluator(rootPermissionEvaluator);
+				return root;
+			}
+		};
+		handler.setPermissionEvaluator(permissionEvaluator);
+		List<String> list = new ArrayList<>(Arrays.asList("1", "2"));
+		Expression expression = handler.getExpressionParser().parseExpression("hasPermission(filterObject, 'READ')");
+		EvaluationContext context = handler.createEvaluationContext(this.authentication, this.methodInvocation);
+		Object filtered = handler.filter(list, expression, context);
+		assertThat((List<String>) filtered).containsExactly("1");
+		verify(permissionEvaluator, never()).hasPermissions(any(), any(), any());
+	}
+
+	@Test
+	public void filterWhenHasPermissionOnPropertyOfFilterObjectThenPermissionCheckedPerElement() {
+		setupMocks();
+		PermissionEvaluator permissionEvaluator = mock(PermissionEvaluator.class);
+		given(permissionEvaluator.hasPermission(this.authentication, 1, "READ")).willReturn(true);
+		this.handler.setPermissionEvaluator(permissionEvaluator);
+		String[] array = { "1", "22" };
+		Expression expression = this.handler.getExpressionParser()
+				.parseExpression("hasPermission(filterObject.length(), 'READ')");
+		EvaluationContext context = this.handler.createEvaluationContext(this.authentication, this.methodInvocation);
+		Object filtered = this.handler.filter(array, expression, context);
+		assertThat((String[]) filtered).containsExactly("1");
+		verify(permissionEvaluator, never()).hasPermissions(any(), any(), any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void filterWhenParallelThenFilteredInOrderWithSecurityContext() {
+		setupMocks();
+		SecurityContextHolder.getContext().setAuthentication(this.authentication);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			this.handler.setParallelFilterThreshold(10);
+			this.handler.setParallelFilterExecutor(executor);
+			List<Integer> list = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+			Expression expression = this.handler.getExpressionParser()
+					.parseExpression("filterObject % 2 == 0 and T(org.springframework.security.core.context."
+							+ "SecurityContextHolder).getContext().getAuthentication() != null");
+			EvaluationContext context = this.handler.createEvaluationContext(this.authentication,
+					this.methodInvocation);
+			List<Integer> filtered = (List<Integer>) this.handler.filter(list, expression, context);
+			assertThat(filtered).isSameAs(list);
+			assertThat(filtered).hasSize(500).isSorted().allMatch((i) -> i % 2 == 0);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void filterWhenParallelWithMethodArgumentThenArgumentsLoadedOnce() throws Exception {
+		ParameterNameDiscoverer parameterNameDiscoverer = mock(ParameterNameDiscoverer.class);
+		given(parameterNameDiscoverer.getParameterNames(any(Method.class))).willReturn(new String[] { "name" });
+		this.handler.setParameterNameDiscoverer(parameterNameDiscoverer);
+		given(this.methodInvocation.getThis()).willReturn(new Greeter());
+		given(this.methodInvocation.getMethod()).willReturn(Greeter.class.getMethod("greet", String.class));
+		given(this.methodInvocation.getArguments()).willReturn(new Object[] { "joe" });
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			this.handler.setParallelFilterThreshold(10);
+			this.handler.setParallelFilterExecutor(executor);
+			List<Integer> list = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+			Expression expression = this.handler.getExpressionParser()
+					.parseExpression("filterObject % 2 == 0 and #name == 'joe'");
+			EvaluationContext context = this.handler.createEvaluationContext(this.authentication,
+					this.methodInvocation);
+			List<Integer> filtered = (List<Integer>) this.handler.filter(list, expression, context);
+			assertThat(filtered).hasSize(500).allMatch((i) -> i % 2 == 0);
+			verify(parameterNameDiscoverer).getParameterNames(any(Method.class));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void filterWhenAllRetainedThenCollectionNotModified() {
+		setupMocks();
+		List<String> list = Collections.unmodifiableList(Arrays.asList("1", "2"));
+		Expression expression = this.handler.getExpressionParser().parseExpression("true");
+		EvaluationContext context = this.handler.createEvaluationContext(this.authentication, this.methodInvocation);
+		assertThat(this.handler.filter(list, expression, context)).isSameAs(list);
+	}
+
+	@Test
+	public void createEvaluationContextWhenCompilerModeThenExpressionCompiledAndParameterNamesCached()
+			throws Exception {
+		ParameterNameDiscoverer parameterNameDiscoverer = mock(ParameterNameDiscoverer.class);
+		given(parameterNameDiscoverer.getParameterNames(any(Method.class))).willReturn(new String[] { "name" });
+		this.handler.setParameterNameDiscoverer(parameterNameDiscoverer);
+		this.handler.setCompilerMode(SpelCompilerMode.IMMEDIATE);
+		given(this.methodInvocation.getThis()).willReturn(new Greeter());
+		given(this.methodInvocation.getMethod()).willReturn(Greeter.class.getMethod("greet", String.class));
+		given(this.methodInvocation.getArguments()).willReturn(new Object[] { "joe" }, new Object[] { "bob" },
+				new Object[] { "joe" }, new Object[] { "bob" });
+		Expression expression = this.handler.getExpressionParser().parseExpression("#name == 'joe'");
+		List<Boolean> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			EvaluationContext context = this.handler.createEvaluationContext(this.authentication,
+					this.methodInvocation);
+			results.add(expression.getValue(context, Boolean.class));
+		}
+		assertThat(results).containsExactly(true, false, true, false);
+		assertThat(ReflectionTestUtils.getField(expression, "compiledAst")).isNotNull();
+		verify(parameterNameDiscoverer).getParameterNames(any(Method.class));
+	}
+
+	@Test
+	public void setCompilerModeWhenNullThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.handler.setCompilerMode(null));
+	}
+
+	public static class Greeter {
+
+		public String greet(String name) {
+			return "Hello " + name;
+		}
+
+	}
+
 	static class Foo {
 
 		void bar() {
@@ -17,15 +17,19 @@
 package org.springframework.security.access.hierarchicalroles;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 
 /**
@@ -191,4 +195,56 @@ public class RoleHierarchyImplTests {
 				.containsExactlyInAnyOrderElementsOf(allAuthorities);
 	}
 
+	@Test
+	public void getReachableGrantedAuthoritiesWhenCompiledThenSameAsNotCompiled() {
+		String hierarchy = "ROLE_A > ROLE_B\nROLE_A > ROLE_C\nROLE_C > ROLE_D\nROLE_B > ROLE_D";
+		RoleHierarchyImpl roleHierarchyImpl = new RoleHierarchyImpl();
+		roleHierarchyImpl.setHierarchy(hierarchy);
+		RoleHierarchyImpl compiledRoleHierarchyImpl = new RoleHierarchyImpl();
+		compiledRoleHierarchyImpl.setCompiled(true);
+		compiledRoleHierarchyImpl.setHierarchy(hierarchy);
+		List<List<GrantedAuthority>> inputs = Arrays.asList(AuthorityUtils.createAuthorityList("ROLE_A"),
+				AuthorityUtils.createAuthorityList("ROLE_B", "ROLE_C"),
+				AuthorityUtils.createAuthorityList("ROLE_D", "ROLE_0", "ROLE_0"),
+				HierarchicalRolesTestHelper.createAuthorityList("ROLE_B", "ROLE_0"));
+		for (List<GrantedAuthority> input : inputs) {
+			assertThat(compiledRoleHierarchyImpl.getReachableGrantedAuthorities(input))
+					.containsExactlyInAnyOrderElementsOf(roleHierarchyImpl.getReachableGrantedAuthorities(input));
+		}
+	}
+
+	@Test
+	public void getReachableGrantedAuthoritiesWhenCompiledThenCachedAndImmutable() {
+		RoleHierarchyImpl roleHierarchyImpl = new RoleHierarchyImpl();
+		roleHierarchyImpl.setHierarchy("ROLE_A > ROLE_B > ROLE_C");
+		roleHierarchyImpl.setCompiled(true);
+		Collection<GrantedAuthority> reachable = roleHierarchyImpl
+				.getReachableGrantedAuthorities(AuthorityUtils.createAuthorityList("ROLE_A", "ROLE_X"));
+		assertThat(reachable).extracting(GrantedAuthority::getAuthority)
+				.containsExactlyInAnyOrder("ROLE_A", "ROLE_B", "ROLE_C", "ROLE_X");
+		assertThat(roleHierarchyImpl
+				.getReachableGrantedAuthorities(AuthorityUtils.createAuthorityList("ROLE_A", "ROLE_X")))
+						.isSameAs(reachable);
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+				.isThrownBy(() -> reachable.add(new SimpleGrantedAuthority("ROLE_Y")));
+	}
+
+	@Test
+	public void getReachableGrantedAuthoritiesWhenCompiledAndHierarchyChangedThenRecompiled() {
+		RoleHierarchyImpl roleHierarchyImpl = new RoleHierarchyImpl();
+		roleHierarchyImpl.setCompiled(true);
+		roleHierarchyImpl.setHierarchy("ROLE_A > ROLE_B");
+		List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_A");
+		assertThat(roleHierarchyImpl.getReachableGrantedAuthorities(authorities))
+				.containsExactlyInAnyOrderElementsOf(AuthorityUtils.createAuthorityList("ROLE_A", "ROLE_B"));
+		roleHierarchyImpl.setHierarchy("ROLE_A > ROLE_C");
+		assertThat(roleHierarchyImpl.getReachableGrantedAuthorities(authorities))
+				.containsExactlyInAnyOrderElementsOf(AuthorityUtils.createAuthorityList("ROLE_A", "ROLE_C"));
+	}
+
+	@Test
+	public void setCacheSizeWhenNotPositiveThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new RoleHierarchyImpl().setCacheSize(0));
+	}
+
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.authentication;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link PasswordVerificationExecutor}
+ */
+public class PasswordVerificationExecutorTests {
+
+	private PasswordVerificationExecutor executor;
+
+	@AfterEach
+	public void tearDown() {
+		if (this.executor != null) {
+			this.executor.destroy();
+		}
+	}
+
+	@Test
+	public void constructorWhenMaximumConcurrencyNotPositiveThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new PasswordVerificationExecutor(0, 0));
+	}
+
+	@Test
+	public void executeThenResultReturnedAndRecorded() {
+		this.executor = new PasswordVerificationExecutor(1, 0);
+		assertThat(this.executor.execute(() -> true)).isTrue();
+		assertThat(this.executor.getVerificationCount()).isEqualTo(1);
+		assertThat(this.executor.getRejectionCount()).isZero();
+	}
+
+	@Test
+	public void executeWhenVerificationThrowsThenRethrown() {
+		this.executor = new PasswordVerificationExecutor(1, 0);
+		assertThatExceptionOfType(BadCredentialsException.class).isThrownBy(() -> this.executor.execute(() -> {
+			throw new BadCredentialsException("bad");
+		}));
+	}
+
+	@Test
+	public void executeWhenBusyAndNoQueueThenFailsFast() throws Exception {
+		this.executor = new PasswordVerificationExecutor(1, 0);
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Boolean> busy = this.executor.submit(() -> {
+			running.countDown();
+			await(release);
+			return true;
+		});
+		assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThatExceptionOfType(AuthenticationServiceException.class)
+				.isThrownBy(() -> this.executor.execute(() -> true));
+		assertThat(this.executor.getRejectionCount()).isEqualTo(1);
+		release.countDown();
+		assertThat(busy.get(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	public void submitWhenBusyAndQueueThenWaitsForTurn() throws Exception {
+		this.executor = new PasswordVerificationExecutor(1, 1);
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Boolean> busy = this.executor.submit(() -> {
+			running.countDown();
+			await(release);
+			return true;
+		});
+		assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Boolean> queued = this.executor.submit(() -> true);
+		assertThat(this.executor.getQueueSize()).isEqualTo(1);
+		assertThat(this.executor.submit(() -> true)).isCompletedExceptionally();
+		release.countDown();
+		assertThat(busy.get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.executor.getVerificationCount()).isEqualTo(2);
+		assertThat(this.executor.getTotalWaitTime()).isPositive();
+	}
+
+	@Test
+	public void destroyWhenVerificationQueuedThenCompletedExceptionally() throws Exception {
+		this.executor = new PasswordVerificationExecutor(1, 1);
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		this.executor.submit(() -> {
+			running.countDown();
+			await(release);
+			return true;
+		});
+		assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Boolean> queued = this.executor.submit(() -> true);
+		this.executor.destroy();
+		release.countDown();
+		assertThat(queued).isCompletedExceptionally();
+		assertThatExceptionOfType(AuthenticationServiceException.class)
+				.isThrownBy(() -> this.executor.execute(() -> true));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
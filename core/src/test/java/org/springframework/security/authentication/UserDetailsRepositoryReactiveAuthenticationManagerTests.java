@@ -34,6 +34,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsChecker;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.mockito.ArgumentMatchers.any;
@@ -101,6 +102,24 @@ public class UserDetailsRepositoryReactiveAuthenticationManagerTests {
 		verify(this.scheduler).schedule(any());
 	}
 
+	@Test
+	public void authenticateWhenPasswordVerificationExecutorThenPasswordVerifiedOnExecutor() {
+		given(this.userDetailsService.findByUsername(any())).willReturn(Mono.just(this.user));
+		given(this.encoder.matches(any(), any())).willReturn(true);
+		this.manager.setPasswordEncoder(this.encoder);
+		PasswordVerificationExecutor executor = new PasswordVerificationExecutor(1, 0);
+		this.manager.setPasswordVerificationExecutor(executor);
+		try {
+			UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(this.user,
+					this.user.getPassword());
+			assertThat(this.manager.authenticate(token).block().isAuthenticated()).isTrue();
+			assertThat(executor.getVerificationCount()).isEqualTo(1);
+		}
+		finally {
+			executor.destroy();
+		}
+	}
+
 	@Test
 	public void authenticateWhenPasswordServiceThenUpdated() {
 		String encodedPassword = "encoded";
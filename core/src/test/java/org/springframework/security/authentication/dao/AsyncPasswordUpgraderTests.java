@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.authentication.dao;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * Tests for {@link AsyncPasswordUpgrader}
+ */
+public class AsyncPasswordUpgraderTests {
+
+	private static final Instant NOW = Instant.parse("2021-06-01T00:00:00Z");
+
+	private PasswordEncoder encoder;
+
+	private UserDetailsService userDetailsService;
+
+	private UserDetailsPasswordService passwordService;
+
+	private List<Runnable> tasks = new ArrayList<>();
+
+	private AsyncPasswordUpgrader upgrader;
+
+	@BeforeEach
+	public void setUp() {
+		this.encoder = mock(PasswordEncoder.class);
+		this.userDetailsService = mock(UserDetailsService.class);
+		this.passwordService = mock(UserDetailsPasswordService.class);
+		given(this.encoder.encode(any())).willAnswer((invocation) -> "encoded-" + invocation.getArgument(0));
+		given(this.userDetailsService.loadUserByUsername(any()))
+				.willAnswer((invocation) -> user(invocation.getArgument(0)));
+		this.upgrader = new AsyncPasswordUpgrader(this.encoder, this.userDetailsService, this.passwordService);
+		this.upgrader.setExecutor(this.tasks::add);
+		this.upgrader.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void constructorWhenNullPasswordEncoderThenException() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new AsyncPasswordUpgrader(null, this.userDetailsService, this.passwordService));
+	}
+
+	@Test
+	public void upgradeWhenQueuedThenUpdatedWhenDrained() {
+		UserDetails user = user("user");
+		this.upgrader.upgrade(user, "password");
+		verifyZeroInteractions(this.encoder, this.userDetailsService, this.passwordService);
+		assertThat(this.upgrader.getPendingCount()).isEqualTo(1);
+		this.tasks.get(0).run();
+		verify(this.passwordService).updatePassword(user, "encoded-password");
+		assertThat(this.upgrader.getPendingCount()).isZero();
+		assertThat(this.upgrader.getUpgradeCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void upgradeWhenSameUserQueuedTwiceThenUpdatedOnce() {
+		UserDetails user = user("user");
+		this.upgrader.upgrade(user, "password");
+		this.upgrader.upgrade(user, "changed");
+		this.upgrader.upgrade(user("other"), "password");
+		assertThat(this.tasks).hasSize(1);
+		this.tasks.get(0).run();
+		verify(this.passwordService).updatePassword(user, "encoded-changed");
+		verify(this.passwordService).updatePassword(user("other"), "encoded-password");
+		verifyNoMoreInteractions(this.passwordService);
+	}
+
+	@Test
+	public void upgradeWhenDrainedThenScheduledAgain() {
+		this.upgrader.upgrade(user("user"), "password");
+		this.tasks.get(0).run();
+		this.upgrader.upgrade(user("user"), "password");
+		assertThat(this.tasks).hasSize(2);
+	}
+
+	@Test
+	public void upgradeWhenDrainFailsWithErrorThenScheduledAgain() {
+		UserDetails other = user("other");
+		given(this.encoder.encode("password")).willAnswer((invocation) -> {
+			this.upgrader.upgrade(other, "other-password");
+			throw new AssertionError("failed");
+		});
+		this.upgrader.upgrade(user("user"), "password");
+		assertThatExceptionOfType(AssertionError.class).isThrownBy(() -> this.tasks.get(0).run());
+		assertThat(this.tasks).hasSize(2);
+		this.tasks.get(1).run();
+		verify(this.passwordService).updatePassword(other, "encoded-other-password");
+		this.upgrader.upgrade(other, "password-again");
+		assertThat(this.tasks).hasSize(3);
+	}
+
+	@Test
+	public void upgradeWhenTooManyPendingThenDropped() {
+		this.upgrader.setMaximumPendingUpgrades(1);
+		this.upgrader.upgrade(user("user"), "password");
+		this.upgrader.upgrade(user("other"), "password");
+		this.upgrader.upgrade(user("user"), "changed");
+		assertThat(this.upgrader.getPendingCount()).isEqualTo(1);
+		assertThat(this.upgrader.getDropCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void upgradeWhenUpdateFailsThenOtherUsersUpdated() {
+		UserDetails user = user("user");
+		UserDetails other = user("other");
+		given(this.passwordService.updatePassword(user, "encoded-password")).willThrow(new IllegalStateException());
+		this.upgrader.upgrade(user, "password");
+		this.upgrader.upgrade(other, "password");
+		this.tasks.get(0).run();
+		verify(this.passwordService).updatePassword(other, "encoded-password");
+		assertThat(this.upgrader.getFailureCount()).isEqualTo(1);
+		assertThat(this.upgrader.getUpgradeCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void upgradeWhenPasswordChangedBeforeDrainThenSkipped() {
+		UserDetails user = user("user");
+		this.upgrader.upgrade(user, "password");
+		given(this.userDetailsService.loadUserByUsername("user"))
+				.willReturn(User.withUserDetails(user).password("{noop}reset").build());
+		this.tasks.get(0).run();
+		verifyZeroInteractions(this.encoder, this.passwordService);
+		assertThat(this.upgrader.getSkipCount()).isEqualTo(1);
+		assertThat(this.upgrader.getUpgradeCount()).isZero();
+	}
+
+	@Test
+	public void upgradeWhenUserRemovedBeforeDrainThenSkipped() {
+		this.upgrader.upgrade(user("user"), "password");
+		given(this.userDetailsService.loadUserByUsername("user")).willThrow(new UsernameNotFoundException("user"));
+		this.tasks.get(0).run();
+		verifyZeroInteractions(this.encoder, this.passwordService);
+		assertThat(this.upgrader.getSkipCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void upgradeWhenOlderThanMaximumAgeThenDropped() {
+		this.upgrader.setMaximumAge(Duration.ofSeconds(30));
+		this.upgrader.upgrade(user("user"), "password");
+		this.upgrader.setClock(Clock.fixed(NOW.plusSeconds(31), ZoneOffset.UTC));
+		this.tasks.get(0).run();
+		verifyZeroInteractions(this.encoder, this.userDetailsService, this.passwordService);
+		assertThat(this.upgrader.getDropCount()).isEqualTo(1);
+		assertThat(this.upgrader.getPendingCount()).isZero();
+	}
+
+	@Test
+	public void setMaximumPendingUpgradesWhenZeroThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.upgrader.setMaximumPendingUpgrades(0));
+	}
+
+	private static UserDetails user(String username) {
+		return User.withUsername(username).password("{noop}password").roles("USER").build();
+	}
+
+}
@@ -30,6 +30,7 @@ import org.springframework.security.authentication.CredentialsExpiredException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.PasswordVerificationExecutor;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -481,6 +482,68 @@ public class DaoAuthenticationProviderTests {
 		verify(encoder, times(0)).matches(anyString(), anyString());
 	}
 
+	@Test
+	public void authenticateWhenPasswordVerificationExecutorThenPasswordVerifiedOnExecutor() {
+		UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken("rod", "koala");
+		DaoAuthenticationProvider provider = createProvider();
+		provider.setUserDetailsService(new MockUserDetailsServiceUserRod());
+		PasswordVerificationExecutor executor = new PasswordVerificationExecutor(1, 0);
+		provider.setPasswordVerificationExecutor(executor);
+		try {
+			assertThat(provider.authenticate(token).isAuthenticated()).isTrue();
+			assertThatExceptionOfType(BadCredentialsException.class).isThrownBy(
+					() -> provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "KOala")));
+			assertThat(executor.getVerificationCount()).isEqualTo(2);
+		}
+		finally {
+			executor.destroy();
+		}
+	}
+
+	@Test
+	public void authenticateWhenVerifiedCredentialsCacheThenPasswordVerifiedOnce() {
+		PasswordEncoder encoder = mock(PasswordEncoder.class);
+		given(encoder.matches("koala", "koala")).willReturn(true);
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setPasswordEncoder(encoder);
+		provider.setUserDetailsService(new MockUserDetailsServiceUserRod());
+		provider.setVerifiedCredentialsCache(new VerifiedCredentialsCache());
+		provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "koala"));
+		provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "koala"));
+		verify(encoder).matches("koala", "koala");
+		assertThatExceptionOfType(BadCredentialsException.class)
+				.isThrownBy(() -> provider.authenticate(new UsernamePasswordAuthenticationToken("rod", "KOala")));
+	}
+
+	@Test
+	public void authenticateWhenPasswordUpgraderThenUpdatedAfterAuthentication() {
+		String password = "password";
+		UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken("user", password);
+		PasswordEncoder encoder = mock(PasswordEncoder.class);
+		UserDetailsService userDetailsService = mock(UserDetailsService.class);
+		UserDetailsPasswordService passwordManager = mock(UserDetailsPasswordService.class);
+		List<Runnable> upgrades = new ArrayList<>();
+		AsyncPasswordUpgrader upgrader = new AsyncPasswordUpgrader(encoder, userDetailsService, passwordManager);
+		upgrader.setExecutor(upgrades::add);
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setPasswordEncoder(encoder);
+		provider.setUserDetailsService(userDetailsService);
+		provider.setUserDetailsPasswordService(passwordManager);
+		provider.setPasswordUpgrader(upgrader);
+		UserDetails user = PasswordEncodedUser.user();
+		given(encoder.matches(any(), any())).willReturn(true);
+		given(encoder.upgradeEncoding(any())).willReturn(true);
+		given(encoder.encode(any())).willReturn("encoded");
+		given(userDetailsService.loadUserByUsername(any())).willReturn(user);
+		Authentication result = provider.authenticate(token);
+		assertThat(result.getPrincipal()).isEqualTo(user);
+		verifyZeroInteractions(passwordManager);
+		assertThat(upgrades).hasSize(1);
+		upgrades.get(0).run();
+		verify(encoder).encode(password);
+		verify(passwordManager).updatePassword(user, "encoded");
+	}
+
 	private DaoAuthenticationProvider createProvider() {
 		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
 		provider.setPasswordEncoder(NoOpPasswordEncoder.getInstance());
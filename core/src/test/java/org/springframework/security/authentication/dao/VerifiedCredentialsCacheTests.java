@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.authentication.dao;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link VerifiedCredentialsCache}
+ */
+public class VerifiedCredentialsCacheTests {
+
+	private static final Instant NOW = Instant.parse("2021-06-01T00:00:00Z");
+
+	private final VerifiedCredentialsCache cache = new VerifiedCredentialsCache();
+
+	@Test
+	public void isVerifiedWhenPutThenVerified() {
+		this.cache.putVerified("user", "{bcrypt}hash", "password");
+		assertThat(this.cache.isVerified("user", "{bcrypt}hash", "password")).isTrue();
+	}
+
+	@Test
+	public void isVerifiedWhenDifferentPasswordThenNotVerified() {
+		this.cache.putVerified("user", "{bcrypt}hash", "password");
+		assertThat(this.cache.isVerified("user", "{bcrypt}hash", "other")).isFalse();
+		assertThat(this.cache.isVerified("other", "{bcrypt}hash", "password")).isFalse();
+	}
+
+	@Test
+	public void isVerifiedWhenEncodedPasswordChangedThenNotVerified() {
+		this.cache.putVerified("user", "{bcrypt}hash", "password");
+		assertThat(this.cache.isVerified("user", "{bcrypt}changed", "password")).isFalse();
+	}
+
+	@Test
+	public void isVerifiedWhenValuesRunIntoEachOtherThenNotVerified() {
+		this.cache.putVerified("user", "hash", "password");
+		assertThat(this.cache.isVerified("user", "hashp", "assword")).isFalse();
+	}
+
+	@Test
+	public void isVerifiedWhenExpiredThenNotVerified() {
+		this.cache.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+		this.cache.setTimeToLive(Duration.ofSeconds(30));
+		this.cache.putVerified("user", "{bcrypt}hash", "password");
+		this.cache.setClock(Clock.fixed(NOW.plusSeconds(29), ZoneOffset.UTC));
+		assertThat(this.cache.isVerified("user", "{bcrypt}hash", "password")).isTrue();
+		this.cache.setClock(Clock.fixed(NOW.plusSeconds(30), ZoneOffset.UTC));
+		assertThat(this.cache.isVerified("user", "{bcrypt}hash", "password")).isFalse();
+	}
+
+	@Test
+	public void isVerifiedWhenEvictedThenNotVerified() {
+		this.cache.putVerified("user", "{bcrypt}hash", "password");
+		this.cache.evict("user");
+		assertThat(this.cache.isVerified("user", "{bcrypt}hash", "password")).isFalse();
+	}
+
+	@Test
+	public void isVerifiedWhenMaximumSizeExceededThenLeastRecentlyUsedEvicted() {
+		this.cache.setMaximumSize(2);
+		this.cache.putVerified("one", "{bcrypt}hash", "password");
+		this.cache.putVerified("two", "{bcrypt}hash", "password");
+		this.cache.isVerified("one", "{bcrypt}hash", "password");
+		this.cache.putVerified("three", "{bcrypt}hash", "password");
+		assertThat(this.cache.isVerified("one", "{bcrypt}hash", "password")).isTrue();
+		assertThat(this.cache.isVerified("two", "{bcrypt}hash", "password")).isFalse();
+		assertThat(this.cache.isVerified("three", "{bcrypt}hash", "password")).isTrue();
+	}
+
+	@Test
+	public void isVerifiedWhenOtherInstanceThenNotVerified() {
+		this.cache.putVerified("user", "{bcrypt}hash", "password");
+		assertThat(new VerifiedCredentialsCache().isVerified("user", "{bcrypt}hash", "password")).isFalse();
+	}
+
+}
@@ -27,10 +27,12 @@ import org.springframework.security.access.expression.method.DefaultMethodSecuri
 import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.access.intercept.method.MockMethodInvocation;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.authentication.TestAuthentication;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -133,6 +135,45 @@ public class PreAuthorizeAuthorizationManagerTests {
 				.isThrownBy(() -> manager.check(authentication, methodInvocation));
 	}
 
+	@Test
+	public void checkWhenSimpleExpressionsWithoutSpelThenAuthorityChecked() throws Exception {
+		PreAuthorizeAuthorizationManager manager = new PreAuthorizeAuthorizationManager();
+		manager.setSimpleExpressionsWithoutSpel(true);
+		MockMethodInvocation methodInvocation = new MockMethodInvocation(new SimpleExpressions(),
+				SimpleExpressions.class, "hasAnyRole");
+		assertThat(manager.check(() -> new TestingAuthenticationToken("user", "password", "ROLE_USER"),
+				methodInvocation).isGranted()).isTrue();
+		assertThat(manager.check(() -> new TestingAuthenticationToken("user", "password", "ROLE_ADMIN"),
+				methodInvocation).isGranted()).isTrue();
+		assertThat(manager.check(() -> new TestingAuthenticationToken("user", "password", "ROLE_OTHER"),
+				methodInvocation).isGranted()).isFalse();
+		Authentication unauthenticated = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		unauthenticated.setAuthenticated(false);
+		assertThat(manager.check(() -> unauthenticated, methodInvocation).isGranted()).isFalse();
+	}
+
+	@Test
+	public void checkWhenSimpleExpressionsWithoutSpelThenAuthenticationChecked() throws Exception {
+		PreAuthorizeAuthorizationManager manager = new PreAuthorizeAuthorizationManager();
+		manager.setSimpleExpressionsWithoutSpel(true);
+		MockMethodInvocation methodInvocation = new MockMethodInvocation(new SimpleExpressions(),
+				SimpleExpressions.class, "isAuthenticated");
+		assertThat(manager.check(TestAuthentication::authenticatedUser, methodInvocation).isGranted()).isTrue();
+		assertThat(manager.check(() -> new AnonymousAuthenticationToken("key", "anonymous",
+				AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")), methodInvocation).isGranted()).isFalse();
+	}
+
+	@Test
+	public void checkWhenSimpleExpressionsWithoutSpelAndCompoundExpressionThenEvaluated() throws Exception {
+		PreAuthorizeAuthorizationManager manager = new PreAuthorizeAuthorizationManager();
+		manager.setSimpleExpressionsWithoutSpel(true);
+		MockMethodInvocation methodInvocation = new MockMethodInvocation(new SimpleExpressions(),
+				SimpleExpressions.class, "compound");
+		Authentication unauthenticated = new TestingAuthenticationToken("user", "password", "write");
+		unauthenticated.setAuthenticated(false);
+		assertThat(manager.check(() -> unauthenticated, methodInvocation).isGranted()).isTrue();
+	}
+
 	public static class TestClass implements InterfaceAnnotationsOne, InterfaceAnnotationsTwo {
 
 		public void doSomething() {
@@ -171,6 +212,25 @@ public class PreAuthorizeAuthorizationManagerTests {
 
 	}
 
+	public static class SimpleExpressions {
+
+		@PreAuthorize("hasAnyRole('ADMIN', 'ROLE_USER')")
+		public void hasAnyRole() {
+
+		}
+
+		@PreAuthorize("isAuthenticated()")
+		public void isAuthenticated() {
+
+		}
+
+		@PreAuthorize("hasAuthority('write') and hasAuthority('write')")
+		public void compound() {
+
+		}
+
+	}
+
 	public interface InterfaceAnnotationsOne {
 
 		@PreAuthorize("hasRole('ADMIN')")
@@ -16,6 +16,10 @@
 
 package org.springframework.security.core.context;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -60,6 +64,43 @@ public class SecurityContextHolderTests {
 		assertThatIllegalArgumentException().isThrownBy(() -> SecurityContextHolder.setContext(null));
 	}
 
+	@Test
+	public void setDeferredContextWhenSetThenSupplierInvokedOnFirstGetContext() {
+		SecurityContext sc = new SecurityContextImpl(new UsernamePasswordAuthenticationToken("Foobar", "pass"));
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<SecurityContext> deferredContext = () -> {
+			loads.incrementAndGet();
+			return sc;
+		};
+		SecurityContextHolderStrategy strategy = SecurityContextHolder.getContextHolderStrategy();
+		strategy.setDeferredContext(deferredContext);
+		assertThat(loads).hasValue(0);
+		assertThat(strategy.getDeferredContext()).isSameAs(deferredContext);
+		assertThat(SecurityContextHolder.getContext()).isSameAs(sc);
+		assertThat(loads).hasValue(1);
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void setDeferredContextWhenChildThreadThenResolvedOnParentThread() throws Exception {
+		SecurityContext sc = new SecurityContextImpl(new UsernamePasswordAuthenticationToken("Foobar", "pass"));
+		Thread parent = Thread.currentThread();
+		AtomicReference<Thread> loadingThread = new AtomicReference<>();
+		SecurityContextHolder.getContextHolderStrategy().setDeferredContext(() -> {
+			loadingThread.set(Thread.currentThread());
+			return sc;
+		});
+		AtomicReference<SecurityContext> childContext = new AtomicReference<>();
+		Thread child = new Thread(() -> childContext.set(SecurityContextHolder.getContext()));
+		assertThat(loadingThread.get()).isSameAs(parent);
+		loadingThread.set(null);
+		child.start();
+		child.join();
+		assertThat(childContext.get()).isSameAs(sc);
+		assertThat(loadingThread.get()).isNull();
+		SecurityContextHolder.clearContext();
+	}
+
 	@Test
 	public void setContextHolderStrategyWhenCalledThenUsed() {
 		SecurityContextHolderStrategy original = SecurityContextHolder.getContextHolderStrategy();
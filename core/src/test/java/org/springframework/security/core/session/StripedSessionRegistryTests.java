@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.core.session;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.core.context.SecurityContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link StripedSessionRegistry}
+ */
+public class StripedSessionRegistryTests {
+
+	private StripedSessionRegistry sessionRegistry;
+
+	@BeforeEach
+	public void setUp() {
+		this.sessionRegistry = new StripedSessionRegistry();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.sessionRegistry.destroy();
+	}
+
+	@Test
+	public void constructorWhenStripesNotPositiveThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new StripedSessionRegistry(0));
+	}
+
+	@Test
+	public void registerNewSessionThenSessionsAvailableByIdAndPrincipal() {
+		this.sessionRegistry.registerNewSession("1", "rob");
+		this.sessionRegistry.registerNewSession("2", "rob");
+		this.sessionRegistry.registerNewSession("3", "joe");
+		assertThat(this.sessionRegistry.getSessionInformation("1").getPrincipal()).isEqualTo("rob");
+		assertThat(this.sessionRegistry.getSessionInformation("1").getLastRequest().toInstant()).isEqualTo(NOW);
+		assertThat(this.sessionRegistry.getAllSessions("rob", false)).extracting(SessionInformation::getSessionId)
+				.containsExactlyInAnyOrder("1", "2");
+		assertThat(this.sessionRegistry.getAllPrincipals()).containsExactlyInAnyOrder("rob", "joe");
+		assertThat(this.sessionRegistry.getSessionCount()).isEqualTo(3);
+		assertThat(this.sessionRegistry.getPrincipalCount()).isEqualTo(2);
+		assertThat(this.sessionRegistry.getSessionCount("rob")).isEqualTo(2);
+		assertThat(this.sessionRegistry.getMaxSessionCountPerPrincipal()).isEqualTo(2);
+	}
+
+	@Test
+	public void getAllSessionsWhenExpiredThenOnlyIncludedWhenRequested() {
+		this.sessionRegistry.registerNewSession("1", "rob");
+		this.sessionRegistry.registerNewSession("2", "rob");
+		this.sessionRegistry.getSessionInformation("1").expireNow();
+		assertThat(this.sessionRegistry.getAllSessions("rob", false)).hasSize(1);
+		assertThat(this.sessionRegistry.getAllSessions("rob", true)).hasSize(2);
+		assertThat(this.sessionRegistry.getAllSessions("joe", true)).isEmpty();
+	}
+
+	@Test
+	public void removeSessionInformationWhenLastSessionThenPrincipalRemoved() {
+		this.sessionRegistry.registerNewSession("1", "rob");
+		this.sessionRegistry.registerNewSession("2", "rob");
+		this.sessionRegistry.removeSessionInformation("1");
+		assertThat(this.sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(this.sessionRegistry.getAllPrincipals()).containsExactly("rob");
+		this.sessionRegistry.removeSessionInformation("2");
+		assertThat(this.sessionRegistry.getAllPrincipals()).isEmpty();
+		assertThat(this.sessionRegistry.getSessionCount()).isZero();
+	}
+
+	@Test
+	public void registerNewSessionWhenSameSessionIdThenReplaced() {
+		this.sessionRegistry.registerNewSession("1", "rob");
+		this.sessionRegistry.registerNewSession("1", "joe");
+		assertThat(this.sessionRegistry.getSessionInformation("1").getPrincipal()).isEqualTo("joe");
+		assertThat(this.sessionRegistry.getAllPrincipals()).containsExactly("joe");
+	}
+
+	@Test
+	public void onApplicationEventWhenSessionDestroyedThenRemoved() {
+		this.sessionRegistry.registerNewSession("1", "rob");
+		this.sessionRegistry.onApplicationEvent(new SessionDestroyedEvent("") {
+			@Override
+			public String getId() {
+				return "1";
+			}
+
+			@Override
+			public List<SecurityContext> getSecurityContexts() {
+				return null;
+			}
+		});
+		assertThat(this.sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(this.sessionRegistry.getAllPrincipals()).isEmpty();
+	}
+
+	@Test
+	public void onApplicationEventWhenSessionIdChangedThenMoved() {
+		this.sessionRegistry.registerNewSession("1", "rob");
+		this.sessionRegistry.onApplicationEvent(new SessionIdChangedEvent("") {
+			@Override
+			public String getOldSessionId() {
+				return "1";
+			}
+
+			@Override
+			public String getNewSessionId() {
+				return "2";
+			}
+		});
+		assertThat(this.sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(this.sessionRegistry.getSessionInformation("2").getPrincipal()).isEqualTo("rob");
+	}
+
+	@Test
+	public void sweepInactiveSessionsThenInactiveSessionsRemoved() throws Exception {
+		this.sessionRegistry.setMaxInactiveInterval(Duration.ofMinutes(30));
+		this.sessionRegistry.registerNewSession("1", "rob");
+		this.sessionRegistry.getSessionInformation("1").expireNow();
+		this.sessionRegistry.registerNewSession("2", "rob");
+		this.sessionRegistry.sweepInactiveSessions();
+		assertThat(this.sessionRegistry.getSessionCount()).isEqualTo(2);
+		Thread.sleep(10);
+		this.sessionRegistry.setMaxInactiveInterval(Duration.ZERO);
+		this.sessionRegistry.sweepInactiveSessions();
+		assertThat(this.sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(this.sessionRegistry.getSessionInformation("2")).isNull();
+		assertThat(this.sessionRegistry.getSweptSessionCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void sweepInactiveSessionsWhenNoMaxInactiveIntervalThenNothingRemoved() throws Exception {
+		this.sessionRegistry.registerNewSession("1", "rob");
+		Thread.sleep(10);
+		this.sessionRegistry.sweepInactiveSessions();
+		assertThat(this.sessionRegistry.getSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void registerNewSessionWhenMaximumSessionsExceededThenLeastRecentlyUsedEvicted() throws Exception {
+		this.sessionRegistry.setMaximumSessions(10);
+		registerSessionsThenRefreshAllButFirstTwo();
+		this.sessionRegistry.registerNewSession("10", "user1");
+		assertThat(this.sessionRegistry.getSessionCount()).isEqualTo(9);
+		assertThat(this.sessionRegistry.getEvictedSessionCount()).isEqualTo(2);
+		assertThat(this.sessionRegistry.getSessionInformation("0")).isNull();
+		assertThat(this.sessionRegistry.getSessionInformation("1")).isNull();
+		assertThat(this.sessionRegistry.getSessionInformation("10")).isNotNull();
+	}
+
+	@Test
+	public void afterPropertiesSetWhenMaximumSessionsThenEvictsInBackground() throws Exception {
+		this.sessionRegistry.setMaximumSessions(10);
+		this.sessionRegistry.afterPropertiesSet();
+		registerSessionsThenRefreshAllButFirstTwo();
+		this.sessionRegistry.registerNewSession("10", "user1");
+		for (int i = 0; i < 500 && this.sessionRegistry.getSessionCount() > 9; i++) {
+			Thread.sleep(10);
+		}
+		assertThat(this.sessionRegistry.getSessionCount()).isEqualTo(9);
+		assertThat(this.sessionRegistry.getEvictedSessionCount()).isEqualTo(2);
+		assertThat(this.sessionRegistry.getSessionInformation("0")).isNull();
+		assertThat(this.sessionRegistry.getSessionInformation("1")).isNull();
+	}
+
+	@Test
+	public void afterPropertiesSetWhenMaxInactiveIntervalThenSweepsInBackground() throws Exception {
+		this.sessionRegistry.setMaxInactiveInterval(Duration.ZERO);
+		this.sessionRegistry.setSweepInterval(Duration.ofMillis(10));
+		this.sessionRegistry.registerNewSession("1", "rob");
+		this.sessionRegistry.afterPropertiesSet();
+		for (int i = 0; i < 500 && this.sessionRegistry.getSessionCount() > 0; i++) {
+			Thread.sleep(10);
+		}
+		assertThat(this.sessionRegistry.getSessionCount()).isZero();
+	}
+
+	@Test
+	public void setMaximumSessionsWhenNotPositiveThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.sessionRegistry.setMaximumSessions(0));
+	}
+
+	@Test
+	public void setSweepIntervalWhenZeroThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.sessionRegistry.setSweepInterval(Duration.ZERO));
+	}
+
+	private void registerSessionsThenRefreshAllButFirstTwo() throws InterruptedException {
+		for (int i = 0; i < 10; i++) {
+			this.sessionRegistry.registerNewSession(String.valueOf(i), "user" + (i % 3));
+		}
+		Thread.sleep(10);
+		for (int i = 2; i < 10; i++) {
+			this.sessionRegistry.refreshLastRequest(String.valueOf(i));
+		}
+	}
+
+}
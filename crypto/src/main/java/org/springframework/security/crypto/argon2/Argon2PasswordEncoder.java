@@ -16,6 +16,8 @@
 
 package org.springframework.security.crypto.argon2;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
@@ -38,7 +40,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  * <p>
  * The currently implementation uses Bouncy castle which does not exploit
  * parallelism/optimizations that password crackers will, so there is an unnecessary
- * asymmetry between attacker and defender.
+ * asymmetry between attacker and defender. Parallelism can be exploited by setting a
+ * {@link #setForkJoinPool(ForkJoinPool) ForkJoinPool}.
  * </p>
  *
  * @author Simeon Macke
@@ -68,6 +71,8 @@ public class Argon2PasswordEncoder implements PasswordEncoder {
 
 	private final BytesKeyGenerator saltGenerator;
 
+	private ForkJoinPool forkJoinPool;
+
 	public Argon2PasswordEncoder() {
 		this(DEFAULT_SALT_LENGTH, DEFAULT_HASH_LENGTH, DEFAULT_PARALLELISM, DEFAULT_MEMORY, DEFAULT_ITERATIONS);
 	}
@@ -93,9 +98,7 @@ public class Argon2PasswordEncoder implements PasswordEncoder {
 				.withIterations(this.iterations)
 				.build();
 		// @formatter:on
-		Argon2BytesGenerator generator = new Argon2BytesGenerator();
-		generator.init(params);
-		generator.generateBytes(rawPassword.toString().toCharArray(), hash);
+		generateBytes(params, rawPassword, hash);
 		return Argon2EncodingUtils.encode(hash, params);
 	}
 
@@ -114,9 +117,7 @@ public class Argon2PasswordEncoder implements PasswordEncoder {
 			return false;
 		}
 		byte[] hashBytes = new byte[decoded.getHash().length];
-		Argon2BytesGenerator generator = new Argon2BytesGenerator();
-		generator.init(decoded.getParameters());
-		generator.generateBytes(rawPassword.toString().toCharArray(), hashBytes);
+		generateBytes(decoded.getParameters(), rawPassword, hashBytes);
 		return constantTimeArrayEquals(decoded.getHash(), hashBytes);
 	}
 
@@ -130,6 +131,29 @@ public class Argon2PasswordEncoder implements PasswordEncoder {
 		return parameters.getMemory() < this.memory || parameters.getIterations() < this.iterations;
 	}
 
+	private void generateBytes(Argon2Parameters parameters, CharSequence rawPassword, byte[] hash) {
+		if (this.forkJoinPool == null || parameters.getLanes() == 1) {
+			Argon2BytesGenerator generator = new Argon2BytesGenerator();
+			generator.init(parameters);
+			generator.generateBytes(rawPassword.toString().toCharArray(), hash);
+			return;
+		}
+		ParallelArgon2BytesGenerator generator = new ParallelArgon2BytesGenerator(parameters, this.forkJoinPool);
+		generator.generateBytes(rawPassword.toString().toCharArray(), hash);
+	}
+
+	/**
+	 * Sets the {@link ForkJoinPool} that fills the lanes of a hash in parallel, when the
+	 * parallelism of the hash is greater than 1. The hashes are identical to those
+	 * computed on a single thread. By default, hashes are computed on the calling thread.
+	 * @param forkJoinPool the {@link ForkJoinPool} to use, such as
+	 * {@link ForkJoinPool#commonPool()}
+	 * @since 5.6
+	 */
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+
 	private static boolean constantTimeArrayEquals(byte[] expected, byte[] actual) {
 		if (expected.length != actual.length) {
 			return false;
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.crypto.argon2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.bouncycastle.util.Pack;
+
+/**
+ * An implementation of Argon2, as defined in
+ * <a href="https://www.rfc-editor.org/rfc/rfc9106">RFC 9106</a>, that fills the
+ * segments of the lanes of each slice on a {@link ForkJoinPool}. The lanes only
+ * reference each other across slices, so the segments of a slice are independent. It
+ * produces the same hashes as
+ * {@link org.bouncycastle.crypto.generators.Argon2BytesGenerator}, which fills the
+ * segments one after the other.
+ *
+ * @since 5.6
+ */
+final class ParallelArgon2BytesGenerator {
+
+	private static final int BLOCK_SIZE = 1024;
+
+	private static final int QWORDS_IN_BLOCK = BLOCK_SIZE / 8;
+
+	private static final int ADDRESSES_IN_BLOCK = 128;
+
+	private static final int PREHASH_DIGEST_LENGTH = 64;
+
+	private static final int SYNC_POINTS = 4;
+
+	private static final int MIN_ITERATIONS = 1;
+
+	private static final long M32L = 0xFFFFFFFFL;
+
+	private final Argon2Parameters parameters;
+
+	private final ForkJoinPool forkJoinPool;
+
+	private final int lanes;
+
+	private final int segmentLength;
+
+	private final int laneLength;
+
+	private final long[][] memory;
+
+	ParallelArgon2BytesGenerator(Argon2Parameters parameters, ForkJoinPool forkJoinPool) {
+		if (parameters.getLanes() < 1) {
+			throw new IllegalStateException("lanes must be at least 1");
+		}
+		if (parameters.getIterations() < MIN_ITERATIONS) {
+			throw new IllegalStateException("iterations is less than: " + MIN_ITERATIONS);
+		}
+		this.parameters = parameters;
+		this.forkJoinPool = forkJoinPool;
+		this.lanes = parameters.getLanes();
+		int memoryBlocks = Math.max(parameters.getMemory(), 2 * SYNC_POINTS * this.lanes);
+		this.segmentLength = memoryBlocks / (this.lanes * SYNC_POINTS);
+		this.laneLength = this.segmentLength * SYNC_POINTS;
+		this.memory = new long[this.segmentLength * this.lanes * SYNC_POINTS][QWORDS_IN_BLOCK];
+	}
+
+	/**
+	 * Hashes the password into {@code out}. The memory and the password bytes are
+	 * cleared afterwards.
+	 * @param password the password
+	 * @param out the hash, as long as the hash length
+	 */
+	void generateBytes(char[] password, byte[] out) {
+		byte[] passwordBytes = this.parameters.getCharToByteConverter().convert(password);
+		try {
+			initialize(passwordBytes, out.length);
+			fillMemoryBlocks();
+			digest(out);
+		}
+		finally {
+			for (long[] block : this.memory) {
+				Arrays.fill(block, 0);
+			}
+			Arrays.fill(passwordBytes, (byte) 0);
+		}
+	}
+
+	private void initialize(byte[] password, int outputLength) {
+		Blake2bDigest blake = new Blake2bDigest(PREHASH_DIGEST_LENGTH * 8);
+		int[] values = { this.lanes, outputLength, this.parameters.getMemory(), this.parameters.getIterations(),
+				this.parameters.getVersion(), this.parameters.getType() };
+		for (int value : values) {
+			addIntToLittleEndian(blake, value);
+		}
+		addByteString(blake, password);
+		addByteString(blake, this.parameters.getSalt());
+		addByteString(blake, this.parameters.getSecret());
+		addByteString(blake, this.parameters.getAdditional());
+		byte[] initialHashWithZeros = new byte[PREHASH_DIGEST_LENGTH + 8];
+		blake.doFinal(initialHashWithZeros, 0);
+		byte[] blockBytes = new byte[BLOCK_SIZE];
+		for (int lane = 0; lane < this.lanes; lane++) {
+			Pack.intToLittleEndian(lane, initialHashWithZeros, PREHASH_DIGEST_LENGTH + 4);
+			for (int i = 0; i < 2; i++) {
+				Pack.intToLittleEndian(i, initialHashWithZeros, PREHASH_DIGEST_LENGTH);
+				hash(initialHashWithZeros, blockBytes, 0, BLOCK_SIZE);
+				fromBytes(this.memory[lane * this.laneLength + i], blockBytes);
+			}
+		}
+		Arrays.fill(initialHashWithZeros, (byte) 0);
+		Arrays.fill(blockBytes, (byte) 0);
+	}
+
+	private void fillMemoryBlocks() {
+		for (int pass = 0; pass < this.parameters.getIterations(); pass++) {
+			for (int slice = 0; slice < SYNC_POINTS; slice++) {
+				List<ForkJoinTask<?>> segments = new ArrayList<>(this.lanes);
+				for (int lane = 0; lane < this.lanes; lane++) {
+					Position position = new Position(pass, lane, slice);
+					segments.add(ForkJoinTask.adapt(() -> fillSegment(position)));
+				}
+				this.forkJoinPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(segments)));
+			}
+		}
+	}
+
+	private void fillSegment(Position position) {
+		long[] addressBlock = null;
+		long[] inputBlock = null;
+		long[] zeroBlock = null;
+		boolean dataIndependentAddressing = isDataIndependentAddressing(position);
+		int startingIndex = (position.pass == 0 && position.slice == 0) ? 2 : 0;
+		int currentOffset = position.lane * this.laneLength + position.slice * this.segmentLength + startingIndex;
+		int prevOffset = (currentOffset % this.laneLength == 0) ? currentOffset + this.laneLength - 1
+				: currentOffset - 1;
+		boolean withXor = position.pass != 0 && this.parameters.getVersion() != Argon2Parameters.ARGON2_VERSION_10;
+		if (dataIndependentAddressing) {
+			addressBlock = new long[QWORDS_IN_BLOCK];
+			zeroBlock = new long[QWORDS_IN_BLOCK];
+			inputBlock = new long[QWORDS_IN_BLOCK];
+			inputBlock[0] = position.pass;
+			inputBlock[1] = position.lane;
+			inputBlock[2] = position.slice;
+			inputBlock[3] = this.memory.length;
+			inputBlock[4] = this.parameters.getIterations();
+			inputBlock[5] = this.parameters.getType();
+			if (startingIndex != 0) {
+				nextAddresses(zeroBlock, inputBlock, addressBlock);
+			}
+		}
+		long[] r = new long[QWORDS_IN_BLOCK];
+		long[] state = new long[QWORDS_IN_BLOCK];
+		for (int index = startingIndex; index < this.segmentLength; index++, currentOffset++, prevOffset++) {
+			if (currentOffset % this.laneLength == 1) {
+				prevOffset = currentOffset - 1;
+			}
+			long pseudoRandom;
+			if (dataIndependentAddressing) {
+				if (index % ADDRESSES_IN_BLOCK == 0) {
+					nextAddresses(zeroBlock, inputBlock, addressBlock);
+				}
+				pseudoRandom = addressBlock[index % ADDRESSES_IN_BLOCK];
+			}
+			else {
+				pseudoRandom = this.memory[prevOffset][0];
+			}
+			int refLane = (int) ((pseudoRandom >>> 32) % this.lanes);
+			if (position.pass == 0 && position.slice == 0) {
+				refLane = position.lane;
+			}
+			int refColumn = getRefColumn(position, index, pseudoRandom, refLane == position.lane);
+			long[] prevBlock = this.memory[prevOffset];
+			long[] refBlock = this.memory[this.laneLength * refLane + refColumn];
+			fillBlock(r, state, prevBlock, refBlock, this.memory[currentOffset], withXor);
+		}
+	}
+
+	private boolean isDataIndependentAddressing(Position position) {
+		int type = this.parameters.getType();
+		return type == Argon2Parameters.ARGON2_i || (type == Argon2Parameters.ARGON2_id && position.pass == 0
+				&& position.slice < SYNC_POINTS / 2);
+	}
+
+	private static void nextAddresses(long[] zeroBlock, long[] inputBlock, long[] addressBlock) {
+		inputBlock[6]++;
+		long[] r = new long[QWORDS_IN_BLOCK];
+		long[] state = new long[QWORDS_IN_BLOCK];
+		fillBlock(r, state, zeroBlock, inputBlock, addressBlock, false);
+		fillBlock(r, state, zeroBlock, addressBlock, addressBlock, false);
+	}
+
+	private int getRefColumn(Position position, int index, long pseudoRandom, boolean sameLane) {
+		long referenceAreaSize;
+		long startPosition = 0;
+		if (position.pass == 0) {
+			if (sameLane) {
+				referenceAreaSize = (long) position.slice * this.segmentLength + index - 1;
+			}
+			else {
+				referenceAreaSize = (long) position.slice * this.segmentLength + ((index == 0) ? -1 : 0);
+			}
+		}
+		else {
+			startPosition = ((position.slice + 1) * this.segmentLength) % this.laneLength;
+			if (sameLane) {
+				referenceAreaSize = this.laneLength - this.segmentLength + index - 1;
+			}
+			else {
+				referenceAreaSize = this.laneLength - this.segmentLength + ((index == 0) ? -1 : 0);
+			}
+		}
+		long relativePosition = pseudoRandom & M32L;
+		relativePosition = (relativePosition * relativePosition) >>> 32;
+		relativePosition = referenceAreaSize - 1 - ((referenceAreaSize * relativePosition) >>> 32);
+		return (int) ((startPosition + relativePosition) % this.laneLength);
+	}
+
+	private void digest(byte[] out) {
+		long[] finalBlock = this.memory[this.laneLength - 1].clone();
+		for (int lane = 1; lane < this.lanes; lane++) {
+			long[] lastBlockInLane = this.memory[lane * this.laneLength + this.laneLength - 1];
+			for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+				finalBlock[i] ^= lastBlockInLane[i];
+			}
+		}
+		byte[] finalBlockBytes = new byte[BLOCK_SIZE];
+		for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+			Pack.longToLittleEndian(finalBlock[i], finalBlockBytes, i * 8);
+		}
+		hash(finalBlockBytes, out, 0, out.length);
+		Arrays.fill(finalBlock, 0);
+		Arrays.fill(finalBlockBytes, (byte) 0);
+	}
+
+	/**
+	 * Computes {@code next = G(prev, ref)}, or {@code next ^= G(prev, ref)} when
+	 * {@code withXor}
+	 */
+	private static void fillBlock(long[] r, long[] state, long[] prev, long[] ref, long[] next, boolean withXor) {
+		for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+			r[i] = prev[i] ^ ref[i];
+			state[i] = withXor ? r[i] ^ next[i] : r[i];
+		}
+		for (int i = 0; i < 8; i++) {
+			int v = 16 * i;
+			roundFunction(r, v, v + 1, v + 2, v + 3, v + 4, v + 5, v + 6, v + 7, v + 8, v + 9, v + 10, v + 11,
+					v + 12, v + 13, v + 14, v + 15);
+		}
+		for (int i = 0; i < 8; i++) {
+			int v = 2 * i;
+			roundFunction(r, v, v + 1, v + 16, v + 17, v + 32, v + 33, v + 48, v + 49, v + 64, v + 65, v + 80,
+					v + 81, v + 96, v + 97, v + 112, v + 113);
+		}
+		for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+			next[i] = state[i] ^ r[i];
+		}
+	}
+
+	private static void roundFunction(long[] block, int v0, int v1, int v2, int v3, int v4, int v5, int v6, int v7,
+			int v8, int v9, int v10, int v11, int v12, int v13, int v14, int v15) {
+		g(block, v0, v4, v8, v12);
+		g(block, v1, v5, v9, v13);
+		g(block, v2, v6, v10, v14);
+		g(block, v3, v7, v11, v15);
+		g(block, v0, v5, v10, v15);
+		g(block, v1, v6, v11, v12);
+		g(block, v2, v7, v8, v13);
+		g(block, v3, v4, v9, v14);
+	}
+
+	private static void g(long[] v, int a, int b, int c, int d) {
+		v[a] = fBlaMka(v[a], v[b]);
+		v[d] = Long.rotateRight(v[d] ^ v[a], 32);
+		v[c] = fBlaMka(v[c], v[d]);
+		v[b] = Long.rotateRight(v[b] ^ v[c], 24);
+		v[a] = fBlaMka(v[a], v[b]);
+		v[d] = Long.rotateRight(v[d] ^ v[a], 16);
+		v[c] = fBlaMka(v[c], v[d]);
+		v[b] = Long.rotateRight(v[b] ^ v[c], 63);
+	}
+
+	private static long fBlaMka(long x, long y) {
+		long m = 2 * (x & M32L) * (y & M32L);
+		return x + y + m;
+	}
+
+	/**
+	 * The variable length hash function H' of the specification
+	 */
+	private static void hash(byte[] input, byte[] out, int outOffset, int outLength) {
+		byte[] outLengthBytes = new byte[4];
+		Pack.intToLittleEndian(outLength, outLengthBytes, 0);
+		int blake2bLength = 64;
+		if (outLength <= blake2bLength) {
+			Blake2bDigest blake = new Blake2bDigest(outLength * 8);
+			blake.update(outLengthBytes, 0, outLengthBytes.length);
+			blake.update(input, 0, input.length);
+			blake.doFinal(out, outOffset);
+			return;
+		}
+		Blake2bDigest digest = new Blake2bDigest(blake2bLength * 8);
+		byte[] outBuffer = new byte[blake2bLength];
+		digest.update(outLengthBytes, 0, outLengthBytes.length);
+		digest.update(input, 0, input.length);
+		digest.doFinal(outBuffer, 0);
+		int halfLength = blake2bLength / 2;
+		int outPosition = outOffset;
+		System.arraycopy(outBuffer, 0, out, outPosition, halfLength);
+		outPosition += halfLength;
+		int r = ((outLength + 31) / 32) - 2;
+		for (int i = 2; i <= r; i++, outPosition += halfLength) {
+			digest.update(outBuffer, 0, outBuffer.length);
+			digest.doFinal(outBuffer, 0);
+			System.arraycopy(outBuffer, 0, out, outPosition, halfLength);
+		}
+		int lastLength = outLength - 32 * r;
+		digest = new Blake2bDigest(lastLength * 8);
+		digest.update(outBuffer, 0, outBuffer.length);
+		digest.doFinal(out, outPosition);
+	}
+
+	private static void fromBytes(long[] block, byte[] bytes) {
+		for (int i = 0; i < QWORDS_IN_BLOCK; i++) {
+			block[i] = Pack.littleEndianToLong(bytes, i * 8);
+		}
+	}
+
+	private static void addIntToLittleEndian(Blake2bDigest digest, int n) {
+		digest.update((byte) n);
+		digest.update((byte) (n >>> 8));
+		digest.update((byte) (n >>> 16));
+		digest.update((byte) (n >>> 24));
+	}
+
+	private static void addByteString(Blake2bDigest digest, byte[] octets) {
+		if (octets == null) {
+			addIntToLittleEndian(digest, 0);
+			return;
+		}
+		addIntToLittleEndian(digest, octets.length);
+		digest.update(octets, 0, octets.length);
+	}
+
+	private static final class Position {
+
+		private final int pass;
+
+		private final int lane;
+
+		private final int slice;
+
+		private Position(int pass, int lane, int slice) {
+			this.pass = pass;
+			this.lane = lane;
+			this.slice = slice;
+		}
+
+	}
+
+}
@@ -276,14 +276,14 @@ public class BCrypt {
 	 * @throws IllegalArgumentException if maxolen is invalid
 	 */
 	static byte[] decode_base64(String s, int maxolen) throws IllegalArgumentException {
-		StringBuilder rs = new StringBuilder();
 		int off = 0, slen = s.length(), olen = 0;
-		byte ret[];
+		byte rs[];
 		byte c1, c2, c3, c4, o;
 
 		if (maxolen <= 0) {
 			throw new IllegalArgumentException("Invalid maxolen");
 		}
+		rs = new byte[maxolen];
 
 		while (off < slen - 1 && olen < maxolen) {
 			c1 = char64(s.charAt(off++));
@@ -293,7 +293,7 @@ public class BCrypt {
 			}
 			o = (byte) (c1 << 2);
 			o |= (c2 & 0x30) >> 4;
-			rs.append((char) o);
+			rs[olen] = o;
 			if (++olen >= maxolen || off >= slen) {
 				break;
 			}
@@ -303,22 +303,18 @@ public class BCrypt {
 			}
 			o = (byte) ((c2 & 0x0f) << 4);
 			o |= (c3 & 0x3c) >> 2;
-			rs.append((char) o);
+			rs[olen] = o;
 			if (++olen >= maxolen || off >= slen) {
 				break;
 			}
 			c4 = char64(s.charAt(off++));
 			o = (byte) ((c3 & 0x03) << 6);
 			o |= c4;
-			rs.append((char) o);
+			rs[olen] = o;
 			++olen;
 		}
 
-		ret = new byte[olen];
-		for (off = 0; off < olen; off++) {
-			ret[off] = (byte) rs.charAt(off);
-		}
-		return ret;
+		return (olen == maxolen) ? rs : Arrays.copyOf(rs, olen);
 	}
 
 	/**
@@ -327,25 +323,27 @@ public class BCrypt {
 	 * @param off the position in the array of the blocks
 	 */
 	private void encipher(int lr[], int off) {
+		// Local references let the JIT keep the tables in registers
+		int P[] = this.P, S[] = this.S;
 		int i, n, l = lr[off], r = lr[off + 1];
 
-		l ^= this.P[0];
+		l ^= P[0];
 		for (i = 0; i <= BLOWFISH_NUM_ROUNDS - 2;) {
 			// Feistel substitution on left word
-			n = this.S[(l >> 24) & 0xff];
-			n += this.S[0x100 | ((l >> 16) & 0xff)];
-			n ^= this.S[0x200 | ((l >> 8) & 0xff)];
-			n += this.S[0x300 | (l & 0xff)];
-			r ^= n ^ this.P[++i];
+			n = S[(l >> 24) & 0xff];
+			n += S[0x100 | ((l >> 16) & 0xff)];
+			n ^= S[0x200 | ((l >> 8) & 0xff)];
+			n += S[0x300 | (l & 0xff)];
+			r ^= n ^ P[++i];
 
 			// Feistel substitution on right word
-			n = this.S[(r >> 24) & 0xff];
-			n += this.S[0x100 | ((r >> 16) & 0xff)];
-			n ^= this.S[0x200 | ((r >> 8) & 0xff)];
-			n += this.S[0x300 | (r & 0xff)];
-			l ^= n ^ this.P[++i];
+			n = S[(r >> 24) & 0xff];
+			n += S[0x100 | ((r >> 16) & 0xff)];
+			n ^= S[0x200 | ((r >> 8) & 0xff)];
+			n += S[0x300 | (r & 0xff)];
+			l ^= n ^ P[++i];
 		}
-		lr[off] = r ^ this.P[BLOWFISH_NUM_ROUNDS + 1];
+		lr[off] = r ^ P[BLOWFISH_NUM_ROUNDS + 1];
 		lr[off + 1] = l;
 	}
 
@@ -408,26 +406,43 @@ public class BCrypt {
 	}
 
 	/**
-	 * Key the Blowfish cipher
+	 * Extract the words of key material that are mixed into the P array each time the
+	 * Blowfish cipher is keyed. They only depend on the key, so they are extracted once
+	 * rather than for each of the rounds.
 	 * @param key an array containing the key
 	 * @param sign_ext_bug true to implement the 2x bug
-	 * @param safety bit 16 is set when the safety measure is requested
+	 * @return the words of key material, one for each entry of the P array
 	 */
-	private void key(byte key[], boolean sign_ext_bug, int safety) {
-		int i;
+	private static int[] key_words(byte key[], boolean sign_ext_bug) {
+		int words[] = new int[P_orig.length];
 		int koffp[] = { 0 };
-		int lr[] = { 0, 0 };
-		int plen = this.P.length, slen = this.S.length;
 
-		for (i = 0; i < plen; i++) {
+		for (int i = 0; i < words.length; i++) {
 			if (!sign_ext_bug) {
-				this.P[i] = this.P[i] ^ streamtoword(key, koffp);
+				words[i] = streamtoword(key, koffp);
 			}
 			else {
-				this.P[i] = this.P[i] ^ streamtoword_bug(key, koffp);
+				words[i] = streamtoword_bug(key, koffp);
 			}
 		}
+		return words;
+	}
+
+	/**
+	 * Key the Blowfish cipher
+	 * @param key_words the words of key material, as extracted by key_words
+	 * @param lr a two-entry array used as the block being enciphered
+	 */
+	private void key(int key_words[], int lr[]) {
+		int i;
+		int plen = this.P.length, slen = this.S.length;
+
+		for (i = 0; i < plen; i++) {
+			this.P[i] = this.P[i] ^ key_words[i];
+		}
 
+		lr[0] = 0;
+		lr[1] = 0;
 		for (i = 0; i < plen; i += 2) {
 			encipher(lr, 0);
 			this.P[i] = lr[0];
@@ -542,9 +557,12 @@ public class BCrypt {
 
 		init_key();
 		ekskey(salt, password, sign_ext_bug, safety);
+		int password_words[] = key_words(password, sign_ext_bug);
+		int salt_words[] = key_words(salt, false);
+		int lr[] = new int[2];
 		for (i = 0; i < rounds; i++) {
-			key(password, sign_ext_bug, safety);
-			key(salt, false, safety);
+			key(password_words, lr);
+			key(salt_words, lr);
 		}
 
 		for (i = 0; i < 64; i++) {
@@ -589,7 +607,7 @@ public class BCrypt {
 		byte saltb[], hashed[];
 		char minor = (char) 0;
 		int rounds, off;
-		StringBuilder rs = new StringBuilder();
+		StringBuilder rs = new StringBuilder(60);
 
 		if (salt == null) {
 			throw new IllegalArgumentException("salt cannot be null");
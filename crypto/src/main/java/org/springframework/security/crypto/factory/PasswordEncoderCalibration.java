@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.crypto.factory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
+
+/**
+ * Creates {@link PasswordEncoder} instances whose work factor is calibrated, when they
+ * are created, so that encoding a password on the current machine takes about a target
+ * duration, such as 250 milliseconds.
+ * <p>
+ * Calibrating encodes a password several times with increasing work factors, and
+ * therefore takes about ten times the target duration. It is meant to run once at
+ * startup. The work factor is never lower than the minimum that the algorithm accepts,
+ * so encoding may take longer than the target on slow machines.
+ * <p>
+ * Passwords whose work factor is lower than the calibrated one are upgraded on login,
+ * when supported by the encoder. Since the calibrated work factor varies slightly
+ * between machines and startups, a fixed work factor is preferable when every upgrade
+ * is costly.
+ *
+ * @since 5.6
+ */
+public final class PasswordEncoderCalibration {
+
+	private static final String PASSWORD = "calibration-password";
+
+	private static final int MEASUREMENTS = 3;
+
+	private PasswordEncoderCalibration() {
+	}
+
+	/**
+	 * Creates a {@link DelegatingPasswordEncoder} with the mappings of
+	 * {@link PasswordEncoderFactories#createDelegatingPasswordEncoder()}, which encodes
+	 * with a calibrated {@link BCryptPasswordEncoder}
+	 * @param target the target duration of encoding a password
+	 * @return the {@link PasswordEncoder} to use
+	 */
+	@SuppressWarnings("deprecation")
+	public static PasswordEncoder createDelegatingPasswordEncoder(Duration target) {
+		String encodingId = "bcrypt";
+		Map<String, PasswordEncoder> encoders = new HashMap<>();
+		encoders.put(encodingId, bcrypt(target));
+		encoders.put("ldap", new org.springframework.security.crypto.password.LdapShaPasswordEncoder());
+		encoders.put("MD4", new org.springframework.security.crypto.password.Md4PasswordEncoder());
+		encoders.put("MD5", new org.springframework.security.crypto.password.MessageDigestPasswordEncoder("MD5"));
+		encoders.put("noop", org.springframework.security.crypto.password.NoOpPasswordEncoder.getInstance());
+		encoders.put("pbkdf2", new Pbkdf2PasswordEncoder());
+		encoders.put("scrypt", new SCryptPasswordEncoder());
+		encoders.put("SHA-1", new org.springframework.security.crypto.password.MessageDigestPasswordEncoder("SHA-1"));
+		encoders.put("SHA-256",
+				new org.springframework.security.crypto.password.MessageDigestPasswordEncoder("SHA-256"));
+		encoders.put("sha256", new org.springframework.security.crypto.password.StandardPasswordEncoder());
+		encoders.put("argon2", new Argon2PasswordEncoder());
+		return new DelegatingPasswordEncoder(encodingId, encoders);
+	}
+
+	/**
+	 * Creates a {@link BCryptPasswordEncoder} with a calibrated strength, between 4 and
+	 * 31
+	 * @param target the target duration of encoding a password
+	 * @return the {@link BCryptPasswordEncoder} to use
+	 */
+	public static BCryptPasswordEncoder bcrypt(Duration target) {
+		int strength = calibrateExponent(BCryptPasswordEncoder::new, 4, 31, target);
+		return new BCryptPasswordEncoder(strength);
+	}
+
+	/**
+	 * Creates a {@link Pbkdf2PasswordEncoder} with no secret, the default salt length and
+	 * hash width, and a calibrated number of iterations
+	 * @param target the target duration of encoding a password
+	 * @return the {@link Pbkdf2PasswordEncoder} to use
+	 */
+	public static Pbkdf2PasswordEncoder pbkdf2(Duration target) {
+		int iterations = calibrateLinear(PasswordEncoderCalibration::pbkdf2, 1000, target);
+		return pbkdf2(iterations);
+	}
+
+	private static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+		return new Pbkdf2PasswordEncoder("", iterations, 256);
+	}
+
+	/**
+	 * Creates a {@link SCryptPasswordEncoder} with the default parameters and a
+	 * calibrated CPU cost, between 2^10 and 2^17. With the default memory cost of 8, the
+	 * largest CPU cost uses 128 MB for each password being encoded.
+	 * @param target the target duration of encoding a password
+	 * @return the {@link SCryptPasswordEncoder} to use
+	 */
+	public static SCryptPasswordEncoder scrypt(Duration target) {
+		int exponent = calibrateExponent(PasswordEncoderCalibration::scrypt, 10, 17, target);
+		return scrypt(exponent);
+	}
+
+	private static SCryptPasswordEncoder scrypt(int cpuCostExponent) {
+		return new SCryptPasswordEncoder(1 << cpuCostExponent, 8, 1, 32, 64);
+	}
+
+	/**
+	 * Creates an {@link Argon2PasswordEncoder} with the default parameters and a
+	 * calibrated number of iterations
+	 * @param target the target duration of encoding a password
+	 * @return the {@link Argon2PasswordEncoder} to use
+	 */
+	public static Argon2PasswordEncoder argon2(Duration target) {
+		int iterations = calibrateLinear(PasswordEncoderCalibration::argon2, 1, target);
+		return argon2(iterations);
+	}
+
+	private static Argon2PasswordEncoder argon2(int iterations) {
+		return new Argon2PasswordEncoder(16, 32, 1, 1 << 12, iterations);
+	}
+
+	/**
+	 * Calibrates a work factor that doubles the duration each time it is incremented
+	 */
+	private static int calibrateExponent(IntFunction<PasswordEncoder> encoders, int minimum, int maximum,
+			Duration target) {
+		long targetNanos = targetNanos(target);
+		int exponent = minimum;
+		long nanos = measure(encoders.apply(exponent));
+		while (exponent < maximum && nanos * 2 <= targetNanos) {
+			exponent++;
+			nanos = measure(encoders.apply(exponent));
+		}
+		return exponent;
+	}
+
+	/**
+	 * Calibrates a work factor that the duration is proportional to, by extrapolating
+	 * from a work factor that takes at least a quarter of the target, and then from the
+	 * extrapolated work factor
+	 */
+	private static int calibrateLinear(IntFunction<PasswordEncoder> encoders, int minimum, Duration target) {
+		long targetNanos = targetNanos(target);
+		long workFactor = minimum;
+		long nanos = measure(encoders.apply(minimum));
+		while (nanos < targetNanos / 4 && workFactor <= Integer.MAX_VALUE / 2) {
+			workFactor *= 2;
+			nanos = measure(encoders.apply((int) workFactor));
+		}
+		int calibrated = extrapolate(workFactor, nanos, targetNanos, minimum);
+		return extrapolate(calibrated, measure(encoders.apply(calibrated)), targetNanos, minimum);
+	}
+
+	private static int extrapolate(long workFactor, long nanos, long targetNanos, int minimum) {
+		double calibrated = (double) workFactor * targetNanos / Math.max(nanos, 1);
+		return (int) Math.max(minimum, Math.min(calibrated, Integer.MAX_VALUE));
+	}
+
+	private static long targetNanos(Duration target) {
+		if (target == null || target.isNegative() || target.isZero()) {
+			throw new IllegalArgumentException("target must be greater than 0");
+		}
+		return target.toNanos();
+	}
+
+	private static long measure(PasswordEncoder encoder) {
+		encoder.encode(PASSWORD);
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < MEASUREMENTS; i++) {
+			long start = System.nanoTime();
+			encoder.encode(PASSWORD);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.crypto.scrypt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.Salsa20Engine;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Pack;
+
+/**
+ * An implementation of scrypt, as defined in
+ * <a href="https://tools.ietf.org/html/rfc7914">RFC 7914</a>, that computes the
+ * {@code p} independent ROMix lanes on a {@link ForkJoinPool}. It produces the same
+ * keys as {@link org.bouncycastle.crypto.generators.SCrypt#generate}, which computes the
+ * lanes one after the other.
+ *
+ * @since 5.6
+ */
+final class ParallelSCrypt {
+
+	/**
+	 * The maximum number of words in one array of the ROMix blocks V
+	 */
+	private static final int MAX_CHUNK_WORDS = 1 << 24;
+
+	private ParallelSCrypt() {
+	}
+
+	/**
+	 * Generates a key, after validating the parameters like
+	 * {@link org.bouncycastle.crypto.generators.SCrypt#generate}
+	 * @param password the password
+	 * @param salt the salt
+	 * @param cpuCost the CPU cost N, a power of 2
+	 * @param memoryCost the block size r
+	 * @param parallelization the number of lanes p
+	 * @param keyLength the length of the key, in bytes
+	 * @param forkJoinPool the pool to compute the lanes on
+	 * @return the key
+	 * @throws IllegalArgumentException if a parameter is invalid
+	 */
+	static byte[] generate(byte[] password, byte[] salt, int cpuCost, int memoryCost, int parallelization,
+			int keyLength, ForkJoinPool forkJoinPool) {
+		validate(password, salt, cpuCost, memoryCost, parallelization, keyLength);
+		int laneLength = 128 * memoryCost;
+		byte[] lanes = pbkdf2(password, salt, parallelization * laneLength);
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(parallelization);
+		for (int lane = 0; lane < parallelization; lane++) {
+			int offset = lane * laneLength;
+			tasks.add(ForkJoinTask.adapt(() -> romix(lanes, offset, cpuCost, memoryCost)));
+		}
+		forkJoinPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+		return pbkdf2(password, lanes, keyLength);
+	}
+
+	private static void validate(byte[] password, byte[] salt, int cpuCost, int memoryCost, int parallelization,
+			int keyLength) {
+		if (password == null) {
+			throw new IllegalArgumentException("Passphrase P must be provided.");
+		}
+		if (salt == null) {
+			throw new IllegalArgumentException("Salt S must be provided.");
+		}
+		if (cpuCost <= 1 || (cpuCost & (cpuCost - 1)) != 0) {
+			throw new IllegalArgumentException("Cost parameter N must be > 1 and a power of 2");
+		}
+		if (memoryCost == 1 && cpuCost >= 65536) {
+			throw new IllegalArgumentException("Cost parameter N must be > 1 and < 65536.");
+		}
+		if (memoryCost < 1) {
+			throw new IllegalArgumentException("Block size r must be >= 1.");
+		}
+		int maxParallel = Integer.MAX_VALUE / (128 * memoryCost * 8);
+		if (parallelization < 1 || parallelization > maxParallel) {
+			throw new IllegalArgumentException("Parallelisation parameter p must be >= 1 and <= " + maxParallel
+					+ " (based on block size r of " + memoryCost + ")");
+		}
+		if (keyLength < 1) {
+			throw new IllegalArgumentException("Generated key length dkLen must be >= 1.");
+		}
+	}
+
+	private static byte[] pbkdf2(byte[] password, byte[] salt, int length) {
+		PKCS5S2ParametersGenerator generator = new PKCS5S2ParametersGenerator(new SHA256Digest());
+		generator.init(password, salt, 1);
+		return ((KeyParameter) generator.generateDerivedMacParameters(length * 8)).getKey();
+	}
+
+	private static void romix(byte[] lanes, int offset, int cpuCost, int memoryCost) {
+		int blockWords = 32 * memoryCost;
+		int[] x = new int[blockWords];
+		int[] y = new int[blockWords];
+		// V is split into chunks of whole blocks, since N * 32 * r ints may not fit in an
+		// array
+		int chunkBlocks = Math.min(cpuCost, Math.max(1, Integer.highestOneBit(MAX_CHUNK_WORDS / blockWords)));
+		int chunkShift = Integer.numberOfTrailingZeros(chunkBlocks);
+		int[][] v = new int[cpuCost >>> chunkShift][chunkBlocks * blockWords];
+		int[] salsaIn = new int[16];
+		int[] salsaOut = new int[16];
+		Pack.littleEndianToInt(lanes, offset, x);
+		for (int i = 0; i < cpuCost; i++) {
+			System.arraycopy(x, 0, v[i >>> chunkShift], (i & (chunkBlocks - 1)) * blockWords, blockWords);
+			blockMix(x, y, salsaIn, salsaOut, memoryCost);
+			int[] swap = x;
+			x = y;
+			y = swap;
+		}
+		int mask = cpuCost - 1;
+		for (int i = 0; i < cpuCost; i++) {
+			int j = x[blockWords - 16] & mask;
+			int[] vChunk = v[j >>> chunkShift];
+			int vOffset = (j & (chunkBlocks - 1)) * blockWords;
+			for (int k = 0; k < blockWords; k++) {
+				x[k] ^= vChunk[vOffset + k];
+			}
+			blockMix(x, y, salsaIn, salsaOut, memoryCost);
+			int[] swap = x;
+			x = y;
+			y = swap;
+		}
+		Pack.intToLittleEndian(x, lanes, offset);
+	}
+
+	/**
+	 * Computes BlockMix from {@code b} into {@code y}
+	 */
+	private static void blockMix(int[] b, int[] y, int[] salsaIn, int[] salsaOut, int memoryCost) {
+		System.arraycopy(b, b.length - 16, salsaOut, 0, 16);
+		for (int i = 0; i < 2 * memoryCost; i++) {
+			for (int k = 0; k < 16; k++) {
+				salsaIn[k] = salsaOut[k] ^ b[i * 16 + k];
+			}
+			Salsa20Engine.salsaCore(8, salsaIn, salsaOut);
+			int yOffset = ((i & 1) == 0) ? (i / 2) * 16 : (memoryCost + i / 2) * 16;
+			System.arraycopy(salsaOut, 0, y, yOffset, 16);
+		}
+	}
+
+}
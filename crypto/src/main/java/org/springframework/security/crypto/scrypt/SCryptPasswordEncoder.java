@@ -18,6 +18,7 @@ package org.springframework.security.crypto.scrypt;
 
 import java.security.MessageDigest;
 import java.util.Base64;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -44,7 +45,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  * <ul>
  * <li>The currently implementation uses Bouncy castle which does not exploit
  * parallelism/optimizations that password crackers will, so there is an unnecessary
- * asymmetry between attacker and defender.</li>
+ * asymmetry between attacker and defender. The parallelization parameter can be
+ * exploited by setting a {@link #setForkJoinPool(ForkJoinPool) ForkJoinPool}.</li>
  * <li>Scrypt is based on Salsa20 which performs poorly in Java (on par with AES) but
  * performs awesome (~4-5x faster) on SIMD capable platforms</li>
  * <li>While there are some that would disagree, consider reading -
@@ -70,6 +72,8 @@ public class SCryptPasswordEncoder implements PasswordEncoder {
 
 	private final BytesKeyGenerator saltGenerator;
 
+	private ForkJoinPool forkJoinPool;
+
 	public SCryptPasswordEncoder() {
 		this(16384, 8, 1, 32, 64);
 	}
@@ -81,8 +85,9 @@ public class SCryptPasswordEncoder implements PasswordEncoder {
 	 * @param memoryCost memory cost of the algorithm (as defined in scrypt this is r)
 	 * Default is currently 8.
 	 * @param parallelization the parallelization of the algorithm (as defined in scrypt
-	 * this is p) Default is currently 1. Note that the implementation does not currently
-	 * take advantage of parallelization.
+	 * this is p) Default is currently 1. Note that the implementation only takes
+	 * advantage of parallelization when a {@link #setForkJoinPool(ForkJoinPool)
+	 * ForkJoinPool} is set.
 	 * @param keyLength key length for the algorithm (as defined in scrypt this is dkLen).
 	 * The default is currently 32.
 	 * @param saltLength salt length (as defined in scrypt this is the length of S). The
@@ -157,14 +162,13 @@ public class SCryptPasswordEncoder implements PasswordEncoder {
 		int cpuCost = (int) Math.pow(2, params >> 16 & 0xffff);
 		int memoryCost = (int) params >> 8 & 0xff;
 		int parallelization = (int) params & 0xff;
-		byte[] generated = SCrypt.generate(Utf8.encode(rawPassword), salt, cpuCost, memoryCost, parallelization,
-				this.keyLength);
+		byte[] generated = generate(Utf8.encode(rawPassword), salt, cpuCost, memoryCost, parallelization);
 		return MessageDigest.isEqual(derived, generated);
 	}
 
 	private String digest(CharSequence rawPassword, byte[] salt) {
-		byte[] derived = SCrypt.generate(Utf8.encode(rawPassword), salt, this.cpuCost, this.memoryCost,
-				this.parallelization, this.keyLength);
+		byte[] derived = generate(Utf8.encode(rawPassword), salt, this.cpuCost, this.memoryCost,
+				this.parallelization);
 		String params = Long.toString(
 				((int) (Math.log(this.cpuCost) / Math.log(2)) << 16L) | this.memoryCost << 8 | this.parallelization,
 				16);
@@ -175,6 +179,28 @@ public class SCryptPasswordEncoder implements PasswordEncoder {
 		return sb.toString();
 	}
 
+	private byte[] generate(byte[] password, byte[] salt, int cpuCost, int memoryCost, int parallelization) {
+		if (this.forkJoinPool == null || parallelization == 1) {
+			return SCrypt.generate(password, salt, cpuCost, memoryCost, parallelization, this.keyLength);
+		}
+		return ParallelSCrypt.generate(password, salt, cpuCost, memoryCost, parallelization, this.keyLength,
+				this.forkJoinPool);
+	}
+
+	/**
+	 * Sets the {@link ForkJoinPool} that computes the independent parts of a hash in
+	 * parallel, when the parallelization parameter of the hash is greater than 1. The
+	 * hashes are identical to those computed on a single thread, but each part holds its
+	 * own {@code 128 * cpuCost * memoryCost} bytes at the same time. By default, hashes
+	 * are computed on the calling thread.
+	 * @param forkJoinPool the {@link ForkJoinPool} to use, such as
+	 * {@link ForkJoinPool#commonPool()}
+	 * @since 5.6
+	 */
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+
 	private byte[] decodePart(String part) {
 		return Base64.getDecoder().decode(Utf8.encode(part));
 	}
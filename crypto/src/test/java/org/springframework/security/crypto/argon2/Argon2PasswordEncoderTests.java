@@ -18,6 +18,7 @@ package org.springframework.security.crypto.argon2;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -127,6 +128,26 @@ public class Argon2PasswordEncoderTests {
 				"$argon2id$v=19$m=512,t=5,p=4$QUFBQUFBQUFBQUFBQUFBQQ$PNv4C3K50bz3rmON+LtFpdisD7ePieLNq+l5iUHgc1k");
 	}
 
+	@Test
+	public void encodeWhenForkJoinPoolAndPredictableSaltThenEqualTestHash() throws Exception {
+		this.encoder = new Argon2PasswordEncoder(16, 32, 4, 512, 5);
+		this.encoder.setForkJoinPool(ForkJoinPool.commonPool());
+		injectPredictableSaltGen();
+		String hash = this.encoder.encode("sometestpassword");
+		assertThat(hash).isEqualTo(
+				"$argon2id$v=19$m=512,t=5,p=4$QUFBQUFBQUFBQUFBQUFBQQ$PNv4C3K50bz3rmON+LtFpdisD7ePieLNq+l5iUHgc1k");
+	}
+
+	@Test
+	public void matchesWhenForkJoinPoolThenMatchesHashesComputedOnSingleThread() {
+		Argon2PasswordEncoder serialEncoder = new Argon2PasswordEncoder(16, 32, 3, 300, 2);
+		Argon2PasswordEncoder parallelEncoder = new Argon2PasswordEncoder(16, 32, 3, 300, 2);
+		parallelEncoder.setForkJoinPool(ForkJoinPool.commonPool());
+		assertThat(parallelEncoder.matches("password", serialEncoder.encode("password"))).isTrue();
+		assertThat(serialEncoder.matches("password", parallelEncoder.encode("password"))).isTrue();
+		assertThat(parallelEncoder.matches("bogus", serialEncoder.encode("password"))).isFalse();
+	}
+
 	@Test
 	public void upgradeEncodingWhenSameEncodingThenFalse() {
 		String hash = this.encoder.encode("password");
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.crypto.factory;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link PasswordEncoderCalibration}
+ */
+public class PasswordEncoderCalibrationTests {
+
+	private static final Duration TARGET = Duration.ofMillis(20);
+
+	private final String rawPassword = "password";
+
+	@Test
+	public void bcryptWhenCalibratedThenMatches() {
+		BCryptPasswordEncoder encoder = PasswordEncoderCalibration.bcrypt(TARGET);
+		assertThat(encoder.matches(this.rawPassword, encoder.encode(this.rawPassword))).isTrue();
+	}
+
+	@Test
+	public void bcryptWhenTargetBelowMinimumThenMinimumStrength() {
+		BCryptPasswordEncoder encoder = PasswordEncoderCalibration.bcrypt(Duration.ofNanos(1));
+		assertThat(encoder.encode(this.rawPassword)).startsWith("$2a$04$");
+	}
+
+	@Test
+	public void pbkdf2WhenCalibratedThenMatches() {
+		PasswordEncoder encoder = PasswordEncoderCalibration.pbkdf2(TARGET);
+		assertThat(encoder.matches(this.rawPassword, encoder.encode(this.rawPassword))).isTrue();
+	}
+
+	@Test
+	public void scryptWhenCalibratedThenMatches() {
+		PasswordEncoder encoder = PasswordEncoderCalibration.scrypt(TARGET);
+		assertThat(encoder.matches(this.rawPassword, encoder.encode(this.rawPassword))).isTrue();
+	}
+
+	@Test
+	public void argon2WhenCalibratedThenMatches() {
+		PasswordEncoder encoder = PasswordEncoderCalibration.argon2(TARGET);
+		assertThat(encoder.matches(this.rawPassword, encoder.encode(this.rawPassword))).isTrue();
+	}
+
+	@Test
+	public void createDelegatingPasswordEncoderWhenCalibratedThenEncodesWithBCrypt() {
+		PasswordEncoder encoder = PasswordEncoderCalibration.createDelegatingPasswordEncoder(TARGET);
+		String encodedPassword = encoder.encode(this.rawPassword);
+		assertThat(encodedPassword).startsWith("{bcrypt}");
+		assertThat(encoder.matches(this.rawPassword, encodedPassword)).isTrue();
+		assertThat(encoder.matches(this.rawPassword, "{noop}password")).isTrue();
+	}
+
+	@Test
+	public void bcryptWhenTargetNotPositiveThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> PasswordEncoderCalibration.bcrypt(Duration.ZERO));
+		assertThatIllegalArgumentException().isThrownBy(() -> PasswordEncoderCalibration.bcrypt(null));
+	}
+
+}
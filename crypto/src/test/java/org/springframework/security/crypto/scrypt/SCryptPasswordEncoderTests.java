@@ -16,6 +16,8 @@
 
 package org.springframework.security.crypto.scrypt;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -58,6 +60,28 @@ public class SCryptPasswordEncoderTests {
 		assertThat(encoder.matches("password", result)).isTrue();
 	}
 
+	@Test
+	public void matchesWhenForkJoinPoolThenMatchesHashesComputedOnSingleThread() {
+		SCryptPasswordEncoder serialEncoder = new SCryptPasswordEncoder(512, 8, 4, 32, 16);
+		SCryptPasswordEncoder parallelEncoder = new SCryptPasswordEncoder(512, 8, 4, 32, 16);
+		parallelEncoder.setForkJoinPool(ForkJoinPool.commonPool());
+		assertThat(parallelEncoder.matches("password", serialEncoder.encode("password"))).isTrue();
+		assertThat(serialEncoder.matches("password", parallelEncoder.encode("password"))).isTrue();
+		assertThat(parallelEncoder.matches("bogus", serialEncoder.encode("password"))).isFalse();
+	}
+
+	@Test
+	public void matchesWhenForkJoinPoolAndNoParallelizationThenException() {
+		SCryptPasswordEncoder serialEncoder = new SCryptPasswordEncoder(512, 8, 4, 32, 16);
+		SCryptPasswordEncoder parallelEncoder = new SCryptPasswordEncoder(512, 8, 4, 32, 16);
+		parallelEncoder.setForkJoinPool(ForkJoinPool.commonPool());
+		String[] parts = serialEncoder.encode("password").split("\\$");
+		long params = Long.parseLong(parts[1], 16) & ~0xffL;
+		String encoded = "$" + Long.toString(params, 16) + "$" + parts[2] + "$" + parts[3];
+		assertThatIllegalArgumentException().isThrownBy(() -> serialEncoder.matches("password", encoded));
+		assertThatIllegalArgumentException().isThrownBy(() -> parallelEncoder.matches("password", encoded));
+	}
+
 	@Test
 	public void differentPasswordHashes() {
 		SCryptPasswordEncoder encoder = new SCryptPasswordEncoder();
@@ -21,6 +21,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +29,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 import javax.crypto.SecretKey;
@@ -129,15 +131,41 @@ public final class NimbusJwtDecoder implements JwtDecoder {
 	 */
 	@Override
 	public Jwt decode(String token) throws JwtException {
-		JWT jwt = parse(token);
+		return decode(parse(token));
+	}
+
+	/**
+	 * Decode and validate a JWT that was already parsed, for example to find out its
+	 * issuer. This avoids parsing the JWT once more. The token value of the returned
+	 * {@link Jwt} is the parsed string, or the serialized JWT if it was not parsed.
+	 * @param jwt the parsed JWT
+	 * @return a validated {@link Jwt}
+	 * @throws JwtException
+	 * @since 5.6
+	 */
+	public Jwt decode(JWT jwt) throws JwtException {
+		Assert.notNull(jwt, "jwt cannot be null");
 		if (jwt instanceof PlainJWT) {
 			this.logger.trace("Failed to decode unsigned token");
 			throw new BadJwtException("Unsupported algorithm of " + jwt.getHeader().getAlgorithm());
 		}
-		Jwt createdJwt = createJwt(token, jwt);
+		Jwt createdJwt = createJwt(getTokenValue(jwt), jwt);
 		return validateJwt(createdJwt);
 	}
 
+	private String getTokenValue(JWT jwt) {
+		if (jwt.getParsedString() != null) {
+			return jwt.getParsedString();
+		}
+		try {
+			return jwt.serialize();
+		}
+		catch (IllegalStateException ex) {
+			this.logger.trace("Failed to serialize token", ex);
+			throw new BadJwtException(String.format(DECODING_ERROR_MESSAGE_TEMPLATE, ex.getMessage()), ex);
+		}
+	}
+
 	private JWT parse(String token) {
 		try {
 			return JWTParser.parse(token);
@@ -243,6 +271,10 @@ public final class NimbusJwtDecoder implements JwtDecoder {
 
 		private Cache cache;
 
+		private Duration jwkSetLifespan;
+
+		private Executor jwkSetRefreshExecutor;
+
 		private Consumer<ConfigurableJWTProcessor<SecurityContext>> jwtProcessorCustomizer;
 
 		private JwkSetUriJwtDecoderBuilder(String jwkSetUri) {
@@ -307,6 +339,47 @@ public final class NimbusJwtDecoder implements JwtDecoder {
 			return this;
 		}
 
+		/**
+		 * Keep the <a href="https://tools.ietf.org/html/rfc7517#section-5">JWK Set</a> for
+		 * the given lifespan and refresh it in the background shortly before it expires,
+		 * instead of retrieving it on the thread that decodes the token.
+		 *
+		 * <p>
+		 * Only one refresh of the JWK Set runs at any time. When a refresh fails, the last
+		 * JWK Set that was retrieved successfully keeps being used. A token signed with an
+		 * unknown key triggers a refresh, at most once every 30 seconds, or once every
+		 * tenth of the lifespan if that is shorter.
+		 *
+		 * <p>
+		 * When a {@link #cache(Cache) cache} is also configured, the JWK Set is retrieved
+		 * through that cache.
+		 * @param jwkSetLifespan how long a retrieved JWK Set is used
+		 * @return a {@link JwkSetUriJwtDecoderBuilder} for further configurations
+		 * @since 5.6
+		 */
+		public JwkSetUriJwtDecoderBuilder jwkSetLifespan(Duration jwkSetLifespan) {
+			Assert.notNull(jwkSetLifespan, "jwkSetLifespan cannot be null");
+			Assert.isTrue(!jwkSetLifespan.isNegative() && !jwkSetLifespan.isZero(),
+					"jwkSetLifespan must be positive");
+			this.jwkSetLifespan = jwkSetLifespan;
+			return this;
+		}
+
+		/**
+		 * Use the given {@link Executor} to refresh the
+		 * <a href="https://tools.ietf.org/html/rfc7517#section-5">JWK Set</a> in the
+		 * background. Only used when a {@link #jwkSetLifespan(Duration) lifespan} is
+		 * configured. Defaults to a new daemon thread per refresh.
+		 * @param jwkSetRefreshExecutor the {@link Executor} to use
+		 * @return a {@link JwkSetUriJwtDecoderBuilder} for further configurations
+		 * @since 5.6
+		 */
+		public JwkSetUriJwtDecoderBuilder jwkSetRefreshExecutor(Executor jwkSetRefreshExecutor) {
+			Assert.notNull(jwkSetRefreshExecutor, "jwkSetRefreshExecutor cannot be null");
+			this.jwkSetRefreshExecutor = jwkSetRefreshExecutor;
+			return this;
+		}
+
 		/**
 		 * Use the given {@link Consumer} to customize the {@link JWTProcessor
 		 * ConfigurableJWTProcessor} before passing it to the build
@@ -335,6 +408,16 @@ public final class NimbusJwtDecoder implements JwtDecoder {
 		}
 
 		JWKSource<SecurityContext> jwkSource(ResourceRetriever jwkSetRetriever) {
+			if (this.jwkSetLifespan != null) {
+				ResourceRetriever retriever = (this.cache != null)
+						? new CachingResourceRetriever(this.cache, jwkSetRetriever) : jwkSetRetriever;
+				RefreshAheadRemoteJWKSource jwkSource = new RefreshAheadRemoteJWKSource(toURL(this.jwkSetUri),
+						retriever, this.jwkSetLifespan);
+				if (this.jwkSetRefreshExecutor != null) {
+					jwkSource.setExecutor(this.jwkSetRefreshExecutor);
+				}
+				return jwkSource;
+			}
 			if (this.cache == null) {
 				return new RemoteJWKSet<>(toURL(this.jwkSetUri), jwkSetRetriever);
 			}
@@ -144,11 +144,23 @@ public final class NimbusReactiveJwtDecoder implements ReactiveJwtDecoder {
 
 	@Override
 	public Mono<Jwt> decode(String token) throws JwtException {
-		JWT jwt = parse(token);
+		return this.decode(parse(token));
+	}
+
+	/**
+	 * Decode and validate a JWT that was already parsed, for example to find out its
+	 * issuer. This avoids parsing the JWT once more.
+	 * @param jwt the parsed JWT
+	 * @return a validated {@link Jwt}
+	 * @throws JwtException
+	 * @since 5.6
+	 */
+	public Mono<Jwt> decode(JWT jwt) throws JwtException {
+		Assert.notNull(jwt, "jwt cannot be null");
 		if (jwt instanceof PlainJWT) {
 			throw new BadJwtException("Unsupported algorithm of " + jwt.getHeader().getAlgorithm());
 		}
-		return this.decode(jwt);
+		return this.decodeParsed(jwt);
 	}
 
 	private JWT parse(String token) {
@@ -160,7 +172,7 @@ public final class NimbusReactiveJwtDecoder implements ReactiveJwtDecoder {
 		}
 	}
 
-	private Mono<Jwt> decode(JWT parsedToken) {
+	private Mono<Jwt> decodeParsed(JWT parsedToken) {
 		try {
 			// @formatter:off
 			return this.jwtProcessor.convert(parsedToken)
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.jwt;
+
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link JWKSource} that caches a remote JWK Set and refreshes it before it expires, so
+ * that requests do not wait for the JWK Set endpoint.
+ * <p>
+ * Only the very first lookup blocks on the JWK Set endpoint. Afterwards:
+ * <ul>
+ * <li>the first lookup that happens within the refresh-ahead time before expiry starts a
+ * refresh on the configured {@link Executor} and continues with the cached JWK Set</li>
+ * <li>an expired JWK Set is refreshed by a single caller, while the other callers
+ * continue with the expired JWK Set</li>
+ * <li>a lookup that finds no matching key, for example because of an unknown
+ * {@code kid}, waits for a refresh of the JWK Set, but at most once per minimum refresh
+ * interval</li>
+ * <li>when a refresh fails, the last JWK Set that was retrieved successfully is used
+ * until a later refresh succeeds</li>
+ * </ul>
+ * Refreshes are attempted at most once per minimum refresh interval, and only one
+ * refresh runs at any time.
+ *
+ * @since 5.6
+ */
+final class RefreshAheadRemoteJWKSource implements JWKSource<SecurityContext> {
+
+	private static final long DEFAULT_MINIMUM_REFRESH_INTERVAL = Duration.ofSeconds(30).toMillis();
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final URL jwkSetUrl;
+
+	private final ResourceRetriever jwkSetRetriever;
+
+	private final ReentrantLock refreshLock = new ReentrantLock();
+
+	private final AtomicBoolean backgroundRefresh = new AtomicBoolean();
+
+	private volatile CachedJWKSet cached;
+
+	private volatile long lastRefreshAttempt;
+
+	private long lifespan;
+
+	private long refreshAheadTime;
+
+	private long minimumRefreshInterval;
+
+	private Executor executor;
+
+	private Clock clock = Clock.systemUTC();
+
+	RefreshAheadRemoteJWKSource(URL jwkSetUrl, ResourceRetriever jwkSetRetriever, Duration lifespan) {
+		Assert.notNull(jwkSetUrl, "jwkSetUrl cannot be null");
+		Assert.notNull(jwkSetRetriever, "jwkSetRetriever cannot be null");
+		this.jwkSetUrl = jwkSetUrl;
+		this.jwkSetRetriever = jwkSetRetriever;
+		setLifespan(lifespan);
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("jwk-set-refresh-");
+		executor.setDaemon(true);
+		this.executor = executor;
+	}
+
+	@Override
+	public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws RemoteKeySourceException {
+		CachedJWKSet cached = this.cached;
+		long now = this.clock.millis();
+		if (cached == null) {
+			cached = refresh(null, true);
+		}
+		else if (now >= cached.expiresAt) {
+			if (isRefreshAllowed(now)) {
+				cached = refresh(cached, false);
+			}
+		}
+		else if (now >= cached.expiresAt - this.refreshAheadTime && isRefreshAllowed(now)) {
+			refreshInBackground(cached);
+		}
+		List<JWK> jwks = jwkSelector.select(cached.jwkSet);
+		if (!jwks.isEmpty() || !isRefreshAllowed(now)) {
+			return jwks;
+		}
+		CachedJWKSet refreshed = refresh(cached, true);
+		return (refreshed != cached) ? jwkSelector.select(refreshed.jwkSet) : jwks;
+	}
+
+	private boolean isRefreshAllowed(long now) {
+		return now - this.lastRefreshAttempt >= this.minimumRefreshInterval;
+	}
+
+	private void refreshInBackground(CachedJWKSet observed) {
+		if (!this.backgroundRefresh.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			this.executor.execute(() -> {
+				try {
+					refresh(observed, false);
+				}
+				catch (RemoteKeySourceException ex) {
+					// logged by refresh
+				}
+				finally {
+					this.backgroundRefresh.set(false);
+				}
+			});
+		}
+		catch (RuntimeException ex) {
+			this.backgroundRefresh.set(false);
+			this.logger.debug("Failed to schedule JWK Set refresh", ex);
+		}
+	}
+
+	/**
+	 * Refreshes the JWK Set unless it was already replaced since {@code observed} was
+	 * read. When the refresh fails, {@code observed} is returned if it is not null.
+	 * @param observed the JWK Set the caller found in the cache
+	 * @param wait whether to wait for a refresh started by another caller
+	 * @return the current JWK Set
+	 */
+	private CachedJWKSet refresh(CachedJWKSet observed, boolean wait) throws RemoteKeySourceException {
+		if (wait) {
+			this.refreshLock.lock();
+		}
+		else if (!this.refreshLock.tryLock()) {
+			return observed;
+		}
+		try {
+			CachedJWKSet current = this.cached;
+			long now = this.clock.millis();
+			if (current != observed || (observed != null && !isRefreshAllowed(now))) {
+				return current;
+			}
+			this.lastRefreshAttempt = now;
+			try {
+				JWKSet jwkSet = retrieveJwkSet();
+				current = new CachedJWKSet(jwkSet, this.clock.millis() + this.lifespan);
+				this.cached = current;
+				return current;
+			}
+			catch (RemoteKeySourceException ex) {
+				if (observed == null) {
+					throw ex;
+				}
+				this.logger.debug("Failed to refresh JWK Set, continuing with the previous JWK Set", ex);
+				return observed;
+			}
+		}
+		finally {
+			this.refreshLock.unlock();
+		}
+	}
+
+	private JWKSet retrieveJwkSet() throws RemoteKeySourceException {
+		Resource resource;
+		try {
+			resource = this.jwkSetRetriever.retrieveResource(this.jwkSetUrl);
+		}
+		catch (Exception ex) {
+			throw new RemoteKeySourceException("Couldn't retrieve remote JWK set: " + ex.getMessage(), ex);
+		}
+		try {
+			return JWKSet.parse(resource.getContent());
+		}
+		catch (ParseException ex) {
+			throw new RemoteKeySourceException("Couldn't parse remote JWK set: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Sets how long a retrieved JWK Set is used before it is considered expired. The
+	 * refresh-ahead time is set to a fifth of the lifespan, and the minimum refresh
+	 * interval to a tenth of the lifespan, but no more than 30 seconds.
+	 * @param lifespan the lifespan of a retrieved JWK Set
+	 */
+	void setLifespan(Duration lifespan) {
+		Assert.notNull(lifespan, "lifespan cannot be null");
+		Assert.isTrue(!lifespan.isNegative() && !lifespan.isZero(), "lifespan must be positive");
+		this.lifespan = lifespan.toMillis();
+		this.refreshAheadTime = this.lifespan / 5;
+		this.minimumRefreshInterval = Math.min(this.lifespan / 10, DEFAULT_MINIMUM_REFRESH_INTERVAL);
+	}
+
+	/**
+	 * Sets how long before expiry a JWK Set is refreshed in the background.
+	 * @param refreshAheadTime the refresh-ahead time, less than the lifespan
+	 */
+	void setRefreshAheadTime(Duration refreshAheadTime) {
+		Assert.notNull(refreshAheadTime, "refreshAheadTime cannot be null");
+		Assert.isTrue(!refreshAheadTime.isNegative() && refreshAheadTime.toMillis() < this.lifespan,
+				"refreshAheadTime must be positive and less than the lifespan");
+		this.refreshAheadTime = refreshAheadTime.toMillis();
+	}
+
+	/**
+	 * Sets the minimum time between two attempts to refresh the JWK Set, once it was
+	 * retrieved.
+	 * @param minimumRefreshInterval the minimum refresh interval
+	 */
+	void setMinimumRefreshInterval(Duration minimumRefreshInterval) {
+		Assert.notNull(minimumRefreshInterval, "minimumRefreshInterval cannot be null");
+		Assert.isTrue(!minimumRefreshInterval.isNegative(), "minimumRefreshInterval cannot be negative");
+		this.minimumRefreshInterval = minimumRefreshInterval.toMillis();
+	}
+
+	void setExecutor(Executor executor) {
+		Assert.notNull(executor, "executor cannot be null");
+		this.executor = executor;
+	}
+
+	void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private static final class CachedJWKSet {
+
+		private final JWKSet jwkSet;
+
+		private final long expiresAt;
+
+		private CachedJWKSet(JWKSet jwkSet, long expiresAt) {
+			this.jwkSet = jwkSet;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
@@ -49,6 +49,7 @@ import com.nimbusds.jose.proc.JWSKeySelector;
 import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.jwt.proc.BadJWTException;
 import com.nimbusds.jwt.proc.DefaultJWTProcessor;
@@ -264,6 +265,33 @@ public class NimbusJwtDecoderTests {
 		assertThat(jwt.hasClaim(JwtClaimNames.EXP)).isNotNull();
 	}
 
+	@Test
+	public void decodeWhenParsedJwtThenOk() throws Exception {
+		NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(withSigning(JWK_SET));
+		Jwt jwt = jwtDecoder.decode(JWTParser.parse(SIGNED_JWT));
+		assertThat(jwt.getTokenValue()).isEqualTo(SIGNED_JWT);
+		assertThat(jwt.getClaims()).isEqualTo(jwtDecoder.decode(SIGNED_JWT).getClaims());
+	}
+
+	@Test
+	public void decodeWhenBuiltJwtThenTokenValueSerialized() throws Exception {
+		SecretKey secretKey = TestKeys.DEFAULT_SECRET_KEY;
+		JWTClaimsSet claimsSet = new JWTClaimsSet.Builder().subject("test-subject")
+				.expirationTime(Date.from(Instant.now().plusSeconds(60))).build();
+		SignedJWT signedJWT = signedJwt(secretKey, MacAlgorithm.HS256, claimsSet);
+		NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(secretKey).build();
+		Jwt jwt = decoder.decode(signedJWT);
+		assertThat(jwt.getTokenValue()).isEqualTo(signedJWT.serialize());
+		assertThat(jwt.getSubject()).isEqualTo("test-subject");
+	}
+
+	@Test
+	public void decodeWhenParsedUnsignedJwtThenException() throws Exception {
+		NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(withSigning(JWK_SET));
+		assertThatExceptionOfType(BadJwtException.class)
+				.isThrownBy(() -> jwtDecoder.decode(JWTParser.parse(UNSIGNED_JWT)));
+	}
+
 	@Test
 	public void decodeWhenJwkResponseIsMalformedThenReturnsStockException() {
 		NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(withSigning(MALFORMED_JWK_SET));
@@ -45,6 +45,7 @@ import com.nimbusds.jose.proc.JWKSecurityContext;
 import com.nimbusds.jose.proc.JWSKeySelector;
 import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
 import okhttp3.mockwebserver.MockResponse;
@@ -150,6 +151,13 @@ public class NimbusReactiveJwtDecoderTests {
 		assertThat(jwt.getClaims().get("scope")).isEqualTo("message:read");
 	}
 
+	@Test
+	public void decodeWhenParsedJwtThenSuccess() throws Exception {
+		Jwt jwt = this.decoder.decode(JWTParser.parse(this.messageReadToken)).block();
+		assertThat(jwt.getTokenValue()).isEqualTo(this.messageReadToken);
+		assertThat(jwt.getClaims().get("scope")).isEqualTo("message:read");
+	}
+
 	@Test
 	public void decodeWhenRSAPublicKeyThenSuccess() throws Exception {
 		byte[] bytes = Base64.getDecoder().decode(
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.jwt;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.oauth2.jose.TestJwks;
+import org.springframework.security.oauth2.jose.TestKeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link RefreshAheadRemoteJWKSource}
+ */
+public class RefreshAheadRemoteJWKSourceTests {
+
+	private static final Instant NOW = Instant.parse("2021-06-01T00:00:00Z");
+
+	private static final RSAKey KEY_ONE = TestJwks.jwk(TestKeys.DEFAULT_PUBLIC_KEY, TestKeys.DEFAULT_PRIVATE_KEY)
+			.keyID("one").build();
+
+	private static final RSAKey KEY_TWO = TestJwks.jwk(TestKeys.DEFAULT_PUBLIC_KEY, TestKeys.DEFAULT_PRIVATE_KEY)
+			.keyID("two").build();
+
+	private ResourceRetriever retriever;
+
+	private List<Runnable> backgroundTasks = new ArrayList<>();
+
+	private RefreshAheadRemoteJWKSource source;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		this.retriever = mock(ResourceRetriever.class);
+		this.source = new RefreshAheadRemoteJWKSource(new URL("https://issuer/.well-known/jwks.json"), this.retriever,
+				Duration.ofMinutes(5));
+		this.source.setExecutor(this.backgroundTasks::add);
+		this.source.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void getWhenCachedThenRetrievedOnce() throws Exception {
+		given(this.retriever.retrieveResource(any())).willReturn(jwkSet(KEY_ONE));
+		assertThat(this.source.get(selector("one"), null)).hasSize(1);
+		assertThat(this.source.get(selector("one"), null)).hasSize(1);
+		verify(this.retriever).retrieveResource(any());
+		assertThat(this.backgroundTasks).isEmpty();
+	}
+
+	@Test
+	public void getWhenFirstRetrievalFailsThenException() throws Exception {
+		given(this.retriever.retrieveResource(any())).willThrow(new IOException("unavailable"));
+		assertThatExceptionOfType(RemoteKeySourceException.class)
+				.isThrownBy(() -> this.source.get(selector("one"), null));
+	}
+
+	@Test
+	public void getWhenWithinRefreshAheadTimeThenRefreshedInBackground() throws Exception {
+		given(this.retriever.retrieveResource(any())).willReturn(jwkSet(KEY_ONE), jwkSet(KEY_ONE, KEY_TWO));
+		this.source.get(selector("one"), null);
+		this.source.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(4)).plusSeconds(30), ZoneOffset.UTC));
+		assertThat(this.source.get(selector("one"), null)).hasSize(1);
+		assertThat(this.backgroundTasks).hasSize(1);
+		assertThat(this.source.get(selector("one"), null)).hasSize(1);
+		assertThat(this.backgroundTasks).hasSize(1);
+		verify(this.retriever).retrieveResource(any());
+		this.backgroundTasks.get(0).run();
+		assertThat(this.source.get(selector("two"), null)).hasSize(1);
+		verify(this.retriever, times(2)).retrieveResource(any());
+	}
+
+	@Test
+	public void getWhenExpiredAndRefreshFailsThenPreviousJwkSetUsed() throws Exception {
+		given(this.retriever.retrieveResource(any())).willReturn(jwkSet(KEY_ONE))
+				.willThrow(new IOException("unavailable")).willReturn(jwkSet(KEY_TWO));
+		this.source.get(selector("one"), null);
+		this.source.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(6)), ZoneOffset.UTC));
+		assertThat(this.source.get(selector("one"), null)).hasSize(1);
+		assertThat(this.source.get(selector("one"), null)).hasSize(1);
+		verify(this.retriever, times(2)).retrieveResource(any());
+		this.source.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(7)), ZoneOffset.UTC));
+		assertThat(this.source.get(selector("two"), null)).hasSize(1);
+		assertThat(this.source.get(selector("one"), null)).isEmpty();
+		verify(this.retriever, times(3)).retrieveResource(any());
+	}
+
+	@Test
+	public void getWhenUnknownKeyIdThenRefreshedAtMostOncePerInterval() throws Exception {
+		given(this.retriever.retrieveResource(any())).willReturn(jwkSet(KEY_ONE), jwkSet(KEY_ONE, KEY_TWO));
+		this.source.get(selector("one"), null);
+		assertThat(this.source.get(selector("two"), null)).isEmpty();
+		verify(this.retriever).retrieveResource(any());
+		this.source.setClock(Clock.fixed(NOW.plusSeconds(30), ZoneOffset.UTC));
+		assertThat(this.source.get(selector("two"), null)).hasSize(1);
+		assertThat(this.source.get(selector("three"), null)).isEmpty();
+		verify(this.retriever, times(2)).retrieveResource(any());
+	}
+
+	@Test
+	public void getWhenConcurrentFirstLookupsThenRetrievedOnce() throws Exception {
+		CountDownLatch retrieving = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		willAnswer((invocation) -> {
+			retrieving.countDown();
+			release.await();
+			return jwkSet(KEY_ONE);
+		}).given(this.retriever).retrieveResource(any());
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<List<JWK>>> lookups = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				lookups.add(executor.submit(() -> this.source.get(selector("one"), null)));
+			}
+			assertThat(retrieving.await(5, TimeUnit.SECONDS)).isTrue();
+			release.countDown();
+			for (Future<List<JWK>> lookup : lookups) {
+				assertThat(lookup.get(5, TimeUnit.SECONDS)).hasSize(1);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		verify(this.retriever).retrieveResource(any());
+	}
+
+	@Test
+	public void decodeWhenRefreshInFlightThenDecodedWithCachedJwkSet() throws Exception {
+		CountDownLatch refreshing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		given(this.retriever.retrieveResource(any())).willReturn(jwkSet(KEY_ONE)).willAnswer((invocation) -> {
+			refreshing.countDown();
+			release.await();
+			return jwkSet(KEY_ONE, KEY_TWO);
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		this.source.setExecutor(executor);
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, this.source));
+		NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+		try {
+			String token = sign(KEY_ONE);
+			jwtDecoder.decode(token);
+			this.source.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(4)).plusSeconds(30), ZoneOffset.UTC));
+			assertThat(jwtDecoder.decode(token).getSubject()).isEqualTo("subject");
+			assertThat(refreshing.await(5, TimeUnit.SECONDS)).isTrue();
+			this.source.setClock(Clock.fixed(NOW.plus(Duration.ofMinutes(6)), ZoneOffset.UTC));
+			assertThat(jwtDecoder.decode(token).getSubject()).isEqualTo("subject");
+			verify(this.retriever, times(2)).retrieveResource(any());
+			release.countDown();
+			executor.shutdown();
+			assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(jwtDecoder.decode(sign(KEY_TWO)).getSubject()).isEqualTo("subject");
+			verify(this.retriever, times(2)).retrieveResource(any());
+		}
+		finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	private static Resource jwkSet(JWK... jwks) {
+		return new Resource(publicJwkSet(jwks), "application/json");
+	}
+
+	private static String publicJwkSet(JWK... jwks) {
+		return new JWKSet(Arrays.asList(jwks)).toString();
+	}
+
+	private static JWKSelector selector(String keyId) {
+		return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+	}
+
+	private static String sign(RSAKey key) throws Exception {
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build();
+		JWTClaimsSet claims = new JWTClaimsSet.Builder().subject("subject")
+				.expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1)))).build();
+		SignedJWT jwt = new SignedJWT(header, claims);
+		jwt.sign(new RSASSASigner(key));
+		return jwt.serialize();
+	}
+
+}
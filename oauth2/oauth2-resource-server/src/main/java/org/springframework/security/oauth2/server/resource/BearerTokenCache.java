@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.server.resource;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
+
+/**
+ * A bounded, least recently used cache of values derived from bearer tokens, each cached
+ * until it expires. Tokens are cached by their SHA-256 digest, so that the cache does not
+ * hold the tokens themselves.
+ * <p>
+ * This class is shared by
+ * {@link org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider}
+ * and the caching
+ * {@link org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector}s,
+ * and is not meant to be used outside of this module.
+ *
+ * @param <V> the type of the cached values
+ * @since 5.6
+ */
+public final class BearerTokenCache<V> {
+
+	private final ConcurrentLruCache<String, AtomicReference<Entry<V>>> entries;
+
+	private Clock clock = Clock.systemUTC();
+
+	/**
+	 * Creates a new instance
+	 * @param maximumSize the maximum number of cached tokens
+	 */
+	public BearerTokenCache(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0");
+		this.entries = new ConcurrentLruCache<>(maximumSize, (key) -> new AtomicReference<>());
+	}
+
+	/**
+	 * @param token the bearer token
+	 * @return the key of the token in this cache
+	 */
+	public static String key(String token) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @param key the key of the token
+	 * @return the cached value, or null when none is cached or the cached value has
+	 * expired
+	 */
+	public V get(String key) {
+		if (!this.entries.contains(key)) {
+			return null;
+		}
+		AtomicReference<Entry<V>> slot = this.entries.get(key);
+		Entry<V> entry = slot.get();
+		if (entry == null) {
+			return null;
+		}
+		if (!this.clock.instant().isBefore(entry.expiresAt)) {
+			slot.compareAndSet(entry, null);
+			return null;
+		}
+		return entry.value;
+	}
+
+	/**
+	 * Caches a value until it expires. A value that has already expired is not cached.
+	 * @param key the key of the token
+	 * @param value the value
+	 * @param expiresAt when the value expires
+	 */
+	public void put(String key, V value, Instant expiresAt) {
+		Assert.notNull(value, "value cannot be null");
+		Assert.notNull(expiresAt, "expiresAt cannot be null");
+		if (this.clock.instant().isBefore(expiresAt)) {
+			this.entries.get(key).set(new Entry<>(value, expiresAt));
+		}
+	}
+
+	/**
+	 * Sets the clock that tells when values expire
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+
+		private final Instant expiresAt;
+
+		private Entry(V value, Instant expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
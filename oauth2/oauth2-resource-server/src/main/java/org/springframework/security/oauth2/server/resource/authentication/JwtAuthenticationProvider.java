@@ -16,8 +16,10 @@
 
 package org.springframework.security.oauth2.server.resource.authentication;
 
+import java.time.Clock;
 import java.util.Collection;
 
+import com.nimbusds.jwt.JWT;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -32,7 +34,9 @@ import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.BearerTokenCache;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
 import org.springframework.util.Assert;
 
@@ -54,6 +58,11 @@ import org.springframework.util.Assert;
  * spaces and return, or if a {@link Collection}, then simply return 2. Take the resulting
  * {@link Collection} of {@link String}s and prepend the "SCOPE_" keyword, adding as
  * {@link GrantedAuthority}s.
+ * <p>
+ * <p>
+ * When a {@link #setCacheSize(int) cache size} is configured, the {@link Jwt} and the
+ * converted {@link Authentication} of each valid token are cached until the token
+ * expires, so that a token presented again is not decoded, verified and converted again.
  *
  * @author Josh Cummings
  * @author Joe Grandja
@@ -69,6 +78,10 @@ public final class JwtAuthenticationProvider implements AuthenticationProvider {
 
 	private Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter = new JwtAuthenticationConverter();
 
+	private BearerTokenCache<CachedJwt> cache;
+
+	private Clock clock = Clock.systemUTC();
+
 	public JwtAuthenticationProvider(JwtDecoder jwtDecoder) {
 		Assert.notNull(jwtDecoder, "jwtDecoder cannot be null");
 		this.jwtDecoder = jwtDecoder;
@@ -84,16 +97,29 @@ public final class JwtAuthenticationProvider implements AuthenticationProvider {
 	 */
 	@Override
 	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
-		BearerTokenAuthenticationToken bearer = (BearerTokenAuthenticationToken) authentication;
-		Jwt jwt = getJwt(bearer);
-		AbstractAuthenticationToken token = this.jwtAuthenticationConverter.convert(jwt);
+		return authenticate((BearerTokenAuthenticationToken) authentication, null);
+	}
+
+	/**
+	 * Decode and validate the bearer token, reusing the given parsed JWT when the
+	 * {@link JwtDecoder} is a {@link NimbusJwtDecoder}.
+	 * @param bearer the bearer token
+	 * @param parsedJwt the parsed bearer token, or null
+	 * @return A successful authentication
+	 */
+	Authentication authenticate(BearerTokenAuthenticationToken bearer, JWT parsedJwt) {
+		AbstractAuthenticationToken token = (this.cache != null) ? getCachedAuthentication(bearer, parsedJwt)
+				: this.jwtAuthenticationConverter.convert(getJwt(bearer, parsedJwt));
 		token.setDetails(bearer.getDetails());
 		this.logger.debug("Authenticated token");
 		return token;
 	}
 
-	private Jwt getJwt(BearerTokenAuthenticationToken bearer) {
+	private Jwt getJwt(BearerTokenAuthenticationToken bearer, JWT parsedJwt) {
 		try {
+			if (parsedJwt != null && this.jwtDecoder instanceof NimbusJwtDecoder) {
+				return ((NimbusJwtDecoder) this.jwtDecoder).decode(parsedJwt);
+			}
 			return this.jwtDecoder.decode(bearer.getToken());
 		}
 		catch (BadJwtException failed) {
@@ -105,6 +131,33 @@ public final class JwtAuthenticationProvider implements AuthenticationProvider {
 		}
 	}
 
+	private AbstractAuthenticationToken getCachedAuthentication(BearerTokenAuthenticationToken bearer,
+			JWT parsedJwt) {
+		String key = BearerTokenCache.key(bearer.getToken());
+		CachedJwt cached = this.cache.get(key);
+		if (cached != null && cached.jwt.getTokenValue().equals(bearer.getToken())) {
+			this.logger.trace("Using cached JWT");
+			return (cached.authentication != null) ? copy(cached.authentication)
+					: this.jwtAuthenticationConverter.convert(cached.jwt);
+		}
+		Jwt jwt = getJwt(bearer, parsedJwt);
+		AbstractAuthenticationToken token = this.jwtAuthenticationConverter.convert(jwt);
+		if (jwt.getExpiresAt() != null) {
+			boolean copyable = token != null && token.getClass() == JwtAuthenticationToken.class;
+			this.cache.put(key, new CachedJwt(jwt, copyable ? (JwtAuthenticationToken) token : null),
+					jwt.getExpiresAt());
+			return copyable ? copy((JwtAuthenticationToken) token) : token;
+		}
+		return token;
+	}
+
+	private static JwtAuthenticationToken copy(JwtAuthenticationToken token) {
+		JwtAuthenticationToken copy = new JwtAuthenticationToken(token.getToken(), token.getAuthorities(),
+				token.getName());
+		copy.setAuthenticated(token.isAuthenticated());
+		return copy;
+	}
+
 	@Override
 	public boolean supports(Class<?> authentication) {
 		return BearerTokenAuthenticationToken.class.isAssignableFrom(authentication);
@@ -116,4 +169,46 @@ public final class JwtAuthenticationProvider implements AuthenticationProvider {
 		this.jwtAuthenticationConverter = jwtAuthenticationConverter;
 	}
 
+	/**
+	 * Sets the maximum number of tokens for which the decoded {@link Jwt} and the
+	 * converted {@link Authentication} are cached. Tokens are cached until they expire,
+	 * and the least recently used token is evicted when the cache is full. Tokens without
+	 * an {@code exp} claim are not cached. Defaults to 0, meaning that nothing is cached.
+	 *
+	 * <p>
+	 * Note that a token found in the cache is not validated again, so only enable the
+	 * cache when the validation of the {@link JwtDecoder} does not depend on anything
+	 * but the token and its expiry.
+	 * @param cacheSize the maximum number of cached tokens
+	 * @since 5.6
+	 */
+	public void setCacheSize(int cacheSize) {
+		Assert.isTrue(cacheSize >= 0, "cacheSize cannot be negative");
+		this.cache = (cacheSize > 0) ? new BearerTokenCache<>(cacheSize) : null;
+		if (this.cache != null) {
+			this.cache.setClock(this.clock);
+		}
+	}
+
+	void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+		if (this.cache != null) {
+			this.cache.setClock(clock);
+		}
+	}
+
+	private static final class CachedJwt {
+
+		private final Jwt jwt;
+
+		private final JwtAuthenticationToken authentication;
+
+		private CachedJwt(Jwt jwt, JwtAuthenticationToken authentication) {
+			this.jwt = jwt;
+			this.authentication = authentication;
+		}
+
+	}
+
 }
@@ -20,18 +20,16 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 import javax.servlet.http.HttpServletRequest;
 
+import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import org.springframework.core.convert.converter.Converter;
 import org.springframework.core.log.LogMessage;
-import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
 import org.springframework.security.core.Authentication;
@@ -42,6 +40,7 @@ import org.springframework.security.oauth2.jwt.JwtDecoders;
 import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 
 /**
  * An implementation of {@link AuthenticationManagerResolver} that resolves a JWT-based
@@ -59,6 +58,11 @@ import org.springframework.util.Assert;
  * <a href="https://tools.ietf.org/html/rfc6750#section-1.2" target="_blank">Bearer
  * Token</a>.
  *
+ * The bearer token is only parsed once: when the issuer is trusted through the list of
+ * trusted issuers, the parsed token is handed to the {@link JwtDecoder} of the issuer.
+ * The {@link AuthenticationManager}s of the most recently used 1024 trusted issuers are
+ * kept.
+ *
  * @author Josh Cummings
  * @since 5.3
  */
@@ -127,8 +131,6 @@ public final class JwtIssuerAuthenticationManagerResolver implements Authenticat
 
 	private static class ResolvingAuthenticationManager implements AuthenticationManager {
 
-		private final Converter<BearerTokenAuthenticationToken, String> issuerConverter = new JwtClaimIssuerConverter();
-
 		private final AuthenticationManagerResolver<String> issuerAuthenticationManagerResolver;
 
 		ResolvingAuthenticationManager(AuthenticationManagerResolver<String> issuerAuthenticationManagerResolver) {
@@ -140,23 +142,30 @@ public final class JwtIssuerAuthenticationManagerResolver implements Authenticat
 			Assert.isTrue(authentication instanceof BearerTokenAuthenticationToken,
 					"Authentication must be of type BearerTokenAuthenticationToken");
 			BearerTokenAuthenticationToken token = (BearerTokenAuthenticationToken) authentication;
-			String issuer = this.issuerConverter.convert(token);
+			JWT jwt = parse(token);
+			String issuer = getIssuer(jwt);
 			AuthenticationManager authenticationManager = this.issuerAuthenticationManagerResolver.resolve(issuer);
 			if (authenticationManager == null) {
 				throw new InvalidBearerTokenException("Invalid issuer");
 			}
+			if (authenticationManager instanceof JwtIssuerAuthenticationManager) {
+				return ((JwtIssuerAuthenticationManager) authenticationManager).authenticate(token, jwt);
+			}
 			return authenticationManager.authenticate(authentication);
 		}
 
-	}
-
-	private static class JwtClaimIssuerConverter implements Converter<BearerTokenAuthenticationToken, String> {
+		private static JWT parse(BearerTokenAuthenticationToken token) {
+			try {
+				return JWTParser.parse(token.getToken());
+			}
+			catch (Exception ex) {
+				throw new InvalidBearerTokenException(ex.getMessage(), ex);
+			}
+		}
 
-		@Override
-		public String convert(@NonNull BearerTokenAuthenticationToken authentication) {
-			String token = authentication.getToken();
+		private static String getIssuer(JWT jwt) {
 			try {
-				String issuer = JWTParser.parse(token).getJWTClaimsSet().getIssuer();
+				String issuer = jwt.getJWTClaimsSet().getIssuer();
 				if (issuer != null) {
 					return issuer;
 				}
@@ -171,9 +180,12 @@ public final class JwtIssuerAuthenticationManagerResolver implements Authenticat
 
 	static class TrustedIssuerJwtAuthenticationManagerResolver implements AuthenticationManagerResolver<String> {
 
+		private static final int MAXIMUM_ISSUERS = 1024;
+
 		private final Log logger = LogFactory.getLog(getClass());
 
-		private final Map<String, AuthenticationManager> authenticationManagers = new ConcurrentHashMap<>();
+		private final ConcurrentLruCache<String, AuthenticationManager> authenticationManagers = new ConcurrentLruCache<>(
+				MAXIMUM_ISSUERS, JwtIssuerAuthenticationManager::new);
 
 		private final Predicate<String> trustedIssuer;
 
@@ -184,12 +196,7 @@ public final class JwtIssuerAuthenticationManagerResolver implements Authenticat
 		@Override
 		public AuthenticationManager resolve(String issuer) {
 			if (this.trustedIssuer.test(issuer)) {
-				AuthenticationManager authenticationManager = this.authenticationManagers.computeIfAbsent(issuer,
-						(k) -> {
-							this.logger.debug("Constructing AuthenticationManager");
-							JwtDecoder jwtDecoder = JwtDecoders.fromIssuerLocation(issuer);
-							return new JwtAuthenticationProvider(jwtDecoder)::authenticate;
-						});
+				AuthenticationManager authenticationManager = this.authenticationManagers.get(issuer);
 				this.logger.debug(LogMessage.format("Resolved AuthenticationManager for issuer '%s'", issuer));
 				return authenticationManager;
 			}
@@ -201,4 +208,48 @@ public final class JwtIssuerAuthenticationManagerResolver implements Authenticat
 
 	}
 
+	/**
+	 * An {@link AuthenticationManager} for the tokens of a trusted issuer. The
+	 * {@link JwtDecoder} is only constructed, using the configuration of the issuer, when
+	 * the first token is authenticated, so that resolving the manager stays cheap.
+	 */
+	static final class JwtIssuerAuthenticationManager implements AuthenticationManager {
+
+		private final Log logger = LogFactory.getLog(getClass());
+
+		private final String issuer;
+
+		private volatile JwtAuthenticationProvider authenticationProvider;
+
+		JwtIssuerAuthenticationManager(String issuer) {
+			this.issuer = issuer;
+		}
+
+		@Override
+		public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+			return getAuthenticationProvider().authenticate(authentication);
+		}
+
+		Authentication authenticate(BearerTokenAuthenticationToken token, JWT jwt) {
+			return getAuthenticationProvider().authenticate(token, jwt);
+		}
+
+		private JwtAuthenticationProvider getAuthenticationProvider() {
+			JwtAuthenticationProvider authenticationProvider = this.authenticationProvider;
+			if (authenticationProvider == null) {
+				synchronized (this) {
+					authenticationProvider = this.authenticationProvider;
+					if (authenticationProvider == null) {
+						this.logger.debug("Constructing AuthenticationManager");
+						JwtDecoder jwtDecoder = JwtDecoders.fromIssuerLocation(this.issuer);
+						authenticationProvider = new JwtAuthenticationProvider(jwtDecoder);
+						this.authenticationProvider = authenticationProvider;
+					}
+				}
+			}
+			return authenticationProvider;
+		}
+
+	}
+
 }
@@ -20,15 +20,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
+import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
-import org.springframework.core.convert.converter.Converter;
-import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.ReactiveAuthenticationManagerResolver;
@@ -38,6 +36,7 @@ import org.springframework.security.oauth2.jwt.ReactiveJwtDecoders;
 import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.web.server.ServerWebExchange;
 
 /**
@@ -56,6 +55,12 @@ import org.springframework.web.server.ServerWebExchange;
  * <a href="https://tools.ietf.org/html/rfc6750#section-1.2" target="_blank">Bearer
  * Token</a>.
  *
+ * The bearer token is only parsed once: when the issuer resolves to a
+ * {@link JwtReactiveAuthenticationManager}, the parsed token is handed to its
+ * {@link org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder}. The
+ * {@link ReactiveAuthenticationManager}s of the most recently used 1024 trusted issuers
+ * are kept.
+ *
  * @author Josh Cummings
  * @author Roman Matiushchenko
  * @since 5.3
@@ -125,8 +130,6 @@ public final class JwtIssuerReactiveAuthenticationManagerResolver
 
 	private static class ResolvingAuthenticationManager implements ReactiveAuthenticationManager {
 
-		private final Converter<BearerTokenAuthenticationToken, Mono<String>> issuerConverter = new JwtClaimIssuerConverter();
-
 		private final ReactiveAuthenticationManagerResolver<String> issuerAuthenticationManagerResolver;
 
 		ResolvingAuthenticationManager(
@@ -140,20 +143,26 @@ public final class JwtIssuerReactiveAuthenticationManagerResolver
 			Assert.isTrue(authentication instanceof BearerTokenAuthenticationToken,
 					"Authentication must be of type BearerTokenAuthenticationToken");
 			BearerTokenAuthenticationToken token = (BearerTokenAuthenticationToken) authentication;
-			return this.issuerConverter.convert(token)
+			return parse(token).flatMap((jwt) -> getIssuer(jwt)
 					.flatMap((issuer) -> this.issuerAuthenticationManagerResolver.resolve(issuer).switchIfEmpty(
 							Mono.error(() -> new InvalidBearerTokenException("Invalid issuer " + issuer))))
-					.flatMap((manager) -> manager.authenticate(authentication));
+					.flatMap((manager) -> (manager instanceof JwtReactiveAuthenticationManager)
+							? ((JwtReactiveAuthenticationManager) manager).authenticate(jwt)
+							: manager.authenticate(authentication)));
 		}
 
-	}
-
-	private static class JwtClaimIssuerConverter implements Converter<BearerTokenAuthenticationToken, Mono<String>> {
+		private static Mono<JWT> parse(BearerTokenAuthenticationToken token) {
+			try {
+				return Mono.just(JWTParser.parse(token.getToken()));
+			}
+			catch (Exception ex) {
+				return Mono.error(() -> new InvalidBearerTokenException(ex.getMessage(), ex));
+			}
+		}
 
-		@Override
-		public Mono<String> convert(@NonNull BearerTokenAuthenticationToken token) {
+		private static Mono<String> getIssuer(JWT jwt) {
 			try {
-				String issuer = JWTParser.parse(token.getToken()).getJWTClaimsSet().getIssuer();
+				String issuer = jwt.getJWTClaimsSet().getIssuer();
 				if (issuer == null) {
 					throw new InvalidBearerTokenException("Missing issuer");
 				}
@@ -169,7 +178,10 @@ public final class JwtIssuerReactiveAuthenticationManagerResolver
 	static class TrustedIssuerJwtAuthenticationManagerResolver
 			implements ReactiveAuthenticationManagerResolver<String> {
 
-		private final Map<String, Mono<ReactiveAuthenticationManager>> authenticationManagers = new ConcurrentHashMap<>();
+		private static final int MAXIMUM_ISSUERS = 1024;
+
+		private final ConcurrentLruCache<String, Mono<ReactiveAuthenticationManager>> authenticationManagers = new ConcurrentLruCache<>(
+				MAXIMUM_ISSUERS, this::createAuthenticationManager);
 
 		private final Predicate<String> trustedIssuer;
 
@@ -182,12 +194,14 @@ public final class JwtIssuerReactiveAuthenticationManagerResolver
 			if (!this.trustedIssuer.test(issuer)) {
 				return Mono.empty();
 			}
+			return this.authenticationManagers.get(issuer);
+		}
+
+		private Mono<ReactiveAuthenticationManager> createAuthenticationManager(String issuer) {
 			// @formatter:off
-			return this.authenticationManagers.computeIfAbsent(issuer,
-					(k) -> Mono.<ReactiveAuthenticationManager>fromCallable(() -> new JwtReactiveAuthenticationManager(ReactiveJwtDecoders.fromIssuerLocation(k)))
-							.subscribeOn(Schedulers.boundedElastic())
-							.cache()
-			);
+			return Mono.<ReactiveAuthenticationManager>fromCallable(() -> new JwtReactiveAuthenticationManager(ReactiveJwtDecoders.fromIssuerLocation(issuer)))
+					.subscribeOn(Schedulers.boundedElastic())
+					.cache();
 			// @formatter:on
 		}
 
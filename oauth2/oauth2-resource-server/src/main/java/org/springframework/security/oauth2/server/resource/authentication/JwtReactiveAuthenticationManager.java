@@ -16,6 +16,7 @@
 
 package org.springframework.security.oauth2.server.resource.authentication;
 
+import com.nimbusds.jwt.JWT;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.convert.converter.Converter;
@@ -27,6 +28,7 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
@@ -64,6 +66,24 @@ public final class JwtReactiveAuthenticationManager implements ReactiveAuthentic
 		// @formatter:on
 	}
 
+	/**
+	 * Decode and validate the given parsed bearer token, without parsing it again when the
+	 * {@link ReactiveJwtDecoder} is a {@link NimbusReactiveJwtDecoder}.
+	 * @param parsedJwt the parsed bearer token
+	 * @return A successful authentication
+	 */
+	Mono<Authentication> authenticate(JWT parsedJwt) {
+		if (!(this.jwtDecoder instanceof NimbusReactiveJwtDecoder)) {
+			return authenticate(new BearerTokenAuthenticationToken(parsedJwt.getParsedString()));
+		}
+		// @formatter:off
+		return Mono.defer(() -> ((NimbusReactiveJwtDecoder) this.jwtDecoder).decode(parsedJwt))
+				.flatMap(this.jwtAuthenticationConverter::convert)
+				.cast(Authentication.class)
+				.onErrorMap(JwtException.class, this::onError);
+		// @formatter:on
+	}
+
 	/**
 	 * Use the given {@link Converter} for converting a {@link Jwt} into an
 	 * {@link AbstractAuthenticationToken}.
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.server.resource.introspection;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link OpaqueTokenIntrospector} that caches the results of another
+ * {@link OpaqueTokenIntrospector}, so that a token is not introspected on every request.
+ * <p>
+ * An active token is cached until its {@code exp} claim or for the configured time to
+ * live, whichever comes first. An inactive token, for which the delegate throws a
+ * {@link BadOpaqueTokenException}, is cached for a short time as well. Any other failure,
+ * for example when the introspection endpoint cannot be reached, is not cached.
+ * <p>
+ * When a token that is not cached is introspected by several threads at the same time,
+ * only one of them calls the delegate, and the others wait for its result.
+ *
+ * @since 5.6
+ * @see CachingReactiveOpaqueTokenIntrospector
+ */
+public final class CachingOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+
+	private final OpaqueTokenIntrospector delegate;
+
+	private final OpaqueTokenCache cache = new OpaqueTokenCache();
+
+	private final ConcurrentMap<String, CompletableFuture<OpaqueTokenCache.Entry>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a {@code CachingOpaqueTokenIntrospector} with the provided parameters
+	 * @param delegate the {@link OpaqueTokenIntrospector} to cache the results of
+	 */
+	public CachingOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public OAuth2AuthenticatedPrincipal introspect(String token) {
+		String key = this.cache.key(token);
+		OpaqueTokenCache.Entry entry = this.cache.get(key);
+		if (entry != null) {
+			return entry.getPrincipal();
+		}
+		CompletableFuture<OpaqueTokenCache.Entry> introspection = new CompletableFuture<>();
+		CompletableFuture<OpaqueTokenCache.Entry> inFlight = this.inFlight.putIfAbsent(key, introspection);
+		if (inFlight != null) {
+			return await(inFlight).getPrincipal();
+		}
+		try {
+			entry = introspect(key, token);
+			introspection.complete(entry);
+			return entry.getPrincipal();
+		}
+		catch (RuntimeException ex) {
+			introspection.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlight.remove(key, introspection);
+		}
+	}
+
+	private OpaqueTokenCache.Entry introspect(String key, String token) {
+		try {
+			return this.cache.active(key, this.delegate.introspect(token));
+		}
+		catch (BadOpaqueTokenException ex) {
+			return this.cache.inactive(key, ex);
+		}
+	}
+
+	private OpaqueTokenCache.Entry await(CompletableFuture<OpaqueTokenCache.Entry> inFlight) {
+		try {
+			return inFlight.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			throw new OAuth2IntrospectionException(ex.getCause().getMessage(), ex.getCause());
+		}
+	}
+
+	/**
+	 * Sets the maximum time an active token is cached. A token is never cached beyond its
+	 * {@code exp} claim. The default is 5 minutes.
+	 * @param timeToLive the time to live of an active token
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		this.cache.setTimeToLive(timeToLive);
+	}
+
+	/**
+	 * Sets the time an inactive token is cached. The default is 5 seconds.
+	 * @param inactiveTimeToLive the time to live of an inactive token
+	 */
+	public void setInactiveTimeToLive(Duration inactiveTimeToLive) {
+		this.cache.setInactiveTimeToLive(inactiveTimeToLive);
+	}
+
+	/**
+	 * Sets the maximum number of cached tokens. When exceeded, the least recently used
+	 * token is removed from the cache. The default is 10000.
+	 * @param maximumSize the maximum number of cached tokens
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.cache.setMaximumSize(maximumSize);
+	}
+
+	void setClock(Clock clock) {
+		this.cache.setClock(clock);
+	}
+
+}
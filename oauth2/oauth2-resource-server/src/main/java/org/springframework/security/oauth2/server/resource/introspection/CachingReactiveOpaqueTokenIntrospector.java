@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.server.resource.introspection;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ReactiveOpaqueTokenIntrospector} that caches the results of another
+ * {@link ReactiveOpaqueTokenIntrospector}, so that a token is not introspected on every
+ * request.
+ * <p>
+ * An active token is cached until its {@code exp} claim or for the configured time to
+ * live, whichever comes first. An inactive token, for which the delegate emits a
+ * {@link BadOpaqueTokenException}, is cached for a short time as well. Any other failure,
+ * for example when the introspection endpoint cannot be reached, is not cached.
+ * <p>
+ * When a token that is not cached is introspected by several subscribers at the same
+ * time, only one introspection is made by the delegate, and its result is shared.
+ *
+ * @since 5.6
+ * @see CachingOpaqueTokenIntrospector
+ */
+public final class CachingReactiveOpaqueTokenIntrospector implements ReactiveOpaqueTokenIntrospector {
+
+	private final ReactiveOpaqueTokenIntrospector delegate;
+
+	private final OpaqueTokenCache cache = new OpaqueTokenCache();
+
+	private final ConcurrentMap<String, Introspection> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a {@code CachingReactiveOpaqueTokenIntrospector} with the provided
+	 * parameters
+	 * @param delegate the {@link ReactiveOpaqueTokenIntrospector} to cache the results of
+	 */
+	public CachingReactiveOpaqueTokenIntrospector(ReactiveOpaqueTokenIntrospector delegate) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Mono<OAuth2AuthenticatedPrincipal> introspect(String token) {
+		return Mono.defer(() -> {
+			String key = this.cache.key(token);
+			OpaqueTokenCache.Entry entry = this.cache.get(key);
+			if (entry != null) {
+				return Mono.fromCallable(entry::getPrincipal);
+			}
+			return this.inFlight.computeIfAbsent(key, (k) -> new Introspection(k, token)).entry
+					.flatMap((introspected) -> Mono.fromCallable(introspected::getPrincipal));
+		});
+	}
+
+	/**
+	 * Sets the maximum time an active token is cached. A token is never cached beyond its
+	 * {@code exp} claim. The default is 5 minutes.
+	 * @param timeToLive the time to live of an active token
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		this.cache.setTimeToLive(timeToLive);
+	}
+
+	/**
+	 * Sets the time an inactive token is cached. The default is 5 seconds.
+	 * @param inactiveTimeToLive the time to live of an inactive token
+	 */
+	public void setInactiveTimeToLive(Duration inactiveTimeToLive) {
+		this.cache.setInactiveTimeToLive(inactiveTimeToLive);
+	}
+
+	/**
+	 * Sets the maximum number of cached tokens. When exceeded, the least recently used
+	 * token is removed from the cache. The default is 10000.
+	 * @param maximumSize the maximum number of cached tokens
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.cache.setMaximumSize(maximumSize);
+	}
+
+	void setClock(Clock clock) {
+		this.cache.setClock(clock);
+	}
+
+	/**
+	 * An introspection that is shared by all subscribers until it completes
+	 */
+	private final class Introspection {
+
+		private final Mono<OpaqueTokenCache.Entry> entry;
+
+		private Introspection(String key, String token) {
+			this.entry = CachingReactiveOpaqueTokenIntrospector.this.delegate.introspect(token)
+					.map((principal) -> CachingReactiveOpaqueTokenIntrospector.this.cache.active(key, principal))
+					.onErrorResume(BadOpaqueTokenException.class,
+							(ex) -> Mono.just(CachingReactiveOpaqueTokenIntrospector.this.cache.inactive(key, ex)))
+					.doFinally((signal) -> CachingReactiveOpaqueTokenIntrospector.this.inFlight.remove(key, this))
+					.cache();
+		}
+
+	}
+
+}
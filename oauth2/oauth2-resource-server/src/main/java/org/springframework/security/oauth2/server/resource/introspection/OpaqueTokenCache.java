@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.server.resource.introspection;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.BearerTokenCache;
+import org.springframework.util.Assert;
+
+/**
+ * A bounded, least recently used cache of introspection results, shared by
+ * {@link CachingOpaqueTokenIntrospector} and
+ * {@link CachingReactiveOpaqueTokenIntrospector}.
+ *
+ * @since 5.6
+ */
+final class OpaqueTokenCache {
+
+	private Duration timeToLive = Duration.ofMinutes(5);
+
+	private Duration inactiveTimeToLive = Duration.ofSeconds(5);
+
+	private Clock clock = Clock.systemUTC();
+
+	private volatile BearerTokenCache<Entry> entries = createEntries(10000, this.clock);
+
+	String key(String token) {
+		return BearerTokenCache.key(token);
+	}
+
+	/**
+	 * @param key the key of the token
+	 * @return the cached result, or null when none is cached or the cached result has
+	 * expired
+	 */
+	Entry get(String key) {
+		return this.entries.get(key);
+	}
+
+	/**
+	 * Caches an active token until its {@code exp} claim, or the time to live if that
+	 * comes first
+	 * @param key the key of the token
+	 * @param principal the introspected principal
+	 * @return the cached result
+	 */
+	Entry active(String key, OAuth2AuthenticatedPrincipal principal) {
+		Instant expiresAt = this.clock.instant().plus(this.timeToLive);
+		Object exp = principal.getAttribute(OAuth2TokenIntrospectionClaimNames.EXP);
+		if (exp instanceof Instant && ((Instant) exp).isBefore(expiresAt)) {
+			expiresAt = (Instant) exp;
+		}
+		Entry entry = new Entry(principal, null);
+		this.entries.put(key, entry, expiresAt);
+		return entry;
+	}
+
+	/**
+	 * Caches an inactive token for the inactive time to live
+	 * @param key the key of the token
+	 * @param failure the exception to throw for the token
+	 * @return the cached result
+	 */
+	Entry inactive(String key, BadOpaqueTokenException failure) {
+		Entry entry = new Entry(null, failure);
+		this.entries.put(key, entry, this.clock.instant().plus(this.inactiveTimeToLive));
+		return entry;
+	}
+
+	void setTimeToLive(Duration timeToLive) {
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative(), "timeToLive cannot be negative");
+		this.timeToLive = timeToLive;
+	}
+
+	void setInactiveTimeToLive(Duration inactiveTimeToLive) {
+		Assert.notNull(inactiveTimeToLive, "inactiveTimeToLive cannot be null");
+		Assert.isTrue(!inactiveTimeToLive.isNegative(), "inactiveTimeToLive cannot be negative");
+		this.inactiveTimeToLive = inactiveTimeToLive;
+	}
+
+	/**
+	 * Sets the maximum number of cached tokens, dropping the tokens cached so far
+	 * @param maximumSize the maximum number of cached tokens
+	 */
+	void setMaximumSize(int maximumSize) {
+		this.entries = createEntries(maximumSize, this.clock);
+	}
+
+	void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+		this.entries.setClock(clock);
+	}
+
+	private static BearerTokenCache<Entry> createEntries(int maximumSize, Clock clock) {
+		BearerTokenCache<Entry> entries = new BearerTokenCache<>(maximumSize);
+		entries.setClock(clock);
+		return entries;
+	}
+
+	static final class Entry {
+
+		private final OAuth2AuthenticatedPrincipal principal;
+
+		private final BadOpaqueTokenException failure;
+
+		private Entry(OAuth2AuthenticatedPrincipal principal, BadOpaqueTokenException failure) {
+			this.principal = principal;
+			this.failure = failure;
+		}
+
+		/**
+		 * @return the principal of an active token
+		 * @throws BadOpaqueTokenException for an inactive token
+		 */
+		OAuth2AuthenticatedPrincipal getPrincipal() {
+			if (this.failure != null) {
+				throw new BadOpaqueTokenException(this.failure.getMessage(), this.failure);
+			}
+			return this.principal;
+		}
+
+	}
+
+}
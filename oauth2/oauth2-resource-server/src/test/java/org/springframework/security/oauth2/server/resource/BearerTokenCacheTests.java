@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.server.resource;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link BearerTokenCache}
+ */
+public class BearerTokenCacheTests {
+
+	private static final Instant NOW = Instant.parse("2021-06-01T00:00:00Z");
+
+	private BearerTokenCache<String> cache;
+
+	@BeforeEach
+	public void setUp() {
+		this.cache = new BearerTokenCache<>(2);
+		this.cache.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void keyWhenSameTokenThenSameKey() {
+		assertThat(BearerTokenCache.key("token")).isEqualTo(BearerTokenCache.key("token"))
+				.isNotEqualTo(BearerTokenCache.key("other")).doesNotContain("token");
+	}
+
+	@Test
+	public void getWhenCachedThenValue() {
+		this.cache.put("one", "value", NOW.plusSeconds(60));
+		assertThat(this.cache.get("one")).isEqualTo("value");
+		assertThat(this.cache.get("two")).isNull();
+	}
+
+	@Test
+	public void getWhenExpiredThenNull() {
+		this.cache.put("one", "value", NOW.plusSeconds(60));
+		this.cache.setClock(Clock.fixed(NOW.plusSeconds(60), ZoneOffset.UTC));
+		assertThat(this.cache.get("one")).isNull();
+	}
+
+	@Test
+	public void putWhenAlreadyExpiredThenNotCached() {
+		this.cache.put("one", "value", NOW);
+		assertThat(this.cache.get("one")).isNull();
+	}
+
+	@Test
+	public void putWhenFullThenLeastRecentlyUsedEvicted() {
+		this.cache.put("one", "value", NOW.plusSeconds(60));
+		this.cache.put("two", "value", NOW.plusSeconds(60));
+		this.cache.get("one");
+		this.cache.put("three", "value", NOW.plusSeconds(60));
+		assertThat(this.cache.get("one")).isEqualTo("value");
+		assertThat(this.cache.get("two")).isNull();
+		assertThat(this.cache.get("three")).isEqualTo("value");
+	}
+
+	@Test
+	public void constructorWhenMaximumSizeNotPositiveThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new BearerTokenCache<>(0));
+	}
+
+}
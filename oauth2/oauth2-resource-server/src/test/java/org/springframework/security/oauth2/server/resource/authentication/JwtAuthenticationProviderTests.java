@@ -16,8 +16,19 @@
 
 package org.springframework.security.oauth2.server.resource.authentication;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.function.Predicate;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.PlainJWT;
+import com.nimbusds.jwt.SignedJWT;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,20 +36,26 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.jose.TestKeys;
 import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.TestJwts;
 import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
 import org.springframework.security.oauth2.server.resource.BearerTokenErrorCodes;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for {@link JwtAuthenticationProvider}
@@ -122,6 +139,102 @@ public class JwtAuthenticationProviderTests {
 		// @formatter:on
 	}
 
+	@Test
+	public void authenticateWhenCachedThenDecodesOnce() {
+		this.provider.setCacheSize(10);
+		Jwt jwt = TestJwts.jwt().build();
+		given(this.jwtDecoder.decode("token")).willReturn(jwt);
+		given(this.jwtAuthenticationConverter.convert(jwt)).willReturn(new JwtAuthenticationToken(jwt));
+		BearerTokenAuthenticationToken first = this.authentication();
+		first.setDetails("first");
+		BearerTokenAuthenticationToken second = this.authentication();
+		second.setDetails("second");
+		JwtAuthenticationToken firstAuthentication = (JwtAuthenticationToken) this.provider.authenticate(first);
+		JwtAuthenticationToken secondAuthentication = (JwtAuthenticationToken) this.provider.authenticate(second);
+		assertThat(firstAuthentication.getToken()).isSameAs(jwt);
+		assertThat(secondAuthentication.getToken()).isSameAs(jwt);
+		assertThat(firstAuthentication.getDetails()).isEqualTo("first");
+		assertThat(secondAuthentication.getDetails()).isEqualTo("second");
+		assertThat(secondAuthentication.isAuthenticated()).isEqualTo(firstAuthentication.isAuthenticated());
+		verify(this.jwtDecoder).decode("token");
+		verify(this.jwtAuthenticationConverter).convert(jwt);
+	}
+
+	@Test
+	public void authenticateWhenCachedTokenExpiredThenDecodesAgain() {
+		Instant now = Instant.parse("2021-06-01T00:00:00Z");
+		this.provider.setCacheSize(10);
+		this.provider.setClock(Clock.fixed(now, ZoneOffset.UTC));
+		Jwt jwt = TestJwts.jwt().expiresAt(now.plus(Duration.ofMinutes(5))).build();
+		given(this.jwtDecoder.decode("token")).willReturn(jwt);
+		given(this.jwtAuthenticationConverter.convert(jwt)).willReturn(new JwtAuthenticationToken(jwt));
+		this.provider.authenticate(this.authentication());
+		this.provider.authenticate(this.authentication());
+		verify(this.jwtDecoder).decode("token");
+		this.provider.setClock(Clock.fixed(now.plus(Duration.ofMinutes(5)), ZoneOffset.UTC));
+		this.provider.authenticate(this.authentication());
+		verify(this.jwtDecoder, times(2)).decode("token");
+	}
+
+	@Test
+	public void authenticateWhenCacheFullThenLeastRecentlyUsedEvicted() {
+		this.provider.setCacheSize(1);
+		Jwt one = TestJwts.jwt().tokenValue("one").build();
+		Jwt two = TestJwts.jwt().tokenValue("two").build();
+		given(this.jwtDecoder.decode("one")).willReturn(one);
+		given(this.jwtDecoder.decode("two")).willReturn(two);
+		given(this.jwtAuthenticationConverter.convert(one)).willReturn(new JwtAuthenticationToken(one));
+		given(this.jwtAuthenticationConverter.convert(two)).willReturn(new JwtAuthenticationToken(two));
+		this.provider.authenticate(new BearerTokenAuthenticationToken("one"));
+		this.provider.authenticate(new BearerTokenAuthenticationToken("two"));
+		this.provider.authenticate(new BearerTokenAuthenticationToken("one"));
+		verify(this.jwtDecoder, times(2)).decode("one");
+		verify(this.jwtDecoder).decode("two");
+	}
+
+	@Test
+	public void authenticateWhenCachedAndCustomAuthenticationThenConvertedAgain() {
+		this.provider.setCacheSize(10);
+		Jwt jwt = TestJwts.jwt().build();
+		given(this.jwtDecoder.decode("token")).willReturn(jwt);
+		given(this.jwtAuthenticationConverter.convert(jwt)).willReturn(new JwtAuthenticationToken(jwt) {
+		});
+		this.provider.authenticate(this.authentication());
+		this.provider.authenticate(this.authentication());
+		verify(this.jwtDecoder).decode("token");
+		verify(this.jwtAuthenticationConverter, times(2)).convert(jwt);
+	}
+
+	@Test
+	public void setCacheSizeWhenNegativeThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.provider.setCacheSize(-1));
+	}
+
+	@Test
+	public void authenticateWhenParsedJwtAndNimbusJwtDecoderThenDecodesParsedJwt() throws Exception {
+		SignedJWT signed = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256),
+				new JWTClaimsSet.Builder().subject("subject").build());
+		signed.sign(new RSASSASigner(TestKeys.DEFAULT_PRIVATE_KEY));
+		String serialized = signed.serialize();
+		JwtAuthenticationProvider provider = new JwtAuthenticationProvider(
+				NimbusJwtDecoder.withPublicKey(TestKeys.DEFAULT_PUBLIC_KEY).build());
+		Authentication authentication = provider.authenticate(new BearerTokenAuthenticationToken(serialized),
+				JWTParser.parse(serialized));
+		assertThat(authentication.getName()).isEqualTo("subject");
+		assertThat(((JwtAuthenticationToken) authentication).getToken().getTokenValue()).isEqualTo(serialized);
+	}
+
+	@Test
+	public void authenticateWhenParsedJwtAndOtherJwtDecoderThenDecodesToken() throws Exception {
+		String serialized = new PlainJWT(new JWTClaimsSet.Builder().subject("subject").build()).serialize();
+		Jwt jwt = TestJwts.jwt().tokenValue(serialized).build();
+		given(this.jwtDecoder.decode(serialized)).willReturn(jwt);
+		given(this.jwtAuthenticationConverter.convert(jwt)).willReturn(new JwtAuthenticationToken(jwt));
+		Authentication authentication = this.provider.authenticate(new BearerTokenAuthenticationToken(serialized),
+				JWTParser.parse(serialized));
+		assertThat(((JwtAuthenticationToken) authentication).getToken()).isSameAs(jwt);
+	}
+
 	@Test
 	public void supportsWhenBearerTokenAuthenticationTokenThenReturnsTrue() {
 		assertThat(this.provider.supports(BearerTokenAuthenticationToken.class)).isTrue();
@@ -112,6 +112,17 @@ public class JwtIssuerAuthenticationManagerResolverTests {
 		}
 	}
 
+	@Test
+	public void resolveWhenUsingTrustedIssuerThenConstructsJwtDecoderOnFirstAuthentication() throws Exception {
+		try (MockWebServer server = new MockWebServer()) {
+			String issuer = server.url("").toString();
+			TrustedIssuerJwtAuthenticationManagerResolver resolver = new TrustedIssuerJwtAuthenticationManagerResolver(
+					(iss) -> iss.equals(issuer));
+			assertThat(resolver.resolve(issuer)).isNotNull();
+			assertThat(server.getRequestCount()).isZero();
+		}
+	}
+
 	@Test
 	public void resolveWhenUsingUntrustedIssuerThenException() {
 		JwtIssuerAuthenticationManagerResolver authenticationManagerResolver = new JwtIssuerAuthenticationManagerResolver(
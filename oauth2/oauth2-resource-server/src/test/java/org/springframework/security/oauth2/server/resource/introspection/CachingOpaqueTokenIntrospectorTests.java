@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.server.resource.introspection;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.core.TestOAuth2AuthenticatedPrincipals;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CachingOpaqueTokenIntrospector}
+ */
+public class CachingOpaqueTokenIntrospectorTests {
+
+	private static final Instant NOW = Instant.parse("2021-06-01T00:00:00Z");
+
+	private static final OAuth2AuthenticatedPrincipal PRINCIPAL = TestOAuth2AuthenticatedPrincipals
+			.active((attributes) -> attributes.put(OAuth2TokenIntrospectionClaimNames.EXP, NOW.plusSeconds(3600)));
+
+	private OpaqueTokenIntrospector delegate;
+
+	private CachingOpaqueTokenIntrospector introspector;
+
+	@BeforeEach
+	public void setUp() {
+		this.delegate = mock(OpaqueTokenIntrospector.class);
+		this.introspector = new CachingOpaqueTokenIntrospector(this.delegate);
+		this.introspector.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void constructorWhenDelegateNullThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new CachingOpaqueTokenIntrospector(null));
+	}
+
+	@Test
+	public void introspectWhenCachedThenDelegateCalledOnce() {
+		given(this.delegate.introspect("token")).willReturn(PRINCIPAL);
+		assertThat(this.introspector.introspect("token")).isSameAs(PRINCIPAL);
+		assertThat(this.introspector.introspect("token")).isSameAs(PRINCIPAL);
+		verify(this.delegate).introspect("token");
+	}
+
+	@Test
+	public void introspectWhenTimeToLiveElapsedThenIntrospectedAgain() {
+		given(this.delegate.introspect("token")).willReturn(PRINCIPAL);
+		this.introspector.setTimeToLive(Duration.ofMinutes(1));
+		this.introspector.introspect("token");
+		this.introspector.setClock(Clock.fixed(NOW.plusSeconds(59), ZoneOffset.UTC));
+		this.introspector.introspect("token");
+		verify(this.delegate).introspect("token");
+		this.introspector.setClock(Clock.fixed(NOW.plusSeconds(60), ZoneOffset.UTC));
+		this.introspector.introspect("token");
+		verify(this.delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void introspectWhenExpiresBeforeTimeToLiveThenIntrospectedAgainAfterExpiry() {
+		OAuth2AuthenticatedPrincipal principal = TestOAuth2AuthenticatedPrincipals
+				.active((attributes) -> attributes.put(OAuth2TokenIntrospectionClaimNames.EXP, NOW.plusSeconds(10)));
+		given(this.delegate.introspect("token")).willReturn(principal);
+		this.introspector.introspect("token");
+		this.introspector.setClock(Clock.fixed(NOW.plusSeconds(10), ZoneOffset.UTC));
+		this.introspector.introspect("token");
+		verify(this.delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void introspectWhenAlreadyExpiredThenNotCached() {
+		given(this.delegate.introspect("token")).willReturn(TestOAuth2AuthenticatedPrincipals.active());
+		this.introspector.introspect("token");
+		this.introspector.introspect("token");
+		verify(this.delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void introspectWhenInactiveThenCachedBriefly() {
+		given(this.delegate.introspect("token")).willThrow(new BadOpaqueTokenException("inactive"));
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> this.introspector.introspect("token"));
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> this.introspector.introspect("token")).withMessage("inactive");
+		verify(this.delegate).introspect("token");
+		this.introspector.setClock(Clock.fixed(NOW.plusSeconds(5), ZoneOffset.UTC));
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> this.introspector.introspect("token"));
+		verify(this.delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void introspectWhenIntrospectionFailsThenNotCached() {
+		given(this.delegate.introspect("token")).willThrow(new OAuth2IntrospectionException("unavailable"))
+				.willReturn(PRINCIPAL);
+		assertThatExceptionOfType(OAuth2IntrospectionException.class)
+				.isThrownBy(() -> this.introspector.introspect("token"));
+		assertThat(this.introspector.introspect("token")).isSameAs(PRINCIPAL);
+	}
+
+	@Test
+	public void introspectWhenMaximumSizeExceededThenLeastRecentlyUsedRemoved() {
+		given(this.delegate.introspect("one")).willReturn(PRINCIPAL);
+		given(this.delegate.introspect("two")).willReturn(PRINCIPAL);
+		given(this.delegate.introspect("three")).willReturn(PRINCIPAL);
+		this.introspector.setMaximumSize(2);
+		this.introspector.introspect("one");
+		this.introspector.introspect("two");
+		this.introspector.introspect("one");
+		this.introspector.introspect("three");
+		this.introspector.introspect("one");
+		this.introspector.introspect("two");
+		verify(this.delegate).introspect("one");
+		verify(this.delegate, times(2)).introspect("two");
+	}
+
+	@Test
+	public void introspectWhenConcurrentThenDelegateCalledOnce() throws Exception {
+		CountDownLatch introspecting = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		willAnswer((invocation) -> {
+			introspecting.countDown();
+			release.await();
+			return PRINCIPAL;
+		}).given(this.delegate).introspect("token");
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<OAuth2AuthenticatedPrincipal>> introspections = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				introspections.add(executor.submit(() -> this.introspector.introspect("token")));
+			}
+			assertThat(introspecting.await(5, TimeUnit.SECONDS)).isTrue();
+			release.countDown();
+			for (Future<OAuth2AuthenticatedPrincipal> introspection : introspections) {
+				assertThat(introspection.get(5, TimeUnit.SECONDS)).isSameAs(PRINCIPAL);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		verify(this.delegate).introspect("token");
+	}
+
+	@Test
+	public void setTimeToLiveWhenNegativeThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.introspector.setTimeToLive(Duration.ofSeconds(-1)));
+	}
+
+	@Test
+	public void setMaximumSizeWhenNotPositiveThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> this.introspector.setMaximumSize(0));
+	}
+
+}
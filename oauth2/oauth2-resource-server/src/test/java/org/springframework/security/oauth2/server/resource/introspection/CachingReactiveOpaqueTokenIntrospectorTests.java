@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.oauth2.server.resource.introspection;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.publisher.PublisherProbe;
+import reactor.test.publisher.TestPublisher;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.core.TestOAuth2AuthenticatedPrincipals;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CachingReactiveOpaqueTokenIntrospector}
+ */
+public class CachingReactiveOpaqueTokenIntrospectorTests {
+
+	private static final Instant NOW = Instant.parse("2021-06-01T00:00:00Z");
+
+	private static final OAuth2AuthenticatedPrincipal PRINCIPAL = TestOAuth2AuthenticatedPrincipals
+			.active((attributes) -> attributes.put(OAuth2TokenIntrospectionClaimNames.EXP, NOW.plusSeconds(3600)));
+
+	private ReactiveOpaqueTokenIntrospector delegate;
+
+	private CachingReactiveOpaqueTokenIntrospector introspector;
+
+	@BeforeEach
+	public void setUp() {
+		this.delegate = mock(ReactiveOpaqueTokenIntrospector.class);
+		this.introspector = new CachingReactiveOpaqueTokenIntrospector(this.delegate);
+		this.introspector.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void constructorWhenDelegateNullThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new CachingReactiveOpaqueTokenIntrospector(null));
+	}
+
+	@Test
+	public void introspectWhenCachedThenDelegateSubscribedOnce() {
+		PublisherProbe<OAuth2AuthenticatedPrincipal> introspection = PublisherProbe.of(Mono.just(PRINCIPAL));
+		given(this.delegate.introspect("token")).willReturn(introspection.mono());
+		assertThat(this.introspector.introspect("token").block()).isSameAs(PRINCIPAL);
+		assertThat(this.introspector.introspect("token").block()).isSameAs(PRINCIPAL);
+		assertThat(introspection.subscribeCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void introspectWhenTimeToLiveElapsedThenIntrospectedAgain() {
+		given(this.delegate.introspect("token")).willReturn(Mono.just(PRINCIPAL));
+		this.introspector.setTimeToLive(Duration.ofMinutes(1));
+		this.introspector.introspect("token").block();
+		this.introspector.setClock(Clock.fixed(NOW.plusSeconds(60), ZoneOffset.UTC));
+		this.introspector.introspect("token").block();
+		verify(this.delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void introspectWhenInactiveThenCachedBriefly() {
+		given(this.delegate.introspect("token")).willReturn(Mono.error(new BadOpaqueTokenException("inactive")));
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> this.introspector.introspect("token").block());
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> this.introspector.introspect("token").block()).withMessage("inactive");
+		verify(this.delegate).introspect("token");
+		this.introspector.setClock(Clock.fixed(NOW.plusSeconds(5), ZoneOffset.UTC));
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> this.introspector.introspect("token").block());
+		verify(this.delegate, times(2)).introspect("token");
+	}
+
+	@Test
+	public void introspectWhenIntrospectionFailsThenNotCached() {
+		given(this.delegate.introspect("token")).willReturn(Mono.error(new OAuth2IntrospectionException("unavailable")),
+				Mono.just(PRINCIPAL));
+		assertThatExceptionOfType(OAuth2IntrospectionException.class)
+				.isThrownBy(() -> this.introspector.introspect("token").block());
+		assertThat(this.introspector.introspect("token").block()).isSameAs(PRINCIPAL);
+	}
+
+	@Test
+	public void introspectWhenConcurrentThenDelegateSubscribedOnce() {
+		TestPublisher<OAuth2AuthenticatedPrincipal> introspection = TestPublisher.create();
+		PublisherProbe<OAuth2AuthenticatedPrincipal> probe = PublisherProbe.of(introspection.mono());
+		given(this.delegate.introspect("token")).willReturn(probe.mono());
+		CompletableFuture<OAuth2AuthenticatedPrincipal> first = this.introspector.introspect("token").toFuture();
+		CompletableFuture<OAuth2AuthenticatedPrincipal> second = this.introspector.introspect("token").toFuture();
+		assertThat(first).isNotDone();
+		introspection.emit(PRINCIPAL);
+		assertThat(first).isCompletedWithValue(PRINCIPAL);
+		assertThat(second).isCompletedWithValue(PRINCIPAL);
+		assertThat(probe.subscribeCount()).isEqualTo(1);
+		verify(this.delegate).introspect("token");
+	}
+
+}
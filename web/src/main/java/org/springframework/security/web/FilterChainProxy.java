@@ -17,6 +17,7 @@
 package org.springframework.security.web;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -42,6 +43,7 @@ import org.springframework.security.web.firewall.RequestRejectedHandler;
 import org.springframework.security.web.firewall.StrictHttpFirewall;
 import org.springframework.security.web.util.UrlUtils;
 import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcherIndex;
 import org.springframework.util.Assert;
 import org.springframework.web.filter.DelegatingFilterProxy;
 import org.springframework.web.filter.GenericFilterBean;
@@ -100,6 +102,12 @@ import org.springframework.web.filter.GenericFilterBean;
  * {@link javax.servlet.Filter#doFilter(javax.servlet.ServletRequest, javax.servlet.ServletResponse, javax.servlet.FilterChain)}
  * , in that the remainder of the original or {@code FilterChainProxy}-declared filter
  * chain will not be called.
+ * <p>
+ * By default each {@code SecurityFilterChain} is tried in turn. When
+ * {@link #setIndexFilterChains(boolean)} is enabled, the {@code RequestMatcher}s of
+ * {@link DefaultSecurityFilterChain}s are instead precompiled into a
+ * {@link RequestMatcherIndex}, so that only the chains whose path prefix and HTTP method
+ * can match a request are tried. The first matching chain is the same in both cases.
  *
  * <h3>Request Firewalling</h3>
  *
@@ -154,6 +162,8 @@ public class FilterChainProxy extends GenericFilterBean {
 
 	private RequestRejectedHandler requestRejectedHandler = new DefaultRequestRejectedHandler();
 
+	private RequestMatcherIndex filterChainIndex;
+
 	public FilterChainProxy() {
 	}
 
@@ -217,6 +227,18 @@ public class FilterChainProxy extends GenericFilterBean {
 	 * @return an ordered array of Filters defining the filter chain
 	 */
 	private List<Filter> getFilters(HttpServletRequest request) {
+		if (this.filterChainIndex != null) {
+			int index = this.filterChainIndex.indexOf(request);
+			if (logger.isTraceEnabled()) {
+				// Report the chains that the unindexed lookup would have tried
+				int tried = (index != -1) ? index + 1 : this.filterChains.size();
+				for (int i = 0; i < tried; i++) {
+					logger.trace(LogMessage.format("Trying to match request against %s (%d/%d)",
+							this.filterChains.get(i), i + 1, this.filterChains.size()));
+				}
+			}
+			return (index != -1) ? this.filterChains.get(index).getFilters() : null;
+		}
 		int count = 0;
 		for (SecurityFilterChain chain : this.filterChains) {
 			if (logger.isTraceEnabled()) {
@@ -267,6 +289,33 @@ public class FilterChainProxy extends GenericFilterBean {
 		this.firewall = firewall;
 	}
 
+	/**
+	 * Whether to precompile the {@link SecurityFilterChain}s into a
+	 * {@link RequestMatcherIndex} that is used to find the first matching chain. This
+	 * avoids trying every chain in turn when there are many of them. The default is
+	 * false.
+	 * @param indexFilterChains true if the {@link SecurityFilterChain}s should be
+	 * indexed
+	 * @since 5.6
+	 */
+	public void setIndexFilterChains(boolean indexFilterChains) {
+		Assert.state(this.filterChains != null, "filterChains cannot be null");
+		this.filterChainIndex = indexFilterChains ? createFilterChainIndex(this.filterChains) : null;
+	}
+
+	private static RequestMatcherIndex createFilterChainIndex(List<SecurityFilterChain> filterChains) {
+		List<RequestMatcher> requestMatchers = new ArrayList<>(filterChains.size());
+		for (SecurityFilterChain chain : filterChains) {
+			if (chain instanceof DefaultSecurityFilterChain) {
+				requestMatchers.add(((DefaultSecurityFilterChain) chain).getRequestMatcher());
+			}
+			else {
+				requestMatchers.add(chain::matches);
+			}
+		}
+		return new RequestMatcherIndex(requestMatchers);
+	}
+
 	/**
 	 * Sets the {@link RequestRejectedHandler} to be used for requests rejected by the
 	 * firewall.
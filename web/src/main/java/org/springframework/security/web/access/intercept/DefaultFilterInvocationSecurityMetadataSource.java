@@ -16,9 +16,11 @@
 
 package org.springframework.security.web.access.intercept;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,6 +33,7 @@ import org.springframework.core.log.LogMessage;
 import org.springframework.security.access.ConfigAttribute;
 import org.springframework.security.web.FilterInvocation;
 import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcherIndex;
 
 /**
  * Default implementation of <tt>FilterInvocationDefinitionSource</tt>.
@@ -42,7 +45,9 @@ import org.springframework.security.web.util.matcher.RequestMatcher;
  * The order of the {@link RequestMatcher}s in the map is very important. The <b>first</b>
  * one which matches the request will be used. Later matchers in the map will not be
  * invoked if a match has already been found. Accordingly, the most specific matchers
- * should be registered first, with the most general matches registered last.
+ * should be registered first, with the most general matches registered last. The
+ * matchers are compiled into a {@link RequestMatcherIndex} when the instance is created,
+ * so matchers which cannot match the path or HTTP method of a request are skipped.
  * <p>
  * The most common method creating an instance is using the Spring Security namespace. For
  * example, the {@code pattern} and {@code access} attributes of the
@@ -58,6 +63,10 @@ public class DefaultFilterInvocationSecurityMetadataSource implements FilterInvo
 
 	private final Map<RequestMatcher, Collection<ConfigAttribute>> requestMap;
 
+	private final RequestMatcherIndex requestMatchers;
+
+	private final List<Collection<ConfigAttribute>> attributes;
+
 	/**
 	 * Sets the internal request map from the supplied map. The key elements should be of
 	 * type {@link RequestMatcher}, which. The path stored in the key will depend on the
@@ -67,6 +76,8 @@ public class DefaultFilterInvocationSecurityMetadataSource implements FilterInvo
 	public DefaultFilterInvocationSecurityMetadataSource(
 			LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap) {
 		this.requestMap = requestMap;
+		this.requestMatchers = new RequestMatcherIndex(new ArrayList<>(requestMap.keySet()));
+		this.attributes = new ArrayList<>(requestMap.values());
 	}
 
 	@Override
@@ -79,19 +90,15 @@ public class DefaultFilterInvocationSecurityMetadataSource implements FilterInvo
 	@Override
 	public Collection<ConfigAttribute> getAttributes(Object object) {
 		final HttpServletRequest request = ((FilterInvocation) object).getRequest();
-		int count = 0;
-		for (Map.Entry<RequestMatcher, Collection<ConfigAttribute>> entry : this.requestMap.entrySet()) {
-			if (entry.getKey().matches(request)) {
-				return entry.getValue();
-			}
-			else {
-				if (this.logger.isTraceEnabled()) {
-					this.logger.trace(LogMessage.format("Did not match request to %s - %s (%d/%d)", entry.getKey(),
-							entry.getValue(), ++count, this.requestMap.size()));
-				}
+		int index = this.requestMatchers.indexOf(request);
+		if (index == -1) {
+			if (this.logger.isTraceEnabled()) {
+				this.logger.trace(LogMessage.format("Did not match request to any of %s",
+						this.requestMatchers.getRequestMatchers()));
 			}
+			return null;
 		}
-		return null;
+		return this.attributes.get(index);
 	}
 
 	@Override
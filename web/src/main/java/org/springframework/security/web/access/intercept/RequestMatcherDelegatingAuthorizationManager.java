@@ -16,7 +16,9 @@
 
 package org.springframework.security.web.access.intercept;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -30,12 +32,14 @@ import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.util.matcher.RequestMatcher;
-import org.springframework.security.web.util.matcher.RequestMatcher.MatchResult;
+import org.springframework.security.web.util.matcher.RequestMatcherIndex;
 import org.springframework.util.Assert;
 
 /**
  * An {@link AuthorizationManager} which delegates to a specific
- * {@link AuthorizationManager} based on a {@link RequestMatcher} evaluation.
+ * {@link AuthorizationManager} based on a {@link RequestMatcher} evaluation. The
+ * {@link RequestMatcher}s are compiled into a {@link RequestMatcherIndex}, so that only
+ * those that can match a request are evaluated.
  *
  * @author Evgeniy Cheban
  * @since 5.5
@@ -44,12 +48,15 @@ public final class RequestMatcherDelegatingAuthorizationManager implements Autho
 
 	private final Log logger = LogFactory.getLog(getClass());
 
-	private final Map<RequestMatcher, AuthorizationManager<RequestAuthorizationContext>> mappings;
+	private final RequestMatcherIndex requestMatchers;
+
+	private final List<AuthorizationManager<RequestAuthorizationContext>> managers;
 
 	private RequestMatcherDelegatingAuthorizationManager(
 			Map<RequestMatcher, AuthorizationManager<RequestAuthorizationContext>> mappings) {
 		Assert.notEmpty(mappings, "mappings cannot be empty");
-		this.mappings = mappings;
+		this.requestMatchers = new RequestMatcherIndex(new ArrayList<>(mappings.keySet()));
+		this.managers = new ArrayList<>(mappings.values());
 	}
 
 	/**
@@ -66,22 +73,17 @@ public final class RequestMatcherDelegatingAuthorizationManager implements Autho
 		if (this.logger.isTraceEnabled()) {
 			this.logger.trace(LogMessage.format("Authorizing %s", request));
 		}
-		for (Map.Entry<RequestMatcher, AuthorizationManager<RequestAuthorizationContext>> mapping : this.mappings
-				.entrySet()) {
-
-			RequestMatcher matcher = mapping.getKey();
-			MatchResult matchResult = matcher.matcher(request);
-			if (matchResult.isMatch()) {
-				AuthorizationManager<RequestAuthorizationContext> manager = mapping.getValue();
-				if (this.logger.isTraceEnabled()) {
-					this.logger.trace(LogMessage.format("Checking authorization on %s using %s", request, manager));
-				}
-				return manager.check(authentication,
-						new RequestAuthorizationContext(request, matchResult.getVariables()));
-			}
+		RequestMatcherIndex.Match match = this.requestMatchers.match(request);
+		if (match == null) {
+			this.logger.trace("Abstaining since did not find matching RequestMatcher");
+			return null;
+		}
+		AuthorizationManager<RequestAuthorizationContext> manager = this.managers.get(match.getIndex());
+		if (this.logger.isTraceEnabled()) {
+			this.logger.trace(LogMessage.format("Checking authorization on %s using %s", request, manager));
 		}
-		this.logger.trace("Abstaining since did not find matching RequestMatcher");
-		return null;
+		return manager.check(authentication,
+				new RequestAuthorizationContext(request, match.getMatchResult().getVariables()));
 	}
 
 	/**
@@ -49,11 +49,14 @@ public class WebAuthenticationDetails implements Serializable {
 	}
 
 	/**
-	 * Constructor to add Jackson2 serialize/deserialize support
+	 * Constructor to add Jackson2 and
+	 * {@link org.springframework.security.web.context.CompactSecurityContextSerializer}
+	 * serialize/deserialize support
 	 * @param remoteAddress remote address of current request
 	 * @param sessionId session id
+	 * @since 5.6
 	 */
-	private WebAuthenticationDetails(final String remoteAddress, final String sessionId) {
+	public WebAuthenticationDetails(final String remoteAddress, final String sessionId) {
 		this.remoteAddress = remoteAddress;
 		this.sessionId = sessionId;
 	}
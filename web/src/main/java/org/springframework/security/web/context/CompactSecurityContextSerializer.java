@@ -0,0 +1,238 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.context;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+/**
+ * Serializes a {@link SecurityContext} into a compact binary form, to reduce the size of
+ * session payloads when sessions are stored remotely.
+ * <p>
+ * A {@link SecurityContextImpl} holding a {@link UsernamePasswordAuthenticationToken}
+ * with a {@link User} or {@link String} principal, {@link String} credentials,
+ * {@link SimpleGrantedAuthority} authorities and {@link WebAuthenticationDetails} is
+ * written field by field, which takes a fraction of the size of its Java serialized form.
+ * Any other context is written using Java serialization.
+ *
+ * @since 5.6
+ * @see HttpSessionSecurityContextRepository#setSecurityContextSerializer(Serializer,
+ * Deserializer)
+ */
+public final class CompactSecurityContextSerializer
+		implements Serializer<SecurityContext>, Deserializer<SecurityContext> {
+
+	private static final int JAVA_SERIALIZED = 0;
+
+	private static final int COMPACT = 1;
+
+	private static final int STRING_PRINCIPAL = 0;
+
+	private static final int USER_PRINCIPAL = 1;
+
+	private final Serializer<Object> serializer = new DefaultSerializer();
+
+	private final Deserializer<Object> deserializer = new DefaultDeserializer();
+
+	@Override
+	public void serialize(SecurityContext context, OutputStream outputStream) throws IOException {
+		DataOutputStream out = new DataOutputStream(outputStream);
+		if (!isCompact(context)) {
+			out.writeByte(JAVA_SERIALIZED);
+			out.flush();
+			this.serializer.serialize(context, outputStream);
+			return;
+		}
+		out.writeByte(COMPACT);
+		Authentication authentication = context.getAuthentication();
+		out.writeBoolean(authentication != null);
+		if (authentication != null) {
+			writeAuthentication(out, (UsernamePasswordAuthenticationToken) authentication);
+		}
+		out.flush();
+	}
+
+	@Override
+	public SecurityContext deserialize(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		int format = in.readByte();
+		if (format == JAVA_SERIALIZED) {
+			return (SecurityContext) this.deserializer.deserialize(inputStream);
+		}
+		if (format != COMPACT) {
+			throw new IOException("Unknown SecurityContext format " + format);
+		}
+		SecurityContext context = new SecurityContextImpl();
+		if (in.readBoolean()) {
+			context.setAuthentication(readAuthentication(in));
+		}
+		return context;
+	}
+
+	private static boolean isCompact(SecurityContext context) {
+		if (context.getClass() != SecurityContextImpl.class) {
+			return false;
+		}
+		Authentication authentication = context.getAuthentication();
+		if (authentication == null) {
+			return true;
+		}
+		if (authentication.getClass() != UsernamePasswordAuthenticationToken.class) {
+			return false;
+		}
+		if (!authentication.isAuthenticated() && !authentication.getAuthorities().isEmpty()) {
+			return false;
+		}
+		Object principal = authentication.getPrincipal();
+		boolean compactPrincipal = principal instanceof String || (principal != null
+				&& principal.getClass() == User.class && isCompact(((User) principal).getAuthorities()));
+		Object credentials = authentication.getCredentials();
+		Object details = authentication.getDetails();
+		return compactPrincipal && (credentials == null || credentials instanceof String)
+				&& (details == null || details.getClass() == WebAuthenticationDetails.class)
+				&& isCompact(authentication.getAuthorities());
+	}
+
+	private static boolean isCompact(Collection<? extends GrantedAuthority> authorities) {
+		for (GrantedAuthority authority : authorities) {
+			if (authority.getClass() != SimpleGrantedAuthority.class) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void writeAuthentication(DataOutputStream out, UsernamePasswordAuthenticationToken authentication)
+			throws IOException {
+		out.writeBoolean(authentication.isAuthenticated());
+		Object principal = authentication.getPrincipal();
+		if (principal instanceof User) {
+			User user = (User) principal;
+			out.writeByte(USER_PRINCIPAL);
+			writeString(out, user.getUsername());
+			writeString(out, user.getPassword());
+			out.writeBoolean(user.isEnabled());
+			out.writeBoolean(user.isAccountNonExpired());
+			out.writeBoolean(user.isCredentialsNonExpired());
+			out.writeBoolean(user.isAccountNonLocked());
+			writeAuthorities(out, user.getAuthorities());
+		}
+		else {
+			out.writeByte(STRING_PRINCIPAL);
+			writeString(out, (String) principal);
+		}
+		writeString(out, (String) authentication.getCredentials());
+		WebAuthenticationDetails details = (WebAuthenticationDetails) authentication.getDetails();
+		out.writeBoolean(details != null);
+		if (details != null) {
+			writeString(out, details.getRemoteAddress());
+			writeString(out, details.getSessionId());
+		}
+		writeAuthorities(out, authentication.getAuthorities());
+	}
+
+	private static UsernamePasswordAuthenticationToken readAuthentication(DataInputStream in) throws IOException {
+		boolean authenticated = in.readBoolean();
+		Object principal;
+		int principalType = in.readByte();
+		if (principalType == USER_PRINCIPAL) {
+			String username = readString(in);
+			String password = readString(in);
+			User user = new User(username, (password != null) ? password : "", in.readBoolean(), in.readBoolean(),
+					in.readBoolean(), in.readBoolean(), readAuthorities(in));
+			if (password == null) {
+				user.eraseCredentials();
+			}
+			principal = user;
+		}
+		else if (principalType == STRING_PRINCIPAL) {
+			principal = readString(in);
+		}
+		else {
+			throw new IOException("Unknown principal type " + principalType);
+		}
+		String credentials = readString(in);
+		WebAuthenticationDetails details = null;
+		if (in.readBoolean()) {
+			details = new WebAuthenticationDetails(readString(in), readString(in));
+		}
+		List<GrantedAuthority> authorities = readAuthorities(in);
+		UsernamePasswordAuthenticationToken authentication = authenticated
+				? new UsernamePasswordAuthenticationToken(principal, credentials, authorities)
+				: new UsernamePasswordAuthenticationToken(principal, credentials);
+		authentication.setDetails(details);
+		return authentication;
+	}
+
+	private static void writeAuthorities(DataOutputStream out, Collection<? extends GrantedAuthority> authorities)
+			throws IOException {
+		out.writeInt(authorities.size());
+		for (GrantedAuthority authority : authorities) {
+			writeString(out, authority.getAuthority());
+		}
+	}
+
+	private static List<GrantedAuthority> readAuthorities(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		List<GrantedAuthority> authorities = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			authorities.add(new SimpleGrantedAuthority(readString(in)));
+		}
+		return authorities;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
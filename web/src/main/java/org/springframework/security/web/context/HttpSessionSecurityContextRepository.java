@@ -16,6 +16,9 @@
 
 package org.springframework.security.web.context;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -29,6 +32,8 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.log.LogMessage;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
 import org.springframework.security.authentication.AuthenticationTrustResolver;
 import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
 import org.springframework.security.core.Authentication;
@@ -88,6 +93,13 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 	 */
 	public static final String SPRING_SECURITY_CONTEXT_KEY = "SPRING_SECURITY_CONTEXT";
 
+	/**
+	 * The session attribute from which Spring Session indexes sessions by principal name,
+	 * before falling back to the security context
+	 */
+	private static final String PRINCIPAL_NAME_INDEX_NAME = "org.springframework.session."
+			+ "FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME";
+
 	protected final Log logger = LogFactory.getLog(this.getClass());
 
 	/**
@@ -104,6 +116,10 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 
 	private AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
 
+	private Serializer<SecurityContext> securityContextSerializer;
+
+	private Deserializer<? extends SecurityContext> securityContextDeserializer;
+
 	/**
 	 * Gets the security context for the current request (if available) and returns it.
 	 * <p>
@@ -116,6 +132,34 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		HttpServletRequest request = requestResponseHolder.getRequest();
 		HttpServletResponse response = requestResponseHolder.getResponse();
 		HttpSession httpSession = request.getSession(false);
+		SecurityContext context = readOrGenerateContext(httpSession);
+		SaveToSessionResponseWrapper wrappedResponse = new SaveToSessionResponseWrapper(response, request,
+				httpSession != null, context);
+		requestResponseHolder.setResponse(wrappedResponse);
+		requestResponseHolder.setRequest(new SaveToSessionRequestWrapper(request, wrappedResponse));
+		return context;
+	}
+
+	/**
+	 * Returns a {@link DeferredSecurityContext} that only queries the {@code HttpSession}
+	 * when the context is first obtained. If the request neither obtains nor replaces the
+	 * context, it is not saved either, so the session is not accessed at all. Whether a
+	 * session existed at the start of the request is determined when the context is
+	 * loaded.
+	 */
+	@Override
+	public DeferredSecurityContext loadDeferredContext(HttpRequestResponseHolder requestResponseHolder) {
+		HttpServletRequest request = requestResponseHolder.getRequest();
+		HttpServletResponse response = requestResponseHolder.getResponse();
+		DeferredSessionSecurityContext deferredContext = new DeferredSessionSecurityContext(request);
+		SaveToSessionResponseWrapper wrappedResponse = new SaveToSessionResponseWrapper(response, request,
+				deferredContext);
+		requestResponseHolder.setResponse(wrappedResponse);
+		requestResponseHolder.setRequest(new SaveToSessionRequestWrapper(request, wrappedResponse));
+		return deferredContext;
+	}
+
+	private SecurityContext readOrGenerateContext(HttpSession httpSession) {
 		SecurityContext context = readSecurityContextFromSession(httpSession);
 		if (context == null) {
 			context = generateNewContext();
@@ -123,10 +167,6 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 				this.logger.trace(LogMessage.format("Created %s", context));
 			}
 		}
-		SaveToSessionResponseWrapper wrappedResponse = new SaveToSessionResponseWrapper(response, request,
-				httpSession != null, context);
-		requestResponseHolder.setResponse(wrappedResponse);
-		requestResponseHolder.setRequest(new SaveToSessionRequestWrapper(request, wrappedResponse));
 		return context;
 	}
 
@@ -166,6 +206,13 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 			return null;
 		}
 
+		if (contextFromSession instanceof byte[] && this.securityContextDeserializer != null) {
+			contextFromSession = deserialize((byte[]) contextFromSession);
+			if (contextFromSession == null) {
+				return null;
+			}
+		}
+
 		// We now have the security context object from the session.
 		if (!(contextFromSession instanceof SecurityContext)) {
 			this.logger.warn(LogMessage.format(
@@ -187,6 +234,29 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		return (SecurityContext) contextFromSession;
 	}
 
+	private SecurityContext deserialize(byte[] serializedContext) {
+		try {
+			return this.securityContextDeserializer.deserializeFromByteArray(serializedContext);
+		}
+		catch (IOException ex) {
+			this.logger.warn(LogMessage.format("Failed to deserialize SecurityContext from %s",
+					this.springSecurityContextKey), ex);
+			return null;
+		}
+	}
+
+	private Object serialize(SecurityContext context) {
+		if (this.securityContextSerializer == null) {
+			return context;
+		}
+		try {
+			return this.securityContextSerializer.serializeToByteArray(context);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to serialize " + context, ex);
+		}
+	}
+
 	/**
 	 * By default, calls {@link SecurityContextHolder#createEmptyContext()} to obtain a
 	 * new context (there should be no context present in the holder when this method is
@@ -232,6 +302,36 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		this.springSecurityContextKey = springSecurityContextKey;
 	}
 
+	/**
+	 * Stores the security context in the session in serialized form rather than as a
+	 * {@link SecurityContext}, which can reduce the size of session payloads when
+	 * sessions are stored remotely, for example using a
+	 * {@link CompactSecurityContextSerializer}.
+	 * <p>
+	 * The serialized form also allows changes to be tracked by content: a context that
+	 * has been replaced during the request is not written back when it serializes to the
+	 * same bytes as the stored one. Contexts previously stored as objects can still be
+	 * read. Note that code reading the session attribute directly will find a
+	 * {@code byte[]} rather than a {@link SecurityContext}.
+	 * <p>
+	 * Since Spring Session cannot resolve the principal name from a {@code byte[]}, the
+	 * name of the authenticated principal is also stored in its
+	 * {@code FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME} session
+	 * attribute. This keeps finding sessions by principal name, and concurrent session
+	 * control based on it, working. Other code that reads the
+	 * {@link SecurityContext} from the session attribute has to deserialize it.
+	 * @param serializer the serializer of contexts stored in the session
+	 * @param deserializer the deserializer of contexts read from the session
+	 * @since 5.6
+	 */
+	public void setSecurityContextSerializer(Serializer<SecurityContext> serializer,
+			Deserializer<? extends SecurityContext> deserializer) {
+		Assert.notNull(serializer, "serializer cannot be null");
+		Assert.notNull(deserializer, "deserializer cannot be null");
+		this.securityContextSerializer = serializer;
+		this.securityContextDeserializer = deserializer;
+	}
+
 	private boolean isTransientAuthentication(Authentication authentication) {
 		return AnnotationUtils.getAnnotation(authentication.getClass(), Transient.class) != null;
 	}
@@ -247,6 +347,43 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		this.trustResolver = trustResolver;
 	}
 
+	private final class DeferredSessionSecurityContext implements DeferredSecurityContext {
+
+		private final HttpServletRequest request;
+
+		private boolean httpSessionExisted;
+
+		private SecurityContext context;
+
+		DeferredSessionSecurityContext(HttpServletRequest request) {
+			this.request = request;
+		}
+
+		@Override
+		public SecurityContext get() {
+			if (this.context == null) {
+				HttpSession httpSession = this.request.getSession(false);
+				this.httpSessionExisted = httpSession != null;
+				this.context = readOrGenerateContext(httpSession);
+			}
+			return this.context;
+		}
+
+		@Override
+		public boolean isLoaded() {
+			return this.context != null;
+		}
+
+		/**
+		 * @return true if the context was neither loaded nor replaced in the
+		 * {@link SecurityContextHolder}
+		 */
+		boolean isUnused() {
+			return !isLoaded() && SecurityContextHolder.getContextHolderStrategy().getDeferredContext() == this;
+		}
+
+	}
+
 	private static class SaveToSessionRequestWrapper extends HttpServletRequestWrapper {
 
 		private final SaveContextOnUpdateOrErrorResponseWrapper response;
@@ -285,11 +422,13 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 
 		private final HttpServletRequest request;
 
-		private final boolean httpSessionExistedAtStartOfRequest;
+		private final DeferredSessionSecurityContext deferredContext;
+
+		private boolean httpSessionExistedAtStartOfRequest;
 
-		private final SecurityContext contextBeforeExecution;
+		private SecurityContext contextBeforeExecution;
 
-		private final Authentication authBeforeExecution;
+		private Authentication authBeforeExecution;
 
 		private boolean isSaveContextInvoked;
 
@@ -308,11 +447,35 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 				boolean httpSessionExistedAtStartOfRequest, SecurityContext context) {
 			super(response, HttpSessionSecurityContextRepository.this.disableUrlRewriting);
 			this.request = request;
+			this.deferredContext = null;
 			this.httpSessionExistedAtStartOfRequest = httpSessionExistedAtStartOfRequest;
 			this.contextBeforeExecution = context;
 			this.authBeforeExecution = context.getAuthentication();
 		}
 
+		/**
+		 * Takes a context that is loaded from the session when it is first obtained. The
+		 * state at the start of the request is taken from that context once it is
+		 * loaded, and the context is not saved if it was neither loaded nor replaced.
+		 * @param request the request object (used to obtain the session, if one exists).
+		 * @param deferredContext the context before the filter chain executed
+		 */
+		SaveToSessionResponseWrapper(HttpServletResponse response, HttpServletRequest request,
+				DeferredSessionSecurityContext deferredContext) {
+			super(response, HttpSessionSecurityContextRepository.this.disableUrlRewriting);
+			this.request = request;
+			this.deferredContext = deferredContext;
+		}
+
+		@Override
+		protected void onResponseCommitted() {
+			if (this.deferredContext != null && this.deferredContext.isUnused()) {
+				this.logger.trace("Did not store SecurityContext as it was not loaded or changed");
+				return;
+			}
+			super.onResponseCommitted();
+		}
+
 		/**
 		 * Stores the supplied security context in the session (if available) and if it
 		 * has changed since it was set at the start of the request. If the
@@ -326,6 +489,7 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 		 */
 		@Override
 		protected void saveContext(SecurityContext context) {
+			loadContextBeforeExecution();
 			final Authentication authentication = context.getAuthentication();
 			HttpSession httpSession = this.request.getSession(false);
 			String springSecurityContextKey = HttpSessionSecurityContextRepository.this.springSecurityContextKey;
@@ -336,6 +500,9 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 					// SEC-1587 A non-anonymous context may still be in the session
 					// SEC-1735 remove if the contextBeforeExecution was not anonymous
 					httpSession.removeAttribute(springSecurityContextKey);
+					if (HttpSessionSecurityContextRepository.this.securityContextSerializer != null) {
+						httpSession.removeAttribute(PRINCIPAL_NAME_INDEX_NAME);
+					}
 					this.isSaveContextInvoked = true;
 				}
 				if (this.logger.isDebugEnabled()) {
@@ -355,7 +522,15 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 				// We may have a new session, so check also whether the context attribute
 				// is set SEC-1561
 				if (contextChanged(context) || httpSession.getAttribute(springSecurityContextKey) == null) {
-					httpSession.setAttribute(springSecurityContextKey, context);
+					Object storedContext = serialize(context);
+					if (isStored(httpSession, springSecurityContextKey, storedContext)) {
+						this.logger.debug("Did not store SecurityContext as its content did not change");
+						return;
+					}
+					httpSession.setAttribute(springSecurityContextKey, storedContext);
+					if (storedContext instanceof byte[]) {
+						httpSession.setAttribute(PRINCIPAL_NAME_INDEX_NAME, authentication.getName());
+					}
 					this.isSaveContextInvoked = true;
 					if (this.logger.isDebugEnabled()) {
 						this.logger.debug(LogMessage.format("Stored %s to HttpSession [%s]", context, httpSession));
@@ -364,11 +539,27 @@ public class HttpSessionSecurityContextRepository implements SecurityContextRepo
 			}
 		}
 
+		private void loadContextBeforeExecution() {
+			if (this.deferredContext != null && this.contextBeforeExecution == null) {
+				this.contextBeforeExecution = this.deferredContext.get();
+				this.authBeforeExecution = this.contextBeforeExecution.getAuthentication();
+				this.httpSessionExistedAtStartOfRequest = this.deferredContext.httpSessionExisted;
+			}
+		}
+
 		private boolean contextChanged(SecurityContext context) {
 			return this.isSaveContextInvoked || context != this.contextBeforeExecution
 					|| context.getAuthentication() != this.authBeforeExecution;
 		}
 
+		private boolean isStored(HttpSession httpSession, String springSecurityContextKey, Object storedContext) {
+			if (!(storedContext instanceof byte[])) {
+				return false;
+			}
+			Object current = httpSession.getAttribute(springSecurityContextKey);
+			return current instanceof byte[] && Arrays.equals((byte[]) current, (byte[]) storedContext);
+		}
+
 		private HttpSession createNewSessionIfAllowed(SecurityContext context, Authentication authentication) {
 			if (isTransientAuthentication(authentication)) {
 				return null;
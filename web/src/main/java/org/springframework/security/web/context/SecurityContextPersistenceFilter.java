@@ -29,6 +29,7 @@ import javax.servlet.http.HttpSession;
 import org.springframework.core.log.LogMessage;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.web.filter.GenericFilterBean;
 
 /**
@@ -54,6 +55,10 @@ import org.springframework.web.filter.GenericFilterBean;
  * The <tt>forceEagerSessionCreation</tt> property can be used to ensure that a session is
  * always available before the filter chain executes (the default is <code>false</code>,
  * as this is resource intensive and not recommended).
+ * <p>
+ * The <tt>deferContextLoading</tt> property can be used to load the context only when it
+ * is first obtained from the <tt>SecurityContextHolder</tt>, and to skip saving it when
+ * it was neither loaded nor replaced (the default is <code>false</code>).
  *
  * @author Luke Taylor
  * @since 3.0
@@ -66,6 +71,8 @@ public class SecurityContextPersistenceFilter extends GenericFilterBean {
 
 	private boolean forceEagerSessionCreation = false;
 
+	private boolean deferContextLoading = false;
+
 	public SecurityContextPersistenceFilter() {
 		this(new HttpSessionSecurityContextRepository());
 	}
@@ -95,6 +102,10 @@ public class SecurityContextPersistenceFilter extends GenericFilterBean {
 			}
 		}
 		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, response);
+		if (this.deferContextLoading) {
+			doFilterWithDeferredContext(request, holder, chain);
+			return;
+		}
 		SecurityContext contextBeforeChainExecution = this.repo.loadContext(holder);
 		try {
 			SecurityContextHolder.setContext(contextBeforeChainExecution);
@@ -119,8 +130,52 @@ public class SecurityContextPersistenceFilter extends GenericFilterBean {
 		}
 	}
 
+	private void doFilterWithDeferredContext(HttpServletRequest request, HttpRequestResponseHolder holder,
+			FilterChain chain) throws IOException, ServletException {
+		SecurityContextHolderStrategy strategy = SecurityContextHolder.getContextHolderStrategy();
+		DeferredSecurityContext deferredContext = this.repo.loadDeferredContext(holder);
+		try {
+			strategy.setDeferredContext(deferredContext);
+			this.logger.debug("Set SecurityContextHolder to deferred SecurityContext");
+			chain.doFilter(holder.getRequest(), holder.getResponse());
+		}
+		finally {
+			boolean unused = !deferredContext.isLoaded() && strategy.getDeferredContext() == deferredContext;
+			SecurityContext contextAfterChainExecution = unused ? null : SecurityContextHolder.getContext();
+			// Crucial removal of SecurityContextHolder contents before anything else.
+			SecurityContextHolder.clearContext();
+			if (unused) {
+				this.logger.trace("Did not save SecurityContext as it was not loaded or changed");
+			}
+			else {
+				this.repo.saveContext(contextAfterChainExecution, holder.getRequest(), holder.getResponse());
+			}
+			request.removeAttribute(FILTER_APPLIED);
+			this.logger.debug("Cleared SecurityContextHolder to complete request");
+		}
+	}
+
 	public void setForceEagerSessionCreation(boolean forceEagerSessionCreation) {
 		this.forceEagerSessionCreation = forceEagerSessionCreation;
 	}
 
+	/**
+	 * Loads the {@link SecurityContext} only when it is first obtained from the
+	 * {@link SecurityContextHolder}, using
+	 * {@link SecurityContextRepository#loadDeferredContext(HttpRequestResponseHolder)}.
+	 * When the context is neither loaded nor replaced during the request, it is not
+	 * saved either. With an {@link HttpSessionSecurityContextRepository}, requests that
+	 * do not use the context then do not access the {@code HttpSession} at all. The
+	 * default is <code>false</code>.
+	 * <p>
+	 * The {@link SecurityContextHolderStrategy} must support deferred contexts, as the
+	 * thread local strategies do; otherwise the context is loaded when the request
+	 * starts.
+	 * @param deferContextLoading whether to defer loading the context
+	 * @since 5.6
+	 */
+	public void setDeferContextLoading(boolean deferContextLoading) {
+		this.deferContextLoading = deferContextLoading;
+	}
+
 }
@@ -58,6 +58,37 @@ public interface SecurityContextRepository {
 	 */
 	SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder);
 
+	/**
+	 * Obtains the security context for the supplied request, deferring the lookup until
+	 * the context is first obtained from the returned {@link DeferredSecurityContext}.
+	 * Like {@link #loadContext(HttpRequestResponseHolder)}, implementations may wrap the
+	 * request or response in the holder, but should not access the persisted context
+	 * until it is needed.
+	 * <p>
+	 * The default implementation calls {@link #loadContext(HttpRequestResponseHolder)}
+	 * immediately.
+	 * @param requestResponseHolder holder for the current request and response for which
+	 * the context should be loaded.
+	 * @return the deferred security context for the current request, never null.
+	 * @since 5.6
+	 */
+	default DeferredSecurityContext loadDeferredContext(HttpRequestResponseHolder requestResponseHolder) {
+		SecurityContext context = loadContext(requestResponseHolder);
+		return new DeferredSecurityContext() {
+
+			@Override
+			public SecurityContext get() {
+				return context;
+			}
+
+			@Override
+			public boolean isLoaded() {
+				return true;
+			}
+
+		};
+	}
+
 	/**
 	 * Stores the security context on completion of a request.
 	 * @param context the non-null context which was obtained from the holder.
@@ -19,17 +19,26 @@ package org.springframework.security.web.firewall;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 
+import org.springframework.security.web.util.ParsedRequestPath;
+
 /**
  * Request wrapper which is returned by the {@code HttpFirewall} interface.
  * <p>
  * The only difference is the {@code reset} method which allows some or all of the state
  * to be reset by the {@code FilterChainProxy} when the request leaves the security filter
  * chain.
+ * <p>
+ * The firewalled {@code servletPath} and {@code pathInfo} are parsed once into a
+ * {@link ParsedRequestPath}, which is exposed as the
+ * {@link ParsedRequestPath#ATTRIBUTE_NAME} request attribute so that the
+ * {@code RequestMatcher}s of the security filter chain can share it.
  *
  * @author Luke Taylor
  */
 public abstract class FirewalledRequest extends HttpServletRequestWrapper {
 
+	private ParsedRequestPath requestPath;
+
 	/**
 	 * Constructs a request object wrapping the given request.
 	 * @throws IllegalArgumentException if the request is null
@@ -48,6 +57,23 @@ public abstract class FirewalledRequest extends HttpServletRequestWrapper {
 	 */
 	public abstract void reset();
 
+	@Override
+	public Object getAttribute(String name) {
+		if (ParsedRequestPath.ATTRIBUTE_NAME.equals(name)) {
+			return getRequestPath();
+		}
+		return super.getAttribute(name);
+	}
+
+	private ParsedRequestPath getRequestPath() {
+		String servletPath = getServletPath();
+		String pathInfo = getPathInfo();
+		if (this.requestPath == null || !this.requestPath.isFor(servletPath, pathInfo)) {
+			this.requestPath = new ParsedRequestPath(servletPath, pathInfo);
+		}
+		return this.requestPath;
+	}
+
 	@Override
 	public String toString() {
 		return "FirewalledRequest[ " + getRequest() + "]";
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * The {@code servletPath + pathInfo} of a request, parsed once so that it can be shared
+ * by all the {@code RequestMatcher}s that are evaluated against the same request.
+ * <p>
+ * A {@link org.springframework.security.web.firewall.FirewalledRequest} exposes its
+ * parsed path as the request attribute {@link #ATTRIBUTE_NAME}, so that
+ * {@link #from(HttpServletRequest)} does not have to parse the path again while the
+ * request passes through the security filter chain. A cached instance is only reused as
+ * long as the {@code servletPath} and {@code pathInfo} of the request are unchanged.
+ *
+ * @since 5.6
+ * @see org.springframework.security.web.firewall.FirewalledRequest
+ */
+public final class ParsedRequestPath {
+
+	/**
+	 * The name of the request attribute holding the {@link ParsedRequestPath} of a
+	 * request.
+	 */
+	public static final String ATTRIBUTE_NAME = ParsedRequestPath.class.getName();
+
+	private final String servletPath;
+
+	private final String pathInfo;
+
+	private final String path;
+
+	private List<String> segments;
+
+	private String lowerCasePath;
+
+	/**
+	 * Creates a new instance
+	 * @param servletPath the {@code servletPath} of the request, may be null
+	 * @param pathInfo the {@code pathInfo} of the request, may be null
+	 */
+	public ParsedRequestPath(String servletPath, String pathInfo) {
+		this.servletPath = servletPath;
+		this.pathInfo = pathInfo;
+		this.path = buildPath(servletPath, pathInfo);
+	}
+
+	/**
+	 * Obtains the {@link ParsedRequestPath} of the request, reusing the instance that is
+	 * exposed as the {@link #ATTRIBUTE_NAME} request attribute when it is still valid for
+	 * the request.
+	 * @param request the request
+	 * @return the {@link ParsedRequestPath} of the request
+	 */
+	public static ParsedRequestPath from(HttpServletRequest request) {
+		String servletPath = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		Object cached = request.getAttribute(ATTRIBUTE_NAME);
+		if (cached instanceof ParsedRequestPath && ((ParsedRequestPath) cached).isFor(servletPath, pathInfo)) {
+			return (ParsedRequestPath) cached;
+		}
+		return new ParsedRequestPath(servletPath, pathInfo);
+	}
+
+	/**
+	 * Returns true if this instance was parsed from the given {@code servletPath} and
+	 * {@code pathInfo}.
+	 * @param servletPath the {@code servletPath} of the request
+	 * @param pathInfo the {@code pathInfo} of the request
+	 * @return true if this instance describes the given path
+	 */
+	public boolean isFor(String servletPath, String pathInfo) {
+		return ObjectUtils.nullSafeEquals(this.servletPath, servletPath)
+				&& ObjectUtils.nullSafeEquals(this.pathInfo, pathInfo);
+	}
+
+	/**
+	 * @return the {@code servletPath + pathInfo}, never null
+	 */
+	public String getPath() {
+		return this.path;
+	}
+
+	/**
+	 * @return the {@link #getPath() path} in lower case
+	 */
+	public String getLowerCasePath() {
+		if (this.lowerCasePath == null) {
+			this.lowerCasePath = this.path.toLowerCase();
+		}
+		return this.lowerCasePath;
+	}
+
+	/**
+	 * @return the non-empty segments of the {@link #getPath() path} between {@code /}
+	 * separators
+	 */
+	public List<String> getSegments() {
+		if (this.segments == null) {
+			this.segments = tokenize(this.path);
+		}
+		return this.segments;
+	}
+
+	private static String buildPath(String servletPath, String pathInfo) {
+		if (pathInfo == null) {
+			return (servletPath != null) ? servletPath : "";
+		}
+		return (servletPath != null && !servletPath.isEmpty()) ? servletPath + pathInfo : pathInfo;
+	}
+
+	private static List<String> tokenize(String path) {
+		List<String> segments = new ArrayList<>();
+		int start = 0;
+		while (start < path.length()) {
+			int end = path.indexOf('/', start);
+			if (end == -1) {
+				end = path.length();
+			}
+			if (end > start) {
+				segments.add(path.substring(start, end));
+			}
+			start = end + 1;
+		}
+		return Collections.unmodifiableList(segments);
+	}
+
+	@Override
+	public String toString() {
+		return "ParsedRequestPath [path='" + this.path + "']";
+	}
+
+}
@@ -22,6 +22,7 @@ import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.ParsedRequestPath;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -141,14 +142,24 @@ public final class AntPathRequestMatcher implements RequestMatcher, RequestVaria
 	 */
 	@Override
 	public boolean matches(HttpServletRequest request) {
-		if (this.httpMethod != null && StringUtils.hasText(request.getMethod())
-				&& this.httpMethod != HttpMethod.resolve(request.getMethod())) {
+		return matches(request, null);
+	}
+
+	/**
+	 * Same as {@link #matches(HttpServletRequest)}, but reuses the
+	 * {@link ParsedRequestPath} of the request when it has already been obtained.
+	 * @param request the request to match against
+	 * @param requestPath the {@link ParsedRequestPath} of the request, or null if it
+	 * should be obtained from the request
+	 */
+	boolean matches(HttpServletRequest request, ParsedRequestPath requestPath) {
+		if (!matchesMethod(request)) {
 			return false;
 		}
 		if (this.pattern.equals(MATCH_ALL)) {
 			return true;
 		}
-		String url = getRequestPath(request);
+		ParsedRequestPath url = getRequestPath(request, requestPath);
 		return this.matcher.matches(url);
 	}
 
@@ -160,32 +171,51 @@ public final class AntPathRequestMatcher implements RequestMatcher, RequestVaria
 
 	@Override
 	public MatchResult matcher(HttpServletRequest request) {
-		if (!matches(request)) {
+		return matcher(request, null);
+	}
+
+	MatchResult matcher(HttpServletRequest request, ParsedRequestPath requestPath) {
+		if (!matchesMethod(request)) {
 			return MatchResult.notMatch();
 		}
 		if (this.matcher == null) {
 			return MatchResult.match();
 		}
-		String url = getRequestPath(request);
+		ParsedRequestPath url = getRequestPath(request, requestPath);
+		if (!this.matcher.matches(url)) {
+			return MatchResult.notMatch();
+		}
 		return MatchResult.match(this.matcher.extractUriTemplateVariables(url));
 	}
 
-	private String getRequestPath(HttpServletRequest request) {
+	private boolean matchesMethod(HttpServletRequest request) {
+		return this.httpMethod == null || !StringUtils.hasText(request.getMethod())
+				|| this.httpMethod == HttpMethod.resolve(request.getMethod());
+	}
+
+	private ParsedRequestPath getRequestPath(HttpServletRequest request, ParsedRequestPath requestPath) {
 		if (this.urlPathHelper != null) {
-			return this.urlPathHelper.getPathWithinApplication(request);
-		}
-		String url = request.getServletPath();
-		String pathInfo = request.getPathInfo();
-		if (pathInfo != null) {
-			url = StringUtils.hasLength(url) ? url + pathInfo : pathInfo;
+			return new ParsedRequestPath(this.urlPathHelper.getPathWithinApplication(request), null);
 		}
-		return url;
+		return (requestPath != null) ? requestPath : ParsedRequestPath.from(request);
 	}
 
 	public String getPattern() {
 		return this.pattern;
 	}
 
+	HttpMethod getHttpMethod() {
+		return this.httpMethod;
+	}
+
+	boolean isCaseSensitive() {
+		return this.caseSensitive;
+	}
+
+	UrlPathHelper getUrlPathHelper() {
+		return this.urlPathHelper;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (!(obj instanceof AntPathRequestMatcher)) {
@@ -217,9 +247,9 @@ public final class AntPathRequestMatcher implements RequestMatcher, RequestVaria
 
 	private interface Matcher {
 
-		boolean matches(String path);
+		boolean matches(ParsedRequestPath path);
 
-		Map<String, String> extractUriTemplateVariables(String path);
+		Map<String, String> extractUriTemplateVariables(ParsedRequestPath path);
 
 	}
 
@@ -235,13 +265,13 @@ public final class AntPathRequestMatcher implements RequestMatcher, RequestVaria
 		}
 
 		@Override
-		public boolean matches(String path) {
-			return this.antMatcher.match(this.pattern, path);
+		public boolean matches(ParsedRequestPath path) {
+			return this.antMatcher.match(this.pattern, path.getPath());
 		}
 
 		@Override
-		public Map<String, String> extractUriTemplateVariables(String path) {
-			return this.antMatcher.extractUriTemplateVariables(this.pattern, path);
+		public Map<String, String> extractUriTemplateVariables(ParsedRequestPath path) {
+			return this.antMatcher.extractUriTemplateVariables(this.pattern, path.getPath());
 		}
 
 		private static AntPathMatcher createMatcher(boolean caseSensitive) {
@@ -272,15 +302,13 @@ public final class AntPathRequestMatcher implements RequestMatcher, RequestVaria
 		}
 
 		@Override
-		public boolean matches(String path) {
-			if (!this.caseSensitive) {
-				path = path.toLowerCase();
-			}
+		public boolean matches(ParsedRequestPath requestPath) {
+			String path = this.caseSensitive ? requestPath.getPath() : requestPath.getLowerCasePath();
 			return path.startsWith(this.subpath) && (path.length() == this.length || path.charAt(this.length) == '/');
 		}
 
 		@Override
-		public Map<String, String> extractUriTemplateVariables(String path) {
+		public Map<String, String> extractUriTemplateVariables(ParsedRequestPath path) {
 			return Collections.emptyMap();
 		}
 
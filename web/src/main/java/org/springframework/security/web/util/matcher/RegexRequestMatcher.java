@@ -25,6 +25,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.log.LogMessage;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.ParsedRequestPath;
 import org.springframework.util.StringUtils;
 
 /**
@@ -81,27 +82,38 @@ public final class RegexRequestMatcher implements RequestMatcher {
 	 */
 	@Override
 	public boolean matches(HttpServletRequest request) {
+		return matches(request, null);
+	}
+
+	/**
+	 * Same as {@link #matches(HttpServletRequest)}, but reuses the
+	 * {@link ParsedRequestPath} of the request when it has already been obtained.
+	 * @param request the request to match against
+	 * @param requestPath the {@link ParsedRequestPath} of the request, or null if it
+	 * should be obtained from the request
+	 */
+	boolean matches(HttpServletRequest request, ParsedRequestPath requestPath) {
 		if (this.httpMethod != null && request.getMethod() != null
 				&& this.httpMethod != HttpMethod.resolve(request.getMethod())) {
 			return false;
 		}
-		String url = request.getServletPath();
-		String pathInfo = request.getPathInfo();
+		String url = ((requestPath != null) ? requestPath : ParsedRequestPath.from(request)).getPath();
 		String query = request.getQueryString();
-		if (pathInfo != null || query != null) {
-			StringBuilder sb = new StringBuilder(url);
-			if (pathInfo != null) {
-				sb.append(pathInfo);
-			}
-			if (query != null) {
-				sb.append('?').append(query);
-			}
-			url = sb.toString();
+		if (query != null) {
+			url = url + '?' + query;
 		}
 		logger.debug(LogMessage.format("Checking match of request : '%s'; against '%s'", url, this.pattern));
 		return this.pattern.matcher(url).matches();
 	}
 
+	Pattern getPattern() {
+		return this.pattern;
+	}
+
+	HttpMethod getHttpMethod() {
+		return this.httpMethod;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
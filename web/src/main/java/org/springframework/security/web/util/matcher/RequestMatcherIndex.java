@@ -0,0 +1,396 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.util.matcher;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.ParsedRequestPath;
+import org.springframework.util.Assert;
+
+/**
+ * An ordered list of {@link RequestMatcher}s that is precompiled into a path prefix trie
+ * and a per-{@link HttpMethod} index, so that finding the first matching
+ * {@link RequestMatcher} does not require invoking every {@link RequestMatcher} in turn.
+ * <p>
+ * The literal leading path segments of {@link AntPathRequestMatcher} and
+ * {@link RegexRequestMatcher} patterns, together with their HTTP methods, are used to
+ * narrow down the candidates for a request. {@link OrRequestMatcher} and
+ * {@link AndRequestMatcher} are indexed through their delegates. Any other
+ * {@link RequestMatcher} is considered a candidate for every request. The candidates
+ * are then evaluated in their original order, so the result is always the same as
+ * evaluating each {@link RequestMatcher} one after the other. The
+ * {@link ParsedRequestPath} of the request is obtained only once and shared by all the
+ * {@link AntPathRequestMatcher}s and {@link RegexRequestMatcher}s that are evaluated.
+ * <p>
+ * As a {@link RequestMatcher}, the index matches a request if any of the indexed
+ * {@link RequestMatcher}s matches it, like an {@link OrRequestMatcher}. Use
+ * {@link #match(HttpServletRequest)} to find out which {@link RequestMatcher} matched.
+ *
+ * @since 5.6
+ */
+public final class RequestMatcherIndex implements RequestMatcher {
+
+	private static final String MATCH_ALL = "/**";
+
+	private static final String REGEX_META_CHARACTERS = "\\.[]{}()*+?^$|";
+
+	private static final String REGEX_OPTIONAL_QUANTIFIERS = "?*{";
+
+	private final List<RequestMatcher> requestMatchers;
+
+	private final Node root = new Node();
+
+	private final Map<HttpMethod, BitSet> methodCandidates = new EnumMap<>(HttpMethod.class);
+
+	/**
+	 * Creates a new instance
+	 * @param requestMatchers the {@link RequestMatcher}s to index, in the order they
+	 * should be evaluated
+	 */
+	public RequestMatcherIndex(List<RequestMatcher> requestMatchers) {
+		Assert.notNull(requestMatchers, "requestMatchers cannot be null");
+		Assert.isTrue(!requestMatchers.contains(null), "requestMatchers cannot contain null values");
+		this.requestMatchers = new ArrayList<>(requestMatchers);
+		for (HttpMethod method : HttpMethod.values()) {
+			this.methodCandidates.put(method, new BitSet(this.requestMatchers.size()));
+		}
+		for (int i = 0; i < this.requestMatchers.size(); i++) {
+			RequestMatcher requestMatcher = this.requestMatchers.get(i);
+			for (List<String> segments : getPathPrefixes(requestMatcher)) {
+				this.root.getOrCreate(segments).candidates.set(i);
+			}
+			Set<HttpMethod> methods = getHttpMethods(requestMatcher);
+			for (HttpMethod method : (methods != null) ? methods : EnumSet.allOf(HttpMethod.class)) {
+				this.methodCandidates.get(method).set(i);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the first {@link RequestMatcher} that matches the request.
+	 * @param request the request to match
+	 * @return the index of the first matching {@link RequestMatcher} or -1 if none
+	 * matches
+	 */
+	public int indexOf(HttpServletRequest request) {
+		ParsedRequestPath path = ParsedRequestPath.from(request);
+		BitSet candidates = getCandidates(request, path);
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			if (matches(this.requestMatchers.get(i), request, path)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds the first {@link RequestMatcher} that matches the request, together with the
+	 * {@link MatchResult} it produced.
+	 * @param request the request to match
+	 * @return the {@link Match} of the first matching {@link RequestMatcher} or null if
+	 * none matches
+	 */
+	public Match match(HttpServletRequest request) {
+		ParsedRequestPath path = ParsedRequestPath.from(request);
+		BitSet candidates = getCandidates(request, path);
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			MatchResult result = matcher(this.requestMatchers.get(i), request, path);
+			if (result.isMatch()) {
+				return new Match(i, this.requestMatchers.get(i), result);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean matches(HttpServletRequest request) {
+		return indexOf(request) != -1;
+	}
+
+	@Override
+	public MatchResult matcher(HttpServletRequest request) {
+		Match match = match(request);
+		return (match != null) ? match.getMatchResult() : MatchResult.notMatch();
+	}
+
+	/**
+	 * @return the indexed {@link RequestMatcher}s, in the order they are evaluated
+	 */
+	public List<RequestMatcher> getRequestMatchers() {
+		return Collections.unmodifiableList(this.requestMatchers);
+	}
+
+	private BitSet getCandidates(HttpServletRequest request, ParsedRequestPath path) {
+		BitSet candidates = (BitSet) this.root.candidates.clone();
+		Node node = this.root;
+		for (String segment : path.getSegments()) {
+			node = node.children.get(segment);
+			if (node == null) {
+				break;
+			}
+			candidates.or(node.candidates);
+		}
+		HttpMethod method = HttpMethod.resolve(request.getMethod());
+		if (method != null) {
+			candidates.and(this.methodCandidates.get(method));
+		}
+		return candidates;
+	}
+
+	private static boolean matches(RequestMatcher requestMatcher, HttpServletRequest request, ParsedRequestPath path) {
+		if (requestMatcher instanceof AntPathRequestMatcher) {
+			return ((AntPathRequestMatcher) requestMatcher).matches(request, path);
+		}
+		if (requestMatcher instanceof RegexRequestMatcher) {
+			return ((RegexRequestMatcher) requestMatcher).matches(request, path);
+		}
+		if (requestMatcher instanceof OrRequestMatcher) {
+			for (RequestMatcher delegate : ((OrRequestMatcher) requestMatcher).getRequestMatchers()) {
+				if (matches(delegate, request, path)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if (requestMatcher instanceof AndRequestMatcher) {
+			for (RequestMatcher delegate : ((AndRequestMatcher) requestMatcher).getRequestMatchers()) {
+				if (!matches(delegate, request, path)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return requestMatcher.matches(request);
+	}
+
+	private static MatchResult matcher(RequestMatcher requestMatcher, HttpServletRequest request, ParsedRequestPath path) {
+		if (requestMatcher instanceof AntPathRequestMatcher) {
+			return ((AntPathRequestMatcher) requestMatcher).matcher(request, path);
+		}
+		if (requestMatcher instanceof RegexRequestMatcher || requestMatcher instanceof OrRequestMatcher
+				|| requestMatcher instanceof AndRequestMatcher) {
+			return matches(requestMatcher, request, path) ? MatchResult.match() : MatchResult.notMatch();
+		}
+		return requestMatcher.matcher(request);
+	}
+
+	/**
+	 * Returns the alternative literal leading path segments that a request path must
+	 * start with for the {@link RequestMatcher} to match. An empty list of segments
+	 * means that any path may match.
+	 */
+	private static List<List<String>> getPathPrefixes(RequestMatcher requestMatcher) {
+		if (requestMatcher instanceof AntPathRequestMatcher) {
+			AntPathRequestMatcher ant = (AntPathRequestMatcher) requestMatcher;
+			if (!ant.isCaseSensitive() || ant.getUrlPathHelper() != null || MATCH_ALL.equals(ant.getPattern())) {
+				return Collections.singletonList(Collections.emptyList());
+			}
+			return Collections.singletonList(getAntPathPrefix(ant.getPattern()));
+		}
+		if (requestMatcher instanceof RegexRequestMatcher) {
+			Pattern pattern = ((RegexRequestMatcher) requestMatcher).getPattern();
+			if (pattern.flags() != 0) {
+				return Collections.singletonList(Collections.emptyList());
+			}
+			return Collections.singletonList(getRegexPathPrefix(pattern.pattern()));
+		}
+		if (requestMatcher instanceof OrRequestMatcher) {
+			List<List<String>> prefixes = new ArrayList<>();
+			for (RequestMatcher delegate : ((OrRequestMatcher) requestMatcher).getRequestMatchers()) {
+				prefixes.addAll(getPathPrefixes(delegate));
+			}
+			return prefixes;
+		}
+		if (requestMatcher instanceof AndRequestMatcher) {
+			// every delegate has to match, so the most specific delegate is enough
+			List<List<String>> mostSpecific = Collections.singletonList(Collections.emptyList());
+			for (RequestMatcher delegate : ((AndRequestMatcher) requestMatcher).getRequestMatchers()) {
+				List<List<String>> prefixes = getPathPrefixes(delegate);
+				if (getMinimumDepth(prefixes) > getMinimumDepth(mostSpecific)) {
+					mostSpecific = prefixes;
+				}
+			}
+			return mostSpecific;
+		}
+		return Collections.singletonList(Collections.emptyList());
+	}
+
+	private static int getMinimumDepth(List<List<String>> prefixes) {
+		int depth = Integer.MAX_VALUE;
+		for (List<String> prefix : prefixes) {
+			depth = Math.min(depth, prefix.size());
+		}
+		return depth;
+	}
+
+	private static List<String> getAntPathPrefix(String pattern) {
+		int wildcard = indexOfAny(pattern, "*?{");
+		String literal = (wildcard != -1) ? pattern.substring(0, pattern.lastIndexOf('/', wildcard) + 1) : pattern;
+		return tokenize(literal);
+	}
+
+	private static List<String> getRegexPathPrefix(String regex) {
+		if (regex.indexOf('|') != -1) {
+			return Collections.emptyList();
+		}
+		int metaCharacter = indexOfAny(regex, REGEX_META_CHARACTERS);
+		if (metaCharacter == -1) {
+			return tokenize(regex);
+		}
+		int literalEnd = metaCharacter;
+		if (REGEX_OPTIONAL_QUANTIFIERS.indexOf(regex.charAt(metaCharacter)) != -1) {
+			// the last literal character is optional
+			literalEnd--;
+		}
+		if (literalEnd <= 0 || regex.charAt(0) != '/') {
+			return Collections.emptyList();
+		}
+		return tokenize(regex.substring(0, regex.lastIndexOf('/', literalEnd - 1) + 1));
+	}
+
+	private static int indexOfAny(String value, String characters) {
+		for (int i = 0; i < value.length(); i++) {
+			if (characters.indexOf(value.charAt(i)) != -1) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static List<String> tokenize(String path) {
+		return new ParsedRequestPath(path, null).getSegments();
+	}
+
+	/**
+	 * Returns the {@link HttpMethod}s that a request may use for the
+	 * {@link RequestMatcher} to match, or null if any method may match.
+	 */
+	private static Set<HttpMethod> getHttpMethods(RequestMatcher requestMatcher) {
+		if (requestMatcher instanceof AntPathRequestMatcher) {
+			return toHttpMethods(((AntPathRequestMatcher) requestMatcher).getHttpMethod());
+		}
+		if (requestMatcher instanceof RegexRequestMatcher) {
+			return toHttpMethods(((RegexRequestMatcher) requestMatcher).getHttpMethod());
+		}
+		if (requestMatcher instanceof OrRequestMatcher) {
+			Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+			for (RequestMatcher delegate : ((OrRequestMatcher) requestMatcher).getRequestMatchers()) {
+				Set<HttpMethod> delegateMethods = getHttpMethods(delegate);
+				if (delegateMethods == null) {
+					return null;
+				}
+				methods.addAll(delegateMethods);
+			}
+			return methods;
+		}
+		if (requestMatcher instanceof AndRequestMatcher) {
+			Set<HttpMethod> methods = null;
+			for (RequestMatcher delegate : ((AndRequestMatcher) requestMatcher).getRequestMatchers()) {
+				Set<HttpMethod> delegateMethods = getHttpMethods(delegate);
+				if (delegateMethods != null) {
+					if (methods == null) {
+						methods = EnumSet.copyOf(delegateMethods);
+					}
+					else {
+						methods.retainAll(delegateMethods);
+					}
+				}
+			}
+			return methods;
+		}
+		return null;
+	}
+
+	private static Set<HttpMethod> toHttpMethods(HttpMethod method) {
+		return (method != null) ? EnumSet.of(method) : null;
+	}
+
+	@Override
+	public String toString() {
+		return "RequestMatcherIndex " + this.requestMatchers;
+	}
+
+	/**
+	 * The first {@link RequestMatcher} of a {@link RequestMatcherIndex} that matched a
+	 * request.
+	 */
+	public static final class Match {
+
+		private final int index;
+
+		private final RequestMatcher requestMatcher;
+
+		private final MatchResult matchResult;
+
+		private Match(int index, RequestMatcher requestMatcher, MatchResult matchResult) {
+			this.index = index;
+			this.requestMatcher = requestMatcher;
+			this.matchResult = matchResult;
+		}
+
+		/**
+		 * @return the position of the matching {@link RequestMatcher} in the index
+		 */
+		public int getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * @return the matching {@link RequestMatcher}
+		 */
+		public RequestMatcher getRequestMatcher() {
+			return this.requestMatcher;
+		}
+
+		/**
+		 * @return the {@link MatchResult} produced by the matching {@link RequestMatcher}
+		 */
+		public MatchResult getMatchResult() {
+			return this.matchResult;
+		}
+
+	}
+
+	private static final class Node {
+
+		private final Map<String, Node> children = new HashMap<>();
+
+		private final BitSet candidates = new BitSet();
+
+		private Node getOrCreate(List<String> segments) {
+			Node node = this;
+			for (String segment : segments) {
+				node = node.children.computeIfAbsent(segment, (s) -> new Node());
+			}
+			return node;
+		}
+
+	}
+
+}
@@ -40,16 +40,19 @@ import org.springframework.security.web.firewall.FirewalledRequest;
 import org.springframework.security.web.firewall.HttpFirewall;
 import org.springframework.security.web.firewall.RequestRejectedException;
 import org.springframework.security.web.firewall.RequestRejectedHandler;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
@@ -252,4 +255,29 @@ public class FilterChainProxyTests {
 		verify(rjh).handle(eq(this.request), eq(this.response), eq((requestRejectedException)));
 	}
 
+	@Test
+	public void doFilterWhenIndexFilterChainsThenFirstMatchingChainInvoked() throws Exception {
+		Filter apiFilter = mock(Filter.class);
+		Filter anyFilter = mock(Filter.class);
+		given(this.matcher.matches(any(HttpServletRequest.class))).willReturn(false);
+		this.fcp = new FilterChainProxy(Arrays.asList(
+				new DefaultSecurityFilterChain(new AntPathRequestMatcher("/admin/**"), this.filter),
+				new DefaultSecurityFilterChain(this.matcher, this.filter),
+				new DefaultSecurityFilterChain(new AntPathRequestMatcher("/api/**", "GET"), apiFilter),
+				new DefaultSecurityFilterChain(new AntPathRequestMatcher("/**"), anyFilter)));
+		this.fcp.setIndexFilterChains(true);
+		this.fcp.doFilter(this.request, this.response, this.chain);
+		verify(anyFilter).doFilter(any(), any(), any());
+		this.request.setServletPath("/api/messages");
+		this.fcp.doFilter(this.request, this.response, this.chain);
+		verify(apiFilter).doFilter(any(), any(), any());
+		verify(this.matcher, times(2)).matches(any(HttpServletRequest.class));
+		verifyZeroInteractions(this.filter);
+	}
+
+	@Test
+	public void setIndexFilterChainsWhenNoFilterChainsThenException() {
+		assertThatIllegalStateException().isThrownBy(() -> new FilterChainProxy().setIndexFilterChains(true));
+	}
+
 }
@@ -25,6 +25,7 @@ import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.servlet.util.matcher.MvcRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
@@ -83,4 +84,23 @@ public class RequestMatcherDelegatingAuthorizationManagerTests {
 		assertThat(abstain).isNull();
 	}
 
+	@Test
+	public void checkWhenAntPathMappingsConfiguredThenDelegatesFirstMatchingManagerWithVariables() {
+		RequestMatcherDelegatingAuthorizationManager manager = RequestMatcherDelegatingAuthorizationManager.builder()
+				.add(new AntPathRequestMatcher("/admin/**"), (a, o) -> new AuthorizationDecision(false))
+				.add(new AntPathRequestMatcher("/users/{username}/**"),
+						(a, o) -> new AuthorizationDecision(a.get().getName().equals(o.getVariables().get("username"))))
+				.add(new AntPathRequestMatcher("/**"), (a, o) -> new AuthorizationDecision(true)).build();
+		Supplier<Authentication> authentication = () -> new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		MockHttpServletRequest request = new MockHttpServletRequest(null, "/users/user/messages");
+		request.setServletPath("/users/user/messages");
+		assertThat(manager.check(authentication, request).isGranted()).isTrue();
+		request.setServletPath("/users/other/messages");
+		assertThat(manager.check(authentication, request).isGranted()).isFalse();
+		request.setServletPath("/admin/users");
+		assertThat(manager.check(authentication, request).isGranted()).isFalse();
+		request.setServletPath("/messages");
+		assertThat(manager.check(authentication, request).isGranted()).isTrue();
+	}
+
 }
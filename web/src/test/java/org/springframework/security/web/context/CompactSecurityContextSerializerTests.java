@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.context;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.RememberMeAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CompactSecurityContextSerializer}
+ */
+public class CompactSecurityContextSerializerTests {
+
+	private final CompactSecurityContextSerializer serializer = new CompactSecurityContextSerializer();
+
+	@Test
+	public void serializeWhenUserPrincipalThenRoundTripsAndSmallerThanJavaSerialization() throws Exception {
+		User user = new User("user", "password", true, true, false, true,
+				AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+		user.eraseCredentials();
+		UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null,
+				user.getAuthorities());
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSession(new MockHttpSession(null, "session-id"));
+		authentication.setDetails(new WebAuthenticationDetails(request));
+		SecurityContext context = new SecurityContextImpl(authentication);
+		byte[] serialized = this.serializer.serializeToByteArray(context);
+		SecurityContext deserialized = this.serializer.deserializeFromByteArray(serialized);
+		assertThat(deserialized).isEqualTo(context);
+		User deserializedUser = (User) deserialized.getAuthentication().getPrincipal();
+		assertThat(deserializedUser.getPassword()).isNull();
+		assertThat(deserializedUser.isCredentialsNonExpired()).isFalse();
+		assertThat(deserializedUser.getAuthorities()).isEqualTo(user.getAuthorities());
+		assertThat(serialized.length).isLessThan(new DefaultSerializer().serializeToByteArray(context).length / 4);
+	}
+
+	@Test
+	public void serializeWhenUnauthenticatedStringPrincipalThenRoundTrips() throws Exception {
+		SecurityContext context = new SecurityContextImpl(
+				new UsernamePasswordAuthenticationToken("user", "password"));
+		SecurityContext deserialized = this.serializer
+				.deserializeFromByteArray(this.serializer.serializeToByteArray(context));
+		assertThat(deserialized).isEqualTo(context);
+		assertThat(deserialized.getAuthentication().isAuthenticated()).isFalse();
+	}
+
+	@Test
+	public void serializeWhenEmptyContextThenRoundTrips() throws Exception {
+		SecurityContext context = new SecurityContextImpl();
+		assertThat(this.serializer.deserializeFromByteArray(this.serializer.serializeToByteArray(context)))
+				.isEqualTo(context);
+	}
+
+	@Test
+	public void serializeWhenOtherAuthenticationThenJavaSerialized() throws Exception {
+		SecurityContext context = new SecurityContextImpl(
+				new RememberMeAuthenticationToken("key", "user", AuthorityUtils.createAuthorityList("ROLE_USER")));
+		SecurityContext deserialized = this.serializer
+				.deserializeFromByteArray(this.serializer.serializeToByteArray(context));
+		assertThat(deserialized).isEqualTo(context);
+		assertThat(deserialized.getAuthentication()).isInstanceOf(RememberMeAuthenticationToken.class);
+	}
+
+}
@@ -55,7 +55,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -105,6 +107,45 @@ public class HttpSessionSecurityContextRepositoryTests {
 		verify(request, never()).getSession();
 	}
 
+	@Test
+	public void loadDeferredContextWhenContextNotUsedThenSessionNotAccessedOnCommit() throws Exception {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, response);
+		DeferredSecurityContext deferredContext = repo.loadDeferredContext(holder);
+		SecurityContextHolder.getContextHolderStrategy().setDeferredContext(deferredContext);
+		holder.getResponse().sendError(HttpServletResponse.SC_BAD_REQUEST);
+		assertThat(deferredContext.isLoaded()).isFalse();
+		verify(request, never()).getSession(anyBoolean());
+		verify(request, never()).getSession();
+	}
+
+	@Test
+	public void loadDeferredContextWhenObtainedThenLoadedFromSession() {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		SecurityContext context = new SecurityContextImpl(this.testToken);
+		request.getSession().setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+		DeferredSecurityContext deferredContext = repo.loadDeferredContext(holder);
+		assertThat(deferredContext.isLoaded()).isFalse();
+		assertThat(deferredContext.get()).isSameAs(context);
+		assertThat(deferredContext.isLoaded()).isTrue();
+	}
+
+	@Test
+	public void saveContextWhenDeferredContextReplacedThenSaved() {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+		repo.loadDeferredContext(holder);
+		SecurityContext context = new SecurityContextImpl(this.testToken);
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+		assertThat(request.getSession().getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+				.isSameAs(context);
+	}
+
 	@Test
 	public void sessionIsntCreatedIfContextDoesntChange() {
 		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
@@ -117,6 +158,63 @@ public class HttpSessionSecurityContextRepositoryTests {
 		assertThat(request.getSession(false)).isNull();
 	}
 
+	@Test
+	public void saveContextWhenSerializerThenSerializedContextStoredAndLoaded() {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		CompactSecurityContextSerializer serializer = new CompactSecurityContextSerializer();
+		repo.setSecurityContextSerializer(serializer, serializer);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+		repo.loadContext(holder);
+		SecurityContext context = new SecurityContextImpl(this.testToken);
+		repo.saveContext(context, holder.getRequest(), holder.getResponse());
+		assertThat(request.getSession().getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+				.isInstanceOf(byte[].class);
+		holder = new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+		assertThat(repo.loadContext(holder)).isEqualTo(context);
+	}
+
+	@Test
+	public void saveContextWhenSerializerThenPrincipalNameIndexed() {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		CompactSecurityContextSerializer serializer = new CompactSecurityContextSerializer();
+		repo.setSecurityContextSerializer(serializer, serializer);
+		String principalNameIndexName = "org.springframework.session.FindByIndexNameSessionRepository"
+				+ ".PRINCIPAL_NAME_INDEX_NAME";
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+		repo.loadContext(holder);
+		repo.saveContext(new SecurityContextImpl(this.testToken), holder.getRequest(), holder.getResponse());
+		assertThat(request.getSession().getAttribute(principalNameIndexName)).isEqualTo("someone");
+		holder = new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+		repo.loadContext(holder);
+		repo.saveContext(SecurityContextHolder.createEmptyContext(), holder.getRequest(), holder.getResponse());
+		assertThat(request.getSession().getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+				.isNull();
+		assertThat(request.getSession().getAttribute(principalNameIndexName)).isNull();
+	}
+
+	@Test
+	public void saveContextWhenSerializedContentUnchangedThenNotStoredAgain() throws Exception {
+		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
+		CompactSecurityContextSerializer serializer = new CompactSecurityContextSerializer();
+		repo.setSecurityContextSerializer(serializer, serializer);
+		UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken("user",
+				"password", AuthorityUtils.createAuthorityList("ROLE_USER"));
+		HttpSession session = mock(HttpSession.class);
+		given(session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+				.willReturn(serializer.serializeToByteArray(new SecurityContextImpl(authentication)));
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setSession(session);
+		HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, new MockHttpServletResponse());
+		assertThat(repo.loadContext(holder).getAuthentication()).isEqualTo(authentication);
+		repo.saveContext(new SecurityContextImpl(authentication), holder.getRequest(), holder.getResponse());
+		verify(session, never()).setAttribute(any(), any());
+		repo.saveContext(new SecurityContextImpl(this.testToken), holder.getRequest(), holder.getResponse());
+		verify(session).setAttribute(eq(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY),
+				any(byte[].class));
+	}
+
 	@Test
 	public void sessionIsntCreatedIfAllowSessionCreationIsFalse() {
 		HttpSessionSecurityContextRepository repo = new HttpSessionSecurityContextRepository();
@@ -21,6 +21,7 @@ import java.io.IOException;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpSession;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -38,7 +39,9 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 public class SecurityContextPersistenceFilterTests {
 
@@ -129,4 +132,43 @@ public class SecurityContextPersistenceFilterTests {
 		assertThat(request.getSession(false)).isNull();
 	}
 
+	@Test
+	public void doFilterWhenDeferredContextNotUsedThenSessionNotAccessed() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		HttpSession session = mock(HttpSession.class);
+		request.setSession(session);
+		SecurityContextPersistenceFilter filter = new SecurityContextPersistenceFilter();
+		filter.setDeferContextLoading(true);
+		filter.doFilter(request, new MockHttpServletResponse(), mock(FilterChain.class));
+		verifyNoInteractions(session);
+	}
+
+	@Test
+	public void doFilterWhenDeferredContextObtainedThenLoadedAndNotSavedIfUnchanged() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		HttpSession session = mock(HttpSession.class);
+		request.setSession(session);
+		SecurityContext context = new SecurityContextImpl(this.testToken);
+		given(session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+				.willReturn(context);
+		SecurityContextPersistenceFilter filter = new SecurityContextPersistenceFilter();
+		filter.setDeferContextLoading(true);
+		FilterChain chain = (request1, response1) -> assertThat(SecurityContextHolder.getContext()).isSameAs(context);
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+		verify(session, never()).setAttribute(any(), any());
+	}
+
+	@Test
+	public void doFilterWhenDeferredContextReplacedThenSaved() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		SecurityContext context = new SecurityContextImpl(this.testToken);
+		SecurityContextPersistenceFilter filter = new SecurityContextPersistenceFilter();
+		filter.setDeferContextLoading(true);
+		FilterChain chain = (request1, response1) -> SecurityContextHolder.setContext(context);
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+		assertThat(request.getSession().getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY))
+				.isSameAs(context);
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+	}
+
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.util;
+
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.firewall.DefaultHttpFirewall;
+import org.springframework.security.web.firewall.FirewalledRequest;
+import org.springframework.security.web.firewall.StrictHttpFirewall;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ParsedRequestPath}
+ */
+public class ParsedRequestPathTests {
+
+	@Test
+	public void getPathWhenServletPathAndPathInfoThenConcatenated() {
+		assertThat(new ParsedRequestPath("/servlet", "/info").getPath()).isEqualTo("/servlet/info");
+		assertThat(new ParsedRequestPath("", "/info").getPath()).isEqualTo("/info");
+		assertThat(new ParsedRequestPath(null, "/info").getPath()).isEqualTo("/info");
+		assertThat(new ParsedRequestPath("/servlet", null).getPath()).isEqualTo("/servlet");
+		assertThat(new ParsedRequestPath(null, null).getPath()).isEmpty();
+	}
+
+	@Test
+	public void getSegmentsWhenEmptySegmentsThenIgnored() {
+		assertThat(new ParsedRequestPath("/a//b/", "c").getSegments()).containsExactly("a", "b", "c");
+		assertThat(new ParsedRequestPath("/", null).getSegments()).isEmpty();
+	}
+
+	@Test
+	public void getLowerCasePathThenLowerCase() {
+		assertThat(new ParsedRequestPath("/Servlet", "/Info").getLowerCasePath()).isEqualTo("/servlet/info");
+	}
+
+	@Test
+	public void fromWhenNotFirewalledThenParsedEachTime() {
+		MockHttpServletRequest request = createRequest("/servlet", "/info");
+		ParsedRequestPath path = ParsedRequestPath.from(request);
+		assertThat(path.getPath()).isEqualTo("/servlet/info");
+		assertThat(ParsedRequestPath.from(request)).isNotSameAs(path);
+	}
+
+	@Test
+	public void fromWhenFirewalledThenReused() {
+		FirewalledRequest firewalled = new StrictHttpFirewall()
+				.getFirewalledRequest(createRequest("/servlet", "/info"));
+		HttpServletRequestWrapper wrapper = new HttpServletRequestWrapper(firewalled);
+		ParsedRequestPath path = ParsedRequestPath.from(wrapper);
+		assertThat(path.getPath()).isEqualTo("/servlet/info");
+		assertThat(ParsedRequestPath.from(firewalled)).isSameAs(path);
+		assertThat(ParsedRequestPath.from(wrapper)).isSameAs(path);
+	}
+
+	@Test
+	public void fromWhenPathChangedThenParsedAgain() {
+		MockHttpServletRequest request = createRequest("/servlet;jsessionid=1", "/info");
+		FirewalledRequest firewalled = new DefaultHttpFirewall().getFirewalledRequest(request);
+		ParsedRequestPath path = ParsedRequestPath.from(firewalled);
+		assertThat(path.getPath()).isEqualTo("/servlet/info");
+		firewalled.reset();
+		assertThat(ParsedRequestPath.from(firewalled).getPath()).isEqualTo("/servlet;jsessionid=1/info");
+	}
+
+	@Test
+	public void fromWhenWrapperChangesPathThenParsedAgain() {
+		FirewalledRequest firewalled = new StrictHttpFirewall()
+				.getFirewalledRequest(createRequest("/servlet", "/info"));
+		ParsedRequestPath path = ParsedRequestPath.from(firewalled);
+		HttpServletRequestWrapper wrapper = new HttpServletRequestWrapper(firewalled) {
+			@Override
+			public String getServletPath() {
+				return "/forwarded";
+			}
+		};
+		assertThat(ParsedRequestPath.from(wrapper)).isNotSameAs(path);
+		assertThat(ParsedRequestPath.from(wrapper).getPath()).isEqualTo("/forwarded/info");
+	}
+
+	private static MockHttpServletRequest createRequest(String servletPath, String pathInfo) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", servletPath + pathInfo);
+		request.setServletPath(servletPath);
+		request.setPathInfo(pathInfo);
+		return request;
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.web.util.matcher;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests for {@link RequestMatcherIndex}
+ */
+public class RequestMatcherIndexTests {
+
+	@Test
+	public void constructorWhenNullThenException() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new RequestMatcherIndex(null));
+	}
+
+	@Test
+	public void constructorWhenContainsNullThenException() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new RequestMatcherIndex(Collections.singletonList(null)));
+	}
+
+	@Test
+	public void indexOfWhenAntPatternsThenFirstMatch() {
+		RequestMatcherIndex index = new RequestMatcherIndex(Arrays.asList(new AntPathRequestMatcher("/api/admin/**"),
+				new AntPathRequestMatcher("/api/**"), new AntPathRequestMatcher("/api/admin/users"),
+				new AntPathRequestMatcher("/**")));
+		assertThat(index.indexOf(createRequest("GET", "/api/admin/users"))).isEqualTo(0);
+		assertThat(index.indexOf(createRequest("GET", "/api/messages"))).isEqualTo(1);
+		assertThat(index.indexOf(createRequest("GET", "/api"))).isEqualTo(1);
+		assertThat(index.indexOf(createRequest("GET", "/apix"))).isEqualTo(3);
+		assertThat(index.indexOf(createRequest("GET", ""))).isEqualTo(3);
+	}
+
+	@Test
+	public void indexOfWhenNoMatchThenMinusOne() {
+		RequestMatcherIndex index = new RequestMatcherIndex(
+				Arrays.asList(new AntPathRequestMatcher("/api/**"), new RegexRequestMatcher("/login.*", null)));
+		assertThat(index.indexOf(createRequest("GET", "/other"))).isEqualTo(-1);
+	}
+
+	@Test
+	public void indexOfWhenWildcardSegmentsThenMatchesLikeMatcher() {
+		RequestMatcherIndex index = new RequestMatcherIndex(Arrays.asList(new AntPathRequestMatcher("/a/*/c"),
+				new AntPathRequestMatcher("/a/{b}/d"), new AntPathRequestMatcher("/**/e"),
+				new AntPathRequestMatcher("/f*/**")));
+		assertThat(index.indexOf(createRequest("GET", "/a/b/c"))).isEqualTo(0);
+		assertThat(index.indexOf(createRequest("GET", "/a/b/d"))).isEqualTo(1);
+		assertThat(index.indexOf(createRequest("GET", "/x/y/e"))).isEqualTo(2);
+		assertThat(index.indexOf(createRequest("GET", "/foo/bar"))).isEqualTo(3);
+	}
+
+	@Test
+	public void indexOfWhenHttpMethodThenOnlyMatchingMethod() {
+		RequestMatcherIndex index = new RequestMatcherIndex(
+				Arrays.asList(new AntPathRequestMatcher("/api/**", "POST"), new AntPathRequestMatcher("/api/**")));
+		assertThat(index.indexOf(createRequest("POST", "/api/messages"))).isEqualTo(0);
+		assertThat(index.indexOf(createRequest("GET", "/api/messages"))).isEqualTo(1);
+	}
+
+	@Test
+	public void indexOfWhenCaseInsensitiveThenMatchesLikeMatcher() {
+		RequestMatcherIndex index = new RequestMatcherIndex(
+				Arrays.asList(new AntPathRequestMatcher("/API/**", null, false),
+						new RegexRequestMatcher("/LOGIN", null, true)));
+		assertThat(index.indexOf(createRequest("GET", "/api/messages"))).isEqualTo(0);
+		assertThat(index.indexOf(createRequest("GET", "/login"))).isEqualTo(1);
+	}
+
+	@Test
+	public void indexOfWhenRegexThenMatchesLikeMatcher() {
+		RequestMatcherIndex index = new RequestMatcherIndex(Arrays.asList(
+				new RegexRequestMatcher("/api/v1/.*", null), new RegexRequestMatcher("/api/v2?/x", null),
+				new RegexRequestMatcher("/a/.*|/b/.*", null), new RegexRequestMatcher("/search\\?q=.*", null)));
+		assertThat(index.indexOf(createRequest("GET", "/api/v1/messages"))).isEqualTo(0);
+		assertThat(index.indexOf(createRequest("GET", "/api/v/x"))).isEqualTo(1);
+		assertThat(index.indexOf(createRequest("GET", "/b/c"))).isEqualTo(2);
+		MockHttpServletRequest request = createRequest("GET", "/search");
+		request.setQueryString("q=spring");
+		assertThat(index.indexOf(request)).isEqualTo(3);
+	}
+
+	@Test
+	public void indexOfWhenOrAndMatchersThenMatchesLikeMatcher() {
+		RequestMatcher or = new OrRequestMatcher(new AntPathRequestMatcher("/a/**"),
+				new AntPathRequestMatcher("/b/**", "POST"));
+		RequestMatcher and = new AndRequestMatcher(new AntPathRequestMatcher("/c/**"),
+				new AntPathRequestMatcher("/c/d/**", "GET"));
+		RequestMatcherIndex index = new RequestMatcherIndex(Arrays.asList(or, and));
+		assertThat(index.indexOf(createRequest("GET", "/a/x"))).isEqualTo(0);
+		assertThat(index.indexOf(createRequest("POST", "/b/x"))).isEqualTo(0);
+		assertThat(index.indexOf(createRequest("GET", "/b/x"))).isEqualTo(-1);
+		assertThat(index.indexOf(createRequest("GET", "/c/d/e"))).isEqualTo(1);
+		assertThat(index.indexOf(createRequest("POST", "/c/d/e"))).isEqualTo(-1);
+	}
+
+	@Test
+	public void indexOfWhenCustomMatcherThenAlwaysCandidate() {
+		RequestMatcher custom = mock(RequestMatcher.class);
+		given(custom.matches(any())).willReturn(true);
+		RequestMatcherIndex index = new RequestMatcherIndex(
+				Arrays.asList(new AntPathRequestMatcher("/api/**"), custom, new AntPathRequestMatcher("/**")));
+		assertThat(index.indexOf(createRequest("GET", "/api/messages"))).isEqualTo(0);
+		verifyNoInteractions(custom);
+		assertThat(index.indexOf(createRequest("GET", "/other"))).isEqualTo(1);
+		verify(custom).matches(any(HttpServletRequest.class));
+	}
+
+	@Test
+	public void indexOfWhenNonIndexedMatchersSkippedThenNotInvoked() {
+		RequestMatcher api = mock(RequestMatcher.class);
+		RequestMatcherIndex index = new RequestMatcherIndex(Arrays.asList(
+				new AndRequestMatcher(new AntPathRequestMatcher("/api/**"), api), new AntPathRequestMatcher("/**")));
+		assertThat(index.indexOf(createRequest("GET", "/other"))).isEqualTo(1);
+		verifyNoInteractions(api);
+	}
+
+	@Test
+	public void matchWhenMatchThenReportsMatcherAndVariables() {
+		AntPathRequestMatcher users = new AntPathRequestMatcher("/users/{username}");
+		RequestMatcherIndex index = new RequestMatcherIndex(
+				Arrays.asList(new AntPathRequestMatcher("/admin/**"), users, new AntPathRequestMatcher("/**")));
+		RequestMatcherIndex.Match match = index.match(createRequest("GET", "/users/rob"));
+		assertThat(match.getIndex()).isEqualTo(1);
+		assertThat(match.getRequestMatcher()).isSameAs(users);
+		assertThat(match.getMatchResult().getVariables()).containsEntry("username", "rob");
+		assertThat(index.matcher(createRequest("GET", "/users/rob")).getVariables()).containsEntry("username",
+				"rob");
+	}
+
+	@Test
+	public void matchWhenNoMatchThenNull() {
+		RequestMatcherIndex index = new RequestMatcherIndex(Arrays.asList(new AntPathRequestMatcher("/admin/**")));
+		assertThat(index.match(createRequest("GET", "/users/rob"))).isNull();
+		assertThat(index.matcher(createRequest("GET", "/users/rob")).isMatch()).isFalse();
+		assertThat(index.matches(createRequest("GET", "/users/rob"))).isFalse();
+		assertThat(index.matches(createRequest("GET", "/admin"))).isTrue();
+	}
+
+	@Test
+	public void matchWhenCustomMatcherThenUsesItsMatchResult() {
+		RequestMatcher custom = mock(RequestMatcher.class);
+		given(custom.matcher(any())).willReturn(RequestMatcher.MatchResult.match(Collections.singletonMap("a", "b")));
+		RequestMatcherIndex index = new RequestMatcherIndex(Arrays.asList(custom));
+		assertThat(index.match(createRequest("GET", "/")).getMatchResult().getVariables()).containsEntry("a", "b");
+	}
+
+	private static MockHttpServletRequest createRequest(String method, String servletPath) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, servletPath);
+		request.setServletPath(servletPath);
+		return request;
+	}
+
+}